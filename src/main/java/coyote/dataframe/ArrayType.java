@@ -112,8 +112,15 @@ public class ArrayType implements FieldType {
 
   /**
    * Encode the payload portion of the array (i.e., no name or type)
+   * 
+   * <p>The array may be given as an array of objects or as a frame of 
+   * (unnamed) fields such as that returned from {@link #decode(byte[])}.
    */
   public byte[] encode(Object obj) {
+    if (obj instanceof DataFrame) {
+      return encode((DataFrame)obj);
+    }
+
     final Object[] ary = (Object[])obj;
 
     final ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -153,6 +160,48 @@ public class ArrayType implements FieldType {
 
 
 
+  /**
+   * Encode the fields of the given frame as the elements of an array.
+   * 
+   * <p>The fields are encoded in order using their existing types and values; 
+   * any names are not part of the array encoding and are dropped.
+   * 
+   * @param frame the frame whose fields are the elements of the array
+   * 
+   * @return the payload portion of the array
+   */
+  private byte[] encode(DataFrame frame) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    for (int x = 0; x < frame.getFieldCount(); x++) {
+      final DataField field = frame.getField(x);
+      final byte[] data = field.getValue();
+
+      // Write the type field
+      out.write(ByteUtil.renderShortByte(field.getType()));
+
+      if (data != null) {
+        // If the value is variable in length, write the length
+        if (DataField.getDataType(field.getType()).getSize() < 0) {
+          out.write((data.length >>> 8) & 0xFF);
+          out.write(data.length & 0xFF);
+        }
+
+        // write the value itself
+        out.write(data, 0, data.length);
+      } else {
+        // null value
+        out.write(0);
+        out.write(0);
+      }
+    }
+
+    return out.toByteArray();
+  }
+
+
+
+
   public String getTypeName() {
     return _name;
   }
@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.util.Arrays;
+
+
+/**
+ * Encodes frames in a compact variant of the wire format and decodes them
+ * again.
+ *
+ * <p>The standard wire format spends four octets on the length of every
+ * variable length value, two on the length of each such element of an array,
+ * and the full width of its type on every integer, so a frame of short
+ * strings and small numbers, such as one parsed from JSON where every integer
+ * is at least 32 bits wide and every negative one 64, is mostly lengths and
+ * leading zeros. The compact variant differs only in how lengths and integers
+ * are written:<ul>
+ * <li>lengths of values and array elements are unsigned LEB128 varints, one
+ * octet for lengths below 128;</li>
+ * <li>signed integers are zig-zag encoded varints, so small negative values
+ * are as short as small positive ones;</li>
+ * <li>unsigned integers are varints;</li>
+ * <li>nested frames and arrays are themselves in the compact form.</li></ul>
+ *
+ * <p>Names and type codes are unchanged and so is every other value, so
+ * decoding restores each field with exactly its original type and value.
+ *
+ * <p>Compact data starts with a field without a name whose type is not a
+ * valid type code, followed by a version octet. Decoders of the standard
+ * format therefore reject compact data as having an unsupported type rather
+ * than misreading it, and this class rejects versions it does not know.
+ */
+public final class CompactFormat {
+
+  /** The type which, after an empty name, marks compact data */
+  static final byte MARKER = (byte)0xFD;
+
+  /** The version of the compact format written by this class */
+  static final byte VERSION = 1;
+
+  /** The number of octets in the header of compact data */
+  private static final int HEADER_SIZE = 3;
+
+  /** The most octets in a varint of a length within a nested value */
+  private static final int MAX_LENGTH_SIZE = 5;
+
+  /** The data being translated */
+  private final byte[] source;
+
+  /** Position of the next octet to translate */
+  private int position;
+
+  /** The translated data */
+  private byte[] target;
+
+  /** Position after the last octet of translated data */
+  private int fill = 0;
+
+
+
+
+  private CompactFormat(final byte[] source, final int offset, final int size) {
+    this.source = source;
+    position = offset;
+    target = new byte[Math.max(size, 16)];
+  }
+
+
+
+
+  /**
+   * Encode the given frame in the compact format.
+   *
+   * @param frame the frame to encode
+   *
+   * @return the compact encoding of the frame
+   */
+  public static byte[] encode(final DataFrame frame) {
+    final byte[] data = frame.getEncoding();
+    return encode(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Translate a frame from the standard wire format into the compact format.
+   *
+   * @param data the array holding the wire format of a frame
+   * @param offset the position of the frame data in the array
+   * @param length the number of octets making up the frame
+   *
+   * @return the compact encoding of the frame
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public static byte[] encode(final byte[] data, final int offset, final int length) {
+    final CompactFormat encoder = new CompactFormat(data, offset, HEADER_SIZE + length);
+    encoder.target[0] = 0;
+    encoder.target[1] = MARKER;
+    encoder.target[2] = VERSION;
+    encoder.fill = HEADER_SIZE;
+    encoder.compactFields(offset + length);
+    return Arrays.copyOf(encoder.target, encoder.fill);
+  }
+
+
+
+
+  /**
+   * Decode a frame from the compact format.
+   *
+   * @param data the compact encoding of a frame
+   *
+   * @return the decoded frame
+   *
+   * @throws DecodeException if the data is not a valid compact frame
+   */
+  public static DataFrame decode(final byte[] data) {
+    return decode(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Decode a frame from a portion of the given array holding the compact
+   * format.
+   *
+   * @param data the array holding the compact encoding of a frame
+   * @param offset the position of the compact data in the array
+   * @param length the number of octets of compact data
+   *
+   * @return the decoded frame
+   *
+   * @throws DecodeException if the data is not a valid compact frame
+   */
+  public static DataFrame decode(final byte[] data, final int offset, final int length) {
+    final CompactFormat decoder = standard(data, offset, length);
+    return new DataFrame(decoder.target, 0, decoder.fill);
+  }
+
+
+
+
+  /**
+   * Translate a frame from the compact format into the standard wire format.
+   *
+   * @param data the array holding the compact encoding of a frame
+   * @param offset the position of the compact data in the array
+   * @param length the number of octets of compact data
+   *
+   * @return the standard wire format of the frame
+   *
+   * @throws DecodeException if the data is not a valid compact frame
+   */
+  public static byte[] toStandard(final byte[] data, final int offset, final int length) {
+    final CompactFormat decoder = standard(data, offset, length);
+    return Arrays.copyOf(decoder.target, decoder.fill);
+  }
+
+
+
+
+  /**
+   * Determine if a portion of the given array starts with compact data.
+   *
+   * @param data the array to check
+   * @param offset the position of the data in the array
+   * @param length the number of octets of data
+   *
+   * @return true if the data is in the compact format of any version
+   */
+  public static boolean isCompact(final byte[] data, final int offset, final int length) {
+    return length >= HEADER_SIZE && data[offset] == 0 && data[offset + 1] == MARKER;
+  }
+
+
+
+
+  private static CompactFormat standard(final byte[] data, final int offset, final int length) {
+    if (!isCompact(data, offset, length)) {
+      throw new DecodeException("Data is not in the compact format");
+    }
+    if (data[offset + 2] != VERSION) {
+      throw new DecodeException("unsupported compact format version: '" + data[offset + 2] + "'");
+    }
+    final CompactFormat decoder = new CompactFormat(data, offset + HEADER_SIZE, length * 2);
+    decoder.standardFields(offset + length);
+    return decoder;
+  }
+
+
+
+
+  /**
+   * Translate standard fields up to the given position into compact fields.
+   */
+  private void compactFields(final int end) {
+    while (position < end) {
+      final int nameLength = source[position] & 0xFF;
+      final int header = 2 + nameLength;
+      check(header, end);
+      ensure(header);
+      System.arraycopy(source, position, target, fill, header);
+      fill += header;
+      position += header;
+      final short type = source[position - 1];
+      int length = size(type);
+      if (length < 0) {
+        check(4, end);
+        length = retrieve(4);
+        if (length < 0) {
+          throw new DecodeException("read length bad value: length = " + (length & 0xFFFFFFFFL) + " type = " + type);
+        }
+      }
+      check(length, end);
+      compactValue(type, length);
+    }
+  }
+
+
+
+
+  /**
+   * Translate standard array elements up to the given position into compact
+   * elements.
+   */
+  private void compactElements(final int end) {
+    while (position < end) {
+      final short type = source[position++];
+      ensure(1);
+      target[fill++] = (byte)type;
+      int length = size(type);
+      if (length < 0) {
+        check(2, end);
+        length = retrieve(2);
+      }
+      check(length, end);
+      compactValue(type, length);
+    }
+  }
+
+
+
+
+  /**
+   * Translate a standard value of the given length into its compact form.
+   */
+  private void compactValue(final short type, final int length) {
+    if (type == DataField.FRAMETYPE || type == DataField.ARRAY) {
+      ensure(MAX_LENGTH_SIZE);
+      final int mark = fill;
+      fill += MAX_LENGTH_SIZE;
+      if (type == DataField.FRAMETYPE) {
+        compactFields(position + length);
+      } else {
+        compactElements(position + length);
+      }
+      // move the nested data down to follow its length
+      final int nested = fill - mark - MAX_LENGTH_SIZE;
+      final int lengthSize = varintSize(nested);
+      System.arraycopy(target, mark + MAX_LENGTH_SIZE, target, mark + lengthSize, nested);
+      fill = mark;
+      putVarint(nested);
+      fill += nested;
+    } else if (isInteger(type)) {
+      long value = 0;
+      for (int x = 0; x < length; x++) {
+        value = (value << 8) | (source[position + x] & 0xFF);
+      }
+      if (isSigned(type)) {
+        // sign extend, then zig-zag so small magnitudes are small numbers
+        final int shift = 64 - 8 * length;
+        value = (value << shift) >> shift;
+        value = (value << 1) ^ (value >> 63);
+      }
+      ensure(10);
+      putVarint(value);
+      position += length;
+    } else {
+      ensure(MAX_LENGTH_SIZE + length);
+      if (size(type) < 0) {
+        putVarint(length);
+      }
+      System.arraycopy(source, position, target, fill, length);
+      fill += length;
+      position += length;
+    }
+  }
+
+
+
+
+  /**
+   * Translate compact fields up to the given position into standard fields.
+   */
+  private void standardFields(final int end) {
+    while (position < end) {
+      final int nameLength = source[position] & 0xFF;
+      final int header = 2 + nameLength;
+      check(header, end);
+      ensure(header);
+      System.arraycopy(source, position, target, fill, header);
+      fill += header;
+      position += header;
+      standardValue(source[position - 1], 4, end);
+    }
+  }
+
+
+
+
+  /**
+   * Translate compact array elements up to the given position into standard
+   * elements.
+   */
+  private void standardElements(final int end) {
+    while (position < end) {
+      final short type = source[position++];
+      ensure(1);
+      target[fill++] = (byte)type;
+      standardValue(type, 2, end);
+    }
+  }
+
+
+
+
+  /**
+   * Translate a compact value into its standard form.
+   *
+   * @param type the type of the value
+   * @param width the number of octets in a standard length, 4 for the values
+   *        of fields and 2 for array elements
+   * @param end the position after the data containing the value
+   */
+  private void standardValue(final short type, final int width, final int end) {
+    final int size = size(type);
+    if (type == DataField.FRAMETYPE || type == DataField.ARRAY) {
+      final int length = length(end);
+      ensure(width);
+      final int mark = fill;
+      fill += width;
+      if (type == DataField.FRAMETYPE) {
+        standardFields(position + length);
+      } else {
+        standardElements(position + length);
+      }
+      putLength(mark, width, fill - mark - width);
+    } else if (isInteger(type)) {
+      long value = getVarint(end);
+      if (isSigned(type)) {
+        value = (value >>> 1) ^ -(value & 1);
+      }
+      ensure(size);
+      for (int x = size - 1, shift = 0; x >= 0; x--, shift += 8) {
+        target[fill + x] = (byte)(value >>> shift);
+      }
+      fill += size;
+    } else {
+      int length = size;
+      if (size < 0) {
+        length = length(end);
+        ensure(width);
+        putLength(fill, width, length);
+        fill += width;
+      }
+      check(length, end);
+      ensure(length);
+      System.arraycopy(source, position, target, fill, length);
+      fill += length;
+      position += length;
+    }
+  }
+
+
+
+
+  /**
+   * @return the size of values of the given type, negative if variable
+   */
+  private static int size(final short type) {
+    try {
+      return DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "'");
+    }
+  }
+
+
+
+
+  private static boolean isInteger(final short type) {
+    return type >= DataField.S8 && type <= DataField.U64;
+  }
+
+
+
+
+  private static boolean isSigned(final short type) {
+    return type == DataField.S8 || type == DataField.S16 || type == DataField.S32 || type == DataField.S64;
+  }
+
+
+
+
+  /**
+   * Make sure the given number of octets remain before the end of the data.
+   */
+  private void check(final int needed, final int end) {
+    if (needed > end - position) {
+      throw new DecodeException("Data underflow: value extends beyond the frame");
+    }
+  }
+
+
+
+
+  /**
+   * Read a big-endian length of the given width from the source.
+   */
+  private int retrieve(final int width) {
+    int retval = 0;
+    for (int x = 0; x < width; x++) {
+      retval = (retval << 8) | (source[position++] & 0xFF);
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read a varint length from the source and make sure the data it measures
+   * is present.
+   */
+  private int length(final int end) {
+    final long retval = getVarint(end);
+    if (retval > end - position) {
+      throw new DecodeException("Data underflow: value extends beyond the frame");
+    }
+    return (int)retval;
+  }
+
+
+
+
+  private long getVarint(final int end) {
+    long retval = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      if (position >= end) {
+        throw new DecodeException("Data underflow: varint is incomplete");
+      }
+      final int octet = source[position++];
+      retval |= (long)(octet & 0x7F) << shift;
+      if (octet >= 0) {
+        return retval;
+      }
+    }
+    throw new DecodeException("Malformed varint");
+  }
+
+
+
+
+  private static int varintSize(final long value) {
+    int retval = 1;
+    for (long rest = value >>> 7; rest != 0; rest >>>= 7) {
+      retval++;
+    }
+    return retval;
+  }
+
+
+
+
+  private void putVarint(final long value) {
+    long rest = value;
+    while ((rest & ~0x7FL) != 0) {
+      target[fill++] = (byte)((rest & 0x7F) | 0x80);
+      rest >>>= 7;
+    }
+    target[fill++] = (byte)rest;
+  }
+
+
+
+
+  /**
+   * Write a standard big-endian length of the given width.
+   */
+  private void putLength(final int at, final int width, final int length) {
+    if (width == 2 && length > 0xFFFF) {
+      throw new DecodeException("Array element of " + length + " octets is too long for the standard format");
+    }
+    for (int x = width - 1, shift = 0; x >= 0; x--, shift += 8) {
+      target[at + x] = (byte)(length >>> shift);
+    }
+  }
+
+
+
+
+  /**
+   * Make sure there is room in the target for the given number of octets.
+   */
+  private void ensure(final int needed) {
+    if (target.length - fill < needed) {
+      final long size = Math.max((long)fill + needed, target.length * 2L);
+      if (size > LargeField.MAX_ARRAY) {
+        throw new DecodeException("Frame exceeds the largest buffer which can be allocated");
+      }
+      target = Arrays.copyOf(target, (int)size);
+    }
+  }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Adler32;
+
+
+/**
+ * A frame to be stored in compressed form.
+ *
+ * <p>Placing one of these in a frame creates a field of the
+ * {@link DataField#ZFRAME} type whose value is the child frame compressed
+ * with Deflate:<pre>
+ * parent.put("readings", new CompressedFrame(readings, dictionaryId));</pre>
+ *
+ * <p>Reading the field with {@link DataField#getObjectValue()} or
+ * {@link DataFrame#getAsFrame(String)} returns the decompressed child as an
+ * ordinary DataFrame. Unlike nested frames, the child is decompressed each
+ * time it is read and changes to it are not written back to the field.
+ *
+ * <p>Frames whose encoded size is below a threshold are stored without being
+ * compressed, as are frames which do not get any smaller, so the overhead for
+ * frames which do not compress is a single octet.
+ *
+ * <p>Small frames barely compress on their own because Deflate has not seen
+ * their names and values before. A preset dictionary holding the names and
+ * values common to the frames being sent, such as one built from sample
+ * frames with {@link #train(Collection, int)}, lets even small frames
+ * compress well. A dictionary is registered once with
+ * {@link #addDictionary(byte[])}, and frames are compressed with it by the
+ * identifier that returns, its Adler-32 checksum, so nothing is hashed or
+ * registered for each frame. The compressed data carries the identifier,
+ * and the dictionary must be registered wherever the frame is decompressed.
+ *
+ * <p>Frames are not decompressed past {@link #getMaxSize()} octets, 16 MB
+ * unless changed with {@link #setMaxSize(int)}.
+ */
+public class CompressedFrame {
+
+  /** Frames encoded in fewer octets than this are not compressed by default */
+  public static final int DEFAULT_THRESHOLD = 64;
+
+  /** The dictionary identifier of frames compressed without a dictionary */
+  public static final int NO_DICTIONARY = 0;
+
+  /** The largest encoded size a frame is decompressed to by default */
+  public static final int DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+  /** The largest fragment of a sample field kept whole in a dictionary */
+  private static final int MAX_FRAGMENT = 32;
+
+  /** Registered dictionaries by their Adler-32 checksum */
+  private static final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<Integer, byte[]>();
+
+  /** The largest encoded size a frame is decompressed to */
+  private static volatile int maxSize = DEFAULT_MAX_SIZE;
+
+  private final DataFrame frame;
+
+  private final int dictionaryId;
+
+  private final byte[] dictionary;
+
+  private final int threshold;
+
+
+
+
+  /**
+   * Compress the given frame without a dictionary.
+   *
+   * @param frame the frame to compress
+   */
+  public CompressedFrame(final DataFrame frame) {
+    this(frame, NO_DICTIONARY, DEFAULT_THRESHOLD);
+  }
+
+
+
+
+  /**
+   * Compress the given frame with a registered preset dictionary.
+   *
+   * @param frame the frame to compress
+   * @param dictionaryId the identifier returned when the dictionary was
+   *        registered, or {@link #NO_DICTIONARY}
+   *
+   * @throws IllegalArgumentException if the dictionary is not registered
+   */
+  public CompressedFrame(final DataFrame frame, final int dictionaryId) {
+    this(frame, dictionaryId, DEFAULT_THRESHOLD);
+  }
+
+
+
+
+  /**
+   * Compress the given frame with a registered preset dictionary if it is
+   * large enough.
+   *
+   * @param frame the frame to compress
+   * @param dictionaryId the identifier returned when the dictionary was
+   *        registered, or {@link #NO_DICTIONARY}
+   * @param threshold the encoded size below which the frame is stored
+   *        without compression
+   *
+   * @throws IllegalArgumentException if the dictionary is not registered
+   */
+  public CompressedFrame(final DataFrame frame, final int dictionaryId, final int threshold) {
+    if (frame == null) {
+      throw new IllegalArgumentException("Frame cannot be null");
+    }
+    this.frame = frame;
+    this.dictionaryId = dictionaryId;
+    this.threshold = threshold;
+    if (dictionaryId != NO_DICTIONARY) {
+      dictionary = dictionaries.get(dictionaryId);
+      if (dictionary == null) {
+        throw new IllegalArgumentException("Dictionary " + Integer.toHexString(dictionaryId) + " is not registered");
+      }
+    } else {
+      dictionary = null;
+    }
+  }
+
+
+
+
+  /**
+   * @return the frame to be compressed
+   */
+  public DataFrame getFrame() {
+    return frame;
+  }
+
+
+
+
+  /**
+   * @return the preset dictionary, or null if there is none
+   */
+  public byte[] getDictionary() {
+    return dictionary;
+  }
+
+
+
+
+  /**
+   * @return the identifier of the preset dictionary, or
+   *         {@link #NO_DICTIONARY} if there is none
+   */
+  public int getDictionaryId() {
+    return dictionaryId;
+  }
+
+
+
+
+  /**
+   * @return the encoded size below which the frame is not compressed
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+
+
+
+  /**
+   * @return the largest encoded size a frame is decompressed to
+   */
+  public static int getMaxSize() {
+    return maxSize;
+  }
+
+
+
+
+  /**
+   * Set the largest encoded size a frame is decompressed to.
+   *
+   * <p>A few kilobytes of compressed data can expand to gigabytes, so
+   * decompression stops with an error once the frame grows past this size
+   * rather than exhausting the heap.
+   *
+   * @param size the largest encoded size in octets
+   *
+   * @throws IllegalArgumentException if the size is not positive
+   */
+  public static void setMaxSize(final int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Maximum size must be positive");
+    }
+    maxSize = size;
+  }
+
+
+
+
+  /**
+   * Register a preset dictionary so data compressed with it can be
+   * decompressed.
+   *
+   * <p>This computes the checksum of the whole dictionary, so it is done once
+   * for each dictionary rather than for each frame.
+   *
+   * @param dictionary the dictionary
+   *
+   * @return the identifier of the dictionary, its Adler-32 checksum
+   *
+   * @throws IllegalArgumentException if the checksum of the dictionary is
+   *         {@link #NO_DICTIONARY}
+   */
+  public static int addDictionary(final byte[] dictionary) {
+    final int id = idOf(dictionary);
+    if (id == NO_DICTIONARY) {
+      throw new IllegalArgumentException("Dictionary checksum is reserved");
+    }
+    dictionaries.put(id, dictionary);
+    return id;
+  }
+
+
+
+
+  /**
+   * Remove a registered dictionary.
+   *
+   * @param id the identifier of the dictionary
+   */
+  public static void removeDictionary(final int id) {
+    dictionaries.remove(id);
+  }
+
+
+
+
+  /**
+   * @param id the identifier of a dictionary
+   *
+   * @return the registered dictionary or null if there is none with that
+   *         identifier
+   */
+  static byte[] getDictionary(final int id) {
+    return dictionaries.get(id);
+  }
+
+
+
+
+  /**
+   * @return the identifier of the given dictionary, its Adler-32 checksum
+   */
+  static int idOf(final byte[] dictionary) {
+    final Adler32 adler = new Adler32();
+    adler.update(dictionary, 0, dictionary.length);
+    return (int)adler.getValue();
+  }
+
+
+
+
+  /**
+   * Build a preset dictionary from sample frames.
+   *
+   * <p>The encoded form of every field in the samples, including those in
+   * nested frames, is counted: small fields whole, so common values are
+   * included, and larger ones up to their value, so their names and types
+   * are. The fragments which would save the most are placed in the
+   * dictionary, with the most valuable at its end where Deflate finds them
+   * most cheaply.
+   *
+   * @param samples frames typical of those to be compressed
+   * @param size the largest size of the dictionary, a few hundred octets is
+   *        usually plenty for small frames
+   *
+   * @return the dictionary
+   */
+  public static byte[] train(final Collection<DataFrame> samples, final int size) {
+    final Map<ByteBuffer, int[]> counts = new HashMap<ByteBuffer, int[]>();
+    for (final DataFrame sample : samples) {
+      final byte[] data = sample.getEncoding();
+      count(data, 0, data.length, counts);
+    }
+
+    final List<Map.Entry<ByteBuffer, int[]>> fragments = new ArrayList<Map.Entry<ByteBuffer, int[]>>(counts.entrySet());
+    Collections.sort(fragments, new Comparator<Map.Entry<ByteBuffer, int[]>>() {
+      public int compare(final Map.Entry<ByteBuffer, int[]> a, final Map.Entry<ByteBuffer, int[]> b) {
+        final long first = (long)a.getValue()[0] * a.getKey().remaining();
+        final long second = (long)b.getValue()[0] * b.getKey().remaining();
+        return (first < second) ? 1 : (first > second) ? -1 : 0;
+      }
+    });
+
+    final List<ByteBuffer> chosen = new ArrayList<ByteBuffer>();
+    int total = 0;
+    for (final Map.Entry<ByteBuffer, int[]> fragment : fragments) {
+      final int length = fragment.getKey().remaining();
+      if (total + length <= size) {
+        chosen.add(fragment.getKey());
+        total += length;
+      }
+    }
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(total);
+    for (int x = chosen.size() - 1; x >= 0; x--) {
+      final ByteBuffer fragment = chosen.get(x);
+      out.write(fragment.array(), fragment.arrayOffset() + fragment.position(), fragment.remaining());
+    }
+    return out.toByteArray();
+  }
+
+
+
+
+  /**
+   * Count the fragments of the fields encoded in a portion of the given array.
+   */
+  private static void count(final byte[] data, final int offset, final int end, final Map<ByteBuffer, int[]> counts) {
+    int loc = offset;
+    while (loc < end) {
+      final int start = loc;
+      loc += 1 + (data[loc] & 0xFF);
+      final short type = data[loc++];
+      int length = DataField.getTypeSize(type);
+      if (length < 0) {
+        length = (int)Math.min(end - loc - 4, ((data[loc] & 0xFFL) << 24) | ((data[loc + 1] & 0xFF) << 16) | ((data[loc + 2] & 0xFF) << 8) | (data[loc + 3] & 0xFF));
+        loc += 4;
+      }
+      final int fragmentEnd = (loc + length - start <= MAX_FRAGMENT && type != DataField.FRAMETYPE) ? loc + length : loc;
+      final ByteBuffer fragment = ByteBuffer.wrap(data, start, fragmentEnd - start).slice();
+      int[] count = counts.get(fragment);
+      if (count == null) {
+        count = new int[1];
+        counts.put(fragment, count);
+      }
+      count[0]++;
+      if (type == DataField.FRAMETYPE) {
+        count(data, loc, loc + length, counts);
+      }
+      loc += length;
+    }
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return frame.toString();
+  }
+
+}
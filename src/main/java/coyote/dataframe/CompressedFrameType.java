@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+
+/**
+ * Type representing a frame in compressed form.
+ *
+ * <p>The value is a method octet followed by the frame: 0 for the wire format
+ * of the frame as it is, or 8 for the wire format of the frame compressed in
+ * a zlib stream, which carries the identifier of any preset dictionary used.
+ *
+ * <p>Values decode to DataFrames.
+ *
+ * @see CompressedFrame
+ */
+public class CompressedFrameType implements FieldType {
+
+  /** negative size indicates a variable length value is to be expected. */
+  private static final int _size = -1;
+
+  private final static String _name = "ZFRAME";
+
+  /** The frame is stored as it is */
+  static final int STORED = 0;
+
+  /** The frame is compressed with Deflate in a zlib stream */
+  static final int DEFLATED = 8;
+
+  /** Deflaters are costly to create, so each thread reuses its own */
+  private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+    @Override
+    protected Deflater initialValue() {
+      return new Deflater();
+    }
+  };
+
+  /** Inflaters are costly to create, so each thread reuses its own */
+  private static final ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater();
+    }
+  };
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#checkType(java.lang.Object)
+   */
+  public boolean checkType(Object obj) {
+    return (obj instanceof CompressedFrame);
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#decode(byte[])
+   *
+   * @throws IllegalArgumentException if the value could not be decompressed,
+   *         including when its dictionary is not registered or the frame is
+   *         larger than {@link CompressedFrame#getMaxSize()}
+   */
+  public Object decode(byte[] value) {
+    if (value == null || value.length == 0) {
+      return new DataFrame();
+    }
+    if (value[0] == STORED) {
+      return new DataFrame(value, 1, value.length - 1);
+    } else if (value[0] != DEFLATED) {
+      throw new IllegalArgumentException("Unsupported compression method: '" + value[0] + "'");
+    }
+
+    final Inflater inflater = inflaters.get();
+    try {
+      inflater.setInput(value, 1, value.length - 1);
+      final int max = CompressedFrame.getMaxSize();
+      // room for one octet past the maximum shows when it is exceeded
+      final int limit = (int)Math.min(LargeField.MAX_ARRAY, max + 1L);
+      byte[] data = new byte[(int)Math.min(limit, Math.max(64, value.length * 4L))];
+      int length = 0;
+      while (!inflater.finished()) {
+        if (length == data.length) {
+          data = Arrays.copyOf(data, (int)Math.min(limit, data.length * 2L));
+        }
+        final int count = inflater.inflate(data, length, data.length - length);
+        length += count;
+        if (length > max || length == LargeField.MAX_ARRAY) {
+          throw new IllegalArgumentException("Decompressed frame is larger than " + max + " octets");
+        }
+        if (count == 0) {
+          if (inflater.needsDictionary()) {
+            final byte[] dictionary = CompressedFrame.getDictionary(inflater.getAdler());
+            if (dictionary == null) {
+              throw new IllegalArgumentException("Dictionary " + Integer.toHexString(inflater.getAdler()) + " is not registered");
+            }
+            inflater.setDictionary(dictionary);
+          } else if (inflater.needsInput()) {
+            throw new IllegalArgumentException("Compressed frame is truncated");
+          }
+        }
+      }
+      return new DataFrame(data, 0, length);
+    } catch (final DataFormatException e) {
+      throw new IllegalArgumentException("Could not decompress frame", e);
+    } finally {
+      inflater.reset();
+    }
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#encode(java.lang.Object)
+   */
+  public byte[] encode(Object obj) {
+    final CompressedFrame compressed = (CompressedFrame)obj;
+    final DataFrame frame = compressed.getFrame();
+    final int size = frame.getEncodedSize();
+    final byte[] stored = new byte[1 + size];
+    stored[0] = STORED;
+    frame.write(stored, 1);
+    if (size < compressed.getThreshold()) {
+      return stored;
+    }
+
+    final Deflater deflater = deflaters.get();
+    try {
+      if (compressed.getDictionary() != null) {
+        deflater.setDictionary(compressed.getDictionary());
+      }
+      deflater.setInput(stored, 1, size);
+      deflater.finish();
+      // anything which does not fit in the stored size is not worth keeping
+      final byte[] retval = new byte[stored.length];
+      retval[0] = DEFLATED;
+      int length = 1;
+      while (!deflater.finished() && length < retval.length) {
+        length += deflater.deflate(retval, length, retval.length - length);
+      }
+      return deflater.finished() && length < retval.length ? Arrays.copyOf(retval, length) : stored;
+    } finally {
+      deflater.reset();
+    }
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#isNumeric()
+   */
+  public boolean isNumeric() {
+    return false;
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#getSize()
+   */
+  public int getSize() {
+    return _size;
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#getTypeName()
+   */
+  public String getTypeName() {
+    return _name;
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#stringValue(byte[])
+   */
+  @Override
+  public String stringValue(byte[] val) {
+    Object obj = decode(val);
+    if (obj != null)
+      return obj.toString();
+    else
+      return "";
+  }
+
+
+
+
+  /**
+   * Compressed frames are parsed as ordinary frames.
+   *
+   * @see coyote.dataframe.FieldType#parse(java.lang.String)
+   */
+  @Override
+  public Object parse(String text) {
+    return DataField.getDataType(DataField.FRAMETYPE).parse(text);
+  }
+
+}
@@ -0,0 +1,709 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * A frame of named values which may be read and written by many threads at
+ * once, such as a status document updated by workers and published by a
+ * monitor.
+ *
+ * <p>Each name holds one value, as {@link DataFrame#put(String, Object)}
+ * would keep it, and fields stay in the order their names were first added.
+ * Every value is held in encoded form in an immutable holder, so reading a
+ * value never takes a lock and never sees a value half written. Writes to an
+ * existing field lock one of a number of stripes, chosen by the name, so
+ * threads updating different fields rarely wait for each other. Adding and
+ * removing names is serialized.
+ *
+ * <p>{@link #getBytes()}, {@link #toFrame()} and {@link #toString()} work on
+ * a snapshot of the frame taken at a single point in time: taking it holds
+ * all the stripes just long enough to collect the value holders, and the
+ * values are encoded after the stripes are released. Use
+ * {@link #increment(String, long)} to update counters atomically.
+ *
+ * <p>Nested frames are held in their wire format, so a frame read from this
+ * one is a copy and changes to it are not seen here.
+ */
+public class ConcurrentFrame {
+
+  /** The number of stripes, the smallest power of two of at least twice the processors, up to 64 */
+  private static final int STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+  private static final byte[] NO_BYTES = new byte[0];
+
+  /** The locks of the stripes, always taken in ascending order */
+  private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+  /** The fields by name */
+  private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<String, Slot>();
+
+  /** The fields in order, replaced whenever a name is added or removed */
+  private volatile Slot[] order = new Slot[0];
+
+  /** Held while adding or removing names and while taking a snapshot */
+  private final Object structure = new Object();
+
+
+
+
+  /** An immutable, encoded value. */
+  private static final class Value {
+
+    final short type;
+
+    final byte[] data;
+
+
+
+
+    Value(final short type, final byte[] data) {
+      this.type = type;
+      this.data = (data == null) ? NO_BYTES : data;
+    }
+  }
+
+
+
+
+  /** A named field. */
+  private static final class Slot {
+
+    final String name;
+
+    /** The wire format of the name */
+    final byte[] nameBytes;
+
+    /** The index of the stripe guarding writes to this field */
+    final int stripe;
+
+    /** The current value, written only while holding the stripe */
+    volatile Value value;
+
+    /** True once the field has been removed, set while holding the stripe */
+    boolean removed = false;
+
+
+
+
+    Slot(final String name, final Value value) {
+      this.name = name;
+      this.value = value;
+      try {
+        nameBytes = name.getBytes(DataField.strEnc);
+      } catch (final UnsupportedEncodingException e) {
+        throw new IllegalArgumentException("Could not encode name '" + name + "'", e);
+      }
+      if (nameBytes.length > 255) {
+        throw new IllegalArgumentException("Name too long - 255 char limit");
+      }
+      final int hash = name.hashCode();
+      stripe = (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+  }
+
+
+
+
+  /**
+   * Create an empty frame.
+   */
+  public ConcurrentFrame() {
+    for (int x = 0; x < STRIPES; x++) {
+      stripes[x] = new ReentrantLock();
+    }
+  }
+
+
+
+
+  /**
+   * Create a frame holding the named fields of the given frame.
+   *
+   * <p>Unnamed fields are left out and later fields replace earlier fields
+   * with the same name.
+   *
+   * @param frame the frame to copy
+   */
+  public ConcurrentFrame(final DataFrame frame) {
+    this();
+    for (int x = 0; x < frame.getFieldCount(); x++) {
+      final DataField field = frame.getField(x);
+      if (field.getName() != null) {
+        final byte[] data = field.getValue();
+        set(field.getName(), new Value(field.getType(), (data == null) ? null : data.clone()));
+      }
+    }
+  }
+
+
+
+
+  /**
+   * @return The number of fields in the frame.
+   */
+  public int getFieldCount() {
+    return order.length;
+  }
+
+
+
+
+  /**
+   * @return true if the frame has no fields.
+   */
+  public boolean isEmpty() {
+    return order.length == 0;
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return true if a field with the given name exists.
+   */
+  public boolean contains(final String name) {
+    return name != null && slots.containsKey(name);
+  }
+
+
+
+
+  /**
+   * @return the names of the fields in order.
+   */
+  public List<String> getNames() {
+    final Slot[] current = order;
+    final List<String> retval = new ArrayList<String>(current.length);
+    for (final Slot slot : current) {
+      retval.add(slot.name);
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Place the value in the frame under the given name, replacing any value
+   * already there.
+   *
+   * <p>A null value removes the named field. Frames are encoded as they are
+   * placed; later changes to them are not seen by this frame.
+   *
+   * @param name the name of the field
+   * @param value the value to place
+   *
+   * @throws IllegalArgumentException if the name is null or too long, or the
+   *         value is of an unsupported type
+   */
+  public void put(final String name, final Object value) {
+    if (value == null) {
+      remove(name);
+      return;
+    }
+    final short type = DataField.getType(value);
+    byte[] data = DataField.encode(value, type);
+    if (data == value) {
+      // byte arrays encode to themselves and the caller still holds them
+      data = data.clone();
+    }
+    set(name, new Value(type, data));
+  }
+
+
+
+
+  /**
+   * Place an int value under the given name without boxing it.
+   *
+   * @see #put(String, Object)
+   */
+  public void put(final String name, final int value) {
+    set(name, fixed(DataField.typeOf(value), value));
+  }
+
+
+
+
+  /**
+   * Place a long value under the given name without boxing it.
+   *
+   * @see #put(String, Object)
+   */
+  public void put(final String name, final long value) {
+    set(name, fixed(DataField.typeOf(value), value));
+  }
+
+
+
+
+  /**
+   * Place a double value under the given name without boxing it.
+   *
+   * @see #put(String, Object)
+   */
+  public void put(final String name, final double value) {
+    set(name, fixed(DataField.DOUBLE, Double.doubleToLongBits(value)));
+  }
+
+
+
+
+  /**
+   * Place a float value under the given name without boxing it.
+   *
+   * @see #put(String, Object)
+   */
+  public void put(final String name, final float value) {
+    set(name, fixed(DataField.FLOAT, Float.floatToIntBits(value)));
+  }
+
+
+
+
+  /**
+   * Place a boolean value under the given name without boxing it.
+   *
+   * @see #put(String, Object)
+   */
+  public void put(final String name, final boolean value) {
+    set(name, fixed(DataField.BOOLEANTYPE, value ? 1 : 0));
+  }
+
+
+
+
+  /**
+   * Atomically add to the integer value of the named field.
+   *
+   * <p>A field which does not exist, or has no value, is taken to hold zero.
+   * The type of the result is chosen by its value as it is for
+   * {@link #put(String, long)}.
+   *
+   * @param name the name of the field
+   * @param delta the amount to add
+   *
+   * @return the new value of the field
+   *
+   * @throws DataFrameException if the field holds a value which is not an
+   *         integer, or which does not fit in a long
+   * @throws IllegalArgumentException if the name is null or too long
+   */
+  public long increment(final String name, final long delta) throws DataFrameException {
+    if (name == null) {
+      throw new IllegalArgumentException("Concurrent frames only hold named fields");
+    }
+    while (true) {
+      final Slot slot = slots.get(name);
+      if (slot == null) {
+        synchronized (structure) {
+          if (!slots.containsKey(name)) {
+            add(name, fixed(DataField.typeOf(delta), delta));
+            return delta;
+          }
+        }
+        continue;
+      }
+      final ReentrantLock lock = stripes[slot.stripe];
+      lock.lock();
+      try {
+        if (!slot.removed) {
+          final Value current = slot.value;
+          final long retval = ((current.data.length == 0) ? 0 : field(current).getLongValue()) + delta;
+          slot.value = fixed(DataField.typeOf(retval), retval);
+          return retval;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Remove the named field.
+   *
+   * @param name the name of the field
+   *
+   * @return true if the field existed
+   */
+  public boolean remove(final String name) {
+    if (name == null) {
+      return false;
+    }
+    synchronized (structure) {
+      final Slot slot = slots.remove(name);
+      if (slot == null) {
+        return false;
+      }
+      final ReentrantLock lock = stripes[slot.stripe];
+      lock.lock();
+      try {
+        slot.removed = true;
+      } finally {
+        lock.unlock();
+      }
+      final Slot[] current = order;
+      final Slot[] retval = new Slot[current.length - 1];
+      for (int x = 0, y = 0; x < current.length; x++) {
+        if (current[x] != slot) {
+          retval[y++] = current[x];
+        }
+      }
+      order = retval;
+      return true;
+    }
+  }
+
+
+
+
+  /**
+   * Remove all the fields.
+   */
+  public void clear() {
+    synchronized (structure) {
+      for (final Slot slot : order) {
+        remove(slot.name);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Place the value under the name, adding the name if it is new.
+   */
+  private void set(final String name, final Value value) {
+    if (name == null) {
+      throw new IllegalArgumentException("Concurrent frames only hold named fields");
+    }
+    final Slot slot = slots.get(name);
+    if (slot != null) {
+      final ReentrantLock lock = stripes[slot.stripe];
+      lock.lock();
+      try {
+        if (!slot.removed) {
+          slot.value = value;
+          return;
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+    synchronized (structure) {
+      final Slot current = slots.get(name);
+      if (current == null) {
+        add(name, value);
+      } else {
+        final ReentrantLock lock = stripes[current.stripe];
+        lock.lock();
+        try {
+          current.value = value;
+        } finally {
+          lock.unlock();
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Add a new name, while holding the structure lock.
+   */
+  private void add(final String name, final Value value) {
+    final Slot slot = new Slot(name, value);
+    final Slot[] current = order;
+    final Slot[] retval = Arrays.copyOf(current, current.length + 1);
+    retval[current.length] = slot;
+    slots.put(name, slot);
+    order = retval;
+  }
+
+
+
+
+  /**
+   * Encode a fixed width value from its bit pattern.
+   */
+  private static Value fixed(final short type, final long bits) {
+    final int size = DataField.getTypeSize(type);
+    final byte[] data = new byte[size];
+    for (int x = size - 1, shift = 0; x >= 0; x--, shift += 8) {
+      data[x] = (byte)(bits >>> shift);
+    }
+    return new Value(type, data);
+  }
+
+
+
+
+  /**
+   * @return a field sharing the value, used only to convert the value and
+   *         never exposed
+   */
+  private static DataField field(final Value value) {
+    return new DataField(null, value.type, value.data);
+  }
+
+
+
+
+  /**
+   * @return a field sharing the current value of the named field
+   *
+   * @throws DataFrameException if there is no such field
+   */
+  private DataField field(final String name) throws DataFrameException {
+    final Slot slot = (name == null) ? null : slots.get(name);
+    if (slot == null) {
+      throw new DataFrameException("Value could not be found");
+    }
+    return field(slot.value);
+  }
+
+
+
+
+  /**
+   * Access the value of the named field as an object.
+   *
+   * <p>The value is decoded into a new object on each call.
+   *
+   * @param name the name of the field
+   *
+   * @return the value of the field, or null if there is no such field or it
+   *         has no value.
+   */
+  public Object getObject(final String name) {
+    final Slot slot = (name == null) ? null : slots.get(name);
+    if (slot == null) {
+      return null;
+    }
+    final Value value = slot.value;
+    if (value.data.length == 0) {
+      return null;
+    }
+    // byte arrays decode to the value itself
+    return DataField.getDataType(value.type).decode((value.type == DataField.BYTEARRAY) ? value.data.clone() : value.data);
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return the string value of the field, or null if there is no such
+   *         field.
+   */
+  public String getAsString(final String name) {
+    final Object value = getObject(name);
+    return (value == null) ? null : value.toString();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsInt(String)
+   */
+  public int getAsInt(final String name) throws DataFrameException {
+    return field(name).getIntValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsLong(String)
+   */
+  public long getAsLong(final String name) throws DataFrameException {
+    return field(name).getLongValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDouble(String)
+   */
+  public double getAsDouble(final String name) throws DataFrameException {
+    return field(name).getDoubleValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsFloat(String)
+   */
+  public float getAsFloat(final String name) throws DataFrameException {
+    return field(name).getFloatValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsBoolean(String)
+   */
+  public boolean getAsBoolean(final String name) throws DataFrameException {
+    return field(name).getBooleanValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDate(String)
+   */
+  public Date getAsDate(final String name) throws DataFrameException {
+    final Object value = getObject(name);
+    if (value == null || value instanceof Date) {
+      return (Date)value;
+    }
+    throw new DataFrameException("Could not convert type '" + value.getClass().getSimpleName() + "' to a date");
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return a decoded copy of the named frame, or null if there is no such
+   *         field or it has no value
+   *
+   * @throws DataFrameException if the field is not a frame
+   */
+  public DataFrame getAsFrame(final String name) throws DataFrameException {
+    final Object value = getObject(name);
+    if (value == null || value instanceof DataFrame) {
+      return (DataFrame)value;
+    }
+    throw new DataFrameException("Field '" + name + "' is not a frame");
+  }
+
+
+
+
+  /**
+   * Collect the fields and their values at a single point in time.
+   *
+   * @param values where the values are placed, sized by the caller
+   *
+   * @return the fields, in the same order as their values
+   */
+  private Slot[] snapshot(final List<Value> values) {
+    synchronized (structure) {
+      final Slot[] retval = order;
+      for (int x = 0; x < STRIPES; x++) {
+        stripes[x].lock();
+      }
+      try {
+        for (final Slot slot : retval) {
+          values.add(slot.value);
+        }
+      } finally {
+        for (int x = STRIPES - 1; x >= 0; x--) {
+          stripes[x].unlock();
+        }
+      }
+      return retval;
+    }
+  }
+
+
+
+
+  /**
+   * @return the wire format of a snapshot of this frame
+   */
+  public byte[] getBytes() {
+    final List<Value> values = new ArrayList<Value>(order.length + 4);
+    final Slot[] fields = snapshot(values);
+    int size = 0;
+    for (int x = 0; x < fields.length; x++) {
+      final Value value = values.get(x);
+      size += 2 + fields[x].nameBytes.length + value.data.length + ((DataField.getTypeSize(value.type) < 0) ? 4 : 0);
+    }
+
+    final byte[] retval = new byte[size];
+    int loc = 0;
+    for (int x = 0; x < fields.length; x++) {
+      final byte[] name = fields[x].nameBytes;
+      final Value value = values.get(x);
+      retval[loc++] = (byte)name.length;
+      System.arraycopy(name, 0, retval, loc, name.length);
+      loc += name.length;
+      retval[loc++] = (byte)value.type;
+      if (DataField.getTypeSize(value.type) < 0) {
+        final int length = value.data.length;
+        retval[loc++] = (byte)(length >>> 24);
+        retval[loc++] = (byte)(length >>> 16);
+        retval[loc++] = (byte)(length >>> 8);
+        retval[loc++] = (byte)length;
+      }
+      System.arraycopy(value.data, 0, retval, loc, value.data.length);
+      loc += value.data.length;
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return a mutable DataFrame holding a snapshot of this frame
+   */
+  public DataFrame toFrame() {
+    final byte[] data = getBytes();
+    return new DataFrame(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * @return an immutable snapshot of this frame
+   */
+  public FrozenFrame freeze() {
+    return new FrozenFrame(toFrame());
+  }
+
+
+
+
+  /**
+   * @return a snapshot of this frame as JSON
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return toFrame().toString();
+  }
+
+}
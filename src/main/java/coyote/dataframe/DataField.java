@@ -7,12 +7,19 @@
  */
 package coyote.dataframe;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import coyote.commons.ByteUtil;
 
@@ -43,6 +50,12 @@ public class DataField implements Cloneable {
   /** array of data types supported */
   private static final ArrayList<FieldType> _types = new ArrayList<FieldType>();
 
+  /** The type codes of classes whose type does not depend on their value */
+  private static final Map<Class<?>, Short> _classTypes = new ConcurrentHashMap<Class<?>, Short>();
+
+  /** The most octets of a value read from a stream before more arrive */
+  private static final int READ_CHUNK = 8192;
+
   /** (0) Type code representing a nested data frame */
   public static final short FRAMETYPE = 0;
 
@@ -68,6 +81,9 @@ public class DataField implements Cloneable {
   public static final short DATE = 15;
   public static final short URI = 16;
   public static final short ARRAY = 17;
+  public static final short ZFRAME = 18;
+  public static final short INSTANT = 19;
+  public static final short LOCALDATETIME = 20;
 
   private static final String ENC_UTF8 = "UTF8";
 
@@ -138,6 +154,15 @@ public class DataField implements Cloneable {
 
     /** (17) Type code representing an ordered array of values (DataFields) */
     DataField.addType( ARRAY, new ArrayType() );
+
+    /** (18) Type code representing a nested data frame in compressed form */
+    DataField.addType( ZFRAME, new CompressedFrameType() );
+
+    /** (19) Type code representing a point in time with nanosecond precision */
+    DataField.addType( INSTANT, new InstantType() );
+
+    /** (20) Type code representing a date and time without a time zone, with nanosecond precision */
+    DataField.addType( LOCALDATETIME, new LocalDateTimeType() );
   }
 
   /** Name of this field */
@@ -149,6 +174,29 @@ public class DataField implements Cloneable {
   /** The actual value being held. Empty arrays are equivalent to a null value. */
   protected byte[] value;
 
+  /** The name from which the cached name bytes were encoded */
+  private transient String encodedName = null;
+
+  /** The cached wire format of the name */
+  private transient byte[] nameBytes = null;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  /** The time (frame clock value) this field was last changed. */
+  transient volatile long stamp = 0;
+
+  /** The frame whose name indexes hold this field, null if there is none. */
+  transient DataFrame owner = null;
+
+  /** The decoded child of a frame or array field, null until it is needed. */
+  transient DataFrame frame = null;
+
+  /** The time (frame clock value) the value was last encoded from the child. */
+  private transient long syncedAt = 0;
+
+  /** True if the value array may be shared with a clone and must not be written over. */
+  private transient boolean shared = false;
+
 
 
 
@@ -160,6 +208,7 @@ public class DataField implements Cloneable {
    */
   static void addType( int indx, FieldType type ) {
     _types.add( indx, type );
+    _classTypes.clear();
   }
 
 
@@ -211,14 +260,34 @@ public class DataField implements Cloneable {
 
 
 
+  /**
+   * Create a DataField of one of the fixed width numeric or boolean types 
+   * without boxing the value.
+   * 
+   * @param name The name of this DataField
+   * @param type the type code representing the type of data held.
+   * @param bits the value as a bit pattern, see {@link #setValue(short, long)}
+   *
+   * @throws IllegalArgumentException if the name exceeds 255 characters   
+   */
+  DataField( final String name, final short type, final long bits ) {
+    this.name = DataField.nameCheck( name );
+    setValue( type, bits );
+  }
+
+
+
+
   /**
    * Create a DataField for the specific object.
+   * 
+   * <p>Frames are held by reference and only encoded when the wire format of 
+   * this field is needed.
    *
    * @param obj The object to use as the value of the field
    */
   public DataField( final Object obj ) {
-    type = DataField.getType( obj );
-    value = DataField.encode( obj, type );
+    setValue( obj );
   }
 
 
@@ -227,6 +296,9 @@ public class DataField implements Cloneable {
   /**
    * Constructor DataField
    *
+   * <p>Frames are held by reference and only encoded when the wire format of 
+   * this field is needed.
+   *
    * @param name The name of this DataField
    * @param obj The object value to encode
    *
@@ -234,18 +306,22 @@ public class DataField implements Cloneable {
    */
   public DataField( final String name, final Object obj ) throws IllegalArgumentException {
     this.name = DataField.nameCheck( name );
-    type = DataField.getType( obj );
-    value = DataField.encode( obj, type );
+    setValue( obj );
   }
 
 
 
 
   /**
-   * Create a deep-copy of this DataField.
+   * Create a copy of this DataField which shares its value until either is 
+   * changed.
    * 
-   * <p>The name and type references are shared and the value is copied to a
-   * new byte array.
+   * <p>The name, type and value array are shared and nothing is copied; 
+   * neither field writes over the shared array, replacing it instead when its 
+   * value changes. A decoded child frame is cloned the same way, so the copy 
+   * costs a field object for each field in the child and none of the values 
+   * in it are copied or encoded. Arrays returned by {@link #getValue()} 
+   * should not be modified, as they may be shared by other fields.
    *
    * @return A mutable copy of this DataField.
    */
@@ -256,10 +332,23 @@ public class DataField implements Cloneable {
     retval.name = name;
     retval.type = type;
 
-    if ( value != null ) {
-      retval.value = new byte[value.length];
+    final DataFrame child = frame;
+    if ( child != null ) {
+      final long now = DataFrame.now();
+      final DataFrame copy = (DataFrame)child.clone();
+      copy.resetStamp();
+      retval.frame = copy;
+      if ( value != null && !child.changedSince( syncedAt ) ) {
+        retval.value = value;
+        retval.syncedAt = now;
+      }
+    } else {
+      retval.value = value;
+    }
 
-      System.arraycopy( value, 0, retval.value, 0, value.length );
+    if ( retval.value != null ) {
+      shared = true;
+      retval.shared = true;
     }
 
     return retval;
@@ -293,10 +382,17 @@ public class DataField implements Cloneable {
 
   /**
    * Construct the data field from data read in from the given input stream.
+   * 
+   * <p>This blocks until the entire field has been read. The stream is not 
+   * checked for available data, so this works with sockets, pipes and other 
+   * streams which do not know how much data is on its way. The value is read 
+   * into an array which grows as the data arrives, so a corrupt or hostile 
+   * length does not allocate memory for data which is never sent.
    *
    * @param dis The input stream from which the data field will be read
    *
    * @throws IOException if there was a problem reading the stream.
+   * @throws EOFException if the stream ended before the entire field was read.
    */
   public DataField( final DataInputStream dis ) throws IOException, DecodeException {
     // The first octet is the length of the name to read in
@@ -304,16 +400,10 @@ public class DataField implements Cloneable {
 
     // If there is a name of any length, read it in as a String
     if ( nameLength > 0 ) {
-      final int i = dis.available();
-
-      if ( i < nameLength ) {
-        throw new DecodeException( "value underflow: name length specified as " + nameLength + " but only " + i + " octets are available" );
-      }
-
       final byte[] nameData = new byte[nameLength];
       dis.readFully( nameData );
 
-      name = new String( nameData, DataField.strEnc );
+      name = NameCache.get( nameData, 0, nameLength );
     }
 
     // the next field we read is the data type
@@ -332,28 +422,181 @@ public class DataField implements Cloneable {
 
     // if the file type is a variable length (i.e. size < 0), read in the length
     if ( datatype.getSize() < 0 ) {
-      // FIXME: This can only read in 2GB! not a real U32!!!
-      final int length = dis.readInt();
+      // the length is an unsigned 32-bit value
+      final long length = dis.readInt() & 0xFFFFFFFFL;
 
-      if ( length < 0 ) {
-        throw new DecodeException( "read length bad value: length = " + length + " type = " + type );
+      if ( length > LargeField.MAX_ARRAY ) {
+        throw new DecodeException( "Value of " + length + " octets is too large to hold in memory, read it with a LargeField: type = " + type );
       }
 
-      final int i = dis.available();
+      value = readValue( dis, (int)length );
+    } else {
+      value = new byte[datatype.getSize()];
+      dis.readFully( value );
+    }
+  }
+
+
+
+
+  /**
+   * Read a value of the given length from the stream, growing the array as 
+   * the data arrives rather than trusting the length up front.
+   *
+   * @param dis the stream from which the value is read
+   * @param length the declared length of the value
+   *
+   * @return the value
+   *
+   * @throws EOFException if the stream ended before the entire value was read.
+   */
+  private static byte[] readValue( final DataInputStream dis, final int length ) throws IOException {
+    byte[] retval = new byte[Math.min( length, READ_CHUNK )];
+    dis.readFully( retval );
+    while ( retval.length < length ) {
+      final int count = retval.length;
+      retval = Arrays.copyOf( retval, (int)Math.min( length, count * 2L ) );
+      dis.readFully( retval, count, retval.length - count );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Decode a field from a portion of the given array.
+   * 
+   * <p>This reads the data directly from the array without the overhead of 
+   * wrapping it in streams.
+   *
+   * @param data the array containing the encoded field
+   * @param offset the position in the array where the encoded field begins
+   * @param limit the position in the array immediately after the last octet 
+   *        which may be read
+   * @param field the field to populate with the decoded name, type and value
+   *
+   * @return the position in the array immediately following the decoded field
+   *
+   * @throws DecodeException if the data could not be decoded
+   */
+  static int decode( final byte[] data, final int offset, final int limit, final DataField field ) throws DecodeException {
+    return decode( data, offset, limit, field, false );
+  }
 
-      if ( i < length ) {
-        throw new DecodeException( "value underflow: length specified as " + length + " but only " + i + " octets are available" );
-      }
 
-      value = new byte[length];
 
-      if ( length > 0 ) {
-        dis.read( value, 0, length );
+
+  /**
+   * Decode a field from a portion of the given array, optionally reusing the 
+   * name and value of the field being populated.
+   * 
+   * <p>When reusing, the name is kept if its encoded form matches the data 
+   * and the value array is written over if it is the same length as the 
+   * decoded value, so decoding the same shape of data into the same field 
+   * over and over allocates nothing.
+   *
+   * @param data the array containing the encoded field
+   * @param offset the position in the array where the encoded field begins
+   * @param limit the position in the array immediately after the last octet 
+   *        which may be read
+   * @param field the field to populate with the decoded name, type and value
+   * @param reuse true to reuse the name and value of the field
+   *
+   * @return the position in the array immediately following the decoded field
+   *
+   * @throws DecodeException if the data could not be decoded
+   */
+  static int decode( final byte[] data, final int offset, final int limit, final DataField field, final boolean reuse ) throws DecodeException {
+    int loc = offset;
+
+    // The first octet is the length of the name to read in
+    final int nameLength = data[loc++] & 0xFF;
+
+    if ( nameLength > 0 ) {
+      if ( limit - loc < nameLength ) {
+        throw new DecodeException( "value underflow: name length specified as " + nameLength + " but only " + ( limit - loc ) + " octets are available" );
       }
+      if ( !reuse || !field.nameMatches( data, loc, nameLength ) ) {
+        field.name = NameCache.get( data, loc, nameLength );
+        if ( reuse ) {
+          field.nameBytes = Arrays.copyOfRange( data, loc, loc + nameLength );
+          field.encodedName = field.name;
+        }
+      }
+      loc += nameLength;
     } else {
-      value = new byte[datatype.getSize()];
-      dis.read( value );
+      field.name = null;
+    }
+
+    if ( loc >= limit ) {
+      throw new DecodeException( "Data underflow reading type" );
+    }
+
+    // the next field we read is the data type
+    field.type = data[loc++];
+    FieldType datatype = null;
+    try {
+      datatype = getDataType( field.type );
+    } catch ( Throwable ball ) {
+      if ( nameLength > 0 ) {
+        throw new DecodeException( "non supported type: '" + field.type + "' for field: '" + field.name + "'" );
+      } else {
+        throw new DecodeException( "non supported type: '" + field.type + "'" );
+      }
+    }
+
+    int length = datatype.getSize();
+
+    // if the type is a variable length (i.e. size < 0), read in the length
+    if ( length < 0 ) {
+      if ( limit - loc < 4 ) {
+        throw new DecodeException( "Data underflow reading value length" );
+      }
+      length = ByteUtil.retrieveInt( data, loc );
+      loc += 4;
+
+      if ( length < 0 ) {
+        throw new DecodeException( "read length bad value: length = " + ( length & 0xFFFFFFFFL ) + " type = " + field.type );
+      }
+    }
+
+    if ( limit - loc < length ) {
+      throw new DecodeException( "value underflow: length specified as " + length + " but only " + ( limit - loc ) + " octets are available" );
+    }
+
+    // frame and array values may be the encoding cached by a child frame
+    if ( !reuse || field.shared || field.type == FRAMETYPE || field.type == ARRAY || field.value == null || field.value.length != length ) {
+      field.value = new byte[length];
+      field.shared = false;
     }
+    System.arraycopy( data, loc, field.value, 0, length );
+    if ( reuse ) {
+      field.frame = null;
+      field.syncedAt = 0;
+    }
+
+    return loc + length;
+  }
+
+
+
+
+  /**
+   * Determine if the cached encoded name of this field matches the given 
+   * data.
+   */
+  private boolean nameMatches( final byte[] data, final int offset, final int length ) {
+    final byte[] current = nameBytes;
+    if ( current == null || name == null || encodedName != name || current.length != length ) {
+      return false;
+    }
+    for ( int x = 0; x < length; x++ ) {
+      if ( current[x] != data[offset + x] ) {
+        return false;
+      }
+    }
+    return true;
   }
 
 
@@ -369,9 +612,35 @@ public class DataField implements Cloneable {
    * @throws IllegalArgumentException if the passed object is an unsupported type.
    */
   public static short getType( final Object obj ) throws IllegalArgumentException {
+    if ( obj == null ) {
+      return UDEF;
+    }
+
+    // The numeric types are selected by value as well as class
+    final Class<?> clazz = obj.getClass();
+    if ( clazz == Integer.class ) {
+      return typeOf( ( (Integer)obj ).intValue() );
+    } else if ( clazz == Long.class ) {
+      return typeOf( ( (Long)obj ).longValue() );
+    } else if ( clazz == Short.class ) {
+      return typeOf( ( (Short)obj ).shortValue() );
+    } else if ( clazz == Byte.class ) {
+      return S8;
+    }
+
+    final Short retval = _classTypes.get( clazz );
+    if ( retval != null ) {
+      return retval;
+    }
+
     for ( short x = 0; x < _types.size(); x++ ) {
-      if ( _types.get( x ).checkType( obj ) )
+      if ( _types.get( x ).checkType( obj ) ) {
+        // remember the type of classes whose type does not depend on value
+        if ( !( obj instanceof Number ) || obj instanceof Float || obj instanceof Double ) {
+          _classTypes.put( clazz, x );
+        }
         return x;
+      }
     }
     throw new IllegalArgumentException( "Unsupported Object Type" );
   }
@@ -379,6 +648,36 @@ public class DataField implements Cloneable {
 
 
 
+  /**
+   * @return the type code used for the given int value.
+   */
+  static short typeOf( final int val ) {
+    return ( val >= 0 && val <= 65535 ) ? U16 : S32;
+  }
+
+
+
+
+  /**
+   * @return the type code used for the given long value.
+   */
+  static short typeOf( final long val ) {
+    return ( val >= 0 && val <= 4294967295L ) ? U32 : S64;
+  }
+
+
+
+
+  /**
+   * @return the type code used for the given short value.
+   */
+  static short typeOf( final short val ) {
+    return ( val >= -128 && val <= 127 ) ? S8 : ( val >= 0 && val <= 255 ) ? U8 : S16;
+  }
+
+
+
+
   /**
    * @return the list of supported type names
    */
@@ -461,6 +760,7 @@ public class DataField implements Cloneable {
    * @return The number of octets this fields value uses.
    */
   public int getLength() {
+    sync();
     return value.length;
   }
 
@@ -468,9 +768,16 @@ public class DataField implements Cloneable {
 
 
   /**
+   * Access the encoded value of this field.
+   * 
+   * <p>This is the array held by this field, not a copy. Frames cache their 
+   * wire format and do not detect changes made to this array, so it should 
+   * be treated as read-only.
+   * 
    * @return The encoded value of this field.
    */
   public byte[] getValue() {
+    sync();
     return value;
   }
 
@@ -478,15 +785,111 @@ public class DataField implements Cloneable {
 
 
   /**
+   * Access the value of this field as an object.
+   * 
+   * <p>Frame and array values are decoded only once. The same child frame is 
+   * returned on each call and any changes made to it are written through to 
+   * this field when it is next encoded. Empty frames and arrays are returned 
+   * as null.
+   * 
    * @return The value of this field as an object.
    */
   public Object getObjectValue() {
+    if ( type == FRAMETYPE || type == ARRAY ) {
+      if ( frame == null ) {
+        if ( value == null || value.length == 0 ) {
+          return null;
+        }
+        final DataFrame child = (DataFrame)getDataType( type ).decode( value );
+        child.resetStamp();
+        syncedAt = DataFrame.now();
+        frame = child;
+      }
+      return frame.isEmpty() ? null : frame;
+    }
     return getObjectValue( type, value );
   }
 
 
 
 
+  /**
+   * Replace the value of this field with the given object, changing the type 
+   * of the field to suit the object.
+   * 
+   * <p>Frames are kept as live children and are not encoded until the value 
+   * of this field is needed, so building a tree of frames from the bottom up 
+   * does not encode each level of the tree over and over.
+   * 
+   * @param obj the new value of this field
+   */
+  void setValue( final Object obj ) {
+    type = DataField.getType( obj );
+    if ( type == FRAMETYPE ) {
+      frame = (DataFrame)obj;
+      value = null;
+    } else {
+      value = DataField.encode( obj, type );
+      frame = null;
+    }
+    // byte arrays encode to themselves and the caller still holds them
+    shared = ( value == obj );
+  }
+
+
+
+
+  /**
+   * Replace the value of this field with a value of one of the fixed width 
+   * numeric or boolean types without boxing it.
+   * 
+   * <p>The value is given as its bit pattern: integers as themselves, 
+   * floating point values through {@code Double.doubleToLongBits} or 
+   * {@code Float.floatToIntBits} and booleans as 1 or 0. The low-order octets 
+   * are written in network byte order.
+   * 
+   * <p>If this field already holds a value of the same type, the new value is 
+   * written over the existing value octets and nothing is allocated, unless 
+   * the octets are shared with a clone. Arrays previously returned by 
+   * {@link #getValue()} may reflect the new value.
+   * 
+   * @param typ the type code of the value, which must be of a fixed size
+   * @param bits the value as a bit pattern
+   */
+  void setValue( final short typ, final long bits ) {
+    final int size = getDataType( typ ).getSize();
+    if ( type != typ || shared || frame != null || value == null || value.length != size ) {
+      value = new byte[size];
+      type = typ;
+      frame = null;
+      shared = false;
+    }
+    for ( int x = size - 1, shift = 0; x >= 0; x--, shift += 8 ) {
+      value[x] = (byte)( bits >>> shift );
+    }
+  }
+
+
+
+
+  /**
+   * Make sure the encoded value reflects any changes made to the decoded 
+   * child of this field.
+   */
+  private void sync() {
+    final DataFrame child = frame;
+    if ( child != null && ( value == null || child.changedSince( syncedAt ) ) ) {
+      final long now = DataFrame.now();
+      // the encoding may be the one the child caches for itself
+      value = ( type == FRAMETYPE ) ? child.getEncoding() : getDataType( type ).encode( child );
+      shared = true;
+      syncedAt = now;
+    }
+  }
+
+
+
+
   /**
    * Decode the field into an object reference.
    * 
@@ -512,55 +915,174 @@ public class DataField implements Cloneable {
    * @throws IOException if there is a problem writing to the output stream.
    */
   public void write( final DataOutputStream dos ) throws IOException {
-    // If we have a name...
-    if ( name != null ) {
-      // write the length and name fields
-      final byte[] nameField = name.getBytes( DataField.strEnc );
-      final int nameLength = nameField.length;
-      dos.write( ByteUtil.renderShortByte( (short)nameLength ) );
-      dos.write( nameField );
+    dos.write( getBytes() );
+  }
+
+
+
+
+  /**
+   * Get the wire format of the Data.
+   *
+   * @return binary representation of the field.
+   */
+  public byte[] getBytes() {
+    final byte[] retval = new byte[getEncodedSize()];
+    write( retval, 0 );
+    return retval;
+  }
+
+
+
+
+  /**
+   * Get the number of octets this field occupies in its wire format.
+   * 
+   * <p>This is the exact length of the array returned by {@link #getBytes()} 
+   * and allows callers to size a buffer before writing the field into it.
+   *
+   * @return the size of the encoded field.
+   */
+  public int getEncodedSize() {
+    sync();
+
+    // name length, name and type octets
+    int retval = 2 + getNameBytes().length;
+
+    if ( value != null ) {
+      if ( getDataType( type ).getSize() < 0 ) {
+        retval += 4;
+      }
+      retval += value.length;
     } else {
-      // indicate a name field length of 0
-      dos.write( ByteUtil.renderShortByte( (short)0 ) );
+      retval += 2;
     }
 
-    // Write the type field
-    dos.write( ByteUtil.renderShortByte( type ) );
+    return retval;
+  }
+
 
-    if ( value != null ) {
 
-      FieldType datatype = getDataType( type );
 
-      // If the value is variable in length
-      if ( datatype.getSize() < 0 ) {
-        // write the length
-        dos.write( ByteUtil.renderUnsignedInt( (long)value.length ) );
+  /**
+   * Write the wire format of this field into the given array.
+   * 
+   * <p>Exactly {@link #getEncodedSize()} octets are written.
+   *
+   * @param buffer the array into which the field is to be written
+   * @param offset the position in the array where the field is to start
+   *
+   * @return the position in the array immediately following the field
+   *
+   * @throws ArrayIndexOutOfBoundsException if there is not enough room in the 
+   *         array for the field
+   */
+  public int write( final byte[] buffer, final int offset ) {
+    sync();
+    int loc = offset;
+    final byte[] nameField = getNameBytes();
+
+    // name length, name and type
+    buffer[loc++] = (byte)nameField.length;
+    System.arraycopy( nameField, 0, buffer, loc, nameField.length );
+    loc += nameField.length;
+    buffer[loc++] = (byte)type;
+
+    if ( value != null ) {
+      // If the value is variable in length write the length
+      if ( getDataType( type ).getSize() < 0 ) {
+        final int length = value.length;
+        buffer[loc++] = (byte)( length >>> 24 );
+        buffer[loc++] = (byte)( length >>> 16 );
+        buffer[loc++] = (byte)( length >>> 8 );
+        buffer[loc++] = (byte)length;
       }
 
       // write the value itself
-      dos.write( value );
+      System.arraycopy( value, 0, buffer, loc, value.length );
+      loc += value.length;
     } else {
-      dos.writeShort( 0 );
+      buffer[loc++] = 0;
+      buffer[loc++] = 0;
     }
+
+    return loc;
   }
 
 
 
 
   /**
-   * Get the wire format of the Data.
+   * Write the wire format of this field into the given buffer.
+   * 
+   * <p>The field is written at the current position of the buffer which is 
+   * then advanced by {@link #getEncodedSize()} octets. The byte order of the 
+   * buffer is not used; the wire format is always big-endian.
    *
-   * @return binary representation of the field.
+   * @param buffer the buffer into which the field is to be written
+   *
+   * @throws BufferOverflowException if there is not enough room remaining in 
+   *         the buffer for the field, in which case nothing is written.
+   * @throws ReadOnlyBufferException if the buffer is read-only
    */
-  public byte[] getBytes() {
-    final ByteArrayOutputStream out = new ByteArrayOutputStream();
-    final DataOutputStream dos = new DataOutputStream( out );
+  public void write( final ByteBuffer buffer ) {
+    // also brings the value up to date with any child
+    final int size = getEncodedSize();
+    if ( buffer.remaining() < size ) {
+      throw new BufferOverflowException();
+    }
+
+    if ( buffer.hasArray() ) {
+      write( buffer.array(), buffer.arrayOffset() + buffer.position() );
+      buffer.position( buffer.position() + size );
+    } else {
+      final byte[] nameField = getNameBytes();
+      buffer.put( (byte)nameField.length );
+      buffer.put( nameField );
+      buffer.put( (byte)type );
+
+      if ( value != null ) {
+        if ( getDataType( type ).getSize() < 0 ) {
+          final int length = value.length;
+          buffer.put( (byte)( length >>> 24 ) );
+          buffer.put( (byte)( length >>> 16 ) );
+          buffer.put( (byte)( length >>> 8 ) );
+          buffer.put( (byte)length );
+        }
+        buffer.put( value );
+      } else {
+        buffer.put( (byte)0 );
+        buffer.put( (byte)0 );
+      }
+    }
+  }
 
-    try {
-      write( dos );
-    } catch ( final IOException ioe ) {}
 
-    return out.toByteArray();
+
+
+  /**
+   * Get the encoded form of the name of this field.
+   * 
+   * <p>The encoded name is cached and only regenerated when the name changes.
+   *
+   * @return the name in the current string encoding, an empty array if the 
+   *         field has no name.
+   */
+  private byte[] getNameBytes() {
+    final String current = name;
+    if ( nameBytes == null || encodedName != current ) {
+      if ( current == null ) {
+        nameBytes = EMPTY;
+      } else {
+        try {
+          nameBytes = current.getBytes( DataField.strEnc );
+        } catch ( final UnsupportedEncodingException e ) {
+          nameBytes = current.getBytes();
+        }
+      }
+      encodedName = current;
+    }
+    return nameBytes;
   }
 
 
@@ -585,6 +1107,11 @@ public class DataField implements Cloneable {
    */
   public void setName( final String string ) {
     name = string;
+    stamp = DataFrame.tick();
+    final DataFrame indexed = owner;
+    if ( indexed != null ) {
+      indexed.renamed();
+    }
   }
 
 
@@ -718,6 +1245,7 @@ public class DataField implements Cloneable {
     buf.append( " name='" + name + "'" );
     buf.append( " type=" + this.getTypeName() );
     buf.append( "(" + type + ")" );
+    sync();
     if ( value.length > 32 ) {
       byte[] sample = new byte[32];
       System.arraycopy( value, 0, sample, 0, sample.length );
@@ -741,10 +1269,245 @@ public class DataField implements Cloneable {
 
 
 
+  /**
+   * Access the value of this field as a long.
+   * 
+   * <p>The value is read directly from the encoded value without creating 
+   * any objects. All the integer types are returned as is; U64 values are 
+   * returned only if they fit in a signed long. Strings are parsed. Floating 
+   * point, boolean and all other types are not converted.
+   * 
+   * @return the value of this field as a long
+   * 
+   * @throws DataFrameException if the field has no value or its value could 
+   *         not be converted into a long
+   */
+  public long getLongValue() throws DataFrameException {
+    checkValue();
+    if ( isIntegral() ) {
+      final long retval = integralValue();
+      if ( type == U64 && retval < 0 ) {
+        throw new DataFrameException( "Value could not be converted into a long" );
+      }
+      return retval;
+    } else if ( type == STRING ) {
+      try {
+        return Long.parseLong( getStringValue() );
+      } catch ( final NumberFormatException e ) {
+        // fall through
+      }
+    }
+    throw new DataFrameException( "Value could not be converted into a long" );
+  }
+
+
+
+
+  /**
+   * Access the value of this field as an int.
+   * 
+   * <p>This follows the same rules as {@link #getLongValue()} with the added 
+   * check that the value is within the range of an int.
+   * 
+   * @return the value of this field as an int
+   * 
+   * @throws DataFrameException if the field has no value or its value could 
+   *         not be converted into an int
+   */
+  public int getIntValue() throws DataFrameException {
+    checkValue();
+    if ( isIntegral() ) {
+      final long retval = integralValue();
+      if ( ( type == U64 && retval < 0 ) || retval < Integer.MIN_VALUE || retval > Integer.MAX_VALUE ) {
+        throw new DataFrameException( "Value could not be converted into an integer" );
+      }
+      return (int)retval;
+    } else if ( type == STRING ) {
+      try {
+        return Integer.parseInt( getStringValue() );
+      } catch ( final NumberFormatException e ) {
+        // fall through
+      }
+    }
+    throw new DataFrameException( "Value could not be converted into an integer" );
+  }
+
+
+
+
+  /**
+   * Access the value of this field as a double.
+   * 
+   * <p>The value is read directly from the encoded value without creating 
+   * any objects. All the numeric types are widened to a double and strings 
+   * are parsed. Boolean and all other types are not converted.
+   * 
+   * @return the value of this field as a double
+   * 
+   * @throws DataFrameException if the field has no value or its value could 
+   *         not be converted into a double
+   */
+  public double getDoubleValue() throws DataFrameException {
+    checkValue();
+    if ( type == DOUBLE ) {
+      return ByteUtil.retrieveDouble( value, 0 );
+    } else if ( type == FLOAT ) {
+      return ByteUtil.retrieveFloat( value, 0 );
+    } else if ( isIntegral() ) {
+      final long retval = integralValue();
+      if ( type == U64 && retval < 0 ) {
+        // unsigned value beyond the range of a long
+        return (double)( retval >>> 1 ) * 2.0D + ( retval & 1 );
+      }
+      return retval;
+    } else if ( type == STRING ) {
+      try {
+        return Double.parseDouble( getStringValue() );
+      } catch ( final NumberFormatException e ) {
+        // fall through
+      }
+    }
+    throw new DataFrameException( "Value could not be converted into a double" );
+  }
+
+
+
+
+  /**
+   * Access the value of this field as a float.
+   * 
+   * <p>This follows the same rules as {@link #getDoubleValue()}, narrowing 
+   * the result to a float.
+   * 
+   * @return the value of this field as a float
+   * 
+   * @throws DataFrameException if the field has no value or its value could 
+   *         not be converted into a float
+   */
+  public float getFloatValue() throws DataFrameException {
+    checkValue();
+    if ( type == FLOAT ) {
+      return ByteUtil.retrieveFloat( value, 0 );
+    } else if ( type == STRING ) {
+      try {
+        return Float.parseFloat( getStringValue() );
+      } catch ( final NumberFormatException e ) {
+        throw new DataFrameException( "Value could not be converted into a float" );
+      }
+    }
+    try {
+      return (float)getDoubleValue();
+    } catch ( final DataFrameException e ) {
+      throw new DataFrameException( "Value could not be converted into a float" );
+    }
+  }
+
+
+
+
+  /**
+   * Access the value of this field as a boolean.
+   * 
+   * <p>Numeric values greater than zero are true. Strings of "true", "yes" 
+   * and "1" are true and "false", "no" and "0" are false, ignoring case; 
+   * other strings are true if they are numbers greater than zero.
+   * 
+   * @return the value of this field as a boolean
+   * 
+   * @throws DataFrameException if the field has no value or its value could 
+   *         not be converted into a boolean
+   */
+  public boolean getBooleanValue() throws DataFrameException {
+    checkValue();
+    if ( type == BOOLEANTYPE ) {
+      return value[0] > 0;
+    } else if ( isIntegral() ) {
+      final long retval = integralValue();
+      return ( type == U64 ) ? retval != 0 : retval > 0;
+    } else if ( type == DOUBLE || type == FLOAT ) {
+      return getDoubleValue() > 0;
+    } else if ( type == STRING ) {
+      final String str = getStringValue().toLowerCase();
+      if ( "true".equals( str ) || "1".equals( str ) || "yes".equals( str ) ) {
+        return true;
+      } else if ( "false".equals( str ) || "0".equals( str ) || "no".equals( str ) ) {
+        return false;
+      }
+      try {
+        return Long.parseLong( str ) > 0;
+      } catch ( final NumberFormatException e ) {
+        try {
+          return Double.parseDouble( str ) > 0;
+        } catch ( final NumberFormatException nfe ) {
+          // fall through
+        }
+      }
+    }
+    throw new DataFrameException( "Could not convert type '" + getTypeName() + "' to a boolean" );
+  }
+
+
+
+
+  /**
+   * Make sure there is a value to convert.
+   * 
+   * @throws DataFrameException if this field has no value
+   */
+  private void checkValue() throws DataFrameException {
+    if ( isNull() ) {
+      throw new DataFrameException( "Value could not be found" );
+    }
+  }
+
+
+
+
+  /**
+   * @return true if the type of this field is one of the integer types.
+   */
+  private boolean isIntegral() {
+    return type >= S8 && type <= U64;
+  }
+
+
+
+
+  /**
+   * Read the value of one of the integer types.
+   * 
+   * <p>U64 values are returned as their bit pattern, so values beyond the 
+   * range of a long are returned as negative numbers.
+   * 
+   * @return the integer value of this field.
+   */
+  private long integralValue() {
+    switch ( type ) {
+      case S8:
+        return value[0];
+      case U8:
+        return value[0] & 0xFF;
+      case S16:
+        return (short)( ( ( value[0] & 0xFF ) << 8 ) | ( value[1] & 0xFF ) );
+      case U16:
+        return ( ( value[0] & 0xFF ) << 8 ) | ( value[1] & 0xFF );
+      case S32:
+        return ByteUtil.retrieveInt( value, 0 );
+      case U32:
+        return ByteUtil.retrieveInt( value, 0 ) & 0xFFFFFFFFL;
+      default:
+        return ByteUtil.retrieveLong( value, 0 );
+    }
+  }
+
+
+
+
   /**
    * @return The value of this field as a String.
    */
   public String getStringValue() {
+    sync();
     return getStringValue( type, value );
   }
 
@@ -776,6 +1539,9 @@ public class DataField implements Cloneable {
    * @return true if there is no value, false if there is data in this field
    */
   public boolean isNull() {
+    if ( frame != null ) {
+      return frame.isEmpty();
+    }
     return ( value == null || value.length == 0 );
   }
 
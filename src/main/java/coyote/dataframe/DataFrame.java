@@ -14,14 +14,25 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import coyote.commons.ByteUtil;
 
@@ -33,8 +44,9 @@ import coyote.commons.ByteUtil;
  * transports for a variety communications needs.
  * 
  * <p>This is a surprisingly efficient transmission scheme as all field values 
- * and child frames are stored in their wire format as byte arrays. They are 
- * then marshaled only when accessed and are ready for transmission.
+ * are stored in their wire format as byte arrays. They are then marshaled 
+ * only when accessed and are ready for transmission. Child frames are kept as
+ * references and encoded only when the wire format of their parent is needed.
  * 
  * <p>This class was conceived to implement the Data Transfer Object (DTO) 
  * design pattern in distributed applications. Passing a DataFrame as both 
@@ -65,6 +77,36 @@ public class DataFrame implements Cloneable {
   /** flag indicating the data in this frame should be treated as an array; no named fields should be added, marshaling rules, etc. */
   protected volatile boolean arrayBiased = false;
 
+  /** Source of the stamps recording when frames and fields were changed. */
+  private static final AtomicLong CLOCK = new AtomicLong();
+
+  /** The time (clock value) this frame was last changed. */
+  private transient volatile long stamp = 0;
+
+  /** The cached wire format of this frame, null if it has not been encoded. */
+  private transient volatile Encoding encoding = null;
+
+  /** The view of the fields returned from getFields() */
+  private transient List<DataField> fieldList = null;
+
+  /** Frames with at least this many fields use an index to find names. */
+  private static final int INDEX_THRESHOLD = 16;
+
+  /** Position of the first field with each name, null until needed. */
+  private transient HashMap<String, Integer> nameIndex = null;
+
+  /** Position of the first field with each case-folded name, null until needed. */
+  private transient HashMap<String, Integer> foldedIndex = null;
+
+  /** The clock value when the name indexes were last known to be correct. */
+  private transient long indexedAt = 0;
+
+  /** True if an indexed field reports its renames to another frame. */
+  private transient boolean untracked = false;
+
+  /** Fields removed by reset() kept for reuse by decodeFrom(), null if none. */
+  private transient ArrayList<DataField> spares = null;
+
 
 
 
@@ -97,27 +139,137 @@ public class DataFrame implements Cloneable {
    * @param data The byte array from which to construct the frame.
    */
   public DataFrame(final byte[] data) {
+    this(data, 0, (data != null) ? data.length : 0);
+  }
+
+
+
+
+  /**
+   * Construct the frame with a portion of the given bytes.
+   * 
+   * <p>The fields are decoded directly from the array and their values are 
+   * copied, so the array may be reused once the frame is constructed.
+   *
+   * @param data The byte array from which to construct the frame.
+   * @param offset the position in the array where the frame data begins
+   * @param length the number of octets making up the frame data
+   */
+  public DataFrame(final byte[] data, final int offset, final int length) {
     if (data != null) {
-      int loc = 0;
-      int ploc = 0;
+      final int limit = offset + length;
+      int loc = offset;
+      int ploc = offset;
       try {
-        final ByteArrayInputStream bais = new ByteArrayInputStream(data);
-        final DataInputStream in = new DataInputStream(bais);
-
-        while (in.available() > 0) {
+        while (loc < limit) {
           ploc = loc;
-          loc = data.length - in.available();
-          add(new DataField(in));
+          final DataField field = new DataField();
+          loc = DataField.decode(data, loc, limit, field);
+          add(field);
         }
-      } catch (final EOFException eof) {
-        throw new DecodeException("Data underflow adding field", eof, loc, ploc, (fields.size() + 1), (fields.size() > 0) ? fields.get(fields.size() - 1) : null);
-      } catch (final IOException ioe) {
-        throw new DecodeException("Problems decoding field", ioe, loc, ploc, (fields.size() + 1), (fields.size() > 0) ? fields.get(fields.size() - 1) : null);
       } catch (final DecodeException de) {
-        throw new DecodeException("DF:" + de.getMessage(), de.getCause(), loc, ploc, de.getFieldIndex(), de.getField());
+        throw new DecodeException("DF:" + de.getMessage(), de.getCause(), ploc - offset, ploc - offset, (fields.size() + 1), (fields.size() > 0) ? fields.get(fields.size() - 1) : null);
+      }
+    }
+    modified = false;
+  }
+
+
+
+
+  /**
+   * Replace the contents of this frame with the frame encoded in a portion of 
+   * the given array, reusing as much of this frame as possible.
+   * 
+   * <p>The fields of this frame, and any kept by {@link #reset()}, are 
+   * populated in turn with the decoded data. Names are kept when they match 
+   * and value arrays are written over when they are the same size as the 
+   * decoded values. When the same shape of frame is decoded over and over, as 
+   * in a loop consuming messages, this allocates nothing once the first frame 
+   * has been decoded.
+   * 
+   * <p>Because the fields and their value arrays are reused, any field or 
+   * value previously obtained from this frame must not be retained across 
+   * calls to this method, and fields shared with other frames must not be 
+   * added to a frame which is reused in this way.
+   * 
+   * <p>If the data cannot be decoded, the contents of this frame are 
+   * undefined and it should be reset before it is used again.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position in the array where the frame data starts
+   * @param length the number of octets making up the frame
+   *
+   * @return this frame
+   * 
+   * @throws DecodeException if the data could not be decoded
+   */
+  public DataFrame decodeFrom(final byte[] data, final int offset, final int length) {
+    final int limit = offset + length;
+    int loc = offset;
+    int ploc = offset;
+    int count = 0;
+    try {
+      while (loc < limit) {
+        ploc = loc;
+        DataField field;
+        if (count < fields.size()) {
+          field = fields.get(count);
+        } else {
+          field = (spares != null && !spares.isEmpty()) ? spares.remove(spares.size() - 1) : new DataField();
+          fields.add(field);
+        }
+        loc = DataField.decode(data, loc, limit, field, true);
+        count++;
       }
+    } catch (final DecodeException de) {
+      throw new DecodeException("DF:" + de.getMessage(), de.getCause(), ploc - offset, ploc - offset, count + 1, (count > 0) ? fields.get(count - 1) : null);
+    } finally {
+      shrink(count);
+      dropIndex();
+      touch();
     }
     modified = false;
+    return this;
+  }
+
+
+
+
+  /**
+   * Remove all the fields from this frame, keeping them and the capacity of 
+   * the frame for reuse by {@link #decodeFrom(byte[], int, int)}.
+   * 
+   * <p>Fields previously obtained from this frame must not be retained after 
+   * the frame has been reset.
+   * 
+   * @return this frame
+   */
+  public DataFrame reset() {
+    shrink(0);
+    dropIndex();
+    touch();
+    modified = false;
+    return this;
+  }
+
+
+
+
+  /**
+   * Remove the fields beyond the given count, keeping them for reuse.
+   */
+  private void shrink(final int count) {
+    if (fields.size() > count) {
+      if (spares == null) {
+        spares = new ArrayList<DataField>(fields.size());
+      }
+      for (int x = fields.size() - 1; x >= count; x--) {
+        final DataField field = fields.remove(x);
+        field.frame = null;
+        spares.add(field);
+      }
+    }
   }
 
 
@@ -134,15 +286,8 @@ public class DataFrame implements Cloneable {
    * @see #getFieldIgnoreCase(String)
    */
   public DataField getField(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return field;
-      }
-    }
-
-    return null;
+    final int indx = indexOf(name);
+    return (indx < 0) ? null : fields.get(indx);
   }
 
 
@@ -160,13 +305,8 @@ public class DataFrame implements Cloneable {
    * @see #getField(String)
    */
   public DataField getFieldIgnoreCase(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equalsIgnoreCase(name)) {
-        return field;
-      }
-    }
-    return null;
+    final int indx = indexOfIgnoreCase(name);
+    return (indx < 0) ? null : fields.get(indx);
   }
 
 
@@ -188,13 +328,7 @@ public class DataFrame implements Cloneable {
    * @see #containsIgnoreCase(String)
    */
   public boolean contains(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return true;
-      }
-    }
-    return false;
+    return indexOf(name) > -1;
   }
 
 
@@ -212,13 +346,71 @@ public class DataFrame implements Cloneable {
    * @see #contains(String)
    */
   public boolean containsIgnoreCase(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equalsIgnoreCase(name)) {
-        return true;
+    return indexOfIgnoreCase(name) > -1;
+  }
+
+
+
+
+  /**
+   * Return the position of the first occurrence of a named field.
+   * 
+   * <p>Frames with many fields keep an index of their field names which is 
+   * built when first needed and maintained as fields are added and removed, 
+   * so this does not have to search through all the fields of wide frames.
+   *
+   * @param name The name of the field to find.
+   *
+   * @return The zero-based index of the first field with the given name or -1 
+   *         if a field with the given name was not found.
+   */
+  public int indexOf(final String name) {
+    if (name != null) {
+      if (fields.size() < INDEX_THRESHOLD) {
+        for (int i = 0; i < fields.size(); i++) {
+          if (name.equals(fields.get(i).name)) {
+            return i;
+          }
+        }
+      } else {
+        final Integer retval = getIndex().get(name);
+        if (retval != null) {
+          return retval;
+        }
       }
     }
-    return false;
+    return -1;
+  }
+
+
+
+
+  /**
+   * Return the position of the first occurrence of a named field ignoring 
+   * differences in case.
+   *
+   * @param name The name of the field to find.
+   *
+   * @return The zero-based index of the first field with the given name 
+   *         (ignoring differences in case) or -1 if a field was not found.
+   */
+  private int indexOfIgnoreCase(final String name) {
+    if (name != null) {
+      if (fields.size() < INDEX_THRESHOLD) {
+        for (int i = 0; i < fields.size(); i++) {
+          final String fname = fields.get(i).name;
+          if (fname != null && fname.equalsIgnoreCase(name)) {
+            return i;
+          }
+        }
+      } else {
+        final Integer retval = getFoldedIndex().get(fold(name));
+        if (retval != null) {
+          return retval;
+        }
+      }
+    }
+    return -1;
   }
 
 
@@ -276,6 +468,10 @@ public class DataFrame implements Cloneable {
     if (val != null) {
       if (val instanceof Date) {
         return ((Date)val);
+      } else if (val instanceof Instant) {
+        return new Date(((Instant)val).toEpochMilli());
+      } else if (val instanceof LocalDateTime) {
+        return new Date(((LocalDateTime)val).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
       } else if (val instanceof Long) {
         try {
           return new Date(Long.parseLong(val.toString()));
@@ -292,6 +488,25 @@ public class DataFrame implements Cloneable {
 
 
 
+  /**
+   * Make sure a field was found.
+   * 
+   * @param field the field to check
+   * 
+   * @return the given field
+   * 
+   * @throws DataFrameException if the field is null
+   */
+  private static DataField field(final DataField field) throws DataFrameException {
+    if (field == null) {
+      throw new DataFrameException("Value could not be found");
+    }
+    return field;
+  }
+
+
+
+
   /**
    * Convert the given object into a boolean
    *  
@@ -356,7 +571,7 @@ public class DataFrame implements Cloneable {
    *         value.
    */
   public boolean getAsBoolean(String name) throws DataFrameException {
-    return asBoolean(getObject(name));
+    return field(getField(name)).getBooleanValue();
   }
 
 
@@ -375,7 +590,7 @@ public class DataFrame implements Cloneable {
    *         value.
    */
   public boolean getAsBoolean(final int indx) throws DataFrameException {
-    return asBoolean(getObject(indx));
+    return field(getField(indx)).getBooleanValue();
   }
 
 
@@ -416,34 +631,6 @@ public class DataFrame implements Cloneable {
 
 
 
-  /**
-   * Convert the given object into a integer
-   *  
-   * @param val the object to convert
-   * 
-   * @return the integer value of the object
-   * 
-   * @throws DataFrameException if the object was null or not able to be parsed 
-   *         into an integer value
-   */
-  private int asInt(Object val) throws DataFrameException {
-    if (val != null) {
-      if (val instanceof Integer) {
-        return ((Integer)val).intValue();
-      } else {
-        try {
-          return Integer.parseInt(val.toString());
-        } catch (Exception e) {
-          throw new DataFrameException("Value could not be converted into an integer");
-        }
-      }
-    }
-    throw new DataFrameException("Value could not be found");
-  }
-
-
-
-
   /**
    * Convenience method to return the value of the named field as an integer
    * value.
@@ -456,7 +643,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to an integer value.
    */
   public int getAsInt(String name) throws DataFrameException {
-    return asInt(getObject(name));
+    return field(getField(name)).getIntValue();
   }
 
 
@@ -474,35 +661,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to an integer value.
    */
   public int getAsInt(final int indx) throws DataFrameException {
-    return asInt(getObject(indx));
-  }
-
-
-
-
-  /**
-   * Convert the given object into a long
-   *  
-   * @param val the object to convert
-   * 
-   * @return the long value of the object
-   * 
-   * @throws DataFrameException if the object was null or not able to be parsed 
-   *         into a long value
-   */
-  private long asLong(Object val) throws DataFrameException {
-    if (val != null) {
-      if (val instanceof Long) {
-        return ((Long)val).longValue();
-      } else {
-        try {
-          return Long.parseLong(val.toString());
-        } catch (Exception e) {
-          throw new DataFrameException("Value could not be converted into a long");
-        }
-      }
-    }
-    throw new DataFrameException("Value could not be found");
+    return field(getField(indx)).getIntValue();
   }
 
 
@@ -520,7 +679,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a long value.
    */
   public long getAsLong(String name) throws DataFrameException {
-    return asLong(getObject(name));
+    return field(getField(name)).getLongValue();
   }
 
 
@@ -538,35 +697,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a long value.
    */
   public long getAsLong(final int indx) throws DataFrameException {
-    return asLong(getObject(indx));
-  }
-
-
-
-
-  /**
-   * Convert the given object into a double
-   *  
-   * @param val the object to convert
-   * 
-   * @return the long value of the object
-   * 
-   * @throws DataFrameException if the object was null or not able to be parsed 
-   *         into a double value
-   */
-  private double asDouble(Object val) throws DataFrameException {
-    if (val != null) {
-      if (val instanceof Double) {
-        return ((Double)val).doubleValue();
-      } else {
-        try {
-          return Double.parseDouble(val.toString());
-        } catch (Exception e) {
-          throw new DataFrameException("Value could not be converted into a double");
-        }
-      }
-    }
-    throw new DataFrameException("Value could not be found");
+    return field(getField(indx)).getLongValue();
   }
 
 
@@ -584,7 +715,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a double value.
    */
   public double getAsDouble(String name) throws DataFrameException {
-    return asDouble(getObject(name));
+    return field(getField(name)).getDoubleValue();
   }
 
 
@@ -602,35 +733,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a double value.
    */
   public double getAsDouble(final int indx) throws DataFrameException {
-    return asDouble(getObject(indx));
-  }
-
-
-
-
-  /**
-   * Convert the given object into a float
-   *  
-   * @param val the object to convert
-   * 
-   * @return the long value of the object
-   * 
-   * @throws DataFrameException if the object was null or not able to be parsed 
-   *         into a float value
-   */
-  private float asFloat(Object val) throws DataFrameException {
-    if (val != null) {
-      if (val instanceof Float) {
-        return ((Float)val).longValue();
-      } else {
-        try {
-          return Float.parseFloat(val.toString());
-        } catch (Exception e) {
-          throw new DataFrameException("Value could not be converted into a float");
-        }
-      }
-    }
-    throw new DataFrameException("Value could not be found");
+    return field(getField(indx)).getDoubleValue();
   }
 
 
@@ -648,7 +751,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a float value.
    */
   public float getAsFloat(String name) throws DataFrameException {
-    return asFloat(getObject(name));
+    return field(getField(name)).getFloatValue();
   }
 
 
@@ -666,7 +769,7 @@ public class DataFrame implements Cloneable {
    *         found field could not be parsed or converted to a float value.
    */
   public float getAsFloat(final int indx) throws DataFrameException {
-    return asFloat(getObject(indx));
+    return field(getField(indx)).getFloatValue();
   }
 
 
@@ -756,15 +859,8 @@ public class DataFrame implements Cloneable {
    *         if the field with the given name was not found.
    */
   public Object getObject(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return field.getObjectValue();
-      }
-    }
-
-    return null;
+    final int indx = indexOf(name);
+    return (indx < 0) ? null : fields.get(indx).getObjectValue();
   }
 
 
@@ -791,7 +887,14 @@ public class DataFrame implements Cloneable {
 
 
   /**
-   * Create a deep-copy of this frame.
+   * Create a copy of this frame which shares its values until they change.
+   * 
+   * <p>The clone has fields of its own, but their values, including those of 
+   * child frames, are shared with this frame rather than copied. A value is 
+   * only copied when it is changed in place, in either frame, so cloning a 
+   * frame with a large payload to add a field to it costs about as much as 
+   * the frame has fields, however large their values. Changes to either 
+   * frame are never seen by the other.
    * 
    * @return a clone of this DataFrame
    */
@@ -810,6 +913,24 @@ public class DataFrame implements Cloneable {
 
 
 
+  /**
+   * Create an immutable copy of this frame.
+   * 
+   * <p>The copy shares the values of this frame rather than copying them, 
+   * and may be passed between threads and used as a map key. Later changes 
+   * to this frame are not seen by the copy.
+   * 
+   * @return a frozen copy of this frame
+   * 
+   * @see FrozenFrame
+   */
+  public FrozenFrame freeze() {
+    return new FrozenFrame(this);
+  }
+
+
+
+
   /**
    * Create a frame with a field with the given name and value.
    *
@@ -827,28 +948,26 @@ public class DataFrame implements Cloneable {
   /**
    * Add a new field with the given value without a name.
    * 
-   * <p><strong>NOTICE:</strong> Because values are added as byte arrays and
-   * not references, only complete frames can be added. This is because child 
-   * frames are stored as their wire format at the time of their being added. 
-   * Any fields added to the child after being added to the parent <strong>will 
-   * not have their values represented in the child frame</strong>. This is 
-   * partially by design as it is then possible to use one frame in the 
-   * creation of all children. Also, storing the values in wire format reduces 
-   * the number of times field values are marshaled, thereby improving overall
-   * performance.  
+   * <p><strong>NOTICE:</strong> Child frames are added by reference and are 
+   * only encoded when the wire format of this frame is needed. Any changes 
+   * made to the child after being added to the parent <strong>will be 
+   * represented in the parent</strong>, and a child added to several frames 
+   * (or several times) is shared by all of them. Add a clone of the child if 
+   * an independent copy is desired. A frame added to itself is added as a 
+   * copy, but frames must not otherwise contain themselves.
    *
    * @param value The value to place in the un-named field
    *
    * @return the index of the field just added.
    */
   public int add(final Object value) {
-    modified = true;
+    touch();
     if (value instanceof DataField) {
       fields.add((DataField)value);
     } else {
-      fields.add(new DataField(value));
+      fields.add(new DataField(detach(value)));
     }
-    return fields.size() - 1;
+    return indexAdded();
   }
 
 
@@ -865,35 +984,804 @@ public class DataFrame implements Cloneable {
    *
    * @return the index of the placed value.
    * 
-   * @throws IllegalArgumentException If the name is longer than 255 characters 
-   *         or the value is an unsupported type.
+   * @throws IllegalArgumentException If the name is longer than 255 characters 
+   *         or the value is an unsupported type.
+   */
+  public int add(final String name, final Object value) {
+    touch();
+    fields.add(new DataField(name, detach(value)));
+    return indexAdded();
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and int value without boxing the value.
+   * 
+   * <p>The type of the field is selected by value as it would be for an 
+   * {@code Integer}.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final int value) {
+    return add(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and long value without boxing the value.
+   * 
+   * <p>The type of the field is selected by value as it would be for a 
+   * {@code Long}.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final long value) {
+    return add(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and short value without boxing the value.
+   * 
+   * <p>The type of the field is selected by value as it would be for a 
+   * {@code Short}.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final short value) {
+    return add(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and double value without boxing the 
+   * value.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final double value) {
+    return add(name, DataField.DOUBLE, Double.doubleToLongBits(value));
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and float value without boxing the value.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final float value) {
+    return add(name, DataField.FLOAT, Float.floatToIntBits(value));
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and boolean value without boxing the 
+   * value.
+   *
+   * @param name The name of the field to populate.
+   * @param value The value to place in the named field
+   *
+   * @return the index of the placed value.
+   */
+  public int add(final String name, final boolean value) {
+    return add(name, DataField.BOOLEANTYPE, value ? 1 : 0);
+  }
+
+
+
+
+  /**
+   * Add a field of a fixed width type from the bit pattern of its value.
+   */
+  private int add(final String name, final short type, final long bits) {
+    touch();
+    fields.add(new DataField(name, type, bits));
+    return indexAdded();
+  }
+
+
+
+
+  /**
+   * Add a frame field to the existing array of fields.
+   * 
+   * <p>Null fields will not be added to the list and will retun a negative 
+   * index.
+   * 
+   * @param field The field to place in the frames array of fields
+   * 
+   * @return the index of the placed value or -1 if the given frame is null.
+   */
+  public int add(final DataField field) {
+    if (field != null) {
+      touch();
+      fields.add(field);
+      return indexAdded();
+    } else {
+      return -1;
+    }
+  }
+
+
+
+
+  /**
+   * Place the object in the frame under the given name, overwriting any
+   * existing object with the same name.
+   * 
+   * <p>Note: this is different from <tt>add(String,Object)</tt> in that 
+   * this method will not duplicate names.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param obj The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   */
+  public int put(final String name, final Object obj) {
+    if ((obj != null) || (name != null)) {
+      if (name != null) {
+        final int i = indexOf(name);
+        if (i > -1) {
+          if (obj != null) {
+            fields.get(i).setValue(detach(obj));
+          } else {
+            // Null object implies remove the named field
+            indexRemoved(i, fields.remove(i));
+          }
+
+          touch();
+
+          return i;
+        }
+
+        return add(name, obj);
+      } else {
+        return add(obj);
+      }
+    }
+
+    return -1;
+  }
+
+
+
+
+  /**
+   * Place an int value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final int value) {
+    return put(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Place a long value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final long value) {
+    return put(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Place a short value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final short value) {
+    return put(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Place a double value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final double value) {
+    return put(name, DataField.DOUBLE, Double.doubleToLongBits(value));
+  }
+
+
+
+
+  /**
+   * Place a float value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final float value) {
+    return put(name, DataField.FLOAT, Float.floatToIntBits(value));
+  }
+
+
+
+
+  /**
+   * Place a boolean value in the frame under the given name, overwriting any 
+   * existing value with the same name, without boxing the value.
+   * 
+   * <p>If the existing field already holds a value of the same type, the new 
+   * value is written over the old one and nothing is allocated.
+   *
+   * @param name The name of the field in which the value is to be placed. 
+   * @param value The value to place.
+   * 
+   * @return The index of the field the value was placed.
+   * 
+   * @see #put(String, Object)
+   */
+  public int put(final String name, final boolean value) {
+    return put(name, DataField.BOOLEANTYPE, value ? 1 : 0);
+  }
+
+
+
+
+  /**
+   * Place a value of a fixed width type from the bit pattern of its value.
+   */
+  private int put(final String name, final short type, final long bits) {
+    if (name != null) {
+      final int i = indexOf(name);
+      if (i > -1) {
+        fields.get(i).setValue(type, bits);
+        touch();
+        return i;
+      }
+    }
+    return add(name, type, bits);
+  }
+
+
+
+
+  /**
+   * Remove the first occurrence of a DataField with the given name.
+   *
+   * @param name name of the DataField to remove.
+   * 
+   * @return The DataField that was removed.
+   */
+  public DataField remove(final String name) {
+    DataField retval = null;
+    final int i = indexOf(name);
+    if (i > -1) {
+      retval = fields.remove(i);
+      indexRemoved(i, retval);
+      touch();
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Remove the first field with the given name and add a new field with the 
+   * given name and new object value.
+   * 
+   * <p>This is equivalent to calling:<pre><code>
+   * {
+   *   remove( name );
+   *   add( name, obj );
+   * }
+   * </code></pre>
+   * 
+   * <p><strong>NOTE:</strong> The value is not checked prior to removing the 
+   * existing field which means if the object is not supported, the end state 
+   * of the frame will be the named field will have been removed from the 
+   * frame and no value replacing it. This is by design, allowing the invalid 
+   * value to be deleted as desired and also because it saves time not having 
+   * to check for existence prior to each replace.
+   *  
+   * @param name Name of the field to replace and then add.
+   * @param obj The value of the object to set in the new field.
+   */
+  public void replace(final String name, final Object obj) {
+    remove(name);
+    add(name, obj);
+  }
+
+
+
+
+  /**
+   * Remove all the fields with the given name and add a single new field with 
+   * the given name and new object value.
+   * 
+   * <p>This is equivalent to calling:<pre><code>
+   * {
+   *   removeAll( name );
+   *   add( name, obj );
+   * }
+   * </code></pre>
+   * 
+   * <p><strong>NOTE:</strong> The value is not checked prior to removing the 
+   * existing fields which means if the object is not supported, the end state 
+   * of the frame will be the named fields will have been removed from the 
+   * frame and no value replacing it. This is by design, allowing the invalid 
+   * value to be deleted as desired and also because it saves time not having 
+   * to check for existence prior to each replace.
+   *  
+   * @param name Name of the fields to replace and then add.
+   * @param obj The value of the object to set in the new field.
+   */
+  public void replaceAll(final String name, final Object obj) {
+    removeAll(name);
+    add(name, obj);
+  }
+
+
+
+
+  /**
+   * Remove all occurrences of DataFields with the given name.
+   *
+   * @param name name of the DataField to remove.
+   */
+  public void removeAll(final String name) {
+    touch();
+
+    if (name != null) {
+      for (int i = 0; i < fields.size(); i++) {
+        final DataField field = fields.get(i);
+
+        if ((field.name != null) && field.name.equals(name)) {
+          fields.remove(i--);
+        }
+      }
+      dropIndex();
+    }
+  }
+
+
+
+
+  /**
+   * Generate a digest fingerprint for this frame based solely on the wire format
+   * of this and all frames contained therein.
+   * 
+   * <p>This performs a SHA-1 digest on the payload to help determine a unique
+   * identifier for the frame. Note: the digest can be used to help determine
+   * equivalence between frames.
+   * 
+   * <p>The digest is cached along with the wire format of the frame, so it 
+   * is only calculated once for each state of the frame.
+   *
+   * @return the SHA-1 digest for this frame.
+   */
+  public byte[] getDigest() {
+    final Encoding current = encode();
+    byte[] retval = current.digest;
+    if (retval == null) {
+      MessageDigest digest = null;
+      try {
+        digest = MessageDigest.getInstance("SHA-1");
+      } catch (final NoSuchAlgorithmException e) {
+        e.printStackTrace();
+        return null;
+      }
+      digest.reset();
+      digest.update(current.bytes);
+      retval = digest.digest();
+      current.digest = retval;
+    }
+    return retval.clone();
+  }
+
+
+
+
+  /**
+   * Generate a digest fingerprint for this message based solely on the wire
+   * format of the payload and returns it as a Hex string.
+   *
+   * <p><strong>NOTE:</strong> This is a very expensive function and should not 
+   * be used without due consideration.
+   *
+   * @see #getDigest()
+   * 
+   * @return A String representation of the digest of the payload.
+   */
+  public String getDigestString() {
+    return ByteUtil.bytesToHex(getDigest());
+  }
+
+
+
+
+  /**
+   * Get a copy of the frame in its wire format.
+   * 
+   * <p>This is a way to serialize the frame for any medium that supports binary
+   * data. The resultant byte array may then be used to the 
+   * <code>DataFrame(byte[])</code> constructor to reconstitute the frame.
+   *
+   * @return this frame represented in its wire format.
+   */
+  public byte[] getBytesOrig() {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(baos);
+
+    try {
+      for (int i = 0; i < fields.size(); i++) {
+        dos.write(fields.get(i).getBytes());
+      }
+    } catch (final IOException e) {
+      e.printStackTrace();
+    }
+
+    return baos.toByteArray();
+  }
+
+
+
+
+  /**
+   * Get a copy of the frame in its wire format.
+   * 
+   * <p>This is a way to serialize the frame for any medium that supports binary
+   * data. The resultant byte array may then be used to the 
+   * <code>DataFrame(byte[])</code> constructor to reconstitute the frame.
+   * 
+   * <p>The exact size of the encoded frame is calculated first so the fields 
+   * are written only once, directly into an array of the correct length.
+   * 
+   * <p>The encoded frame is cached until this frame or one of its fields is 
+   * changed, so getting the bytes of an unchanged frame again costs a copy of 
+   * the array rather than encoding the frame again.
+   *
+   * @return this frame represented in its wire format.
+   */
+  public byte[] getBytes() {
+    return encode().bytes.clone();
+  }
+
+
+
+
+  /**
+   * Get the cached wire format of this frame without copying it.
+   * 
+   * <p>The same array is returned until this frame or one of its fields is 
+   * changed, so it must only be read and never modified.
+   *
+   * @return this frame represented in its wire format.
+   */
+  byte[] getEncoding() {
+    return encode().bytes;
+  }
+
+
+
+
+  /**
+   * Get the number of octets this frame occupies in its wire format.
+   * 
+   * <p>This is the exact length of the array returned by {@link #getBytes()}.
+   *
+   * @return the size of the encoded frame.
+   */
+  public int getEncodedSize() {
+    final Encoding current = encoding;
+    if (current != null && isCurrent(current)) {
+      return current.bytes.length;
+    }
+    int retval = 0;
+    for (int i = 0; i < fields.size(); i++) {
+      retval += fields.get(i).getEncodedSize();
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Write the wire format of this frame into the given array.
+   * 
+   * <p>Exactly {@link #getEncodedSize()} octets are written.
+   *
+   * @param buffer the array into which the frame is to be written
+   * @param offset the position in the array where the frame is to start
+   *
+   * @return the position in the array immediately following the frame
+   *
+   * @throws ArrayIndexOutOfBoundsException if there is not enough room in the 
+   *         array for the frame
+   */
+  public int write(final byte[] buffer, final int offset) {
+    final Encoding current = encoding;
+    if (current != null && isCurrent(current)) {
+      System.arraycopy(current.bytes, 0, buffer, offset, current.bytes.length);
+      return offset + current.bytes.length;
+    }
+
+    int loc = offset;
+    for (int i = 0; i < fields.size(); i++) {
+      final int start = loc;
+      loc = fields.get(i).write(buffer, loc);
+
+      if (CHECK) {
+        final byte[] bytes = Arrays.copyOfRange(buffer, start, loc);
+        final String error = check(bytes);
+        if (error != null)
+          throw new DecodeException(error, bytes);
+      }
+    }
+    return loc;
+  }
+
+
+
+
+  /**
+   * Write the wire format of this frame into the given buffer.
+   * 
+   * <p>The frame is written at the current position of the buffer which is 
+   * then advanced by {@link #getEncodedSize()} octets. This allows frames to 
+   * be written directly into pooled or direct buffers for channel I/O without 
+   * an intermediate array.
+   *
+   * @param buffer the buffer into which the frame is to be written
+   *
+   * @throws BufferOverflowException if there is not enough room remaining in 
+   *         the buffer for the frame, in which case nothing is written.
+   */
+  public void write(final ByteBuffer buffer) {
+    final int size = getEncodedSize();
+    if (buffer.remaining() < size) {
+      throw new BufferOverflowException();
+    }
+
+    final Encoding current = encoding;
+    if (current != null && isCurrent(current)) {
+      buffer.put(current.bytes);
+    } else if (buffer.hasArray()) {
+      write(buffer.array(), buffer.arrayOffset() + buffer.position());
+      buffer.position(buffer.position() + size);
+    } else {
+      for (int i = 0; i < fields.size(); i++) {
+        fields.get(i).write(buffer);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Get the cached wire format of this frame, encoding the frame if it has 
+   * changed since it was last encoded.
+   * 
+   * @return the current encoding of this frame.
+   */
+  private Encoding encode() {
+    Encoding retval = encoding;
+    if (retval == null || !isCurrent(retval)) {
+      // changes made after this point will be newer than the encoding
+      final long now = CLOCK.get();
+      final byte[] bytes = new byte[getEncodedSize()];
+      write(bytes, 0);
+      retval = new Encoding(bytes, now);
+      encoding = retval;
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Determine if the given encoding still represents this frame.
+   * 
+   * @param enc the encoding to check
+   * 
+   * @return true if nothing in this frame has changed since the encoding was 
+   *         made, false otherwise.
+   */
+  private boolean isCurrent(final Encoding enc) {
+    return !changedSince(enc.stamp);
+  }
+
+
+
+
+  /**
+   * Determine if this frame, or anything it contains, has changed since the 
+   * given time.
+   * 
+   * <p>Frames record when they were last changed, but fields and child frames 
+   * do not know the frames which contain them, so each field and any decoded 
+   * child frame is checked as well.
+   * 
+   * @param time the clock value to check against
+   * 
+   * @return true if this frame, any of its fields or any of their child frames 
+   *         have changed since the given time, false otherwise.
+   */
+  boolean changedSince(final long time) {
+    if (stamp > time) {
+      return true;
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      final DataField field = fields.get(i);
+      if (field.stamp > time || (field.frame != null && field.frame.changedSince(time))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+
+
+  /**
+   * @return the index of exact field names, built if necessary.
+   */
+  private HashMap<String, Integer> getIndex() {
+    checkIndex();
+    if (nameIndex == null) {
+      final HashMap<String, Integer> index = new HashMap<String, Integer>(fields.size() * 2);
+      for (int i = 0; i < fields.size(); i++) {
+        final String name = fields.get(i).name;
+        if (!index.containsKey(name)) {
+          index.put(name, i);
+        }
+      }
+      nameIndex = index;
+    }
+    return nameIndex;
+  }
+
+
+
+
+  /**
+   * @return the index of case-folded field names, built if necessary.
+   */
+  private HashMap<String, Integer> getFoldedIndex() {
+    checkIndex();
+    if (foldedIndex == null) {
+      final HashMap<String, Integer> index = new HashMap<String, Integer>(fields.size() * 2);
+      for (int i = 0; i < fields.size(); i++) {
+        final String name = fields.get(i).name;
+        if (name != null) {
+          final String key = fold(name);
+          if (!index.containsKey(key)) {
+            index.put(key, i);
+          }
+        }
+      }
+      foldedIndex = index;
+    }
+    return foldedIndex;
+  }
+
+
+
+
+  /**
+   * Discard the name indexes if any field has been renamed since they were 
+   * built, and track the fields of indexes about to be built.
+   * 
+   * <p>Each indexed field tells the frame which indexed it when it is renamed, 
+   * so renaming a field only affects that frame. A field already indexed by 
+   * another frame cannot tell this one, so a frame holding such a field 
+   * checks its fields for renames instead.
    */
-  public int add(final String name, final Object value) {
-    modified = true;
-    fields.add(new DataField(name, value));
-    return fields.size() - 1;
+  private void checkIndex() {
+    if (untracked) {
+      for (int i = 0; i < fields.size(); i++) {
+        if (fields.get(i).stamp > indexedAt) {
+          dropIndex();
+          break;
+        }
+      }
+    }
+    if (nameIndex == null && foldedIndex == null) {
+      indexedAt = CLOCK.get();
+      untracked = false;
+      for (int i = 0; i < fields.size(); i++) {
+        track(fields.get(i));
+      }
+    }
   }
 
 
 
 
   /**
-   * Add a frame field to the existing array of fields.
-   * 
-   * <p>Null fields will not be added to the list and will retun a negative 
-   * index.
-   * 
-   * @param field The field to place in the frames array of fields
-   * 
-   * @return the index of the placed value or -1 if the given frame is null.
+   * Have the given field tell this frame when it is renamed, if it does not 
+   * already tell another frame.
    */
-  public int add(final DataField field) {
-    if (field != null) {
-      modified = true;
-      fields.add(field);
-      return fields.size() - 1;
+  private void track(final DataField field) {
+    if (field.owner == null || field.owner == this) {
+      field.owner = this;
     } else {
-      return -1;
+      untracked = true;
     }
   }
 
@@ -901,67 +1789,43 @@ public class DataFrame implements Cloneable {
 
 
   /**
-   * Place the object in the frame under the given name, overwriting any
-   * existing object with the same name.
-   * 
-   * <p>Note: this is different from <tt>add(String,Object)</tt> in that 
-   * this method will not duplicate names.
-   *
-   * @param name The name of the field in which the value is to be placed. 
-   * @param obj The value to place.
-   * 
-   * @return The index of the field the value was placed.
+   * Called by a field tracked by this frame when it is renamed.
    */
-  public int put(final String name, final Object obj) {
-    if ((obj != null) || (name != null)) {
-      if (name != null) {
-        for (int i = 0; i < fields.size(); i++) {
-          final DataField field = fields.get(i);
-
-          if ((field.name != null) && field.name.equals(name)) {
-            if (obj != null) {
-              field.type = DataField.getType(obj);
-              field.value = DataField.encode(obj);
-            } else {
-              // Null object implies remove the named field
-              fields.remove(i);
-            }
+  void renamed() {
+    dropIndex();
+  }
 
-            modified = true;
 
-            return i;
-          }
-        }
 
-        return add(name, obj);
-      } else {
-        return add(obj);
-      }
-    }
 
-    return -1;
+  /**
+   * Discard the name indexes so they are rebuilt when next needed.
+   */
+  private void dropIndex() {
+    nameIndex = null;
+    foldedIndex = null;
   }
 
 
 
 
   /**
-   * Remove the first occurrence of a DataField with the given name.
-   *
-   * @param name name of the DataField to remove.
+   * Update the name indexes after a field was added to the end of the list.
    * 
-   * @return The DataField that was removed.
+   * @return the index of the added field
    */
-  public DataField remove(final String name) {
-    DataField retval = null;
-    if (name != null) {
-      for (int i = 0; i < fields.size(); i++) {
-        final DataField field = fields.get(i);
-
-        if ((field.name != null) && field.name.equals(name)) {
-          retval = fields.remove(i);
-
-          modified = true;
+  private int indexAdded() {
+    final int retval = fields.size() - 1;
+    if (nameIndex != null || foldedIndex != null) {
+      track(fields.get(retval));
+      final String name = fields.get(retval).name;
+      if (nameIndex != null && !nameIndex.containsKey(name)) {
+        nameIndex.put(name, retval);
+      }
+      if (foldedIndex != null && name != null) {
+        final String key = fold(name);
+        if (!foldedIndex.containsKey(key)) {
+          foldedIndex.put(key, retval);
         }
       }
     }
@@ -972,189 +1836,145 @@ public class DataFrame implements Cloneable {
 
 
   /**
-   * Remove the first field with the given name and add a new field with the 
-   * given name and new object value.
-   * 
-   * <p>This is equivalent to calling:<pre><code>
-   * {
-   *   remove( name );
-   *   add( name, obj );
-   * }
-   * </code></pre>
+   * Update the name indexes after a field was removed from the list.
    * 
-   * <p><strong>NOTE:</strong> The value is not checked prior to removing the 
-   * existing field which means if the object is not supported, the end state 
-   * of the frame will be the named field will have been removed from the 
-   * frame and no value replacing it. This is by design, allowing the invalid 
-   * value to be deleted as desired and also because it saves time not having 
-   * to check for existence prior to each replace.
-   *  
-   * @param name Name of the field to replace and then add.
-   * @param obj The value of the object to set in the new field.
+   * @param indx the position from which the field was removed
+   * @param removed the field which was removed
    */
-  public void replace(final String name, final Object obj) {
-    remove(name);
-    add(name, obj);
+  private void indexRemoved(final int indx, final DataField removed) {
+    if (removed.owner == this) {
+      removed.owner = null;
+    }
+    final String name = removed.name;
+    if (nameIndex != null) {
+      final Integer first = nameIndex.get(name);
+      shift(nameIndex, indx);
+      if (first != null && first == indx) {
+        // the removed field was the first with its name, find the next one
+        nameIndex.remove(name);
+        for (int i = indx; i < fields.size(); i++) {
+          final String fname = fields.get(i).name;
+          if ((fname == null) ? name == null : fname.equals(name)) {
+            nameIndex.put(fname, i);
+            break;
+          }
+        }
+      }
+    }
+    if (foldedIndex != null) {
+      final String key = (name != null) ? fold(name) : null;
+      final Integer first = (key != null) ? foldedIndex.get(key) : null;
+      shift(foldedIndex, indx);
+      if (first != null && first == indx) {
+        foldedIndex.remove(key);
+        for (int i = indx; i < fields.size(); i++) {
+          final String fname = fields.get(i).name;
+          if (fname != null && fname.equalsIgnoreCase(name)) {
+            foldedIndex.put(key, i);
+            break;
+          }
+        }
+      }
+    }
   }
 
 
 
 
   /**
-   * Remove all the fields with the given name and add a single new field with 
-   * the given name and new object value.
-   * 
-   * <p>This is equivalent to calling:<pre><code>
-   * {
-   *   removeAll( name );
-   *   add( name, obj );
-   * }
-   * </code></pre>
+   * Move the positions after a removed field down by one.
    * 
-   * <p><strong>NOTE:</strong> The value is not checked prior to removing the 
-   * existing fields which means if the object is not supported, the end state 
-   * of the frame will be the named fields will have been removed from the 
-   * frame and no value replacing it. This is by design, allowing the invalid 
-   * value to be deleted as desired and also because it saves time not having 
-   * to check for existence prior to each replace.
-   *  
-   * @param name Name of the fields to replace and then add.
-   * @param obj The value of the object to set in the new field.
+   * <p>The position of the removed field itself is left unchanged.
    */
-  public void replaceAll(final String name, final Object obj) {
-    removeAll(name);
-    add(name, obj);
+  private static void shift(final Map<String, Integer> index, final int indx) {
+    for (final Map.Entry<String, Integer> entry : index.entrySet()) {
+      if (entry.getValue() > indx) {
+        entry.setValue(entry.getValue() - 1);
+      }
+    }
   }
 
 
 
 
   /**
-   * Remove all occurrences of DataFields with the given name.
-   *
-   * @param name name of the DataField to remove.
+   * Fold the case of the name so names which are equal ignoring case have 
+   * the same folded form.
+   * 
+   * <p>This folds each character the same way as 
+   * {@link String#equalsIgnoreCase(String)} compares them.
    */
-  public void removeAll(final String name) {
-    modified = true;
-
-    if (name != null) {
-      for (int i = 0; i < fields.size(); i++) {
-        final DataField field = fields.get(i);
-
-        if ((field.name != null) && field.name.equals(name)) {
-          fields.remove(i--);
-        }
-      }
+  private static String fold(final String name) {
+    final char[] chars = name.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
     }
+    return new String(chars);
   }
 
 
 
 
   /**
-   * Generate a digest fingerprint for this frame based solely on the wire format
-   * of this and all frames contained therein.
+   * Make sure a frame is never given a reference to itself.
    * 
-   * <p>This performs a SHA-1 digest on the payload to help determine a unique
-   * identifier for the frame. Note: the digest can be used to help determine
-   * equivalence between frames.
+   * @param value the value to be placed in this frame
    * 
-   * <p><strong>NOTE:</strong> This is a very expensive function and should not 
-   * be used without due consideration.
-   *
-   * @return the SHA-1 digest for this frame.
+   * @return the given value, or a copy of this frame if the value is this 
+   *         frame.
    */
-  public byte[] getDigest() {
-    MessageDigest digest = null;
-    try {
-      digest = MessageDigest.getInstance("SHA-1");
-    } catch (final NoSuchAlgorithmException e) {
-      e.printStackTrace();
-      return null;
-    }
-    digest.reset();
-    digest.update(getBytes());
-    return digest.digest();
+  private Object detach(final Object value) {
+    return (value == this) ? clone() : value;
   }
 
 
 
 
   /**
-   * Generate a digest fingerprint for this message based solely on the wire
-   * format of the payload and returns it as a Hex string.
-   *
-   * <p><strong>NOTE:</strong> This is a very expensive function and should not 
-   * be used without due consideration.
-   *
-   * @see #getDigest()
+   * Record that this frame has been changed.
    * 
-   * @return A String representation of the digest of the payload.
+   * <p>This sets the modified flag and invalidates any cached wire format of 
+   * this frame. Subclasses which change the fields of the frame directly 
+   * should call this method afterwards.
    */
-  public String getDigestString() {
-    return ByteUtil.bytesToHex(getDigest());
+  protected void touch() {
+    modified = true;
+    stamp = tick();
   }
 
 
 
 
   /**
-   * Get a copy of the frame in its wire format.
+   * Record that this frame has no changes of its own.
    * 
-   * <p>This is a way to serialize the frame for any medium that supports binary
-   * data. The resultant byte array may then be used to the 
-   * <code>DataFrame(byte[])</code> constructor to reconstitute the frame.
-   *
-   * @return this frame represented in its wire format.
+   * <p>This is used when a frame has just been decoded and therefore exactly 
+   * represents the encoded data from which it was built, so the changes made 
+   * in building it do not invalidate encodings which contain that data.
    */
-  public byte[] getBytesOrig() {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final DataOutputStream dos = new DataOutputStream(baos);
-
-    try {
-      for (int i = 0; i < fields.size(); i++) {
-        dos.write(fields.get(i).getBytes());
-      }
-    } catch (final IOException e) {
-      e.printStackTrace();
-    }
-
-    return baos.toByteArray();
+  void resetStamp() {
+    stamp = 0;
   }
 
 
 
 
   /**
-   * Get a copy of the frame in its wire format.
-   * 
-   * <p>This is a way to serialize the frame for any medium that supports binary
-   * data. The resultant byte array may then be used to the 
-   * <code>DataFrame(byte[])</code> constructor to reconstitute the frame.
-   *
-   * @return this frame represented in its wire format.
+   * @return a new, unique value from the clock used to record changes.
    */
-  public byte[] getBytes() {
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final DataOutputStream dos = new DataOutputStream(baos);
-    byte[] bytes = null;
+  static long tick() {
+    return CLOCK.incrementAndGet();
+  }
 
-    try {
-      for (int i = 0; i < fields.size(); i++) {
-        bytes = fields.get(i).getBytes();
-        if (CHECK) {
-          String error = check(bytes);
-          if (error != null)
-            throw new DecodeException(error, bytes);
-        }
 
-        dos.write(bytes);
-      }
-    } catch (final IOException e) {
-      throw new DecodeException("IO Error", e);
-    }
 
-    return baos.toByteArray();
+
+
+  /**
+   * @return the current value of the clock used to record changes.
+   */
+  static long now() {
+    return CLOCK.get();
   }
 
 
@@ -1232,7 +2052,10 @@ public class DataFrame implements Cloneable {
    * @return The list of frame fields in this frame.
    */
   public List<DataField> getFields() {
-    return fields;
+    if (fieldList == null) {
+      fieldList = new FieldList();
+    }
+    return fieldList;
   }
 
 
@@ -1250,7 +2073,8 @@ public class DataFrame implements Cloneable {
    */
   public void setFields(final ArrayList<DataField> list) {
     fields = list;
-    modified = true;
+    dropIndex();
+    touch();
   }
 
 
@@ -1273,6 +2097,8 @@ public class DataFrame implements Cloneable {
    */
   public void clear() {
     fields.clear();
+    dropIndex();
+    touch();
   }
 
 
@@ -1299,6 +2125,10 @@ public class DataFrame implements Cloneable {
    * @return a list of field names in this frame.
    */
   public List<String> getNames() {
+    if (fields.size() >= INDEX_THRESHOLD) {
+      return new ArrayList<String>(getIndex().keySet());
+    }
+
     List<String> retval = new ArrayList<String>();
 
     // get a list of unique field names
@@ -1357,7 +2187,7 @@ public class DataFrame implements Cloneable {
           b.append('"');
         } else if (field.getType() == DataField.ARRAY) {
           b.append(field.getStringValue()); // includes the brackets already
-        } else if (field.getType() != DataField.FRAMETYPE) {
+        } else if (field.getType() != DataField.FRAMETYPE && field.getType() != DataField.ZFRAME) {
           if (field.getObjectValue() != null) {
             b.append('"');
             b.append(field.getObjectValue().toString());
@@ -1574,24 +2404,22 @@ public class DataFrame implements Cloneable {
       if (key instanceof String) {
         String name = (String)key;
 
-        for (int i = 0; i < fields.size(); i++) {
+        final int i = indexOf(name);
+        if (i > -1) {
           final DataField field = fields.get(i);
 
-          if ((field.name != null) && field.name.equals(name)) {
-
-            if (value != null) {
-              retval = field.getObjectValue();
-              field.type = DataField.getType(value);
-              field.value = DataField.encode(value);
-            } else {
-              // Null object implies remove the named field
-              retval = fields.remove(i);
-            }
-            modified = true;
+          if (value != null) {
+            retval = field.getObjectValue();
+            field.setValue(detach(value));
+          } else {
+            // Null object implies remove the named field
+            retval = fields.remove(i);
+            indexRemoved(i, field);
+          }
+          touch();
 
-            return retval;
-          } // found
-        } // for
+          return retval;
+        } // found
 
         // not found, add the value 
         return add(name, value);
@@ -1634,6 +2462,10 @@ public class DataFrame implements Cloneable {
    * @see java.util.Map#keySet()
    */
   public Set keySet() {
+    if (fields.size() >= INDEX_THRESHOLD) {
+      return new HashSet<String>(getIndex().keySet());
+    }
+
     // get a list of unique field names
     Set<String> names = new HashSet<String>();
     for (int i = 0; i < fields.size(); names.add(fields.get(i++).getName()));
@@ -1697,15 +2529,13 @@ public class DataFrame implements Cloneable {
    * reference to the frame to which it was added (this) allowing the chaining 
    * of set methods for more readable code and simpler coding.
    * 
-   * <p><strong>NOTICE:</strong> Because values are added as byte arrays and
-   * not references, only complete frames can be added. This is because child 
-   * frames are stored as their wire format at the time of their being added. 
-   * Any fields added to the child after being added to the parent <strong>will 
-   * not have their values represented in the child frame</strong>. This is 
-   * partially by design as it is then possible to use one frame in the 
-   * creation of all children. Also, storing the values in wire format reduces 
-   * the number of times field values are marshaled, thereby improving overall
-   * performance.  
+   * <p><strong>NOTICE:</strong> Child frames are added by reference and are 
+   * only encoded when the wire format of this frame is needed. Any changes 
+   * made to the child after being added to the parent <strong>will be 
+   * represented in the parent</strong>, and a child added to several frames 
+   * (or several times) is shared by all of them. Add a clone of the child if 
+   * an independent copy is desired. A frame added to itself is added as a 
+   * copy, but frames must not otherwise contain themselves.
    *
    * @param value The value to place in the un-named field
    *
@@ -1717,4 +2547,86 @@ public class DataFrame implements Cloneable {
     return this;
   }
 
+
+
+
+  /**
+   * The wire format of a frame and the time it was encoded.
+   */
+  private static final class Encoding {
+    final byte[] bytes;
+    final long stamp;
+    volatile byte[] digest;
+
+
+
+
+    Encoding(final byte[] bytes, final long stamp) {
+      this.bytes = bytes;
+      this.stamp = stamp;
+    }
+  }
+
+
+
+
+  /**
+   * A live view of the fields in this frame which records any changes made 
+   * through it.
+   */
+  private final class FieldList extends AbstractList<DataField> implements RandomAccess {
+
+    @Override
+    public DataField get(final int index) {
+      return fields.get(index);
+    }
+
+
+
+
+    @Override
+    public int size() {
+      return fields.size();
+    }
+
+
+
+
+    @Override
+    public DataField set(final int index, final DataField element) {
+      final DataField retval = fields.set(index, element);
+      dropIndex();
+      touch();
+      return retval;
+    }
+
+
+
+
+    @Override
+    public void add(final int index, final DataField element) {
+      fields.add(index, element);
+      if (index == fields.size() - 1) {
+        indexAdded();
+      } else {
+        dropIndex();
+      }
+      modCount++;
+      touch();
+    }
+
+
+
+
+    @Override
+    public DataField remove(final int index) {
+      final DataField retval = fields.remove(index);
+      indexRemoved(index, retval);
+      modCount++;
+      touch();
+      return retval;
+    }
+
+  }
+
 }
@@ -0,0 +1,794 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A read-only view of a data frame still in its wire format.
+ *
+ * <p>Constructing a DataFrame from bytes creates a DataField, a name and a
+ * value array for every field in the data whether or not the field is ever
+ * read. This view instead scans the encoded data and records only the
+ * offsets of the name and value of each field in a compact index. Names and
+ * values are decoded only when they are accessed, and numeric values are
+ * read straight out of the buffer without creating any objects.
+ *
+ * <p>The index is built incrementally; looking up a named field only scans
+ * the data up to the first field with that name. This makes the view well
+ * suited to routing and filtering where only a few fields of each frame are
+ * of interest.
+ *
+ * <p>The view works over heap arrays as well as direct byte buffers. The
+ * contents of the buffer are not copied, so the data must not be changed
+ * while the view is in use. Nested frames are returned as views over the
+ * same buffer. Use {@link #toFrame()} to obtain a fully decoded, mutable
+ * DataFrame.
+ *
+ * <p>Instances are not thread-safe as the index is built lazily.
+ */
+public class DataFrameView {
+
+  /** Number of index slots used for each field. */
+  private static final int SLOTS = 4;
+
+  /** Index slot holding the offset of the name data */
+  private static final int NAME = 0;
+
+  /** Index slot holding the name length (low 8 bits) and the type code */
+  private static final int TYPE = 1;
+
+  /** Index slot holding the offset of the value data */
+  private static final int VALUE = 2;
+
+  /** Index slot holding the length of the value data */
+  private static final int LENGTH = 3;
+
+  /** The buffer containing the encoded frame, always read in network byte order */
+  private final ByteBuffer buffer;
+
+  /** The position in the buffer where the frame data starts */
+  private final int start;
+
+  /** The position in the buffer immediately after the frame data */
+  private final int limit;
+
+  /** The offsets of the fields scanned so far, SLOTS ints per field */
+  private int[] index = new int[SLOTS * 8];
+
+  /** The number of fields indexed so far */
+  private int count = 0;
+
+  /** Where the next unscanned field starts */
+  private int scan;
+
+
+
+
+  /**
+   * Create a view of the frame encoded in the given byte array.
+   *
+   * @param data the wire format of a frame
+   */
+  public DataFrameView(final byte[] data) {
+    this(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Create a view of the frame encoded in a portion of the given byte array.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset where in the array the frame data begins
+   * @param length the number of octets making up the frame
+   */
+  public DataFrameView(final byte[] data, final int offset, final int length) {
+    this(ByteBuffer.wrap(data), offset, length);
+  }
+
+
+
+
+  /**
+   * Create a view of the frame encoded in the remaining bytes of the given
+   * buffer.
+   *
+   * <p>The position, limit and byte order of the given buffer are not
+   * changed.
+   *
+   * @param buffer the heap or direct buffer containing the wire format of a
+   *        frame between its position and limit.
+   */
+  public DataFrameView(final ByteBuffer buffer) {
+    this(buffer, buffer.position(), buffer.remaining());
+  }
+
+
+
+
+  /**
+   * Create a view of a portion of the given buffer.
+   *
+   * @param buffer the buffer containing the encoded frame
+   * @param offset the absolute position of the frame data in the buffer
+   * @param length the number of octets making up the frame
+   */
+  public DataFrameView(final ByteBuffer buffer, final int offset, final int length) {
+    if (offset < 0 || length < 0 || length > buffer.capacity() - offset) {
+      throw new IndexOutOfBoundsException("offset " + offset + " and length " + length + " exceed buffer capacity of " + buffer.capacity());
+    }
+    this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    start = offset;
+    limit = offset + length;
+    scan = offset;
+  }
+
+
+
+
+  /**
+   * Index the next field in the buffer.
+   *
+   * @return false if there are no more fields to index, true if a field was
+   *         added to the index.
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  private boolean scanNext() {
+    if (scan >= limit) {
+      return false;
+    }
+
+    final int pos = scan;
+    final int nameLength = buffer.get(pos) & 0xFF;
+    final int nameOffset = pos + 1;
+    int loc = nameOffset + nameLength;
+    if (loc >= limit) {
+      throw new DecodeException("value underflow: name length specified as " + nameLength + " but only " + (limit - nameOffset) + " octets are available", null, pos, -1, count, null);
+    }
+
+    final short type = buffer.get(loc++);
+    final int size;
+    try {
+      size = DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "'", e, pos, -1, count, null);
+    }
+
+    final int length;
+    if (size < 0) {
+      if (4 > limit - loc) {
+        throw new DecodeException("Data underflow reading value length", null, pos, -1, count, null);
+      }
+      length = buffer.getInt(loc);
+      loc += 4;
+      if (length < 0) {
+        throw new DecodeException("read length bad value: length = " + (length & 0xFFFFFFFFL) + " type = " + type, null, pos, -1, count, null);
+      }
+    } else {
+      length = size;
+    }
+
+    if (length > limit - loc) {
+      throw new DecodeException("value underflow: length specified as " + length + " but only " + (limit - loc) + " octets are available", null, pos, -1, count, null);
+    }
+
+    if (index.length < (count + 1) * SLOTS) {
+      final int[] newIndex = new int[index.length * 2];
+      System.arraycopy(index, 0, newIndex, 0, index.length);
+      index = newIndex;
+    }
+
+    final int slot = count * SLOTS;
+    index[slot + NAME] = nameOffset;
+    index[slot + TYPE] = (type << 8) | nameLength;
+    index[slot + VALUE] = loc;
+    index[slot + LENGTH] = length;
+    count++;
+
+    scan = loc + length;
+    return true;
+  }
+
+
+
+
+  /**
+   * Make sure the field at the given index has been scanned.
+   *
+   * @param indx the index of the field
+   *
+   * @return true if the field exists, false if the index is out of range
+   */
+  private boolean indexed(final int indx) {
+    if (indx < 0) {
+      return false;
+    }
+    while (indx >= count) {
+      if (!scanNext()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * Check the name of the indexed field against the given name.
+   *
+   * <p>Names made up of 7-bit characters are compared directly against the
+   * encoded octets, so no string is created. Other names are encoded for the
+   * comparison.
+   */
+  private boolean nameMatches(final int indx, final String name) {
+    final int slot = indx * SLOTS;
+    final int nameLength = index[slot + TYPE] & 0xFF;
+    final int nameOffset = index[slot + NAME];
+
+    if (nameLength == 0) {
+      return false; // unnamed fields never match
+    }
+
+    boolean ascii = true;
+    for (int x = 0; x < name.length(); x++) {
+      if (name.charAt(x) > 0x7F) {
+        ascii = false;
+        break;
+      }
+    }
+
+    if (ascii) {
+      if (name.length() != nameLength) {
+        return false;
+      }
+      for (int x = 0; x < nameLength; x++) {
+        if (buffer.get(nameOffset + x) != name.charAt(x)) {
+          return false;
+        }
+      }
+      return true;
+    } else {
+      final String fieldName = getName(indx);
+      return name.equals(fieldName);
+    }
+  }
+
+
+
+
+  /**
+   * Find the index of the first field with the given name.
+   *
+   * @param name the name of the field to find
+   *
+   * @return the index of the first field with the given name or -1 if no
+   *         field has that name.
+   */
+  public int indexOf(final String name) {
+    if (name == null) {
+      return -1;
+    }
+    for (int x = 0; x < count; x++) {
+      if (nameMatches(x, name)) {
+        return x;
+      }
+    }
+    while (scanNext()) {
+      if (nameMatches(count - 1, name)) {
+        return count - 1;
+      }
+    }
+    return -1;
+  }
+
+
+
+
+  /**
+   * @param name The name of the field for which to search.
+   *
+   * @return True if a field with the exact given name exists, false otherwise.
+   */
+  public boolean contains(final String name) {
+    return indexOf(name) > -1;
+  }
+
+
+
+
+  /**
+   * @return The number of fields in the frame.
+   */
+  public int getFieldCount() {
+    while (scanNext());
+    return count;
+  }
+
+
+
+
+  /**
+   * @return true if there are no fields in the viewed frame
+   */
+  public boolean isEmpty() {
+    return !indexed(0);
+  }
+
+
+
+
+  /**
+   * Decode the name of the indexed field.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return the name of the field or null if the field has no name or does
+   *         not exist.
+   */
+  public String getName(final int indx) {
+    if (indexed(indx)) {
+      final int slot = indx * SLOTS;
+      final int nameLength = index[slot + TYPE] & 0xFF;
+      if (nameLength > 0) {
+        return NameCache.get(buffer, index[slot + NAME], nameLength);
+      }
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * @return a list of the names of the fields in the viewed frame in the
+   *         order they appear; unnamed fields are not included.
+   */
+  public List<String> getNames() {
+    final List<String> retval = new ArrayList<String>();
+    final int fieldCount = getFieldCount();
+    for (int x = 0; x < fieldCount; x++) {
+      final String name = getName(x);
+      if (name != null && !retval.contains(name)) {
+        retval.add(name);
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @param indx the zero-based index of the field
+   *
+   * @return the type code of the indexed field or -1 if the field does not
+   *         exist.
+   */
+  public short getType(final int indx) {
+    if (indexed(indx)) {
+      return (short)(index[indx * SLOTS + TYPE] >> 8);
+    }
+    return -1;
+  }
+
+
+
+
+  /**
+   * @param indx the zero-based index of the field
+   *
+   * @return the number of octets the value of the indexed field uses or -1 if
+   *         the field does not exist.
+   */
+  public int getLength(final int indx) {
+    if (indexed(indx)) {
+      return index[indx * SLOTS + LENGTH];
+    }
+    return -1;
+  }
+
+
+
+
+  /**
+   * Copy the encoded value of the indexed field out of the buffer.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return a copy of the encoded value or null if the field does not exist
+   */
+  public byte[] getValue(final int indx) {
+    if (indexed(indx)) {
+      final int slot = indx * SLOTS;
+      final byte[] retval = new byte[index[slot + LENGTH]];
+      copy(index[slot + VALUE], retval);
+      return retval;
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Access the encoded value of the indexed field without copying it.
+   *
+   * <p>The returned buffer is a read-only slice of the viewed buffer, so it
+   * is only valid as long as the viewed data is. This allows large values,
+   * such as byte arrays held in direct buffers, to be read or written to a
+   * channel without bringing them onto the heap.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return a read-only buffer over the encoded value, positioned at zero, or
+   *         null if the field does not exist
+   */
+  public ByteBuffer getValueBuffer(final int indx) {
+    if (indexed(indx)) {
+      final int slot = indx * SLOTS;
+      final ByteBuffer retval = buffer.asReadOnlyBuffer();
+      retval.limit(index[slot + VALUE] + index[slot + LENGTH]);
+      retval.position(index[slot + VALUE]);
+      return retval.slice();
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Materialize the indexed field.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return a new DataField containing a copy of the name and value of the
+   *         field or null if the field does not exist.
+   */
+  public DataField getField(final int indx) {
+    if (indexed(indx)) {
+      return new DataField(getName(indx), getType(indx), getValue(indx));
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Materialize the first field with the given name.
+   *
+   * @param name the name of the field to return
+   *
+   * @return a new DataField containing a copy of the field or null if the
+   *         field was not found.
+   */
+  public DataField getField(final String name) {
+    return getField(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Decode the value of the indexed field.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return the object value of the field or null if the field does not
+   *         exist or has no value.
+   */
+  public Object getObject(final int indx) {
+    if (indexed(indx) && getLength(indx) > 0) {
+      return DataField.getDataType(getType(indx)).decode(getValue(indx));
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Decode the value of the first field with the given name.
+   *
+   * @param name the name of the field
+   *
+   * @return the object value of the field or null if the field was not found
+   *         or has no value.
+   */
+  public Object getObject(final String name) {
+    return getObject(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Return a view of the nested frame in the indexed field.
+   *
+   * <p>The returned view shares the buffer of this view; nothing is copied.
+   *
+   * @param indx the zero-based index of the field
+   *
+   * @return a view of the nested frame or null if the field does not exist
+   *
+   * @throws DataFrameException if the indexed field is not a frame
+   */
+  public DataFrameView getAsView(final int indx) throws DataFrameException {
+    if (indexed(indx)) {
+      if (getType(indx) != DataField.FRAMETYPE) {
+        throw new DataFrameException("Indexed field is not a frame");
+      }
+      final int slot = indx * SLOTS;
+      return new DataFrameView(buffer, index[slot + VALUE], index[slot + LENGTH]);
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Return a view of the nested frame in the first field with the given name.
+   *
+   * @param name the name of the field
+   *
+   * @return a view of the nested frame or null if the field was not found
+   *
+   * @throws DataFrameException if the named field is not a frame
+   */
+  public DataFrameView getAsView(final String name) throws DataFrameException {
+    return getAsView(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Return the value of the named field as a string.
+   *
+   * @param name The name of the field to retrieve.
+   *
+   * @return The string value of the first field with the given name or null if
+   *         the field could not be found.
+   */
+  public String getAsString(final String name) {
+    final Object val = getObject(name);
+    if (val != null) {
+      return val.toString();
+    }
+    return null;
+  }
+
+
+
+
+  /**
+   * Read the value of the named field as a long directly from the buffer.
+   *
+   * @param name name of the field value to return.
+   *
+   * @return the value of the field
+   *
+   * @throws DataFrameException if the field does not exist or its value
+   *         could not be converted to a long value.
+   */
+  public long getAsLong(final String name) throws DataFrameException {
+    return asLong(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Read the value of the named field as an integer directly from the buffer.
+   *
+   * @param name name of the field value to return.
+   *
+   * @return the value of the field
+   *
+   * @throws DataFrameException if the field does not exist or its value
+   *         could not be converted to an integer value.
+   */
+  public int getAsInt(final String name) throws DataFrameException {
+    final long retval = asLong(indexOf(name));
+    if (retval < Integer.MIN_VALUE || retval > Integer.MAX_VALUE) {
+      throw new DataFrameException("Value could not be converted into an integer");
+    }
+    return (int)retval;
+  }
+
+
+
+
+  /**
+   * Read the value of the named field as a double directly from the buffer.
+   *
+   * @param name name of the field value to return.
+   *
+   * @return the value of the field
+   *
+   * @throws DataFrameException if the field does not exist or its value
+   *         could not be converted to a double value.
+   */
+  public double getAsDouble(final String name) throws DataFrameException {
+    final int indx = indexOf(name);
+    if (indexed(indx)) {
+      final int pos = index[indx * SLOTS + VALUE];
+      switch (getType(indx)) {
+        case DataField.FLOAT:
+          return buffer.getFloat(pos);
+        case DataField.DOUBLE:
+          return buffer.getDouble(pos);
+        case DataField.U64:
+          return toUnsigned(buffer.getLong(pos)).doubleValue();
+        case DataField.STRING:
+          try {
+            return Double.parseDouble(getAsString(name));
+          } catch (final Exception e) {
+            throw new DataFrameException("Value could not be converted into a double");
+          }
+        default:
+          return asLong(indx);
+      }
+    }
+    throw new DataFrameException("Value could not be found");
+  }
+
+
+
+
+  /**
+   * Read the value of the named field as a boolean directly from the buffer.
+   *
+   * @param name name of the field value to return.
+   *
+   * @return the value of the field
+   *
+   * @throws DataFrameException if the field does not exist or its value
+   *         could not be converted to a boolean value.
+   */
+  public boolean getAsBoolean(final String name) throws DataFrameException {
+    final int indx = indexOf(name);
+    if (indexed(indx)) {
+      final short type = getType(indx);
+      if (type == DataField.BOOLEANTYPE) {
+        return buffer.get(index[indx * SLOTS + VALUE]) > 0;
+      } else if (type == DataField.STRING) {
+        final String text = getAsString(name);
+        final Object bool = DataField.getDataType(DataField.BOOLEANTYPE).parse(text);
+        if (bool != null) {
+          return (Boolean)bool;
+        }
+        try {
+          return Double.parseDouble(text) > 0;
+        } catch (final Exception e) {
+          throw new DataFrameException("Value could not be converted into a boolean");
+        }
+      } else if (type == DataField.FLOAT || type == DataField.DOUBLE) {
+        return getAsDouble(name) > 0;
+      } else {
+        return asLong(indx) > 0;
+      }
+    }
+    throw new DataFrameException("Value could not be found");
+  }
+
+
+
+
+  /**
+   * Read the integral value of the indexed field.
+   */
+  private long asLong(final int indx) throws DataFrameException {
+    if (indexed(indx)) {
+      final int slot = indx * SLOTS;
+      final int pos = index[slot + VALUE];
+      switch (getType(indx)) {
+        case DataField.S8:
+          return buffer.get(pos);
+        case DataField.U8:
+          return buffer.get(pos) & 0xFF;
+        case DataField.S16:
+          return buffer.getShort(pos);
+        case DataField.U16:
+          return buffer.getShort(pos) & 0xFFFF;
+        case DataField.S32:
+          return buffer.getInt(pos);
+        case DataField.U32:
+          return buffer.getInt(pos) & 0xFFFFFFFFL;
+        case DataField.S64:
+          return buffer.getLong(pos);
+        case DataField.U64:
+          final long value = buffer.getLong(pos);
+          if (value < 0) {
+            throw new DataFrameException("Value could not be converted into a long");
+          }
+          return value;
+        case DataField.STRING:
+          try {
+            return Long.parseLong(DataField.getDataType(DataField.STRING).decode(getValue(indx)).toString());
+          } catch (final Exception e) {
+            throw new DataFrameException("Value could not be converted into a long");
+          }
+        default:
+          throw new DataFrameException("Value of type " + DataField.getDataType(getType(indx)).getTypeName() + " could not be converted into a number");
+      }
+    }
+    throw new DataFrameException("Value could not be found");
+  }
+
+
+
+
+  private static BigInteger toUnsigned(final long value) {
+    final BigInteger retval = BigInteger.valueOf(value & Long.MAX_VALUE);
+    return (value < 0) ? retval.setBit(63) : retval;
+  }
+
+
+
+
+  /**
+   * Copy data out of the buffer without disturbing its position.
+   */
+  private void copy(final int offset, final byte[] target) {
+    if (buffer.hasArray()) {
+      System.arraycopy(buffer.array(), buffer.arrayOffset() + offset, target, 0, target.length);
+    } else {
+      final ByteBuffer source = buffer.duplicate();
+      source.clear().position(offset);
+      source.get(target);
+    }
+  }
+
+
+
+
+  /**
+   * @return a copy of the wire format of the viewed frame
+   */
+  public byte[] getBytes() {
+    final byte[] retval = new byte[limit - start];
+    copy(start, retval);
+    return retval;
+  }
+
+
+
+
+  /**
+   * Decode the entire viewed frame into a mutable DataFrame.
+   *
+   * @return a new DataFrame containing copies of all the fields in the view
+   */
+  public DataFrame toFrame() {
+    return new DataFrame(getBytes());
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return toFrame().toString();
+  }
+
+}
@@ -7,36 +7,63 @@
  */
 package coyote.dataframe;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Date;
-import java.util.List;
 
 import coyote.commons.ByteUtil;
 
 
-/** Type representing a unsigned 64-bit epoch time in milliseconds */
+/**
+ * Type representing a unsigned 64-bit epoch time in milliseconds
+ *
+ * <p>Dates are formatted, and parsed, with immutable formatters which may be
+ * shared between threads. Text is parsed by recognizing its shape rather
+ * than by trying one pattern after another: ISO 8601 style dates and times
+ * with an optional 'T' or space before the time, an optional fraction of a
+ * second of up to nine digits and an optional offset such as "Z", "-05",
+ * "-0500" or "-05:00", and the US styles "M/y", "M/d/y" and "M-d-y". Text
+ * without an offset is taken to be in the default time zone.
+ */
 public class DateType implements FieldType {
   private static final int _size = 8;
 
   private final static String _name = "DAT";
 
-  private static final SimpleDateFormat FORMATTER = new SimpleDateFormat( "yyyy-MM-dd'T'HH:mm:ss.SSSX" );
-  List<String> formatStrings = Arrays.asList(
-      "yyyy-MM-dd'T'HH:mm:ss.SSSX",
-      "yyyy-MM-dd'T'HH:mm:ss.SSS",
-      "yyyy-MM-dd'T'HH:mm:ss",
-      "yyyy-MM-dd' 'HH:mm:ss.SSSX",
-      "yyyy-MM-dd' 'HH:mm:ss.SSS",
-      "yyyy-MM-dd' 'HH:mm:ss",
-      "yyyy-MM-dd HH:mm:ss.SSSX",
-      "yyyy-MM-dd HH:mm:ss.SSS",
-      "yyyy-MM-dd HH:mm:ss",
-      "yyyy-MM-dd",
-      "M/y", 
-      "M/d/y", 
-      "M-d-y");
+  /** The format of the string value */
+  private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern( "yyyy-MM-dd'T'HH:mm:ss.SSSX" );
+
+  /** ISO 8601 dates with an optional time, fraction and offset */
+  private static final DateTimeFormatter ISO = new DateTimeFormatterBuilder() //
+      .append( DateTimeFormatter.ISO_LOCAL_DATE ) //
+      .optionalStart() //
+      .appendLiteral( 'T' ) //
+      .appendValue( ChronoField.HOUR_OF_DAY, 2 ) //
+      .appendLiteral( ':' ) //
+      .appendValue( ChronoField.MINUTE_OF_HOUR, 2 ) //
+      .optionalStart() //
+      .appendLiteral( ':' ) //
+      .appendValue( ChronoField.SECOND_OF_MINUTE, 2 ) //
+      .optionalStart() //
+      .appendFraction( ChronoField.NANO_OF_SECOND, 0, 9, true ) //
+      .optionalEnd() //
+      .optionalEnd() //
+      .optionalStart().appendOffset( "+HH:MM", "Z" ).optionalEnd() //
+      .optionalStart().appendOffset( "+HHMM", "Z" ).optionalEnd() //
+      .optionalStart().appendOffset( "+HH", "Z" ).optionalEnd() //
+      .optionalEnd() //
+      .toFormatter() //
+      .withResolverStyle( ResolverStyle.STRICT );
+
 
 
 
@@ -90,11 +117,8 @@ public class DateType implements FieldType {
     if ( val == null || val.length == 0 ) {
       return "";
     } else {
-      Object obj = decode( val );
-      if ( obj != null )
-        return FORMATTER.format( (Date)obj );
-      else
-        return "";
+      final Instant instant = Instant.ofEpochMilli( ByteUtil.retrieveLong( val, 0 ) );
+      return FORMATTER.format( instant.atZone( ZoneId.systemDefault() ) );
     }
   }
 
@@ -103,12 +127,140 @@ public class DateType implements FieldType {
 
   @Override
   public Object parse( String text ) {
-    for ( String formatString : formatStrings ) {
-      try {
-        return new SimpleDateFormat( formatString ).parse( text );
-      } catch ( ParseException e ) {}
+    final Instant instant = parseInstant( text );
+    return ( instant != null ) ? new Date( instant.toEpochMilli() ) : null;
+  }
+
+
+
+
+  /**
+   * Parse the text as a point in time.
+   *
+   * @param text the text to parse
+   *
+   * @return the instant, or null if the text is not a recognized date
+   */
+  static Instant parseInstant( final String text ) {
+    final TemporalAccessor parsed = sniff( text );
+    if ( parsed == null ) {
+      return null;
+    }
+    try {
+      if ( parsed.isSupported( ChronoField.OFFSET_SECONDS ) ) {
+        return OffsetDateTime.from( parsed ).toInstant();
+      }
+      return toLocal( parsed ).atZone( ZoneId.systemDefault() ).toInstant();
+    } catch ( final DateTimeException e ) {
+      return null;
+    }
+  }
+
+
+
+
+  /**
+   * Parse the text as a date and time as it is written, ignoring any offset.
+   *
+   * @param text the text to parse
+   *
+   * @return the date and time, or null if the text is not a recognized date
+   */
+  static LocalDateTime parseLocal( final String text ) {
+    final TemporalAccessor parsed = sniff( text );
+    if ( parsed == null ) {
+      return null;
+    }
+    try {
+      return toLocal( parsed );
+    } catch ( final DateTimeException e ) {
+      return null;
+    }
+  }
+
+
+
+
+  private static LocalDateTime toLocal( final TemporalAccessor parsed ) {
+    if ( parsed.isSupported( ChronoField.HOUR_OF_DAY ) ) {
+      return LocalDateTime.from( parsed );
+    }
+    return LocalDate.from( parsed ).atStartOfDay();
+  }
+
+
+
+
+  /**
+   * Recognize the shape of the text and parse it with the matching format.
+   *
+   * @return the parsed fields, or null if the text is not a recognized date
+   */
+  private static TemporalAccessor sniff( final String text ) {
+    if ( text == null ) {
+      return null;
+    }
+    final String trimmed = text.trim();
+    final int length = trimmed.length();
+    try {
+      if ( length >= 10 && trimmed.charAt( 4 ) == '-' && trimmed.charAt( 7 ) == '-' ) {
+        if ( length > 10 && trimmed.charAt( 10 ) == ' ' ) {
+          final StringBuilder b = new StringBuilder( trimmed );
+          b.setCharAt( 10, 'T' );
+          return ISO.parse( b );
+        }
+        return ISO.parse( trimmed );
+      } else if ( trimmed.indexOf( '/' ) > 0 ) {
+        return numeric( trimmed, '/' );
+      } else if ( trimmed.indexOf( '-' ) > 0 ) {
+        return numeric( trimmed, '-' );
+      }
+    } catch ( final DateTimeException e ) {
+      // not a valid date of the recognized shape
     }
     return null;
   }
 
+
+
+
+  /**
+   * Parse month and year, or month, day and year, numbers separated by the
+   * given character. Two digit years are within 80 years before and 20 years
+   * after the current year.
+   *
+   * @return the date, or null if the text is not of that shape
+   */
+  private static LocalDate numeric( final String text, final char separator ) {
+    final int[] parts = new int[3];
+    final int[] digits = new int[3];
+    int count = 0;
+    for ( int x = 0; x < text.length(); x++ ) {
+      final char c = text.charAt( x );
+      if ( c == separator ) {
+        if ( digits[count] == 0 || ++count == parts.length ) {
+          return null;
+        }
+      } else if ( c >= '0' && c <= '9' && digits[count] < 9 ) {
+        parts[count] = parts[count] * 10 + ( c - '0' );
+        digits[count]++;
+      } else {
+        return null;
+      }
+    }
+    if ( digits[count] == 0 || count == 0 || ( count == 1 && separator != '/' ) ) {
+      return null;
+    }
+
+    int year = parts[count];
+    if ( digits[count] == 2 ) {
+      final int start = LocalDate.now().getYear() - 80;
+      year += start - start % 100;
+      if ( year < start ) {
+        year += 100;
+      }
+    }
+    return LocalDate.of( year, parts[0], ( count == 2 ) ? parts[1] : 1 );
+  }
+
 }
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A frame held in its wire format outside of the Java heap.
+ *
+ * <p>A DataFrame holds each of its values in an array on the heap, so a
+ * cache of large frames, such as those carrying firmware images or image
+ * tiles as byte arrays, occupies the heap and is scanned and copied by the
+ * garbage collector. A DirectFrame instead holds the encoded frame in a
+ * single direct byte buffer which the collector does not scan.
+ *
+ * <p>The frame is read through a {@link DataFrameView} over the direct
+ * buffer, so only the fields actually accessed are decoded onto the heap,
+ * using the same field types as any other frame. Large values can be
+ * accessed as buffers over the off-heap data with
+ * {@link #getValueBuffer(String)} and written to a channel without being
+ * copied onto the heap at all. {@link #toFrame()} and {@link #getBytes()}
+ * bring the whole frame back onto the heap when needed.
+ *
+ * <p>Frames are reference counted. A frame starts with one reference, each
+ * {@link #retain()} adds one and each {@link #release()} or {@link #close()}
+ * removes one. When the last reference is released, a frame allocated from
+ * a {@link DirectFramePool} returns its space to the pool at once, to be
+ * reused by the next frame. A frame created with one of the constructors
+ * has a direct buffer of its own, which is not freed explicitly but only
+ * when the collector collects it, so large caches should use a pool.
+ *
+ * <p>Views and buffers obtained from the frame are only valid while a
+ * reference is held; a thread which keeps reading the frame after its owner
+ * may release it should retain the frame first and release it when done.
+ * Reading the released frame itself results in an IllegalStateException.
+ * Views and buffers used after the frame was released do not crash the JVM,
+ * as the memory of a pool is never freed, but they may read another frame.
+ *
+ * <p>Apart from releasing it, the frame is read-only, and it may be read by
+ * several threads at once.
+ */
+public class DirectFrame implements Closeable {
+
+  /** The direct buffer holding the encoded frame, null once released */
+  private volatile ByteBuffer buffer;
+
+  /** The number of octets in the encoded frame */
+  private final int length;
+
+  /** The number of references to the frame */
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  /** The pool the frame was allocated from, null if it has its own buffer */
+  private final DirectFramePool pool;
+
+  /** The block of the pool holding the frame */
+  private final ByteBuffer block;
+
+
+
+
+  /**
+   * Create an off-heap copy of the given frame.
+   *
+   * <p>The frame is encoded directly into the direct buffer without an
+   * intermediate array.
+   *
+   * @param frame the frame to copy
+   */
+  public DirectFrame(final DataFrame frame) {
+    length = frame.getEncodedSize();
+    final ByteBuffer data = ByteBuffer.allocateDirect(length);
+    frame.write(data);
+    data.flip();
+    buffer = data;
+    pool = null;
+    block = null;
+  }
+
+
+
+
+  /**
+   * Create an off-heap copy of the frame encoded in the given array.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position of the frame data in the array
+   * @param length the number of octets making up the frame
+   */
+  public DirectFrame(final byte[] data, final int offset, final int length) {
+    this(ByteBuffer.wrap(data, offset, length));
+  }
+
+
+
+
+  /**
+   * Create an off-heap copy of the frame encoded in the remaining bytes of the
+   * given buffer.
+   *
+   * <p>The position, limit and byte order of the given buffer are not
+   * changed.
+   *
+   * @param data the buffer containing the wire format of a frame between its
+   *        position and limit.
+   */
+  public DirectFrame(final ByteBuffer data) {
+    length = data.remaining();
+    final ByteBuffer copy = ByteBuffer.allocateDirect(length);
+    copy.put(data.duplicate());
+    copy.flip();
+    buffer = copy;
+    pool = null;
+    block = null;
+  }
+
+
+
+
+  /**
+   * Create a frame in a block of a pool.
+   *
+   * @param data the encoded frame in the block
+   * @param pool the pool holding the frame
+   * @param block the block to return to the pool when the frame is released
+   */
+  DirectFrame(final ByteBuffer data, final DirectFramePool pool, final ByteBuffer block) {
+    length = data.remaining();
+    buffer = data;
+    this.pool = pool;
+    this.block = block;
+  }
+
+
+
+
+  /**
+   * @return the buffer holding the frame
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  private ByteBuffer buffer() {
+    final ByteBuffer retval = buffer;
+    if (retval == null) {
+      throw new IllegalStateException("Frame has been released");
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Create a view of the off-heap frame.
+   *
+   * <p>Views are not thread-safe, so each thread reading the frame should use
+   * a view of its own.
+   *
+   * @return a new view of the frame, valid while a reference is held
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  public DataFrameView getView() {
+    return new DataFrameView(buffer().asReadOnlyBuffer());
+  }
+
+
+
+
+  /**
+   * Access the encoded value of the first field with the given name without
+   * copying it onto the heap.
+   *
+   * @param name the name of the field
+   *
+   * @return a read-only buffer over the value of the field, valid while a
+   *         reference is held, or null if the field does not exist.
+   *
+   * @throws IllegalStateException if the frame has been released
+   *
+   * @see DataFrameView#getValueBuffer(int)
+   */
+  public ByteBuffer getValueBuffer(final String name) {
+    final DataFrameView view = getView();
+    return view.getValueBuffer(view.indexOf(name));
+  }
+
+
+
+
+  /**
+   * Decode the value of the first field with the given name onto the heap.
+   *
+   * @param name the name of the field
+   *
+   * @return the object value of the field or null if the field does not
+   *         exist or has no value.
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  public Object getObject(final String name) {
+    return getView().getObject(name);
+  }
+
+
+
+
+  /**
+   * Decode the entire frame onto the heap.
+   *
+   * @return a new DataFrame containing copies of all the fields in the frame
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  public DataFrame toFrame() {
+    return getView().toFrame();
+  }
+
+
+
+
+  /**
+   * @return a heap copy of the wire format of the frame
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  public byte[] getBytes() {
+    final byte[] retval = new byte[length];
+    buffer().duplicate().get(retval);
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the number of octets this frame occupies in its wire format.
+   */
+  public int getEncodedSize() {
+    return length;
+  }
+
+
+
+
+  /**
+   * Copy the wire format of this frame into the given buffer.
+   *
+   * <p>The frame is written at the current position of the buffer which is
+   * then advanced by {@link #getEncodedSize()} octets.
+   *
+   * @param target the buffer into which the frame is to be written
+   *
+   * @throws java.nio.BufferOverflowException if there is not enough room
+   *         remaining in the buffer for the frame
+   * @throws IllegalStateException if the frame has been released
+   */
+  public void write(final ByteBuffer target) {
+    target.put(buffer().duplicate());
+  }
+
+
+
+
+  /**
+   * Write the wire format of this frame to the given channel straight from
+   * the off-heap buffer.
+   *
+   * @param channel the channel to which the frame is to be written
+   *
+   * @throws IOException if the channel could not be written
+   * @throws IllegalStateException if the frame has been released
+   */
+  public void write(final WritableByteChannel channel) throws IOException {
+    final ByteBuffer data = buffer().duplicate();
+    while (data.hasRemaining()) {
+      channel.write(data);
+    }
+  }
+
+
+
+
+  /**
+   * @return true if the last reference to this frame has been released.
+   */
+  public boolean isReleased() {
+    return buffer == null;
+  }
+
+
+
+
+  /**
+   * Add a reference to this frame, keeping its memory from being reused until
+   * the reference is released.
+   *
+   * @return this frame
+   *
+   * @throws IllegalStateException if the frame has been released
+   */
+  public DirectFrame retain() {
+    int count;
+    do {
+      count = references.get();
+      if (count == 0) {
+        throw new IllegalStateException("Frame has been released");
+      }
+    }
+    while (!references.compareAndSet(count, count + 1));
+    return this;
+  }
+
+
+
+
+  /**
+   * Release a reference to this frame.
+   *
+   * <p>When the last reference is released, the space of a frame allocated
+   * from a pool is returned to the pool, while the buffer of any other frame
+   * is left for the collector to free. Releasing a frame which has already
+   * been released has no effect.
+   */
+  public void release() {
+    int count;
+    do {
+      count = references.get();
+      if (count == 0) {
+        return;
+      }
+    }
+    while (!references.compareAndSet(count, count - 1));
+    if (count == 1) {
+      buffer = null;
+      if (pool != null) {
+        pool.give(block);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Release a reference to this frame.
+   *
+   * @see #release()
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() {
+    release();
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return isReleased() ? "DirectFrame[released]" : toFrame().toString();
+  }
+
+}
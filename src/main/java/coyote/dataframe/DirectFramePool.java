@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Off-heap memory for {@link DirectFrame}s carved out of large direct slabs.
+ *
+ * <p>Each direct buffer allocated on its own is only freed when the collector
+ * gets around to collecting it, so a cache which replaces large frames
+ * faster than the collector runs can fail with an OutOfMemoryError for
+ * direct buffer memory while the heap is nearly empty. Frames allocated from
+ * a pool instead share a few large slabs, and the space of a frame is
+ * returned to the pool for the next frame the moment the frame is released.
+ *
+ * <p>Space is handed out in blocks of powers of two, from 64 octets up to the
+ * slab size, and released blocks are kept on a free list for their size, so
+ * a frame may occupy up to twice its encoded size. Frames larger than a slab
+ * are given a direct buffer of their own, which is left to the collector.
+ *
+ * <p>Slabs are never freed, so a frame read after it has been released reads
+ * whatever frame has since been given its space rather than crashing the
+ * JVM. Frames are reference counted with {@link DirectFrame#retain()} and
+ * {@link DirectFrame#release()} so that each reader can keep the frame's
+ * space from being reused until it is done with it.
+ *
+ * <p>Instances are thread-safe.
+ */
+public class DirectFramePool {
+
+  /** The default size of each slab */
+  public static final int DEFAULT_SLAB_SIZE = 64 * 1024 * 1024;
+
+  /** The smallest block handed out, as a power of two */
+  private static final int MIN_SHIFT = 6;
+
+  /** The size of each slab, a power of two */
+  private final int slabSize;
+
+  /** The slabs allocated so far */
+  private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+
+  /** Released blocks by the power of two of their size */
+  private final ArrayDeque<ByteBuffer>[] free;
+
+  /** The position of the unused space at the end of the last slab */
+  private int tail;
+
+  /** The number of octets in blocks currently given to frames */
+  private long used = 0;
+
+
+
+
+  /**
+   * Create a pool with slabs of the default size.
+   */
+  public DirectFramePool() {
+    this(DEFAULT_SLAB_SIZE);
+  }
+
+
+
+
+  /**
+   * Create a pool with slabs of the given size.
+   *
+   * @param size the size of each slab, rounded up to a power of two
+   *
+   * @throws IllegalArgumentException if the size is not positive or larger
+   *         than 1 GB
+   */
+  @SuppressWarnings("unchecked")
+  public DirectFramePool(final int size) {
+    if (size < 1 || size > (1 << 30)) {
+      throw new IllegalArgumentException("Slab size must be between 1 octet and 1 GB");
+    }
+    slabSize = Math.max(1 << MIN_SHIFT, Integer.highestOneBit(size - 1) << 1);
+    free = new ArrayDeque[Integer.numberOfTrailingZeros(slabSize) + 1];
+    for (int x = MIN_SHIFT; x < free.length; x++) {
+      free[x] = new ArrayDeque<ByteBuffer>();
+    }
+    tail = slabSize;
+  }
+
+
+
+
+  /**
+   * Create an off-heap copy of the given frame in this pool.
+   *
+   * @param frame the frame to copy
+   *
+   * @return the off-heap frame, to be released when no longer needed
+   */
+  public DirectFrame allocate(final DataFrame frame) {
+    final int length = frame.getEncodedSize();
+    final ByteBuffer block = take(length);
+    final ByteBuffer data = region(block, length);
+    frame.write(data.duplicate());
+    return new DirectFrame(data, this, block);
+  }
+
+
+
+
+  /**
+   * Create an off-heap copy in this pool of the frame encoded in the
+   * remaining bytes of the given buffer.
+   *
+   * <p>The position, limit and byte order of the given buffer are not
+   * changed.
+   *
+   * @param data the buffer containing the wire format of a frame between its
+   *        position and limit.
+   *
+   * @return the off-heap frame, to be released when no longer needed
+   */
+  public DirectFrame allocate(final ByteBuffer data) {
+    final int length = data.remaining();
+    final ByteBuffer block = take(length);
+    final ByteBuffer region = region(block, length);
+    region.duplicate().put(data.duplicate());
+    return new DirectFrame(region, this, block);
+  }
+
+
+
+
+  /**
+   * Create an off-heap copy in this pool of the frame encoded in the given
+   * array.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position of the frame data in the array
+   * @param length the number of octets making up the frame
+   *
+   * @return the off-heap frame, to be released when no longer needed
+   */
+  public DirectFrame allocate(final byte[] data, final int offset, final int length) {
+    return allocate(ByteBuffer.wrap(data, offset, length));
+  }
+
+
+
+
+  /**
+   * @return the number of octets of slab memory allocated by this pool
+   */
+  public synchronized long getCapacity() {
+    return (long)slabs.size() * slabSize;
+  }
+
+
+
+
+  /**
+   * @return the number of octets of slab memory given to frames which have
+   *         not been released
+   */
+  public synchronized long getUsed() {
+    return used;
+  }
+
+
+
+
+  /**
+   * @return the size of each slab in this pool
+   */
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+
+
+
+  /**
+   * @return a buffer over the first octets of the block, starting at zero
+   */
+  private static ByteBuffer region(final ByteBuffer block, final int length) {
+    final ByteBuffer retval = block.duplicate();
+    retval.limit(length);
+    return retval.slice();
+  }
+
+
+
+
+  /**
+   * Take a block of at least the given size from the pool.
+   *
+   * @return the block, or a direct buffer of its own if it is larger than a
+   *         slab
+   */
+  private synchronized ByteBuffer take(final int length) {
+    if (length > slabSize) {
+      return ByteBuffer.allocateDirect(length);
+    }
+    final int shift = shiftOf(length);
+    final int size = 1 << shift;
+    ByteBuffer retval = free[shift].poll();
+    if (retval == null) {
+      if (slabSize - tail < size) {
+        // keep the rest of the last slab for smaller frames
+        while (slabSize - tail >= 1 << MIN_SHIFT) {
+          final int piece = Integer.highestOneBit(slabSize - tail);
+          free[Integer.numberOfTrailingZeros(piece)].push(slice(slabs.get(slabs.size() - 1), tail, piece));
+          tail += piece;
+        }
+        slabs.add(ByteBuffer.allocateDirect(slabSize));
+        tail = 0;
+      }
+      retval = slice(slabs.get(slabs.size() - 1), tail, size);
+      tail += size;
+    }
+    used += size;
+    return retval;
+  }
+
+
+
+
+  /**
+   * Return a block taken from this pool so it can be given to another frame.
+   *
+   * @param block the block given to a frame which has been released
+   */
+  synchronized void give(final ByteBuffer block) {
+    if (block.capacity() <= slabSize) {
+      free[Integer.numberOfTrailingZeros(block.capacity())].push(block);
+      used -= block.capacity();
+    }
+  }
+
+
+
+
+  /**
+   * @return the power of two of the smallest block which holds the length
+   */
+  private static int shiftOf(final int length) {
+    return (length <= 1 << MIN_SHIFT) ? MIN_SHIFT : 32 - Integer.numberOfLeadingZeros(length - 1);
+  }
+
+
+
+
+  private static ByteBuffer slice(final ByteBuffer slab, final int offset, final int size) {
+    final ByteBuffer retval = slab.duplicate();
+    retval.position(offset);
+    retval.limit(offset + size);
+    return retval.slice();
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+
+/**
+ * A bounded pool of frames for reuse.
+ *
+ * <p>Frames released to the pool are reset, keeping their fields and value
+ * arrays, so frames acquired from the pool and populated with
+ * {@link DataFrame#decodeFrom(byte[], int, int)} allocate little or nothing
+ * once the pool has warmed up.
+ *
+ * <p>A frame must not be used, or any of its fields retained, once it has
+ * been released, and must be released only once. Frames which do not fit in
+ * the pool are left for the collector.
+ *
+ * <p>Instances are thread-safe.
+ */
+public class FramePool {
+
+  private final ArrayBlockingQueue<DataFrame> frames;
+
+
+
+
+  /**
+   * Create a pool holding at most the given number of frames.
+   *
+   * @param capacity the most frames held in the pool at one time
+   */
+  public FramePool(final int capacity) {
+    frames = new ArrayBlockingQueue<DataFrame>(capacity);
+  }
+
+
+
+
+  /**
+   * Take an empty frame from the pool, creating one if the pool is empty.
+   *
+   * @return an empty frame
+   */
+  public DataFrame acquire() {
+    final DataFrame retval = frames.poll();
+    return (retval != null) ? retval : new DataFrame();
+  }
+
+
+
+
+  /**
+   * Take a frame from the pool and populate it with the frame encoded in a
+   * portion of the given array.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position in the array where the frame data starts
+   * @param length the number of octets making up the frame
+   *
+   * @return the populated frame, to be released when no longer needed
+   *
+   * @throws DecodeException if the data could not be decoded
+   */
+  public DataFrame decode(final byte[] data, final int offset, final int length) {
+    final DataFrame retval = acquire();
+    try {
+      return retval.decodeFrom(data, offset, length);
+    } catch (final DecodeException e) {
+      release(retval);
+      throw e;
+    }
+  }
+
+
+
+
+  /**
+   * Return a frame to the pool.
+   *
+   * @param frame the frame no longer needed, may be null
+   */
+  public void release(final DataFrame frame) {
+    if (frame != null) {
+      frames.offer(frame.reset());
+    }
+  }
+
+
+
+
+  /**
+   * @return the number of frames currently available in the pool
+   */
+  public int size() {
+    return frames.size();
+  }
+
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+
+/**
+ * Extracts selected values from frames still in their wire format.
+ *
+ * <p>A projection is created once from a set of field names and dotted paths
+ * and then applied to any number of encoded frames:<pre>
+ * FrameProjection routing = new FrameProjection("header.route", "header.priority");
+ * Object[] values = routing.extract(message);</pre>
+ *
+ * <p>Each frame is scanned a field at a time, skipping the values of
+ * unwanted fields by their lengths without decoding or copying them. Nested
+ * frames are only entered when a path leads into them, and the scan of a
+ * frame stops as soon as every path leading through it has been resolved, so
+ * finding two header fields at the front of a large message reads only the
+ * header. Names are compared in their encoded form, so nothing is allocated
+ * other than the values returned.
+ *
+ * <p>Each segment of a path selects the first field with that name, as
+ * {@link DataFrame#getField(String)} does. A segment which is a number also
+ * selects the unnamed field at that position, so the elements of arrays, and
+ * of frames used as arrays, are selected by their index:
+ * {@code "body.items.0.id"}. Paths into array values may only use numbers.
+ *
+ * <p>Projections are immutable and may be shared between threads.
+ */
+public class FrameProjection {
+
+  /** The paths in the order their values are returned */
+  private final String[] paths;
+
+  /** The index of an earlier, identical path for each path, or -1 */
+  private final int[] same;
+
+  /** The top level segments of all the paths */
+  private final Node root = new Node(null);
+
+
+
+
+  /** A segment of one or more paths. */
+  private static final class Node {
+
+    /** The encoded name this segment matches, null for the root */
+    final byte[] name;
+
+    /** The position this segment matches, or -1 if it is not a number */
+    final int position;
+
+    /** The index of the path ending with this segment, or -1 */
+    int result = -1;
+
+    /** The segments which follow this one */
+    Node[] children = new Node[0];
+
+
+
+
+    Node(final String segment) {
+      if (segment == null) {
+        name = null;
+        position = -1;
+        return;
+      }
+      try {
+        name = segment.getBytes(DataField.strEnc);
+      } catch (final UnsupportedEncodingException e) {
+        throw new IllegalArgumentException("Could not encode path segment '" + segment + "'", e);
+      }
+      if (name.length > 255) {
+        throw new IllegalArgumentException("Path segment too long - 255 char limit");
+      }
+      int number = -1;
+      if (segment.length() > 0 && segment.length() < 10) {
+        number = 0;
+        for (int x = 0; x < segment.length(); x++) {
+          final char c = segment.charAt(x);
+          if (c < '0' || c > '9') {
+            number = -1;
+            break;
+          }
+          number = number * 10 + (c - '0');
+        }
+      }
+      position = number;
+    }
+
+
+
+
+    Node child(final String segment) {
+      final Node probe = new Node(segment);
+      for (final Node child : children) {
+        if (Arrays.equals(child.name, probe.name)) {
+          return child;
+        }
+      }
+      final Node[] grown = Arrays.copyOf(children, children.length + 1);
+      grown[children.length] = probe;
+      children = grown;
+      return probe;
+    }
+  }
+
+
+
+
+  /**
+   * Create a projection of the given field names and dotted paths.
+   *
+   * @param paths the names and paths of the values to extract
+   *
+   * @throws IllegalArgumentException if a path is empty or has an empty
+   *         segment
+   */
+  public FrameProjection(final String... paths) {
+    this.paths = paths.clone();
+    same = new int[paths.length];
+    for (int x = 0; x < paths.length; x++) {
+      final String path = paths[x];
+      if (path == null || path.length() == 0) {
+        throw new IllegalArgumentException("Path cannot be empty");
+      }
+      Node node = root;
+      int start = 0;
+      while (true) {
+        final int end = path.indexOf('.', start);
+        final String segment = path.substring(start, end < 0 ? path.length() : end);
+        if (segment.length() == 0) {
+          throw new IllegalArgumentException("Path '" + path + "' has an empty segment");
+        }
+        node = node.child(segment);
+        if (end < 0) {
+          break;
+        }
+        start = end + 1;
+      }
+      same[x] = node.result;
+      if (node.result < 0) {
+        node.result = x;
+      }
+    }
+  }
+
+
+
+
+  /**
+   * @return the paths of this projection in the order their values are
+   *         returned.
+   */
+  public String[] getPaths() {
+    return paths.clone();
+  }
+
+
+
+
+  /**
+   * Extract the values of the paths from an encoded frame.
+   *
+   * @param data the wire format of a frame
+   *
+   * @return the value of each path in the order the paths were given, null
+   *         for paths which do not exist or have no value.
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public Object[] extract(final byte[] data) {
+    return extract(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Extract the values of the paths from a frame encoded in a portion of the
+   * given array.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position of the frame data in the array
+   * @param length the number of octets making up the frame
+   *
+   * @return the value of each path in the order the paths were given, null
+   *         for paths which do not exist or have no value.
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public Object[] extract(final byte[] data, final int offset, final int length) {
+    return extract(ByteBuffer.wrap(data), offset, length);
+  }
+
+
+
+
+  /**
+   * Extract the values of the paths from a frame encoded in a portion of the
+   * given buffer.
+   *
+   * <p>The position and limit of the buffer are not used or changed.
+   *
+   * @param buffer the buffer containing the wire format of a frame
+   * @param offset the absolute position of the frame data in the buffer
+   * @param length the number of octets making up the frame
+   *
+   * @return the value of each path in the order the paths were given, null
+   *         for paths which do not exist or have no value.
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public Object[] extract(final ByteBuffer buffer, final int offset, final int length) {
+    final DataField[] fields = new DataField[paths.length];
+    scan(network(buffer), offset, offset + length, root.children, false, fields);
+    final Object[] retval = new Object[paths.length];
+    for (int x = 0; x < paths.length; x++) {
+      if (same[x] >= 0) {
+        retval[x] = retval[same[x]];
+      } else if (fields[x] != null) {
+        retval[x] = fields[x].getObjectValue();
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Extract the fields at the paths from an encoded frame into a new frame.
+   *
+   * <p>The fields of the returned frame are named by their paths and are in
+   * the order the paths were given, with paths which do not exist, and
+   * repeated paths, left out.
+   *
+   * @param data the wire format of a frame
+   *
+   * @return a frame holding the selected fields
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public DataFrame project(final byte[] data) {
+    return project(ByteBuffer.wrap(data), 0, data.length);
+  }
+
+
+
+
+  /**
+   * Extract the fields at the paths from a frame encoded in a portion of the
+   * given buffer into a new frame.
+   *
+   * @param buffer the buffer containing the wire format of a frame
+   * @param offset the absolute position of the frame data in the buffer
+   * @param length the number of octets making up the frame
+   *
+   * @return a frame holding the selected fields, named by their paths
+   *
+   * @throws DecodeException if the data is not a valid frame
+   *
+   * @see #project(byte[])
+   */
+  public DataFrame project(final ByteBuffer buffer, final int offset, final int length) {
+    final DataField[] fields = new DataField[paths.length];
+    scan(network(buffer), offset, offset + length, root.children, false, fields);
+    final DataFrame retval = new DataFrame();
+    for (int x = 0; x < paths.length; x++) {
+      if (same[x] < 0 && fields[x] != null) {
+        retval.add(new DataField(paths[x], fields[x].getType(), fields[x].getValue()));
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the given buffer, or a duplicate of it, in network byte order
+   */
+  private static ByteBuffer network(final ByteBuffer buffer) {
+    return (buffer.order() == ByteOrder.BIG_ENDIAN) ? buffer : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+  }
+
+
+
+
+  /**
+   * Scan the fields, or array elements, in a portion of the buffer for those
+   * matching the given segments.
+   *
+   * @param buffer the buffer holding the data
+   * @param start the position of the first field
+   * @param end the position after the last field
+   * @param wanted the segments to find among the fields
+   * @param array true if the data is the elements of an array value
+   * @param results where the fields found at the ends of paths are placed
+   */
+  private void scan(final ByteBuffer buffer, final int start, final int end, final Node[] wanted, final boolean array, final DataField[] results) {
+    int remaining = wanted.length;
+    // segments already found, as bits for all but the widest projections
+    long bits = 0;
+    final boolean[] found = (wanted.length > 64) ? new boolean[wanted.length] : null;
+    int loc = start;
+    for (int position = 0; loc < end && remaining > 0; position++) {
+      final int nameOffset = loc + 1;
+      final int nameLength = array ? 0 : buffer.get(loc) & 0xFF;
+      if (!array) {
+        loc = nameOffset + nameLength;
+      }
+      if (loc >= end) {
+        throw new DecodeException("Data underflow: field header is incomplete");
+      }
+      final short type = buffer.get(loc++);
+      int length;
+      try {
+        length = DataField.getTypeSize(type);
+      } catch (final IllegalArgumentException e) {
+        throw new DecodeException("non supported type: '" + type + "'");
+      }
+      if (length < 0) {
+        final int width = array ? 2 : 4;
+        if (loc + width > end) {
+          throw new DecodeException("Data underflow reading value length");
+        }
+        length = array ? buffer.getShort(loc) & 0xFFFF : buffer.getInt(loc);
+        loc += width;
+        if (length < 0) {
+          throw new DecodeException("read length bad value: length = " + (length & 0xFFFFFFFFL) + " type = " + type);
+        }
+      }
+      if (length > end - loc) {
+        throw new DecodeException("value underflow: length specified as " + length + " but only " + (end - loc) + " octets are available");
+      }
+
+      for (int x = 0; x < wanted.length; x++) {
+        final boolean done = (found == null) ? (bits & (1L << x)) != 0 : found[x];
+        if (!done && matches(buffer, nameOffset, nameLength, position, wanted[x])) {
+          if (found == null) {
+            bits |= 1L << x;
+          } else {
+            found[x] = true;
+          }
+          remaining--;
+          final Node node = wanted[x];
+          if (node.result >= 0) {
+            results[node.result] = field(buffer, type, loc, length);
+          }
+          if (node.children.length > 0) {
+            if (type == DataField.FRAMETYPE) {
+              scan(buffer, loc, loc + length, node.children, false, results);
+            } else if (type == DataField.ARRAY) {
+              scan(buffer, loc, loc + length, node.children, true, results);
+            }
+          }
+        }
+      }
+      loc += length;
+    }
+  }
+
+
+
+
+  /**
+   * Determine if a field matches a path segment, comparing the encoded
+   * names.
+   */
+  private static boolean matches(final ByteBuffer buffer, final int nameOffset, final int nameLength, final int position, final Node node) {
+    if (nameLength == 0) {
+      return node.position == position;
+    }
+    if (node.name.length != nameLength) {
+      return false;
+    }
+    for (int x = 0; x < nameLength; x++) {
+      if (buffer.get(nameOffset + x) != node.name[x]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * @return a field holding a copy of the value at the given position
+   */
+  private static DataField field(final ByteBuffer buffer, final short type, final int offset, final int length) {
+    final byte[] value = new byte[length];
+    for (int x = 0; x < length; x++) {
+      value[x] = buffer.get(offset + x);
+    }
+    return new DataField(type, value);
+  }
+
+}
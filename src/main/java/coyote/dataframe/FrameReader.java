@@ -0,0 +1,701 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * Reads successive root frames from a stream of data.
+ *
+ * <p>A stream of frames is a sequence of fields, each of which is normally a
+ * field of type frame whose value is the wire format of a root frame. This is
+ * the same format used to nest frames within frames, so the length of each
+ * root frame is known before its data is read.
+ *
+ * <p>Data is read into an internal buffer which is reused from one frame to
+ * the next, growing only when a field larger than any before it is
+ * encountered. The buffer grows as the data of such a field arrives rather
+ * than to the length the field declares, so a corrupt or hostile length does
+ * not allocate memory for data which is never sent. Reads block until an
+ * entire field has arrived; the amount of available data is never used to
+ * detect the end of a field, so this works with sockets, pipes and files of
+ * any size alike.
+ *
+ * <p>A stream written by a {@link FrameWriter} using a name dictionary is
+ * recognized by the marker the writer places at the start of it, and its
+ * frames are translated back into the standard wire format as they are read,
+ * so they are returned as ordinary frames and views.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @see FrameWriter#useDictionary()
+ */
+public class FrameReader implements Closeable {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /** The stream from which data is read, null if reading from a channel */
+  private final InputStream input;
+
+  /** The channel from which data is read, null if reading from a stream */
+  private final ReadableByteChannel channel;
+
+  /** The reusable buffer holding the data read so far */
+  private byte[] buffer;
+
+  /** Wraps the buffer when reading from a channel */
+  private ByteBuffer wrapper;
+
+  /** Position of the next unconsumed octet in the buffer */
+  private int position = 0;
+
+  /** Position after the last octet of data in the buffer */
+  private int fill = 0;
+
+  /** The number of octets consumed before the start of the buffer */
+  private long consumed = 0;
+
+  /** Header details of the current field */
+  private byte[] data;
+  private int fieldStart;
+  private short fieldType;
+  private int valueStart;
+  private int valueLength;
+
+  /** Position in the buffer after the current field */
+  private int fieldEnd;
+
+  /** Stream offset of the current field */
+  private long fieldOffset;
+
+  /** Encoded names defined on the stream, null if not using a dictionary */
+  private List<byte[]> dictionary = null;
+
+  /** Holds the current field translated from dictionary encoding */
+  private byte[] scratch = null;
+
+  /** Position after the last octet of data in the scratch buffer */
+  private int scratchFill;
+
+
+
+
+  /**
+   * Create a reader which reads frames from the given input stream.
+   *
+   * @param input the stream from which frames are to be read.
+   */
+  public FrameReader(final InputStream input) {
+    this(input, DEFAULT_BUFFER_SIZE);
+  }
+
+
+
+
+  /**
+   * Create a reader which reads frames from the given input stream.
+   *
+   * @param input the stream from which frames are to be read.
+   * @param size the initial size of the internal buffer
+   */
+  public FrameReader(final InputStream input, final int size) {
+    if (input == null) {
+      throw new IllegalArgumentException("Input stream cannot be null");
+    }
+    this.input = input;
+    channel = null;
+    buffer = new byte[Math.max(size, 16)];
+  }
+
+
+
+
+  /**
+   * Create a reader which reads frames from the given channel.
+   *
+   * @param channel the blocking channel from which frames are to be read.
+   *
+   * @throws IllegalArgumentException if the channel is in non-blocking mode
+   */
+  public FrameReader(final ReadableByteChannel channel) {
+    this(channel, DEFAULT_BUFFER_SIZE);
+  }
+
+
+
+
+  /**
+   * Create a reader which reads frames from the given channel.
+   *
+   * @param channel the blocking channel from which frames are to be read.
+   * @param size the initial size of the internal buffer
+   *
+   * @throws IllegalArgumentException if the channel is in non-blocking mode
+   */
+  public FrameReader(final ReadableByteChannel channel, final int size) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    if (channel instanceof SelectableChannel && !((SelectableChannel)channel).isBlocking()) {
+      throw new IllegalArgumentException("Channel must be in blocking mode");
+    }
+    input = null;
+    this.channel = channel;
+    buffer = new byte[Math.max(size, 16)];
+  }
+
+
+
+
+  /**
+   * Read the next root frame from the stream.
+   *
+   * <p>If the next field in the stream is not a frame, it is returned wrapped
+   * in a frame of its own.
+   *
+   * @return the next frame in the stream or null if the end of the stream has
+   *         been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the data in the stream is not a valid frame or
+   *         the stream ended part way through a frame.
+   */
+  public DataFrame read() throws IOException {
+    if (!next()) {
+      return null;
+    }
+    final DataFrame retval;
+    if (fieldType == DataField.FRAMETYPE) {
+      try {
+        retval = new DataFrame(data, valueStart, valueLength);
+      } catch (final DecodeException e) {
+        throw new DecodeException(e.getMessage() + " at stream offset " + fieldOffset, e.getCause(), e.getPosition(), e.getPreviousPosition(), e.getFieldIndex(), e.getField());
+      }
+    } else {
+      retval = new DataFrame(field());
+    }
+    position = fieldEnd;
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read the next root frame from the stream into the given frame, reusing
+   * its fields.
+   *
+   * @param frame the frame to populate
+   *
+   * @return the given frame or null if the end of the stream has been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the next field in the stream is not a frame or
+   *         the data in the stream is not a valid frame.
+   *
+   * @see DataFrame#decodeFrom(byte[], int, int)
+   */
+  public DataFrame read(final DataFrame frame) throws IOException {
+    if (!next()) {
+      return null;
+    }
+    if (fieldType != DataField.FRAMETYPE) {
+      throw new DecodeException("Field at stream offset " + fieldOffset + " is not a frame");
+    }
+    try {
+      frame.decodeFrom(data, valueStart, valueLength);
+    } catch (final DecodeException e) {
+      throw new DecodeException(e.getMessage() + " at stream offset " + fieldOffset, e.getCause(), e.getPosition(), e.getPreviousPosition(), e.getFieldIndex(), e.getField());
+    }
+    position = fieldEnd;
+    return frame;
+  }
+
+
+
+
+  /**
+   * Read the next root frame from the stream as a read-only view.
+   *
+   * <p>The view is over the internal buffer of this reader and nothing is
+   * copied, other than translating a dictionary encoded frame. It is
+   * therefore only valid until the next call to any of the read methods of
+   * this reader.
+   *
+   * @return a view of the next frame in the stream or null if the end of the
+   *         stream has been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the next field in the stream is not a frame
+   */
+  public DataFrameView readView() throws IOException {
+    if (!next()) {
+      return null;
+    }
+    if (fieldType != DataField.FRAMETYPE) {
+      throw new DecodeException("Field at stream offset " + fieldOffset + " is not a frame");
+    }
+    final DataFrameView retval = new DataFrameView(data, valueStart, valueLength);
+    position = fieldEnd;
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read the next root frame from the stream into off-heap memory.
+   *
+   * <p>The frame is copied straight from the internal buffer into a direct
+   * buffer without being decoded, which suits caching large frames outside
+   * of the heap.
+   *
+   * @return the next frame in the stream or null if the end of the stream has
+   *         been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the next field in the stream is not a frame
+   */
+  public DirectFrame readDirect() throws IOException {
+    if (!next()) {
+      return null;
+    }
+    if (fieldType != DataField.FRAMETYPE) {
+      throw new DecodeException("Field at stream offset " + fieldOffset + " is not a frame");
+    }
+    final DirectFrame retval = new DirectFrame(data, valueStart, valueLength);
+    position = fieldEnd;
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read the next root frame from the stream into a block of the given pool.
+   *
+   * @param pool the pool from which the off-heap memory is taken
+   *
+   * @return the next frame in the stream or null if the end of the stream has
+   *         been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the next field in the stream is not a frame
+   *
+   * @see #readDirect()
+   */
+  public DirectFrame readDirect(final DirectFramePool pool) throws IOException {
+    if (!next()) {
+      return null;
+    }
+    if (fieldType != DataField.FRAMETYPE) {
+      throw new DecodeException("Field at stream offset " + fieldOffset + " is not a frame");
+    }
+    final DirectFrame retval = pool.allocate(data, valueStart, valueLength);
+    position = fieldEnd;
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read the next field from the stream.
+   *
+   * @return the next field in the stream or null if the end of the stream
+   *         has been reached.
+   *
+   * @throws IOException if there were problems reading the stream
+   * @throws DecodeException if the data in the stream is not a valid field
+   */
+  public DataField readField() throws IOException {
+    if (!next()) {
+      return null;
+    }
+    final DataField retval = field();
+    position = fieldEnd;
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the current field decoded from the buffer
+   */
+  private DataField field() {
+    final DataField retval = new DataField();
+    DataField.decode(data, fieldStart, valueStart + valueLength, retval);
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the total number of octets consumed from the stream so far.
+   */
+  public long getOffset() {
+    return consumed + position;
+  }
+
+
+
+
+  /**
+   * @return true if the stream being read uses a name dictionary.
+   *
+   * @see FrameWriter#useDictionary()
+   */
+  public boolean isDictionaryEncoded() {
+    return dictionary != null;
+  }
+
+
+
+
+  /**
+   * Read the whole of the next field into the buffer and record where its
+   * parts are.
+   *
+   * @return true if a field is in the buffer, false if the stream ended
+   *         cleanly before another field started.
+   */
+  private boolean next() throws IOException {
+    if (!require(1)) {
+      return false;
+    }
+
+    // a field without a name whose type is the dictionary marker starts (or
+    // restarts) dictionary encoding
+    while (buffer[position] == 0) {
+      if (!require(2)) {
+        throw underflow();
+      }
+      if (buffer[position + 1] != FrameWriter.DICTIONARY_MARKER) {
+        break;
+      }
+      if (!require(4)) {
+        throw underflow();
+      }
+      if (buffer[position + 2] != FrameWriter.DICTIONARY_VERSION) {
+        throw new DecodeException("unsupported dictionary encoding version: '" + buffer[position + 2] + "' at stream offset " + getOffset());
+      }
+      dictionary = new ArrayList<byte[]>();
+      position += 4;
+      if (!require(1)) {
+        return false;
+      }
+    }
+
+    int headerLength;
+    if (dictionary == null) {
+      headerLength = 2 + (buffer[position] & 0xFF);
+    } else {
+      final int code = buffer[position] & 0xFF;
+      if (code == FrameWriter.NAME_LITERAL || code == FrameWriter.NAME_DEFINITION) {
+        if (!require(2)) {
+          throw underflow();
+        }
+      }
+      headerLength = 1 + tokenLength(position);
+    }
+    if (!require(headerLength)) {
+      throw underflow();
+    }
+
+    final short type = buffer[position + headerLength - 1];
+    int length;
+    try {
+      length = DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "' at stream offset " + getOffset());
+    }
+
+    if (length < 0) {
+      headerLength += 4;
+      if (!require(headerLength)) {
+        throw underflow();
+      }
+      length = ByteUtil.retrieveInt(buffer, position + headerLength - 4);
+      if (length < 0 || length > Integer.MAX_VALUE - headerLength) {
+        throw new DecodeException("read length bad value: length = " + ByteUtil.retrieveUnsignedInt(buffer, position + headerLength - 4) + " type = " + type + " at stream offset " + getOffset());
+      }
+    }
+
+    if (!require(headerLength + length)) {
+      throw underflow();
+    }
+
+    fieldOffset = consumed + position;
+    fieldEnd = position + headerLength + length;
+    fieldType = type;
+    if (dictionary == null) {
+      data = buffer;
+      fieldStart = position;
+      valueStart = position + headerLength;
+      valueLength = length;
+    } else {
+      scratchFill = 0;
+      try {
+        translate(position, fieldEnd);
+      } catch (final DecodeException e) {
+        throw new DecodeException(e.getMessage() + " at stream offset " + fieldOffset);
+      }
+      data = scratch;
+      fieldStart = 0;
+      valueStart = 2 + (scratch[0] & 0xFF);
+      if (DataField.getTypeSize(type) < 0) {
+        valueStart += 4;
+      }
+      valueLength = scratchFill - valueStart;
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * Get the number of octets in the dictionary encoded name at the given
+   * position in the buffer.
+   *
+   * <p>The first octet of the name, and the second of a name given in full,
+   * must already be in the buffer.
+   */
+  private int tokenLength(final int at) {
+    final int code = buffer[at] & 0xFF;
+    switch (code) {
+      case FrameWriter.NAME_LITERAL:
+      case FrameWriter.NAME_DEFINITION:
+        return 2 + (buffer[at + 1] & 0xFF);
+      case FrameWriter.NAME_REFERENCE:
+        return 3;
+      default:
+        return 1;
+    }
+  }
+
+
+
+
+  /**
+   * Translate the dictionary encoded fields in the given portion of the
+   * buffer into their standard wire format, appending them to the scratch
+   * buffer.
+   *
+   * <p>Names are defined in the order they appear on the stream, so the
+   * fields of nested frames are translated in order as they are reached.
+   *
+   * @param start position of the first field in the buffer
+   * @param end position after the last field in the buffer
+   */
+  private void translate(final int start, final int end) {
+    int loc = start;
+    while (loc < end) {
+      if (loc + 2 > end) {
+        throw new DecodeException("Data underflow: field header is incomplete");
+      }
+      final int code = buffer[loc] & 0xFF;
+      final int tokenLength = tokenLength(loc);
+      if (loc + tokenLength + 1 > end) {
+        throw new DecodeException("Data underflow: field header is incomplete");
+      }
+
+      // the encoded name, from the stream itself or the dictionary
+      byte[] name = null;
+      int nameOffset = loc + 2;
+      int nameLength = tokenLength - 2;
+      if (code == FrameWriter.NAME_DEFINITION) {
+        if (dictionary.size() >= FrameWriter.DICTIONARY_SIZE) {
+          throw new DecodeException("Name dictionary is full");
+        }
+        dictionary.add(Arrays.copyOfRange(buffer, nameOffset, nameOffset + nameLength));
+      } else if (code != FrameWriter.NAME_LITERAL) {
+        nameOffset = 0;
+        nameLength = 0;
+        if (code != 0) {
+          final int id = (code == FrameWriter.NAME_REFERENCE) ? ((buffer[loc + 1] & 0xFF) << 8) | (buffer[loc + 2] & 0xFF) : code - 1;
+          if (id >= dictionary.size()) {
+            throw new DecodeException("Name id " + id + " has not been defined");
+          }
+          name = dictionary.get(id);
+          nameLength = name.length;
+        }
+      }
+      loc += tokenLength;
+
+      final short type = buffer[loc++];
+      int length;
+      try {
+        length = DataField.getTypeSize(type);
+      } catch (final IllegalArgumentException e) {
+        throw new DecodeException("non supported type: '" + type + "'");
+      }
+      final boolean variable = length < 0;
+      if (variable) {
+        if (loc + 4 > end) {
+          throw new DecodeException("Data underflow: field length is incomplete");
+        }
+        length = ByteUtil.retrieveInt(buffer, loc);
+        loc += 4;
+      }
+      if (length < 0 || length > end - loc) {
+        throw new DecodeException("Data underflow: value extends beyond the frame");
+      }
+
+      ensureScratch(6 + nameLength + length);
+      scratch[scratchFill++] = (byte)nameLength;
+      if (name != null) {
+        System.arraycopy(name, 0, scratch, scratchFill, nameLength);
+      } else {
+        System.arraycopy(buffer, nameOffset, scratch, scratchFill, nameLength);
+      }
+      scratchFill += nameLength;
+      scratch[scratchFill++] = (byte)type;
+
+      if (type == DataField.FRAMETYPE) {
+        // the length of the translated frame is only known afterwards
+        final int mark = scratchFill;
+        scratchFill += 4;
+        translate(loc, loc + length);
+        ByteUtil.overlayUnsignedInt(scratchFill - mark - 4, scratch, mark);
+      } else {
+        if (variable) {
+          ByteUtil.overlayUnsignedInt(length, scratch, scratchFill);
+          scratchFill += 4;
+        }
+        System.arraycopy(buffer, loc, scratch, scratchFill, length);
+        scratchFill += length;
+      }
+      loc += length;
+    }
+  }
+
+
+
+
+  /**
+   * Make sure there is room in the scratch buffer for the given number of
+   * octets.
+   */
+  private void ensureScratch(final int needed) {
+    if (scratch == null) {
+      scratch = new byte[Math.max(buffer.length, needed)];
+    } else if (scratch.length - scratchFill < needed) {
+      final long size = Math.max((long)scratchFill + needed, scratch.length * 2L);
+      if (size > LargeField.MAX_ARRAY) {
+        throw new DecodeException("Translated frame exceeds the largest buffer which can be allocated");
+      }
+      scratch = Arrays.copyOf(scratch, (int)size);
+    }
+  }
+
+
+
+
+  private DecodeException underflow() {
+    return new DecodeException("Data underflow: stream ended part way through the field at stream offset " + getOffset());
+  }
+
+
+
+
+  /**
+   * Make sure the given number of unconsumed octets are in the buffer,
+   * blocking until they arrive.
+   *
+   * @param needed the number of octets required
+   *
+   * @return true if the data is in the buffer, false if the stream ended
+   *         first.
+   */
+  private boolean require(final int needed) throws IOException {
+    if (fill - position >= needed) {
+      return true;
+    }
+
+    // make room by moving the unconsumed data to the front of the buffer
+    if (buffer.length - position < needed) {
+      System.arraycopy(buffer, position, buffer, 0, fill - position);
+      consumed += position;
+      fill -= position;
+      position = 0;
+    }
+
+    while (fill - position < needed) {
+      if (fill == buffer.length) {
+        // grow only as the data arrives, never straight to the needed size
+        buffer = Arrays.copyOf(buffer, (int)Math.min(needed, buffer.length * 2L));
+        wrapper = null;
+      }
+      final int read = fillBuffer();
+      if (read < 0) {
+        return false;
+      }
+      fill += read;
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * Read as much data as is ready into the free space at the end of the
+   * buffer, blocking until at least one octet is read.
+   *
+   * @return the number of octets read or -1 at the end of the stream.
+   */
+  private int fillBuffer() throws IOException {
+    if (input != null) {
+      return input.read(buffer, fill, buffer.length - fill);
+    } else {
+      if (wrapper == null) {
+        wrapper = ByteBuffer.wrap(buffer);
+      }
+      wrapper.limit(buffer.length);
+      wrapper.position(fill);
+      int read;
+      do {
+        read = channel.read(wrapper);
+      }
+      while (read == 0);
+      return read;
+    }
+  }
+
+
+
+
+  /**
+   * Close the underlying stream or channel.
+   *
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    if (input != null) {
+      input.close();
+    } else {
+      channel.close();
+    }
+  }
+
+}
@@ -0,0 +1,814 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Writes frames field by field without building DataFrames.
+ *
+ * <p>Fields are pushed one at a time and written in the standard wire format,
+ * producing the same stream of root frames read by {@link FrameReader}:<pre>
+ * writer.beginFrame();
+ * writer.writeString("name", name);
+ * writer.beginFrame("address");
+ * writer.writeString("city", city);
+ * writer.endFrame();
+ * writer.writeInt("age", age);
+ * writer.endFrame();</pre>
+ *
+ * <p>The length of a frame is only known once it has ended, so the fields of
+ * a root frame are collected in an internal buffer and the length of each
+ * nested frame is patched in when it ends. The buffer is reused from one root
+ * frame to the next. Completed root frames are passed on to the output once
+ * enough have collected, when {@link #flush()} is called, and when the writer
+ * is closed.
+ *
+ * <p>Integers are written with the same value-dependent types as
+ * {@link DataFrame#put(String, int)} so the output is identical to that of an
+ * equivalent DataFrame.
+ *
+ * <p>Streams of frames which share the same names can be written with a name
+ * dictionary by calling {@link #useDictionary()}. The first time a name
+ * appears on the stream it is written in full and assigned the next id, and
+ * each later appearance is written as that id, usually in a single octet. A
+ * marker at the start of the stream announces this to the reader, and readers
+ * which do not support it reject the stream as having an unsupported type
+ * rather than misreading it. The {@link FrameReader} translates the frames
+ * back into the standard wire format, so the receiving application sees
+ * ordinary frames. Names within array values are always written in full.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class FrameWriter implements Closeable, Flushable {
+
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /** The most names remembered in their encoded form */
+  private static final int NAME_CACHE_SIZE = 256;
+
+  /** The type which, after an empty name, marks the use of a dictionary */
+  static final byte DICTIONARY_MARKER = (byte)0xFE;
+
+  /** The version of dictionary encoding written by this class */
+  static final byte DICTIONARY_VERSION = 1;
+
+  /** The number of name ids written as a single octet holding the id plus one */
+  static final int SHORT_REFERENCES = 0xFC;
+
+  /** A name written in full and not added to the dictionary */
+  static final int NAME_LITERAL = 0xFD;
+
+  /** A name id in the following two octets */
+  static final int NAME_REFERENCE = 0xFE;
+
+  /** A name written in full and assigned the next id */
+  static final int NAME_DEFINITION = 0xFF;
+
+  /** The most names a dictionary can hold */
+  static final int DICTIONARY_SIZE = 0x10000;
+
+  /** The stream to which data is written, null if using a channel or buffer */
+  private final OutputStream output;
+
+  /** The channel to which data is written, null if using a stream or buffer */
+  private final WritableByteChannel channel;
+
+  /** The buffer to which data is written, null if using a stream or channel */
+  private final ByteBuffer target;
+
+  /** The buffer holding data not yet passed on to the output */
+  private byte[] buffer;
+
+  /** Position after the last octet of data in the buffer */
+  private int fill = 0;
+
+  /** Position after the last completed root frame or field in the buffer */
+  private int complete = 0;
+
+  /** The number of octets passed on to the output so far */
+  private long written = 0;
+
+  /** Position of the length of each open frame in the buffer */
+  private int[] open = new int[8];
+
+  /** The number of open frames */
+  private int depth = 0;
+
+  /** Recently used names in their encoded form */
+  private final Map<String, byte[]> names = new HashMap<String, byte[]>();
+
+  /** The ids of the names written so far, null if not using a dictionary */
+  private Map<String, Integer> dictionary = null;
+
+
+
+
+  /**
+   * Create a writer which writes frames to the given output stream.
+   *
+   * @param output the stream to which frames are to be written.
+   */
+  public FrameWriter(final OutputStream output) {
+    if (output == null) {
+      throw new IllegalArgumentException("Output stream cannot be null");
+    }
+    this.output = output;
+    channel = null;
+    target = null;
+    buffer = new byte[DEFAULT_BUFFER_SIZE];
+  }
+
+
+
+
+  /**
+   * Create a writer which writes frames to the given channel.
+   *
+   * @param channel the channel to which frames are to be written.
+   */
+  public FrameWriter(final WritableByteChannel channel) {
+    if (channel == null) {
+      throw new IllegalArgumentException("Channel cannot be null");
+    }
+    output = null;
+    this.channel = channel;
+    target = null;
+    buffer = new byte[DEFAULT_BUFFER_SIZE];
+  }
+
+
+
+
+  /**
+   * Create a writer which writes frames into the given buffer.
+   *
+   * <p>Frames are written at the position of the buffer, which is advanced as
+   * they are passed on to it.
+   *
+   * @param target the buffer into which frames are to be written.
+   */
+  public FrameWriter(final ByteBuffer target) {
+    if (target == null) {
+      throw new IllegalArgumentException("Buffer cannot be null");
+    }
+    output = null;
+    channel = null;
+    this.target = target;
+    buffer = new byte[DEFAULT_BUFFER_SIZE];
+  }
+
+
+
+
+  /**
+   * Write all further frames using a name dictionary.
+   *
+   * <p>This writes the marker announcing the dictionary to the reader and
+   * starts a new, empty dictionary. Calling it again starts over, which lets
+   * a reader join the stream from that point, for example after
+   * reconnecting.
+   *
+   * <p>The savings come from names repeated from one frame to the next, so
+   * this suits streams of many small frames of the same few shapes. The
+   * stream can only be read by a {@link FrameReader}.
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   * @throws IllegalStateException if a frame has been begun and not ended
+   */
+  public FrameWriter useDictionary() throws IOException {
+    if (depth > 0) {
+      throw new IllegalStateException("Cannot change encoding within a frame");
+    }
+    ensure(4);
+    buffer[fill++] = 0;
+    buffer[fill++] = DICTIONARY_MARKER;
+    buffer[fill++] = DICTIONARY_VERSION;
+    buffer[fill++] = 0; // reserved
+    dictionary = new HashMap<String, Integer>();
+    return written();
+  }
+
+
+
+
+  /**
+   * @return true if names are being written using a dictionary.
+   */
+  public boolean isDictionaryEncoded() {
+    return dictionary != null;
+  }
+
+
+
+
+  /**
+   * Begin a new root frame, or a nested frame without a name.
+   *
+   * @return this writer
+   */
+  public FrameWriter beginFrame() {
+    return beginFrame(null);
+  }
+
+
+
+
+  /**
+   * Begin a new frame with the given name.
+   *
+   * <p>All the fields written until the matching {@link #endFrame()} are the
+   * fields of the new frame.
+   *
+   * @param name the name of the frame field, may be null
+   *
+   * @return this writer
+   */
+  public FrameWriter beginFrame(final String name) {
+    header(name, DataField.FRAMETYPE, 4);
+    if (depth == open.length) {
+      open = Arrays.copyOf(open, depth * 2);
+    }
+    open[depth++] = fill;
+    fill += 4;
+    return this;
+  }
+
+
+
+
+  /**
+   * End the most recently begun frame.
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   * @throws IllegalStateException if there is no open frame
+   */
+  public FrameWriter endFrame() throws IOException {
+    if (depth == 0) {
+      throw new IllegalStateException("No frame to end");
+    }
+    final int position = open[--depth];
+    putInt(position, fill - position - 4);
+    return written();
+  }
+
+
+
+
+  /**
+   * @return the number of frames begun and not yet ended
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+
+
+
+  /**
+   * Write an int field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeInt(final String name, final int value) throws IOException {
+    return writeBits(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Write a long field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeLong(final String name, final long value) throws IOException {
+    return writeBits(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Write a short field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeShort(final String name, final short value) throws IOException {
+    return writeBits(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Write a double field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeDouble(final String name, final double value) throws IOException {
+    return writeBits(name, DataField.DOUBLE, Double.doubleToLongBits(value));
+  }
+
+
+
+
+  /**
+   * Write a float field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeFloat(final String name, final float value) throws IOException {
+    return writeBits(name, DataField.FLOAT, Float.floatToIntBits(value));
+  }
+
+
+
+
+  /**
+   * Write a boolean field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeBoolean(final String name, final boolean value) throws IOException {
+    return writeBits(name, DataField.BOOLEANTYPE, value ? 1 : 0);
+  }
+
+
+
+
+  /**
+   * Write a date field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field, may be null
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeDate(final String name, final Date value) throws IOException {
+    return writeObject(name, value);
+  }
+
+
+
+
+  /**
+   * Write a string field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field, may be null
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeString(final String name, final String value) throws IOException {
+    if (value == null) {
+      return writeObject(name, null);
+    }
+    byte[] data;
+    try {
+      data = value.getBytes(DataField.strEnc);
+    } catch (final UnsupportedEncodingException e) {
+      data = value.getBytes();
+    }
+    return writeValue(name, DataField.STRING, data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Write a byte array field.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field, may be null
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeBytes(final String name, final byte[] value) throws IOException {
+    if (value == null) {
+      return writeObject(name, null);
+    }
+    return writeValue(name, DataField.BYTEARRAY, value, 0, value.length);
+  }
+
+
+
+
+  /**
+   * Write a byte array field from a portion of the given array.
+   *
+   * @param name the name of the field, may be null
+   * @param value the array holding the value of the field
+   * @param offset the position of the value in the array
+   * @param length the number of octets in the value
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeBytes(final String name, final byte[] value, final int offset, final int length) throws IOException {
+    return writeValue(name, DataField.BYTEARRAY, value, offset, length);
+  }
+
+
+
+
+  /**
+   * Write a complete frame as a nested frame field.
+   *
+   * <p>The cached encoding of the frame is copied into the buffer of this
+   * writer, so writing an unchanged frame again does not encode it again.
+   * When using a dictionary, the frame is written field by field.
+   *
+   * @param name the name of the field, may be null
+   * @param frame the frame to write
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeFrame(final String name, final DataFrame frame) throws IOException {
+    if (dictionary != null) {
+      beginFrame(name);
+      for (int x = 0; x < frame.getFieldCount(); x++) {
+        writeField(frame.getField(x));
+      }
+      return endFrame();
+    }
+    final byte[] data = frame.getEncoding();
+    header(name, DataField.FRAMETYPE, 4 + data.length);
+    putInt(fill, data.length);
+    System.arraycopy(data, 0, buffer, fill + 4, data.length);
+    fill += 4 + data.length;
+    return written();
+  }
+
+
+
+
+  /**
+   * Write a field holding any value a DataField can hold.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   * @throws IllegalArgumentException if the value is of an unsupported type
+   */
+  public FrameWriter writeObject(final String name, final Object value) throws IOException {
+    return writeField(new DataField(name, value));
+  }
+
+
+
+
+  /**
+   * Write the given field.
+   *
+   * @param field the field to write
+   *
+   * @return this writer
+   *
+   * @throws IOException if a completed root frame could not be written
+   */
+  public FrameWriter writeField(final DataField field) throws IOException {
+    if (dictionary != null) {
+      return writeEncoded(field);
+    }
+    ensure(field.getEncodedSize());
+    fill = field.write(buffer, fill);
+    return written();
+  }
+
+
+
+
+  /**
+   * Write the given field using the dictionary, writing nested frames field
+   * by field so their names are also written using the dictionary.
+   */
+  private FrameWriter writeEncoded(final DataField field) throws IOException {
+    final String name = field.getName();
+    final short type = field.getType();
+    if (type == DataField.FRAMETYPE) {
+      final DataFrame child = (DataFrame)field.getObjectValue();
+      if (child == null) {
+        beginFrame(name);
+        return endFrame();
+      }
+      return writeFrame(name, child);
+    }
+    final byte[] value = field.getValue();
+    if (value == null) {
+      header(name, type, 2);
+      buffer[fill++] = 0;
+      buffer[fill++] = 0;
+      return written();
+    }
+    if (DataField.getTypeSize(type) < 0) {
+      return writeValue(name, type, value, 0, value.length);
+    }
+    header(name, type, value.length);
+    System.arraycopy(value, 0, buffer, fill, value.length);
+    fill += value.length;
+    return written();
+  }
+
+
+
+
+  /**
+   * Write a fixed width field from the bit pattern of its value.
+   */
+  private FrameWriter writeBits(final String name, final short type, final long bits) throws IOException {
+    final int size = DataField.getTypeSize(type);
+    header(name, type, size);
+    for (int x = size - 1, shift = 0; x >= 0; x--, shift += 8) {
+      buffer[fill + x] = (byte)(bits >>> shift);
+    }
+    fill += size;
+    return written();
+  }
+
+
+
+
+  /**
+   * Write a variable length field.
+   */
+  private FrameWriter writeValue(final String name, final short type, final byte[] value, final int offset, final int length) throws IOException {
+    header(name, type, 4 + length);
+    putInt(fill, length);
+    System.arraycopy(value, offset, buffer, fill + 4, length);
+    fill += 4 + length;
+    return written();
+  }
+
+
+
+
+  /**
+   * Note the end of a field, passing the buffered data on to the output if a
+   * root frame or field has just been completed and enough data has collected.
+   *
+   * @return this writer
+   */
+  private FrameWriter written() throws IOException {
+    if (depth == 0) {
+      complete = fill;
+    }
+    if (complete >= DEFAULT_BUFFER_SIZE) {
+      drain();
+    }
+    return this;
+  }
+
+
+
+
+  /**
+   * Write the name and type of a field, making room for the rest of it.
+   *
+   * @param name the name of the field
+   * @param type the type of the field
+   * @param remainder the number of octets which will follow the type
+   */
+  private void header(final String name, final short type, final int remainder) {
+    if (dictionary != null && name != null) {
+      final Integer id = dictionary.get(name);
+      if (id != null) {
+        ensure(4 + remainder);
+        final int value = id;
+        if (value < SHORT_REFERENCES) {
+          buffer[fill++] = (byte)(value + 1);
+        } else {
+          buffer[fill++] = (byte)NAME_REFERENCE;
+          buffer[fill++] = (byte)(value >>> 8);
+          buffer[fill++] = (byte)value;
+        }
+        buffer[fill++] = (byte)type;
+        return;
+      }
+    }
+
+    final byte[] nameBytes = nameBytes(name);
+    ensure(3 + nameBytes.length + remainder);
+    if (dictionary != null && nameBytes.length > 0) {
+      if (dictionary.size() < DICTIONARY_SIZE) {
+        dictionary.put(name, dictionary.size());
+        buffer[fill++] = (byte)NAME_DEFINITION;
+      } else {
+        buffer[fill++] = (byte)NAME_LITERAL;
+      }
+    }
+    buffer[fill++] = (byte)nameBytes.length;
+    System.arraycopy(nameBytes, 0, buffer, fill, nameBytes.length);
+    fill += nameBytes.length;
+    buffer[fill++] = (byte)type;
+  }
+
+
+
+
+  /**
+   * @return the encoded form of the given name
+   */
+  private byte[] nameBytes(final String name) {
+    if (name == null) {
+      return new byte[0];
+    }
+    byte[] retval = names.get(name);
+    if (retval == null) {
+      try {
+        retval = name.getBytes(DataField.strEnc);
+      } catch (final UnsupportedEncodingException e) {
+        retval = name.getBytes();
+      }
+      if (retval.length > 255) {
+        throw new IllegalArgumentException("Name too long - 255 char limit");
+      }
+      if (names.size() >= NAME_CACHE_SIZE) {
+        names.clear();
+      }
+      names.put(name, retval);
+    }
+    return retval;
+  }
+
+
+
+
+  private void putInt(final int position, final int value) {
+    buffer[position] = (byte)(value >>> 24);
+    buffer[position + 1] = (byte)(value >>> 16);
+    buffer[position + 2] = (byte)(value >>> 8);
+    buffer[position + 3] = (byte)value;
+  }
+
+
+
+
+  /**
+   * Make sure there is room in the buffer for the given number of octets.
+   */
+  private void ensure(final int needed) {
+    if (buffer.length - fill < needed) {
+      final long size = Math.max((long)fill + needed, buffer.length * 2L);
+      if (size > LargeField.MAX_ARRAY) {
+        throw new IllegalStateException("Frame exceeds the largest buffer which can be allocated");
+      }
+      buffer = Arrays.copyOf(buffer, (int)size);
+    }
+  }
+
+
+
+
+  /**
+   * Pass the completed root frames on to the output, keeping any open frames
+   * in the buffer.
+   */
+  private void drain() throws IOException {
+    if (complete == 0) {
+      return;
+    }
+    if (output != null) {
+      output.write(buffer, 0, complete);
+    } else if (channel != null) {
+      final ByteBuffer data = ByteBuffer.wrap(buffer, 0, complete);
+      while (data.hasRemaining()) {
+        channel.write(data);
+      }
+    } else {
+      target.put(buffer, 0, complete);
+    }
+    written += complete;
+    System.arraycopy(buffer, complete, buffer, 0, fill - complete);
+    fill -= complete;
+    for (int x = 0; x < depth; x++) {
+      open[x] -= complete;
+    }
+    complete = 0;
+  }
+
+
+
+
+  /**
+   * @return the total number of octets of completed root frames passed on to
+   *         the output so far.
+   */
+  public long getOffset() {
+    return written;
+  }
+
+
+
+
+  /**
+   * Pass all completed root frames on to the output and flush it.
+   *
+   * <p>Frames which have not yet ended remain in the buffer.
+   *
+   * @throws IOException if the data could not be written
+   * @throws java.nio.BufferOverflowException if writing into a buffer which
+   *         does not have room for the data
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+    if (output != null) {
+      output.flush();
+    }
+  }
+
+
+
+
+  /**
+   * Flush the completed root frames and close the underlying stream or
+   * channel.
+   *
+   * @throws IOException if the data could not be written
+   * @throws IllegalStateException if a frame has not been ended, in which case
+   *         the incomplete frame is discarded
+   */
+  @Override
+  public void close() throws IOException {
+    final int unfinished = depth;
+    try {
+      flush();
+    } finally {
+      depth = 0;
+      fill = 0;
+      complete = 0;
+      if (output != null) {
+        output.close();
+      } else if (channel != null) {
+        channel.close();
+      }
+    }
+    if (unfinished > 0) {
+      throw new IllegalStateException(unfinished + " frames were not ended");
+    }
+  }
+
+}
@@ -0,0 +1,667 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * An immutable frame.
+ *
+ * <p>A frozen frame is created with {@link DataFrame#freeze()} or built from
+ * {@link #EMPTY} with {@link #with(String, Object)}. It can never change, so
+ * it may be passed between threads without copying or locking, and it may be
+ * used as a key in maps: two frozen frames are equal when they hold the same
+ * fields, with the same names, types and values, in the same order.
+ *
+ * <p>{@link #with(String, Object)} and {@link #without(String)} return new
+ * frames and leave this one as it is. The new frame shares the values and
+ * child frames of this one and only copies the references to its fields, so
+ * the cost of an update depends on the number of fields in the frame, not the
+ * size of their values. Child frames are frozen along with their parent and
+ * are returned by {@link #getAsFrame(String)} as frozen frames. Values of
+ * other types are decoded into new objects each time they are read.
+ *
+ * <p>Use {@link #toFrame()} to obtain a mutable copy.
+ */
+public final class FrozenFrame {
+
+  /** The frame with no fields */
+  public static final FrozenFrame EMPTY = new FrozenFrame(new Entry[0]);
+
+  private static final byte[] NO_BYTES = new byte[0];
+
+  /** The fields of the frame, never changed once the frame is created */
+  private final Entry[] entries;
+
+  /** The hash code, calculated when it is first needed */
+  private int hash = 0;
+
+
+
+
+  /** A field of a frozen frame. */
+  private static final class Entry {
+
+    /** The name of the field, null for unnamed fields */
+    final String name;
+
+    /** The wire format of the name */
+    final byte[] nameBytes;
+
+    final short type;
+
+    /** The encoded value, empty for frames */
+    final byte[] value;
+
+    /** The value of a frame field, null for all other types */
+    final FrozenFrame child;
+
+
+
+
+    Entry(final String name, final short type, final byte[] value, final FrozenFrame child) {
+      this.name = name;
+      this.type = type;
+      this.value = value;
+      this.child = child;
+      if (name == null) {
+        nameBytes = NO_BYTES;
+      } else {
+        byte[] bytes;
+        try {
+          bytes = name.getBytes(DataField.strEnc);
+        } catch (final UnsupportedEncodingException e) {
+          bytes = name.getBytes();
+        }
+        if (bytes.length > 255) {
+          throw new IllegalArgumentException("Name too long - 255 char limit");
+        }
+        nameBytes = bytes;
+      }
+    }
+
+
+
+
+    /**
+     * @return the number of octets of the encoded value
+     */
+    int length() {
+      return (child == null) ? value.length : child.getEncodedSize();
+    }
+
+
+
+
+    boolean same(final Entry other) {
+      if (type != other.type || (name == null ? other.name != null : !name.equals(other.name))) {
+        return false;
+      }
+      return (child == null) ? Arrays.equals(value, other.value) : child.equals(other.child);
+    }
+  }
+
+
+
+
+  private FrozenFrame(final Entry[] entries) {
+    this.entries = entries;
+  }
+
+
+
+
+  /**
+   * Create a frozen copy of the given frame.
+   *
+   * <p>Values are shared with the frame rather than copied where the frame
+   * allows it; the frame replaces a shared value rather than writing over it
+   * when it is changed.
+   *
+   * @param frame the frame to copy
+   */
+  public FrozenFrame(final DataFrame frame) {
+    this(freeze(frame));
+  }
+
+
+
+
+  private static Entry[] freeze(final DataFrame frame) {
+    final Entry[] retval = new Entry[frame.getFieldCount()];
+    for (int x = 0; x < retval.length; x++) {
+      retval[x] = entry(frame.getField(x));
+    }
+    return retval;
+  }
+
+
+
+
+  private static Entry entry(final DataField field) {
+    if (field.getType() == DataField.FRAMETYPE) {
+      final DataFrame child = (DataFrame)field.getObjectValue();
+      return new Entry(field.getName(), DataField.FRAMETYPE, NO_BYTES, (child == null) ? EMPTY : new FrozenFrame(child));
+    }
+    // a clone marks the value as shared so the field will not write over it
+    final byte[] value = ((DataField)field.clone()).getValue();
+    return new Entry(field.getName(), field.getType(), (value == null) ? NO_BYTES : value, null);
+  }
+
+
+
+
+  /**
+   * @return The number of fields in the frame.
+   */
+  public int getFieldCount() {
+    return entries.length;
+  }
+
+
+
+
+  /**
+   * @return true if the frame has no fields.
+   */
+  public boolean isEmpty() {
+    return entries.length == 0;
+  }
+
+
+
+
+  /**
+   * Find the index of the first field with the given name.
+   *
+   * @param name the name of the field to find
+   *
+   * @return the index of the field, or -1 if no field has that name.
+   */
+  public int indexOf(final String name) {
+    if (name != null) {
+      for (int x = 0; x < entries.length; x++) {
+        if (name.equals(entries[x].name)) {
+          return x;
+        }
+      }
+    }
+    return -1;
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return true if a field with the given name exists.
+   */
+  public boolean contains(final String name) {
+    return indexOf(name) >= 0;
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the name of the field, null if it is unnamed.
+   *
+   * @throws IndexOutOfBoundsException if there is no field at that index
+   */
+  public String getName(final int indx) {
+    return entries[indx].name;
+  }
+
+
+
+
+  /**
+   * @return the names of all the fields in order, including null for unnamed
+   *         fields.
+   */
+  public List<String> getNames() {
+    final List<String> retval = new ArrayList<String>(entries.length);
+    for (final Entry entry : entries) {
+      retval.add(entry.name);
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the type code of the field
+   *
+   * @throws IndexOutOfBoundsException if there is no field at that index
+   */
+  public short getType(final int indx) {
+    return entries[indx].type;
+  }
+
+
+
+
+  /**
+   * Return a copy of the indexed field.
+   *
+   * @param indx the index of the field
+   *
+   * @return a new field holding a copy of the value, or null if there is no
+   *         field at that index.
+   */
+  public DataField getField(final int indx) {
+    if (indx < 0 || indx >= entries.length) {
+      return null;
+    }
+    final Entry entry = entries[indx];
+    return new DataField(entry.name, entry.type, (entry.child == null) ? entry.value.clone() : entry.child.getBytes());
+  }
+
+
+
+
+  /**
+   * Return a copy of the first field with the given name.
+   *
+   * @param name the name of the field
+   *
+   * @return a new field holding a copy of the value, or null if there is no
+   *         field with that name.
+   */
+  public DataField getField(final String name) {
+    return getField(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Access the value of the indexed field as an object.
+   *
+   * <p>Child frames are returned as the frozen frames held by this frame;
+   * all other values are decoded into new objects.
+   *
+   * @param indx the index of the field
+   *
+   * @return the value of the field, or null if there is no such field or it
+   *         has no value.
+   */
+  public Object getObject(final int indx) {
+    if (indx < 0 || indx >= entries.length) {
+      return null;
+    }
+    final Entry entry = entries[indx];
+    if (entry.child != null) {
+      return entry.child.isEmpty() ? null : entry.child;
+    } else if (entry.value.length == 0) {
+      return null;
+    }
+    // byte arrays decode to the value itself
+    return DataField.getDataType(entry.type).decode((entry.type == DataField.BYTEARRAY) ? entry.value.clone() : entry.value);
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return the value of the first field with the name, or null if there is
+   *         no such field or it has no value.
+   *
+   * @see #getObject(int)
+   */
+  public Object getObject(final String name) {
+    return getObject(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return the string value of the first field with the name, or null if
+   *         there is no such field.
+   */
+  public String getAsString(final String name) {
+    final Object value = getObject(name);
+    return (value == null) ? null : value.toString();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsInt(String)
+   */
+  public int getAsInt(final String name) throws DataFrameException {
+    return value(name).getIntValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsLong(String)
+   */
+  public long getAsLong(final String name) throws DataFrameException {
+    return value(name).getLongValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDouble(String)
+   */
+  public double getAsDouble(final String name) throws DataFrameException {
+    return value(name).getDoubleValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsFloat(String)
+   */
+  public float getAsFloat(final String name) throws DataFrameException {
+    return value(name).getFloatValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsBoolean(String)
+   */
+  public boolean getAsBoolean(final String name) throws DataFrameException {
+    return value(name).getBooleanValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDate(String)
+   */
+  public Date getAsDate(final String name) throws DataFrameException {
+    final Object value = getObject(name);
+    if (value == null || value instanceof Date) {
+      return (Date)value;
+    }
+    throw new DataFrameException("Could not convert type '" + value.getClass().getSimpleName() + "' to a date");
+  }
+
+
+
+
+  /**
+   * Access the named child frame.
+   *
+   * <p>Arrays and compressed frames are decoded and frozen.
+   *
+   * @param name the name of the field
+   *
+   * @return the child frame, or null if there is no such field or it has no
+   *         value
+   *
+   * @throws DataFrameException if the field is not a frame
+   */
+  public FrozenFrame getAsFrame(final String name) throws DataFrameException {
+    final Object value = getObject(name);
+    if (value == null || value instanceof FrozenFrame) {
+      return (FrozenFrame)value;
+    } else if (value instanceof DataFrame) {
+      return new FrozenFrame((DataFrame)value);
+    }
+    throw new DataFrameException("Field '" + name + "' is not a frame");
+  }
+
+
+
+
+  /**
+   * @return a field sharing the value of the named field, used only to
+   *         convert the value and never exposed
+   *
+   * @throws DataFrameException if there is no such field
+   */
+  private DataField value(final String name) throws DataFrameException {
+    final int indx = indexOf(name);
+    if (indx < 0) {
+      throw new DataFrameException("Value could not be found");
+    }
+    final Entry entry = entries[indx];
+    return (entry.child == null) ? new DataField(entry.name, entry.type, entry.value) : getField(indx);
+  }
+
+
+
+
+  /**
+   * Return a frame with the given value under the given name.
+   *
+   * <p>The value replaces that of the first field with the name, or is added
+   * as a new field if there is none, as {@link DataFrame#put(String, Object)}
+   * does. A null value removes the field. Frames are frozen as they are added
+   * and frozen frames are shared.
+   *
+   * @param name the name of the field
+   * @param value the value to place
+   *
+   * @return a new frame with the value, this frame is unchanged
+   *
+   * @throws IllegalArgumentException if the value is of an unsupported type or
+   *         the name is too long
+   */
+  public FrozenFrame with(final String name, final Object value) {
+    final int indx = indexOf(name);
+    if (value == null && indx >= 0) {
+      return remove(indx);
+    }
+    final Entry entry = entry(name, value);
+    if (indx < 0) {
+      final Entry[] retval = Arrays.copyOf(entries, entries.length + 1);
+      retval[entries.length] = entry;
+      return new FrozenFrame(retval);
+    }
+    final Entry[] retval = entries.clone();
+    retval[indx] = entry;
+    return new FrozenFrame(retval);
+  }
+
+
+
+
+  /**
+   * Return a frame without the first field with the given name.
+   *
+   * @param name the name of the field to leave out
+   *
+   * @return a new frame without the field, or this frame if there is no
+   *         field with that name
+   */
+  public FrozenFrame without(final String name) {
+    final int indx = indexOf(name);
+    return (indx < 0) ? this : remove(indx);
+  }
+
+
+
+
+  private FrozenFrame remove(final int indx) {
+    final Entry[] retval = new Entry[entries.length - 1];
+    System.arraycopy(entries, 0, retval, 0, indx);
+    System.arraycopy(entries, indx + 1, retval, indx, retval.length - indx);
+    return new FrozenFrame(retval);
+  }
+
+
+
+
+  private static Entry entry(final String name, final Object value) {
+    if (value instanceof FrozenFrame) {
+      return new Entry(name, DataField.FRAMETYPE, NO_BYTES, (FrozenFrame)value);
+    } else if (value instanceof DataFrame) {
+      return new Entry(name, DataField.FRAMETYPE, NO_BYTES, new FrozenFrame((DataFrame)value));
+    }
+    final short type = DataField.getType(value);
+    final byte[] data = DataField.encode(value, type);
+    // byte arrays encode to the value itself
+    final byte[] encoded = (data == null) ? NO_BYTES : (data == value) ? data.clone() : data;
+    return new Entry(name, type, encoded, null);
+  }
+
+
+
+
+  /**
+   * @return the number of octets this frame occupies in its wire format.
+   */
+  public int getEncodedSize() {
+    int retval = 0;
+    for (final Entry entry : entries) {
+      retval += 2 + entry.nameBytes.length + entry.length();
+      if (DataField.getDataType(entry.type).getSize() < 0) {
+        retval += 4;
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the wire format of this frame
+   */
+  public byte[] getBytes() {
+    final byte[] retval = new byte[getEncodedSize()];
+    write(retval, 0);
+    return retval;
+  }
+
+
+
+
+  /**
+   * Write the wire format of this frame into the given array.
+   *
+   * @param buffer the array into which the frame is written
+   * @param offset the position at which to write the frame
+   *
+   * @return the position after the frame
+   *
+   * @throws IndexOutOfBoundsException if the array is too small
+   */
+  public int write(final byte[] buffer, final int offset) {
+    int loc = offset;
+    for (final Entry entry : entries) {
+      buffer[loc++] = (byte)entry.nameBytes.length;
+      System.arraycopy(entry.nameBytes, 0, buffer, loc, entry.nameBytes.length);
+      loc += entry.nameBytes.length;
+      buffer[loc++] = (byte)entry.type;
+      if (DataField.getDataType(entry.type).getSize() < 0) {
+        final int length = entry.length();
+        buffer[loc++] = (byte)(length >>> 24);
+        buffer[loc++] = (byte)(length >>> 16);
+        buffer[loc++] = (byte)(length >>> 8);
+        buffer[loc++] = (byte)length;
+      }
+      if (entry.child != null) {
+        loc = entry.child.write(buffer, loc);
+      } else {
+        System.arraycopy(entry.value, 0, buffer, loc, entry.value.length);
+        loc += entry.value.length;
+      }
+    }
+    return loc;
+  }
+
+
+
+
+  /**
+   * @return a mutable copy of this frame
+   */
+  public DataFrame toFrame() {
+    final byte[] data = getBytes();
+    return new DataFrame(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (obj == this) {
+      return true;
+    } else if (!(obj instanceof FrozenFrame)) {
+      return false;
+    }
+    final FrozenFrame other = (FrozenFrame)obj;
+    if (entries.length != other.entries.length || hashCode() != other.hashCode()) {
+      return false;
+    }
+    for (int x = 0; x < entries.length; x++) {
+      if (!entries[x].same(other.entries[x])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    int retval = hash;
+    if (retval == 0) {
+      retval = 1;
+      for (final Entry entry : entries) {
+        retval = 31 * retval + ((entry.name == null) ? 0 : entry.name.hashCode());
+        retval = 31 * retval + entry.type;
+        retval = 31 * retval + ((entry.child == null) ? Arrays.hashCode(entry.value) : entry.child.hashCode());
+      }
+      // racing threads calculate the same value
+      hash = retval;
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return toFrame().toString();
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * Type representing a point in time with nanosecond precision.
+ *
+ * <p>The value is a signed 64-bit count of seconds from the epoch followed
+ * by a 32-bit count of nanoseconds within the second.
+ */
+public class InstantType implements FieldType {
+
+  private static final int _size = 12;
+
+  private final static String _name = "INS";
+
+
+
+
+  public boolean checkType(Object obj) {
+    return obj instanceof Instant;
+  }
+
+
+
+
+  public Object decode(byte[] value) {
+    return Instant.ofEpochSecond(ByteUtil.retrieveLong(value, 0), ByteUtil.retrieveInt(value, 8));
+  }
+
+
+
+
+  public byte[] encode(Object obj) {
+    final Instant instant = (Instant)obj;
+    final byte[] retval = new byte[_size];
+    ByteUtil.overlay(instant.getEpochSecond(), retval, 0);
+    ByteUtil.overlay(instant.getNano(), retval, 8);
+    return retval;
+  }
+
+
+
+
+  public String getTypeName() {
+    return _name;
+  }
+
+
+
+
+  public boolean isNumeric() {
+    return false;
+  }
+
+
+
+
+  public int getSize() {
+    return _size;
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#stringValue(byte[])
+   */
+  @Override
+  public String stringValue(byte[] val) {
+    if (val == null || val.length == 0) {
+      return "";
+    }
+    return DateTimeFormatter.ISO_INSTANT.format((Instant)decode(val));
+  }
+
+
+
+
+  /**
+   * @see DateType
+   * @see coyote.dataframe.FieldType#parse(java.lang.String)
+   */
+  @Override
+  public Object parse(String text) {
+    return DateType.parseInstant(text);
+  }
+
+}
@@ -0,0 +1,576 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * A field whose value is streamed rather than held in memory.
+ *
+ * <p>The length of a variable length value is an unsigned 32-bit number, so a
+ * value may be up to 4 GB long, which is more than a Java array can hold. Even
+ * smaller values, such as large attachments, are often better not held in
+ * memory at all. This class writes fields by copying their values from a
+ * stream or file, and reads fields by exposing their values as a bounded
+ * stream or channel over the source, so the values flow through without ever
+ * being held in memory.
+ *
+ * <p>The wire format is exactly that of any other field, so fields written
+ * here can be read by any reader which can hold their values, and any field
+ * can be read here.
+ *
+ * <p>When reading from a stream, the value must be consumed or the field
+ * closed before the next field in the stream is read. Closing the field skips
+ * any of its value not yet read. Fields read from a file are independent of
+ * each other and of the file position.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class LargeField implements Closeable {
+
+  /** The largest length a value can have */
+  public static final long MAX_LENGTH = 0xFFFFFFFFL;
+
+  /** The largest array most runtimes can allocate */
+  static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+  private static final int COPY_BUFFER_SIZE = 8192;
+
+  private final String name;
+  private final short type;
+  private final long length;
+
+  /** The stream holding the value, null if reading a file */
+  private final InputStream input;
+
+  /** The file holding the value, null if reading a stream */
+  private final FileChannel file;
+
+  /** The offset of the value in the file */
+  private final long valueOffset;
+
+  /** The number of value octets not yet read from the stream */
+  private long remaining;
+
+
+
+
+  private LargeField(final String name, final short type, final long length, final InputStream input, final FileChannel file, final long valueOffset) {
+    this.name = name;
+    this.type = type;
+    this.length = length;
+    this.input = input;
+    this.file = file;
+    this.valueOffset = valueOffset;
+    remaining = length;
+  }
+
+
+
+
+  /**
+   * Read the header of the next field in the given stream.
+   *
+   * <p>The stream is left positioned at the start of the value.
+   *
+   * @param in the stream from which to read
+   *
+   * @return the field, or null if the stream ended before another field
+   *         started.
+   *
+   * @throws IOException if the stream could not be read
+   * @throws EOFException if the stream ended part way through the header
+   * @throws DecodeException if the header is not valid
+   */
+  public static LargeField read(final InputStream in) throws IOException {
+    final int nameLength = in.read();
+    if (nameLength < 0) {
+      return null;
+    }
+    final DataInputStream dis = new DataInputStream(in);
+    final byte[] header = new byte[nameLength + 1];
+    dis.readFully(header);
+    final short type = header[nameLength];
+    long length = size(type);
+    if (length < 0) {
+      length = dis.readInt() & 0xFFFFFFFFL;
+    }
+    return new LargeField(name(header, nameLength), type, length, in, null, -1);
+  }
+
+
+
+
+  /**
+   * Read the header of the field at the given position in a file.
+   *
+   * <p>The position of the channel is not changed.
+   *
+   * @param channel the file from which to read
+   * @param position the offset of the field in the file
+   *
+   * @return the field, or null if the position is at or beyond the end of the
+   *         file.
+   *
+   * @throws IOException if the file could not be read
+   * @throws EOFException if the file ends part way through the field
+   * @throws DecodeException if the header is not valid
+   */
+  public static LargeField read(final FileChannel channel, final long position) throws IOException {
+    if (position >= channel.size()) {
+      return null;
+    }
+    final ByteBuffer header = ByteBuffer.allocate(1 + 255 + 1 + 4);
+    readFully(channel, header, position, 1);
+    final int nameLength = header.get(0) & 0xFF;
+    readFully(channel, header, position, 2 + nameLength);
+    final short type = header.get(1 + nameLength);
+    long length = size(type);
+    int headerLength = 2 + nameLength;
+    if (length < 0) {
+      headerLength += 4;
+      readFully(channel, header, position, headerLength);
+      length = header.getInt(headerLength - 4) & 0xFFFFFFFFL;
+    }
+    if (position + headerLength + length > channel.size()) {
+      throw new EOFException("File ends part way through the value of the field at offset " + position);
+    }
+    final byte[] name = new byte[nameLength];
+    System.arraycopy(header.array(), 1, name, 0, nameLength);
+    return new LargeField(name(name, nameLength), type, length, null, channel, position + headerLength);
+  }
+
+
+
+
+  /**
+   * Read until the buffer holds at least the given number of octets.
+   */
+  private static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position, final int needed) throws IOException {
+    buffer.limit(needed);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("File ends part way through the header of the field at offset " + position);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * @return the fixed size of the type or -1 if the type is variable length
+   */
+  private static long size(final short type) {
+    try {
+      return DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "'");
+    }
+  }
+
+
+
+
+  private static String name(final byte[] data, final int length) {
+    if (length == 0) {
+      return null;
+    }
+    return NameCache.get(data, 0, length);
+  }
+
+
+
+
+  /**
+   * @return the name of the field, null if the field has no name.
+   */
+  public String getName() {
+    return name;
+  }
+
+
+
+
+  /**
+   * @return the type code of the field.
+   */
+  public short getType() {
+    return type;
+  }
+
+
+
+
+  /**
+   * @return the number of octets in the value of the field.
+   */
+  public long getLength() {
+    return length;
+  }
+
+
+
+
+  /**
+   * @return the offset of the value in the file the field was read from, or
+   *         -1 if the field was read from a stream.
+   */
+  public long getValueOffset() {
+    return valueOffset;
+  }
+
+
+
+
+  /**
+   * Access the value of the field as a stream.
+   *
+   * <p>The stream ends at the end of the value. Closing it does not close the
+   * underlying stream or file.
+   *
+   * @return a stream over the value of the field
+   */
+  public InputStream getInputStream() {
+    if (file != null) {
+      return Channels.newInputStream(getChannel());
+    }
+    return new ValueStream();
+  }
+
+
+
+
+  /**
+   * Access the value of the field as a channel.
+   *
+   * <p>When the field was read from a file, the channel reads the value
+   * straight out of the file at its own position. Closing the channel does not
+   * close the underlying stream or file.
+   *
+   * @return a channel over the value of the field
+   */
+  public ReadableByteChannel getChannel() {
+    if (file != null) {
+      return new FileSlice();
+    }
+    return Channels.newChannel(getInputStream());
+  }
+
+
+
+
+  /**
+   * Copy the rest of the value of the field to the given channel.
+   *
+   * <p>Values in files are transferred by the file system where possible,
+   * without passing through the Java heap.
+   *
+   * @param target the channel to which the value is to be copied
+   *
+   * @return the number of octets copied
+   *
+   * @throws IOException if the value could not be read or written
+   */
+  public long transferTo(final WritableByteChannel target) throws IOException {
+    if (file != null) {
+      long position = valueOffset;
+      final long end = valueOffset + length;
+      while (position < end) {
+        final long count = file.transferTo(position, end - position, target);
+        if (count <= 0 && position >= file.size()) {
+          throw new EOFException("File ends part way through the value of the field");
+        }
+        position += count;
+      }
+      return length;
+    }
+
+    final long retval = remaining;
+    final ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+    final InputStream value = new ValueStream();
+    int read;
+    while ((read = value.read(buffer.array())) > 0) {
+      buffer.clear().limit(read);
+      while (buffer.hasRemaining()) {
+        target.write(buffer);
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Read the whole value into an ordinary field.
+   *
+   * @return a field holding the name, type and value of this field
+   *
+   * @throws IOException if the value could not be read
+   * @throws DecodeException if the value is too large to be held in an array
+   */
+  public DataField toField() throws IOException {
+    if (length > MAX_ARRAY) {
+      throw new DecodeException("Value of " + length + " octets is too large to hold in memory");
+    }
+    final byte[] value = new byte[(int)length];
+    new DataInputStream(getInputStream()).readFully(value);
+    return new DataField(name, type, value);
+  }
+
+
+
+
+  /**
+   * Skip whatever part of the value has not been read so the next field in
+   * the stream can be read.
+   *
+   * <p>This does not close the underlying stream or file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (input != null) {
+      while (remaining > 0) {
+        final long skipped = input.skip(remaining);
+        if (skipped > 0) {
+          remaining -= skipped;
+        } else if (input.read() < 0) {
+          throw new EOFException("Stream ended part way through the value of the field");
+        } else {
+          remaining--;
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Write a field, copying its value from the given stream.
+   *
+   * @param out the stream to which the field is written
+   * @param name the name of the field, may be null
+   * @param type the type code of the value, which must be variable length
+   * @param value the stream holding the value
+   * @param length the exact number of octets to copy from the stream
+   *
+   * @return the total number of octets written
+   *
+   * @throws IOException if the field could not be written
+   * @throws EOFException if the value stream held fewer than length octets
+   * @throws IllegalArgumentException if the name, type or length is not valid
+   */
+  public static long write(final OutputStream out, final String name, final short type, final InputStream value, final long length) throws IOException {
+    final byte[] header = header(name, type, length);
+    out.write(header);
+    final byte[] buffer = new byte[(int)Math.min(COPY_BUFFER_SIZE, Math.max(length, 1))];
+    long remaining = length;
+    while (remaining > 0) {
+      final int read = value.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+      if (read < 0) {
+        throw new EOFException("Value stream ended with " + remaining + " of " + length + " octets still to write");
+      }
+      out.write(buffer, 0, read);
+      remaining -= read;
+    }
+    return header.length + length;
+  }
+
+
+
+
+  /**
+   * Write a field, copying its value from a portion of the given file.
+   *
+   * <p>The value is transferred by the file system where possible, without
+   * passing through the Java heap.
+   *
+   * @param out the channel to which the field is written
+   * @param name the name of the field, may be null
+   * @param type the type code of the value, which must be variable length
+   * @param source the file holding the value
+   * @param position the offset of the value in the file
+   * @param length the number of octets to copy from the file
+   *
+   * @return the total number of octets written
+   *
+   * @throws IOException if the field could not be written
+   * @throws EOFException if the file ends before length octets were copied
+   * @throws IllegalArgumentException if the name, type or length is not valid
+   */
+  public static long write(final WritableByteChannel out, final String name, final short type, final FileChannel source, final long position, final long length) throws IOException {
+    final ByteBuffer header = ByteBuffer.wrap(header(name, type, length));
+    while (header.hasRemaining()) {
+      out.write(header);
+    }
+    long offset = position;
+    final long end = position + length;
+    while (offset < end) {
+      final long count = source.transferTo(offset, end - offset, out);
+      if (count <= 0 && offset >= source.size()) {
+        throw new EOFException("File ended with " + (end - offset) + " of " + length + " octets still to write");
+      }
+      offset += count;
+    }
+    return header.capacity() + length;
+  }
+
+
+
+
+  /**
+   * Encode the header of a variable length field.
+   */
+  private static byte[] header(final String name, final short type, final long length) {
+    if (length < 0 || length > MAX_LENGTH) {
+      throw new IllegalArgumentException("Value length must be between 0 and " + MAX_LENGTH + ", not " + length);
+    }
+    if (DataField.getTypeSize(type) >= 0) {
+      throw new IllegalArgumentException("Type " + type + " is not a variable length type");
+    }
+    byte[] nameBytes = new byte[0];
+    if (name != null) {
+      try {
+        nameBytes = name.getBytes(DataField.strEnc);
+      } catch (final UnsupportedEncodingException e) {
+        nameBytes = name.getBytes();
+      }
+      if (nameBytes.length > 255) {
+        throw new IllegalArgumentException("Name too long - 255 char limit");
+      }
+    }
+    final byte[] retval = new byte[nameBytes.length + 6];
+    retval[0] = (byte)nameBytes.length;
+    System.arraycopy(nameBytes, 0, retval, 1, nameBytes.length);
+    retval[nameBytes.length + 1] = (byte)type;
+    ByteUtil.overlayUnsignedInt(length, retval, nameBytes.length + 2);
+    return retval;
+  }
+
+
+
+
+  /**
+   * The value of a field read from a stream, ending at the end of the value.
+   */
+  private class ValueStream extends InputStream {
+
+    @Override
+    public int read() throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      final int retval = input.read();
+      if (retval < 0) {
+        throw new EOFException("Stream ended part way through the value of the field");
+      }
+      remaining--;
+      return retval;
+    }
+
+
+
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (remaining <= 0) {
+        return -1;
+      }
+      if (len == 0) {
+        return 0;
+      }
+      final int retval = input.read(b, off, (int)Math.min(len, remaining));
+      if (retval < 0) {
+        throw new EOFException("Stream ended part way through the value of the field");
+      }
+      remaining -= retval;
+      return retval;
+    }
+
+
+
+
+    @Override
+    public int available() throws IOException {
+      return (int)Math.min(input.available(), remaining);
+    }
+  }
+
+
+
+
+  /**
+   * The value of a field read from a file.
+   */
+  private class FileSlice implements ReadableByteChannel {
+    private long position = valueOffset;
+    private boolean open = true;
+
+
+
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+      if (!open) {
+        throw new ClosedChannelException();
+      }
+      final long left = valueOffset + length - position;
+      if (left <= 0) {
+        return -1;
+      }
+      final int limit = dst.limit();
+      if (dst.remaining() > left) {
+        dst.limit(dst.position() + (int)left);
+      }
+      try {
+        final int retval = file.read(dst, position);
+        if (retval < 0) {
+          throw new EOFException("File ends part way through the value of the field");
+        }
+        position += retval;
+        return retval;
+      } finally {
+        dst.limit(limit);
+      }
+    }
+
+
+
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+
+
+
+    @Override
+    public void close() {
+      open = false;
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * Type representing a date and time without a time zone, with nanosecond
+ * precision.
+ *
+ * <p>The value is a signed 64-bit count of seconds from midnight at the
+ * start of 1970-01-01 followed by a 32-bit count of nanoseconds within the
+ * second.
+ */
+public class LocalDateTimeType implements FieldType {
+
+  private static final int _size = 12;
+
+  private final static String _name = "LDT";
+
+
+
+
+  public boolean checkType(Object obj) {
+    return obj instanceof LocalDateTime;
+  }
+
+
+
+
+  public Object decode(byte[] value) {
+    return LocalDateTime.ofEpochSecond(ByteUtil.retrieveLong(value, 0), ByteUtil.retrieveInt(value, 8), ZoneOffset.UTC);
+  }
+
+
+
+
+  public byte[] encode(Object obj) {
+    final LocalDateTime time = (LocalDateTime)obj;
+    final byte[] retval = new byte[_size];
+    ByteUtil.overlay(time.toEpochSecond(ZoneOffset.UTC), retval, 0);
+    ByteUtil.overlay(time.getNano(), retval, 8);
+    return retval;
+  }
+
+
+
+
+  public String getTypeName() {
+    return _name;
+  }
+
+
+
+
+  public boolean isNumeric() {
+    return false;
+  }
+
+
+
+
+  public int getSize() {
+    return _size;
+  }
+
+
+
+
+  /**
+   * @see coyote.dataframe.FieldType#stringValue(byte[])
+   */
+  @Override
+  public String stringValue(byte[] val) {
+    if (val == null || val.length == 0) {
+      return "";
+    }
+    return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format((LocalDateTime)decode(val));
+  }
+
+
+
+
+  /**
+   * Parse the date and time as it is written; any offset is ignored.
+   *
+   * @see DateType
+   * @see coyote.dataframe.FieldType#parse(java.lang.String)
+   */
+  @Override
+  public Object parse(String text) {
+    return DateType.parseLocal(text);
+  }
+
+}
@@ -0,0 +1,587 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * Random access to a file of concatenated root frames through memory mapping.
+ *
+ * <p>The file contains the same stream of fields read by {@link FrameReader}
+ * and each entry is normally a field of type frame. The offset of every entry
+ * is held in an index so any entry can be retrieved by its ordinal or by its
+ * offset in the file without reading the entries before it.
+ *
+ * <p>The index is kept in a sidecar file next to the data file (see
+ * {@link #getIndexFile(File)}). It is loaded if it matches the length and
+ * modification time of the data file, otherwise the data file is scanned
+ * and the index is rebuilt and saved. Scanning only reads the header of each
+ * entry. An incomplete entry at the end of the file, as when the file is
+ * still being written, is not indexed.
+ *
+ * <p>The file is mapped read-only in regions no larger than 2 GB, each region
+ * starting at an entry and holding only whole entries, so files larger than
+ * 2 GB can be read. Regions are mapped when first needed. Views are returned
+ * over the mapped data without copying; they remain valid after this file is
+ * closed. Entries too large to be mapped, whose values may be up to 4 GB, can
+ * be read with {@link #getField(int)}.
+ *
+ * <p>Instances are thread-safe, although the views they return are not.
+ */
+public class MappedFrameFile implements Closeable {
+
+  /** Identifies an index file: "DFIX" */
+  private static final int INDEX_MAGIC = 0x44464958;
+
+  private static final int INDEX_VERSION = 1;
+
+  /** The octets before the offsets; magic, version, size, date and count */
+  private static final int INDEX_HEADER = 4 + 4 + 8 + 8 + 4;
+
+  /** The largest header an entry can have; length, name, type and value length */
+  private static final int MAX_HEADER = 1 + 255 + 1 + 4;
+
+  /** The file holding the frames */
+  private final File file;
+
+  private final FileChannel channel;
+
+  /** The offset of each entry in the file */
+  private final long[] offsets;
+
+  /** The offset immediately after the last complete entry */
+  private final long end;
+
+  /** The offset in the file where each region starts */
+  private final long[] regionStarts;
+
+  /** The mapped regions, null until first needed */
+  private final MappedByteBuffer[] regions;
+
+
+
+
+  /**
+   * Open the given file of frames, using or creating its index file.
+   *
+   * @param file the file of concatenated frames
+   *
+   * @throws IOException if the file could not be read or indexed
+   * @throws DecodeException if the file does not contain valid entries
+   */
+  public MappedFrameFile(final File file) throws IOException {
+    this(file, true, Integer.MAX_VALUE);
+  }
+
+
+
+
+  /**
+   * Open the given file of frames.
+   *
+   * @param file the file of concatenated frames
+   * @param useIndexFile true to load the index from and save it to the
+   *        sidecar index file, false to always scan the data file
+   *
+   * @throws IOException if the file could not be read or indexed
+   * @throws DecodeException if the file does not contain valid entries
+   */
+  public MappedFrameFile(final File file, final boolean useIndexFile) throws IOException {
+    this(file, useIndexFile, Integer.MAX_VALUE);
+  }
+
+
+
+
+  /**
+   * Open the given file of frames mapping regions of at most the given size.
+   *
+   * @param file the file of concatenated frames
+   * @param useIndexFile true to load and save the sidecar index file
+   * @param regionSize the largest region to map; entries larger than this are
+   *        mapped in regions of their own
+   */
+  MappedFrameFile(final File file, final boolean useIndexFile, final int regionSize) throws IOException {
+    this.file = file;
+    channel = new FileInputStream(file).getChannel();
+    try {
+      final File indexFile = getIndexFile(file);
+      long[] index = useIndexFile ? loadIndex(indexFile) : null;
+      if (index == null) {
+        index = scan();
+        if (useIndexFile) {
+          saveIndex(indexFile, index);
+        }
+      }
+      end = index[index.length - 1];
+      offsets = Arrays.copyOf(index, index.length - 1);
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+
+    // start a new region at any entry which would not fit in the current one
+    long[] starts = new long[8];
+    int count = 0;
+    for (int x = 0; x < offsets.length; x++) {
+      final long entryEnd = (x + 1 < offsets.length) ? offsets[x + 1] : end;
+      if (count == 0 || entryEnd - starts[count - 1] > regionSize) {
+        if (count == starts.length) {
+          starts = Arrays.copyOf(starts, count * 2);
+        }
+        starts[count++] = offsets[x];
+      }
+    }
+    regionStarts = Arrays.copyOf(starts, count);
+    regions = new MappedByteBuffer[count];
+  }
+
+
+
+
+  /**
+   * Get the location of the index file for the given data file.
+   *
+   * @param file the data file
+   *
+   * @return the file with the same name as the data file with ".idx"
+   *         appended, in the same directory.
+   */
+  public static File getIndexFile(final File file) {
+    return new File(file.getPath() + ".idx");
+  }
+
+
+
+
+  /**
+   * Read the offsets of the entries from the data file.
+   *
+   * @return the offset of each entry followed by the offset after the last
+   *         complete entry.
+   */
+  private long[] scan() throws IOException {
+    final long size = channel.size();
+    final ByteBuffer header = ByteBuffer.allocate(MAX_HEADER);
+    long[] retval = new long[64];
+    int count = 0;
+    long position = 0;
+    while (position < size) {
+      header.clear();
+      if (size - position < header.capacity()) {
+        header.limit((int)(size - position));
+      }
+      while (header.hasRemaining()) {
+        if (channel.read(header, position + header.position()) < 0) {
+          break;
+        }
+      }
+      final long length = entryLength(header.array(), 0, header.position(), position);
+      if (length < 0 || position + length > size) {
+        break; // incomplete entry
+      }
+      if (count + 1 >= retval.length) {
+        retval = Arrays.copyOf(retval, retval.length * 2);
+      }
+      retval[count++] = position;
+      position += length;
+    }
+    retval[count++] = position;
+    return Arrays.copyOf(retval, count);
+  }
+
+
+
+
+  /**
+   * Determine the length of the entry whose header is in the given data.
+   *
+   * @param data the data holding the start of the entry
+   * @param offset where the entry starts in the data
+   * @param available the number of octets of the entry in the data
+   * @param position the offset of the entry in the file, for error messages
+   *
+   * @return the total length of the entry, or -1 if the header is incomplete
+   */
+  private static long entryLength(final byte[] data, final int offset, final int available, final long position) {
+    if (available < 2) {
+      return -1;
+    }
+    final int nameLength = data[offset] & 0xFF;
+    int headerLength = 2 + nameLength;
+    if (available < headerLength) {
+      return -1;
+    }
+    final short type = data[offset + headerLength - 1];
+    long length;
+    try {
+      length = DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "' at file offset " + position);
+    }
+    if (length < 0) {
+      headerLength += 4;
+      if (available < headerLength) {
+        return -1;
+      }
+      length = ByteUtil.retrieveUnsignedInt(data, offset + headerLength - 4);
+    }
+    return headerLength + length;
+  }
+
+
+
+
+  /**
+   * Load the index from the index file if it matches the data file.
+   *
+   * <p>The offsets must start at zero, strictly increase and end within the
+   * data file, otherwise the index is treated as missing and rebuilt.
+   *
+   * @return the offsets in the index or null if there is no current index.
+   */
+  private long[] loadIndex(final File indexFile) throws IOException {
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readLong() != channel.size() || in.readLong() != file.lastModified()) {
+        return null;
+      }
+      final int count = in.readInt();
+      if (count < 1 || count > (indexFile.length() - INDEX_HEADER) / 8) {
+        return null;
+      }
+      final long[] retval = new long[count];
+      for (int x = 0; x < count; x++) {
+        retval[x] = in.readLong();
+        if ((x == 0) ? retval[x] != 0 : retval[x] <= retval[x - 1]) {
+          return null;
+        }
+      }
+      return (retval[count - 1] <= channel.size()) ? retval : null;
+    } catch (final IOException e) {
+      return null; // unreadable index, rebuild it
+    }
+  }
+
+
+
+
+  /**
+   * Save the index to the index file, if possible.
+   */
+  private void saveIndex(final File indexFile, final long[] index) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+      out.writeInt(INDEX_MAGIC);
+      out.writeInt(INDEX_VERSION);
+      out.writeLong(channel.size());
+      out.writeLong(file.lastModified());
+      out.writeInt(index.length);
+      for (final long offset : index) {
+        out.writeLong(offset);
+      }
+    } catch (final IOException e) {
+      // read-only directory, the index will be rebuilt next time
+      indexFile.delete();
+    }
+  }
+
+
+
+
+  /**
+   * @return the number of entries in the file.
+   */
+  public int size() {
+    return offsets.length;
+  }
+
+
+
+
+  /**
+   * @return the length of the indexed portion of the file.
+   */
+  public long getLength() {
+    return end;
+  }
+
+
+
+
+  /**
+   * Get the offset of an entry in the file.
+   *
+   * @param ordinal the zero-based position of the entry in the file
+   *
+   * @return the offset of the entry in the file
+   *
+   * @throws IndexOutOfBoundsException if there is no such entry
+   */
+  public long getOffset(final int ordinal) {
+    return offsets[check(ordinal)];
+  }
+
+
+
+
+  /**
+   * Get the ordinal of the entry at the given offset.
+   *
+   * @param offset the offset of the entry in the file
+   *
+   * @return the zero-based position of the entry in the file, or -1 if no
+   *         entry starts at the given offset.
+   */
+  public int ordinalOf(final long offset) {
+    final int retval = Arrays.binarySearch(offsets, offset);
+    return (retval < 0) ? -1 : retval;
+  }
+
+
+
+
+  /**
+   * Retrieve a view of a frame without copying it out of the file.
+   *
+   * @param ordinal the zero-based position of the frame in the file
+   *
+   * @return a view of the frame
+   *
+   * @throws IndexOutOfBoundsException if there is no such entry
+   * @throws IOException if the file could not be mapped
+   * @throws DecodeException if the entry is not a frame
+   */
+  public DataFrameView getView(final int ordinal) throws IOException {
+    final ByteBuffer region = region(check(ordinal));
+    final int position = position(ordinal);
+    if (typeOf(region, position) != DataField.FRAMETYPE) {
+      throw new DecodeException("Entry at file offset " + offsets[ordinal] + " is not a frame");
+    }
+    final int headerLength = headerLength(region, position);
+    return new DataFrameView(region, position + headerLength, (int)(entryEnd(ordinal) - offsets[ordinal]) - headerLength);
+  }
+
+
+
+
+  /**
+   * Retrieve a view of the frame at the given offset without copying it out
+   * of the file.
+   *
+   * @param offset the offset in the file where the frame starts
+   *
+   * @return a view of the frame
+   *
+   * @throws IllegalArgumentException if no entry starts at the given offset
+   * @throws IOException if the file could not be mapped
+   * @throws DecodeException if the entry is not a frame
+   */
+  public DataFrameView getViewAt(final long offset) throws IOException {
+    return getView(at(offset));
+  }
+
+
+
+
+  /**
+   * Retrieve a frame from the file.
+   *
+   * <p>If the entry is not a frame, it is returned wrapped in a frame of its
+   * own.
+   *
+   * @param ordinal the zero-based position of the frame in the file
+   *
+   * @return a new frame decoded from the file
+   *
+   * @throws IndexOutOfBoundsException if there is no such entry
+   * @throws IOException if the file could not be mapped
+   * @throws DecodeException if the entry could not be decoded
+   */
+  public DataFrame get(final int ordinal) throws IOException {
+    final ByteBuffer region = region(check(ordinal));
+    final int position = position(ordinal);
+    final byte[] data = new byte[(int)(entryEnd(ordinal) - offsets[ordinal])];
+    final ByteBuffer source = region.duplicate();
+    source.position(position);
+    source.get(data);
+
+    if (typeOf(region, position) == DataField.FRAMETYPE) {
+      final int headerLength = headerLength(region, position);
+      return new DataFrame(data, headerLength, data.length - headerLength);
+    }
+    final DataField field = new DataField();
+    DataField.decode(data, 0, data.length, field);
+    return new DataFrame(field);
+  }
+
+
+
+
+  /**
+   * Retrieve the frame at the given offset.
+   *
+   * @param offset the offset in the file where the frame starts
+   *
+   * @return a new frame decoded from the file
+   *
+   * @throws IllegalArgumentException if no entry starts at the given offset
+   * @throws IOException if the file could not be mapped
+   * @throws DecodeException if the entry could not be decoded
+   */
+  public DataFrame getAt(final long offset) throws IOException {
+    return get(at(offset));
+  }
+
+
+
+
+  /**
+   * Read an entry without mapping it or holding its value in memory.
+   *
+   * <p>This is the only way to read entries larger than 2 GB.
+   *
+   * @param ordinal the zero-based position of the entry in the file
+   *
+   * @return the entry, its value read straight from the file
+   *
+   * @throws IndexOutOfBoundsException if there is no such entry
+   * @throws IOException if the file could not be read
+   */
+  public LargeField getField(final int ordinal) throws IOException {
+    return LargeField.read(channel, offsets[check(ordinal)]);
+  }
+
+
+
+
+  private int check(final int ordinal) {
+    if (ordinal < 0 || ordinal >= offsets.length) {
+      throw new IndexOutOfBoundsException("Entry " + ordinal + " out of range, file contains " + offsets.length + " entries");
+    }
+    return ordinal;
+  }
+
+
+
+
+  private int at(final long offset) {
+    final int retval = ordinalOf(offset);
+    if (retval < 0) {
+      throw new IllegalArgumentException("No entry starts at file offset " + offset);
+    }
+    return retval;
+  }
+
+
+
+
+  private long entryEnd(final int ordinal) {
+    return (ordinal + 1 < offsets.length) ? offsets[ordinal + 1] : end;
+  }
+
+
+
+
+  /**
+   * @return the position of the entry in its region
+   */
+  private int position(final int ordinal) {
+    return (int)(offsets[ordinal] - regionStarts[regionOf(offsets[ordinal])]);
+  }
+
+
+
+
+  /**
+   * @return the type code of the entry at the given position in a region
+   */
+  private static short typeOf(final ByteBuffer region, final int position) {
+    return region.get(position + 1 + (region.get(position) & 0xFF));
+  }
+
+
+
+
+  /**
+   * @return the number of octets preceding the value of the entry
+   */
+  private static int headerLength(final ByteBuffer region, final int position) {
+    final int nameLength = region.get(position) & 0xFF;
+    return 2 + nameLength + (DataField.getTypeSize(typeOf(region, position)) < 0 ? 4 : 0);
+  }
+
+
+
+
+  /**
+   * @return the index of the region containing the given offset
+   */
+  private int regionOf(final long offset) {
+    final int retval = Arrays.binarySearch(regionStarts, offset);
+    return (retval < 0) ? -retval - 2 : retval;
+  }
+
+
+
+
+  /**
+   * Get the mapped region holding the given entry, mapping it if necessary.
+   */
+  private ByteBuffer region(final int ordinal) throws IOException {
+    final int indx = regionOf(offsets[ordinal]);
+    synchronized (regions) {
+      if (regions[indx] == null) {
+        if (!channel.isOpen()) {
+          throw new IOException("File is closed");
+        }
+        final long regionEnd = (indx + 1 < regionStarts.length) ? regionStarts[indx + 1] : end;
+        if (regionEnd - regionStarts[indx] > Integer.MAX_VALUE) {
+          throw new DecodeException("Entry at file offset " + offsets[ordinal] + " is too large to map, read it as a LargeField");
+        }
+        regions[indx] = channel.map(FileChannel.MapMode.READ_ONLY, regionStarts[indx], regionEnd - regionStarts[indx]);
+      }
+      return regions[indx];
+    }
+  }
+
+
+
+
+  /**
+   * Close the file.
+   *
+   * <p>Regions already mapped remain valid until they are collected.
+   *
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (regions) {
+      Arrays.fill(regions, null);
+      channel.close();
+    }
+  }
+
+}
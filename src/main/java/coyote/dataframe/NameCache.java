@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+
+/**
+ * Canonical field names for decoders, looked up by their encoded form.
+ *
+ * <p>Field names almost always come from a small vocabulary, yet every
+ * decoded field would otherwise decode its name into a new String. This cache
+ * hashes and compares the encoded name without decoding it and returns the
+ * same String instance for the same name, so decoding a known name allocates
+ * nothing and later comparisons of the name succeed on identity.
+ *
+ * <p>The cache is a fixed size table divided into sets of a few slots, and
+ * each name may be held in any slot of the set it hashes to, so names which
+ * share a set do not keep displacing each other. A new name goes to the
+ * front of its set, displacing the oldest name in the set when it is full.
+ * Entries are immutable, so the table is safe to read and update from any
+ * thread without locking; at worst a name is decoded again.
+ *
+ * <p>The cache is cleared whenever the string encoding used for field names
+ * changes.
+ */
+final class NameCache {
+
+  /** The number of slots in the table, a power of two */
+  private static final int SIZE = 1024;
+
+  /** The number of slots in each set, a power of two */
+  private static final int WAYS = 4;
+
+  private static final Entry[] table = new Entry[SIZE];
+
+  /** The name of the encoding the cached names were decoded with */
+  private static volatile String encoding = null;
+
+  /** The charset of that encoding */
+  private static volatile Charset charset = null;
+
+
+
+
+  private NameCache() {}
+
+
+
+
+  /** A name and its encoded form */
+  private static final class Entry {
+    final int hash;
+    final byte[] data;
+    final String name;
+
+
+
+
+    Entry(final int hash, final byte[] data, final String name) {
+      this.hash = hash;
+      this.data = data;
+      this.name = name;
+    }
+  }
+
+
+
+
+  /**
+   * Get the name encoded in a portion of the given array.
+   *
+   * @param data the array holding the encoded name
+   * @param offset the position of the name in the array
+   * @param length the number of octets in the encoded name
+   *
+   * @return the canonical instance of the decoded name
+   */
+  static String get(final byte[] data, final int offset, final int length) {
+    final Charset cs = charset();
+    final int hash = hash(data, offset, length);
+    final int set = set(hash);
+    for (int x = set; x < set + WAYS; x++) {
+      final Entry entry = table[x];
+      if (entry == null) {
+        break;
+      }
+      if (entry.hash == hash && entry.data.length == length && matches(entry.data, data, offset)) {
+        return entry.name;
+      }
+    }
+    final byte[] copy = new byte[length];
+    System.arraycopy(data, offset, copy, 0, length);
+    return store(set, hash, copy, cs);
+  }
+
+
+
+
+  /**
+   * Get the name encoded in a portion of the given buffer.
+   *
+   * @param buffer the buffer holding the encoded name
+   * @param offset the absolute position of the name in the buffer
+   * @param length the number of octets in the encoded name
+   *
+   * @return the canonical instance of the decoded name
+   */
+  static String get(final ByteBuffer buffer, final int offset, final int length) {
+    if (buffer.hasArray()) {
+      return get(buffer.array(), buffer.arrayOffset() + offset, length);
+    }
+    final byte[] copy = new byte[length];
+    for (int x = 0; x < length; x++) {
+      copy[x] = buffer.get(offset + x);
+    }
+    final Charset cs = charset();
+    final int hash = hash(copy, 0, length);
+    final int set = set(hash);
+    for (int x = set; x < set + WAYS; x++) {
+      final Entry entry = table[x];
+      if (entry == null) {
+        break;
+      }
+      if (entry.hash == hash && entry.data.length == length && matches(entry.data, copy, 0)) {
+        return entry.name;
+      }
+    }
+    return store(set, hash, copy, cs);
+  }
+
+
+
+
+  /**
+   * @return the hash of a portion of the given array
+   */
+  static int hash(final byte[] data, final int offset, final int length) {
+    int retval = 1;
+    for (int x = offset, end = offset + length; x < end; x++) {
+      retval = 31 * retval + data[x];
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the first slot of the set for the given hash
+   */
+  static int set(final int hash) {
+    return (hash ^ (hash >>> 16)) & (SIZE - WAYS);
+  }
+
+
+
+
+  private static boolean matches(final byte[] name, final byte[] data, final int offset) {
+    for (int x = 0; x < name.length; x++) {
+      if (name[x] != data[offset + x]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * Decode the name and place it at the front of its set, moving the names
+   * already in the set back one slot and dropping the oldest.
+   */
+  private static String store(final int set, final int hash, final byte[] data, final Charset cs) {
+    final String retval = new String(data, cs);
+    for (int x = set + WAYS - 1; x > set; x--) {
+      table[x] = table[x - 1];
+    }
+    table[set] = new Entry(hash, data, retval);
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the charset of the current field name encoding, clearing the
+   *         cache if it has changed.
+   */
+  private static Charset charset() {
+    final String current = DataField.strEnc;
+    final String cached = encoding;
+    Charset retval = charset;
+    if (current != cached || retval == null) {
+      synchronized (table) {
+        try {
+          retval = Charset.forName(current);
+        } catch (final IllegalArgumentException e) {
+          retval = Charset.defaultCharset();
+        }
+        for (int x = 0; x < SIZE; x++) {
+          table[x] = null;
+        }
+        charset = retval;
+        encoding = current;
+      }
+    }
+    return retval;
+  }
+
+}
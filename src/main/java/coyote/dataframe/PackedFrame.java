@@ -0,0 +1,1117 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import coyote.commons.ByteUtil;
+
+
+/**
+ * A mutable frame which packs all of its fields into a handful of arrays.
+ *
+ * <p>A DataFrame holds each field as a DataField object with a value array of
+ * its own, so a frame of 20 fields is some 40 objects and much of its memory
+ * is object headers and references. A PackedFrame holds the names of its
+ * fields in one array, their type codes in another, and all of their values
+ * end to end in a single byte array indexed by an array of offsets: five
+ * objects however many fields there are. Decoded names are the shared
+ * instances of the name cache, so a name costs a reference per frame. This
+ * suits caches holding very many small frames.
+ *
+ * <p>The frame offers the familiar read and write methods of a DataFrame.
+ * Numeric values are read and written straight in the packed values without
+ * creating objects. {@link #getField(int)} returns a copy of a field, and
+ * nested frames are held in their wire format, so a child frame returned by
+ * {@link #getObject(String)} is a decoded copy and changes to it are not
+ * written back. Use {@link #toFrame()} to obtain an equivalent DataFrame.
+ *
+ * <p>Replacing a value with one of a different size moves the values after
+ * it, so the layout favors frames which are read far more than they are
+ * changed. Arrays are sized exactly when a frame is decoded and can be
+ * trimmed with {@link #trimToSize()} after it has been built.
+ *
+ * <p>Instances are not thread-safe.
+ */
+public class PackedFrame {
+
+  private static final String[] NO_NAMES = new String[0];
+
+  private static final byte[] NO_BYTES = new byte[0];
+
+  /** The name of each field, null for unnamed fields */
+  private String[] names = NO_NAMES;
+
+  /** The type code of each field */
+  private byte[] types = NO_BYTES;
+
+  /** The offset of the value of each field, and of the end of the values */
+  private int[] offsets = new int[1];
+
+  /** The values of all the fields end to end */
+  private byte[] values = NO_BYTES;
+
+  /** The number of fields */
+  private int count = 0;
+
+
+
+
+  /**
+   * Create an empty frame.
+   */
+  public PackedFrame() {}
+
+
+
+
+  /**
+   * Create a packed copy of the given frame.
+   *
+   * @param frame the frame to copy
+   */
+  public PackedFrame(final DataFrame frame) {
+    this(frame.getEncoding());
+  }
+
+
+
+
+  /**
+   * Create a frame from its wire format.
+   *
+   * @param data the wire format of a frame
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public PackedFrame(final byte[] data) {
+    this(data, 0, data.length);
+  }
+
+
+
+
+  /**
+   * Create a frame from a portion of the given array holding its wire
+   * format.
+   *
+   * <p>The data is scanned once to size the arrays exactly and once to fill
+   * them.
+   *
+   * @param data the array containing the wire format of a frame
+   * @param offset the position of the frame data in the array
+   * @param length the number of octets making up the frame
+   *
+   * @throws DecodeException if the data is not a valid frame
+   */
+  public PackedFrame(final byte[] data, final int offset, final int length) {
+    final int end = offset + length;
+    int fields = 0;
+    long total = 0;
+    for (int loc = offset; loc < end; fields++) {
+      final int next = skip(data, loc, end);
+      total += next - valueStart(data, loc);
+      loc = next;
+    }
+    if (total > LargeField.MAX_ARRAY) {
+      throw new DecodeException("Values are too large to pack");
+    }
+
+    names = new String[fields];
+    types = new byte[fields];
+    offsets = new int[fields + 1];
+    values = new byte[(int)total];
+    for (int loc = offset; loc < end; count++) {
+      final int nameLength = data[loc] & 0xFF;
+      names[count] = (nameLength > 0) ? NameCache.get(data, loc + 1, nameLength) : null;
+      types[count] = data[loc + 1 + nameLength];
+      final int start = valueStart(data, loc);
+      final int next = skip(data, loc, end);
+      final int position = offsets[count];
+      System.arraycopy(data, start, values, position, next - start);
+      offsets[count + 1] = position + next - start;
+      loc = next;
+    }
+  }
+
+
+
+
+  /**
+   * @return the position of the value of the field at the given position
+   */
+  private static int valueStart(final byte[] data, final int loc) {
+    final int typeOffset = loc + 1 + (data[loc] & 0xFF);
+    return typeOffset + 1 + ((DataField.getTypeSize(data[typeOffset]) < 0) ? 4 : 0);
+  }
+
+
+
+
+  /**
+   * Check the field at the given position and find where it ends.
+   *
+   * @return the position after the field
+   */
+  private static int skip(final byte[] data, final int loc, final int end) {
+    final int typeOffset = loc + 1 + (data[loc] & 0xFF);
+    if (typeOffset >= end) {
+      throw new DecodeException("Data underflow: field header is incomplete");
+    }
+    final short type = data[typeOffset];
+    int size;
+    try {
+      size = DataField.getTypeSize(type);
+    } catch (final IllegalArgumentException e) {
+      throw new DecodeException("non supported type: '" + type + "'");
+    }
+    int start = typeOffset + 1;
+    if (size < 0) {
+      if (start + 4 > end) {
+        throw new DecodeException("Data underflow reading value length");
+      }
+      size = ByteUtil.retrieveInt(data, start);
+      start += 4;
+      if (size < 0) {
+        throw new DecodeException("read length bad value: length = " + (size & 0xFFFFFFFFL) + " type = " + type);
+      }
+    }
+    if (size > end - start) {
+      throw new DecodeException("value underflow: length specified as " + size + " but only " + (end - start) + " octets are available");
+    }
+    return start + size;
+  }
+
+
+
+
+  /**
+   * @return The number of fields in the frame.
+   */
+  public int getFieldCount() {
+    return count;
+  }
+
+
+
+
+  /**
+   * @return The number of fields in the frame.
+   */
+  public int size() {
+    return count;
+  }
+
+
+
+
+  /**
+   * @return true if the frame has no fields.
+   */
+  public boolean isEmpty() {
+    return count == 0;
+  }
+
+
+
+
+  /**
+   * Find the index of the first field with the given name.
+   *
+   * @param name the name of the field to find
+   *
+   * @return the index of the field, or -1 if no field has that name.
+   */
+  public int indexOf(final String name) {
+    if (name != null) {
+      // decoded names are usually the same instance
+      for (int x = 0; x < count; x++) {
+        if (names[x] == name) {
+          return x;
+        }
+      }
+      for (int x = 0; x < count; x++) {
+        if (name.equals(names[x])) {
+          return x;
+        }
+      }
+    }
+    return -1;
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return true if a field with the given name exists.
+   */
+  public boolean contains(final String name) {
+    return indexOf(name) >= 0;
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the name of the field, null if it is unnamed.
+   *
+   * @throws IndexOutOfBoundsException if there is no field at that index
+   */
+  public String getName(final int indx) {
+    check(indx);
+    return names[indx];
+  }
+
+
+
+
+  /**
+   * @return the names of all the fields in order, including null for unnamed
+   *         fields.
+   */
+  public List<String> getNames() {
+    return new ArrayList<String>(Arrays.asList(names).subList(0, count));
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the type code of the field
+   *
+   * @throws IndexOutOfBoundsException if there is no field at that index
+   */
+  public short getType(final int indx) {
+    check(indx);
+    return types[indx];
+  }
+
+
+
+
+  /**
+   * Return a copy of the indexed field.
+   *
+   * @param indx the index of the field
+   *
+   * @return a new field holding a copy of the value, or null if there is no
+   *         field at that index.
+   */
+  public DataField getField(final int indx) {
+    if (indx < 0 || indx >= count) {
+      return null;
+    }
+    return new DataField(names[indx], types[indx], Arrays.copyOfRange(values, offsets[indx], offsets[indx + 1]));
+  }
+
+
+
+
+  /**
+   * Return a copy of the first field with the given name.
+   *
+   * @param name the name of the field
+   *
+   * @return a new field holding a copy of the value, or null if there is no
+   *         field with that name.
+   */
+  public DataField getField(final String name) {
+    return getField(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the object value of the field, or null if there is no such field
+   *         or it has no value.
+   */
+  public Object getObject(final int indx) {
+    final DataField field = getField(indx);
+    return (field == null) ? null : field.getObjectValue();
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return the object value of the first field with the name, or null if
+   *         there is no such field or it has no value.
+   */
+  public Object getObject(final String name) {
+    return getObject(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @param name the name of the field
+   *
+   * @return the string value of the first field with the name, or null if
+   *         there is no such field.
+   */
+  public String getAsString(final String name) {
+    return getAsString(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @param indx the index of the field
+   *
+   * @return the string value of the field, or null if there is no such
+   *         field.
+   */
+  public String getAsString(final int indx) {
+    final Object value = getObject(indx);
+    return (value == null) ? null : value.toString();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsInt(String)
+   */
+  public int getAsInt(final String name) throws DataFrameException {
+    return getAsInt(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsInt(int)
+   */
+  public int getAsInt(final int indx) throws DataFrameException {
+    if (isIntegral(indx)) {
+      final long retval = integral(indx);
+      if ((types[indx] == DataField.U64 && retval < 0) || retval < Integer.MIN_VALUE || retval > Integer.MAX_VALUE) {
+        throw new DataFrameException("Value could not be converted into an integer");
+      }
+      return (int)retval;
+    }
+    return field(indx).getIntValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsLong(String)
+   */
+  public long getAsLong(final String name) throws DataFrameException {
+    return getAsLong(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsLong(int)
+   */
+  public long getAsLong(final int indx) throws DataFrameException {
+    if (isIntegral(indx)) {
+      final long retval = integral(indx);
+      if (types[indx] == DataField.U64 && retval < 0) {
+        throw new DataFrameException("Value could not be converted into a long");
+      }
+      return retval;
+    }
+    return field(indx).getLongValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDouble(String)
+   */
+  public double getAsDouble(final String name) throws DataFrameException {
+    return getAsDouble(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDouble(int)
+   */
+  public double getAsDouble(final int indx) throws DataFrameException {
+    if (hasValue(indx, DataField.DOUBLE)) {
+      return Double.longBitsToDouble(ByteUtil.retrieveLong(values, offsets[indx]));
+    } else if (hasValue(indx, DataField.FLOAT)) {
+      return Float.intBitsToFloat(ByteUtil.retrieveInt(values, offsets[indx]));
+    }
+    return field(indx).getDoubleValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsFloat(String)
+   */
+  public float getAsFloat(final String name) throws DataFrameException {
+    return getAsFloat(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsFloat(int)
+   */
+  public float getAsFloat(final int indx) throws DataFrameException {
+    if (hasValue(indx, DataField.FLOAT)) {
+      return Float.intBitsToFloat(ByteUtil.retrieveInt(values, offsets[indx]));
+    }
+    return field(indx).getFloatValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsBoolean(String)
+   */
+  public boolean getAsBoolean(final String name) throws DataFrameException {
+    return getAsBoolean(indexOf(name));
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsBoolean(int)
+   */
+  public boolean getAsBoolean(final int indx) throws DataFrameException {
+    if (hasValue(indx, DataField.BOOLEANTYPE)) {
+      return values[offsets[indx]] > 0;
+    }
+    return field(indx).getBooleanValue();
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsDate(String)
+   */
+  public Date getAsDate(final String name) throws DataFrameException {
+    final Object value = getObject(name);
+    if (value == null || value instanceof Date) {
+      return (Date)value;
+    }
+    throw new DataFrameException("Could not convert type '" + value.getClass().getSimpleName() + "' to a date");
+  }
+
+
+
+
+  /**
+   * @see DataFrame#getAsFrame(String)
+   */
+  public DataFrame getAsFrame(final String name) throws DataFrameException {
+    return getAsFrame(indexOf(name));
+  }
+
+
+
+
+  /**
+   * Decode the indexed nested frame.
+   *
+   * @param indx the index of the field
+   *
+   * @return a decoded copy of the nested frame or null if the field does not
+   *         exist or has no value
+   *
+   * @throws DataFrameException if the field is not a frame
+   */
+  public DataFrame getAsFrame(final int indx) throws DataFrameException {
+    final Object value = getObject(indx);
+    if (value == null || value instanceof DataFrame) {
+      return (DataFrame)value;
+    }
+    throw new DataFrameException("Indexed field is not a frame");
+  }
+
+
+
+
+  /**
+   * @return the field at the index, for values without a direct path
+   *
+   * @throws DataFrameException if the field does not exist
+   */
+  private DataField field(final int indx) throws DataFrameException {
+    final DataField retval = getField(indx);
+    if (retval == null) {
+      throw new DataFrameException("Value could not be found");
+    }
+    return retval;
+  }
+
+
+
+
+  private void check(final int indx) {
+    if (indx < 0 || indx >= count) {
+      throw new IndexOutOfBoundsException("Index: " + indx + ", Size: " + count);
+    }
+  }
+
+
+
+
+  /**
+   * @return true if the indexed field exists and holds a value of the given
+   *         type
+   */
+  private boolean hasValue(final int indx, final short type) {
+    return indx >= 0 && indx < count && types[indx] == type && offsets[indx + 1] > offsets[indx];
+  }
+
+
+
+
+  /**
+   * @return true if the indexed field exists and holds an integer value
+   */
+  private boolean isIntegral(final int indx) {
+    return indx >= 0 && indx < count && types[indx] >= DataField.S8 && types[indx] <= DataField.U64 && offsets[indx + 1] > offsets[indx];
+  }
+
+
+
+
+  /**
+   * Read the integer value of the indexed field, U64 values as their bit
+   * pattern.
+   */
+  private long integral(final int indx) {
+    final int offset = offsets[indx];
+    switch (types[indx]) {
+      case DataField.S8:
+        return values[offset];
+      case DataField.U8:
+        return values[offset] & 0xFF;
+      case DataField.S16:
+        return (short)(((values[offset] & 0xFF) << 8) | (values[offset + 1] & 0xFF));
+      case DataField.U16:
+        return ((values[offset] & 0xFF) << 8) | (values[offset + 1] & 0xFF);
+      case DataField.S32:
+        return ByteUtil.retrieveInt(values, offset);
+      case DataField.U32:
+        return ByteUtil.retrieveInt(values, offset) & 0xFFFFFFFFL;
+      default:
+        return ByteUtil.retrieveLong(values, offset);
+    }
+  }
+
+
+
+
+  /**
+   * Add a field with the given name and value.
+   *
+   * <p>Frames are encoded when they are added; later changes to them are not
+   * seen by this frame.
+   *
+   * @param name the name of the field, may be null
+   * @param value the value of the field
+   *
+   * @return the index of the new field
+   *
+   * @throws IllegalArgumentException if the value is of an unsupported type
+   *         or the name is too long
+   */
+  public int add(final String name, final Object value) {
+    final short type = DataField.getType(value);
+    final byte[] data = DataField.encode(value, type);
+    return append(name, type, data, 0, (data == null) ? 0 : data.length);
+  }
+
+
+
+
+  /**
+   * Add a copy of the given field.
+   *
+   * @param field the field to add
+   *
+   * @return the index of the new field, or -1 if the field is null
+   */
+  public int add(final DataField field) {
+    if (field == null) {
+      return -1;
+    }
+    final byte[] data = field.getValue();
+    return append(field.getName(), field.getType(), data, 0, (data == null) ? 0 : data.length);
+  }
+
+
+
+
+  /**
+   * Add an int field without boxing the value.
+   *
+   * @see DataFrame#add(String, int)
+   */
+  public int add(final String name, final int value) {
+    return append(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Add a long field without boxing the value.
+   *
+   * @see DataFrame#add(String, long)
+   */
+  public int add(final String name, final long value) {
+    return append(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Add a double field without boxing the value.
+   *
+   * @see DataFrame#add(String, double)
+   */
+  public int add(final String name, final double value) {
+    return append(name, DataField.DOUBLE, Double.doubleToLongBits(value));
+  }
+
+
+
+
+  /**
+   * Add a float field without boxing the value.
+   *
+   * @see DataFrame#add(String, float)
+   */
+  public int add(final String name, final float value) {
+    return append(name, DataField.FLOAT, Float.floatToIntBits(value));
+  }
+
+
+
+
+  /**
+   * Add a boolean field without boxing the value.
+   *
+   * @see DataFrame#add(String, boolean)
+   */
+  public int add(final String name, final boolean value) {
+    return append(name, DataField.BOOLEANTYPE, value ? 1 : 0);
+  }
+
+
+
+
+  /**
+   * Place the value in the frame under the given name, replacing the value of
+   * the first field with that name or adding a field if there is none.
+   *
+   * <p>A null value removes the named field.
+   *
+   * @param name the name of the field
+   * @param value the value to place
+   *
+   * @return the index of the field the value was placed or removed, or -1
+   *         if there was nothing to do
+   *
+   * @throws IllegalArgumentException if the value is of an unsupported type
+   */
+  public int put(final String name, final Object value) {
+    final int indx = indexOf(name);
+    if (indx < 0) {
+      return (value != null || name != null) ? add(name, value) : -1;
+    }
+    if (value == null) {
+      removeField(indx);
+      return indx;
+    }
+    final short type = DataField.getType(value);
+    final byte[] data = DataField.encode(value, type);
+    replace(indx, type, data, (data == null) ? 0 : data.length);
+    return indx;
+  }
+
+
+
+
+  /**
+   * Place an int value under the given name without boxing it, writing over
+   * the existing value when it is of the same type.
+   *
+   * @see DataFrame#put(String, int)
+   */
+  public int put(final String name, final int value) {
+    return put(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Place a long value under the given name without boxing it, writing over
+   * the existing value when it is of the same type.
+   *
+   * @see DataFrame#put(String, long)
+   */
+  public int put(final String name, final long value) {
+    return put(name, DataField.typeOf(value), value);
+  }
+
+
+
+
+  /**
+   * Place a double value under the given name without boxing it, writing
+   * over the existing value when it is of the same type.
+   *
+   * @see DataFrame#put(String, double)
+   */
+  public int put(final String name, final double value) {
+    return put(name, DataField.DOUBLE, Double.doubleToLongBits(value));
+  }
+
+
+
+
+  /**
+   * Place a float value under the given name without boxing it, writing over
+   * the existing value when it is of the same type.
+   *
+   * @see DataFrame#put(String, float)
+   */
+  public int put(final String name, final float value) {
+    return put(name, DataField.FLOAT, Float.floatToIntBits(value));
+  }
+
+
+
+
+  /**
+   * Place a boolean value under the given name without boxing it, writing
+   * over the existing value when it is of the same type.
+   *
+   * @see DataFrame#put(String, boolean)
+   */
+  public int put(final String name, final boolean value) {
+    return put(name, DataField.BOOLEANTYPE, value ? 1 : 0);
+  }
+
+
+
+
+  /**
+   * Remove the first field with the given name.
+   *
+   * @param name the name of the field
+   *
+   * @return a copy of the removed field, or null if there was no field with
+   *         that name.
+   */
+  public DataField remove(final String name) {
+    final int indx = indexOf(name);
+    if (indx < 0) {
+      return null;
+    }
+    final DataField retval = getField(indx);
+    removeField(indx);
+    return retval;
+  }
+
+
+
+
+  /**
+   * Remove all the fields, keeping the arrays for reuse.
+   */
+  public void clear() {
+    Arrays.fill(names, 0, count, null);
+    count = 0;
+  }
+
+
+
+
+  /**
+   * Shrink the arrays of this frame to fit its fields exactly.
+   */
+  public void trimToSize() {
+    if (names.length != count) {
+      names = Arrays.copyOf(names, count);
+      types = Arrays.copyOf(types, count);
+      offsets = Arrays.copyOf(offsets, count + 1);
+    }
+    if (values.length != offsets[count]) {
+      values = Arrays.copyOf(values, offsets[count]);
+    }
+  }
+
+
+
+
+  /**
+   * Add a fixed width value from its bit pattern.
+   */
+  private int append(final String name, final short type, final long bits) {
+    final int size = DataField.getTypeSize(type);
+    final int indx = append(name, type, null, 0, size);
+    write(offsets[indx], size, bits);
+    return indx;
+  }
+
+
+
+
+  /**
+   * Add a field, copying the given portion of the data as its value.
+   */
+  private int append(final String name, final short type, final byte[] data, final int offset, final int length) {
+    checkName(name);
+    if (count == names.length) {
+      final int capacity = Math.max(4, count * 2);
+      names = Arrays.copyOf(names, capacity);
+      types = Arrays.copyOf(types, capacity);
+      offsets = Arrays.copyOf(offsets, capacity + 1);
+    }
+    final int position = offsets[count];
+    ensure(length);
+    if (data != null) {
+      System.arraycopy(data, offset, values, position, length);
+    }
+    names[count] = name;
+    types[count] = (byte)type;
+    offsets[count + 1] = position + length;
+    return count++;
+  }
+
+
+
+
+  /**
+   * Place a fixed width value under the given name.
+   */
+  private int put(final String name, final short type, final long bits) {
+    final int indx = indexOf(name);
+    if (indx < 0) {
+      return append(name, type, bits);
+    }
+    final int size = DataField.getTypeSize(type);
+    if (offsets[indx + 1] - offsets[indx] != size) {
+      replace(indx, type, null, size);
+    }
+    types[indx] = (byte)type;
+    write(offsets[indx], size, bits);
+    return indx;
+  }
+
+
+
+
+  /**
+   * Replace the value of the indexed field, moving the values after it if
+   * the size of the value changes.
+   */
+  private void replace(final int indx, final short type, final byte[] data, final int length) {
+    final int start = offsets[indx];
+    final int delta = length - (offsets[indx + 1] - start);
+    if (delta != 0) {
+      if (delta > 0) {
+        ensure(delta);
+      }
+      final int end = offsets[count];
+      System.arraycopy(values, offsets[indx + 1], values, offsets[indx + 1] + delta, end - offsets[indx + 1]);
+      for (int x = indx + 1; x <= count; x++) {
+        offsets[x] += delta;
+      }
+    }
+    if (data != null) {
+      System.arraycopy(data, 0, values, start, length);
+    }
+    types[indx] = (byte)type;
+  }
+
+
+
+
+  private void removeField(final int indx) {
+    replace(indx, types[indx], null, 0);
+    final int moved = count - indx - 1;
+    System.arraycopy(names, indx + 1, names, indx, moved);
+    System.arraycopy(types, indx + 1, types, indx, moved);
+    System.arraycopy(offsets, indx + 1, offsets, indx, moved + 1);
+    names[--count] = null;
+  }
+
+
+
+
+  private void write(final int offset, final int size, final long bits) {
+    for (int x = size - 1, shift = 0; x >= 0; x--, shift += 8) {
+      values[offset + x] = (byte)(bits >>> shift);
+    }
+  }
+
+
+
+
+  /**
+   * Make sure the values array has room for the given number of additional
+   * octets.
+   */
+  private void ensure(final int needed) {
+    final int used = offsets[count];
+    if (values.length - used < needed) {
+      final long size = Math.max((long)used + needed, values.length * 3L / 2);
+      if (size > LargeField.MAX_ARRAY) {
+        throw new IllegalStateException("Values are too large to pack");
+      }
+      values = Arrays.copyOf(values, (int)size);
+    }
+  }
+
+
+
+
+  private static void checkName(final String name) {
+    if (name != null && encodedLength(name) > 255) {
+      throw new IllegalArgumentException("Name too long - 255 char limit");
+    }
+  }
+
+
+
+
+  private static int encodedLength(final String name) {
+    try {
+      return name.getBytes(DataField.strEnc).length;
+    } catch (final UnsupportedEncodingException e) {
+      return name.getBytes().length;
+    }
+  }
+
+
+
+
+  /**
+   * @return the number of octets this frame occupies in its wire format.
+   */
+  public int getEncodedSize() {
+    int retval = offsets[count];
+    for (int x = 0; x < count; x++) {
+      retval += 2 + ((names[x] == null) ? 0 : encodedLength(names[x]));
+      if (DataField.getTypeSize(types[x]) < 0) {
+        retval += 4;
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the wire format of this frame
+   */
+  public byte[] getBytes() {
+    final byte[] retval = new byte[getEncodedSize()];
+    write(retval, 0);
+    return retval;
+  }
+
+
+
+
+  /**
+   * Write the wire format of this frame into the given array.
+   *
+   * @param buffer the array into which the frame is written
+   * @param offset the position at which to write the frame
+   *
+   * @return the position after the frame
+   *
+   * @throws IndexOutOfBoundsException if the array is too small
+   */
+  public int write(final byte[] buffer, final int offset) {
+    int loc = offset;
+    for (int x = 0; x < count; x++) {
+      byte[] name = NO_BYTES;
+      if (names[x] != null) {
+        try {
+          name = names[x].getBytes(DataField.strEnc);
+        } catch (final UnsupportedEncodingException e) {
+          name = names[x].getBytes();
+        }
+      }
+      buffer[loc++] = (byte)name.length;
+      System.arraycopy(name, 0, buffer, loc, name.length);
+      loc += name.length;
+      buffer[loc++] = types[x];
+      final int length = offsets[x + 1] - offsets[x];
+      if (DataField.getTypeSize(types[x]) < 0) {
+        ByteUtil.overlayUnsignedInt(length, buffer, loc);
+        loc += 4;
+      }
+      System.arraycopy(values, offsets[x], buffer, loc, length);
+      loc += length;
+    }
+    return loc;
+  }
+
+
+
+
+  /**
+   * @return a DataFrame holding copies of all the fields of this frame
+   */
+  public DataFrame toFrame() {
+    final DataFrame retval = new DataFrame();
+    for (int x = 0; x < count; x++) {
+      retval.add(getField(x));
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return toFrame().toString();
+  }
+
+}
@@ -153,7 +153,7 @@ public class JSONMarshaler {
             }
           } else if (field.getType() == DataField.DATE) {
             writer.writeString(field.getStringValue());
-          } else if (field.getType() == DataField.FRAMETYPE) {
+          } else if (field.getType() == DataField.FRAMETYPE || field.getType() == DataField.ZFRAME) {
             DataFrame dfm = (DataFrame)field.getObjectValue();
             if (dfm == null) {
               writer.writeEmptyArray();
@@ -163,7 +163,7 @@ public class XMLMarshaler {
           if (field.getValue().length > 0) {
             writer.writeTagClose();
 
-            if (field.getType() == DataField.FRAMETYPE) {
+            if (field.getType() == DataField.FRAMETYPE || field.getType() == DataField.ZFRAME) {
               writer.writeFrameOpen();
               writeFrame((DataFrame)field.getObjectValue(), writer);
               writer.writeFrameClose();
@@ -96,14 +96,17 @@ public abstract class AbstractSelector {
         }
 
         if (field.isFrame()) {
+          final DataFrame child = (DataFrame)field.getObjectValue();
           if (filter.matches(fname)) {
-            DataFrame df = (DataFrame)field.getObjectValue();
+            // fields share their decoded child, so select a copy to keep the
+            // path out of the source frame
+            DataFrame df = (child != null) ? (DataFrame)child.clone() : new DataFrame();
             if (pathName != null) {
               df.add(pathName, fname);
             }
             results.add(df);
           }
-          recurseFrames((DataFrame)field.getObjectValue(), fname, results, pathName);
+          recurseFrames(child, fname, results, pathName);
 
         } // if frame
 
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class CompactFormatTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#encode(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testEncode() {
+    DataFrame frame = new DataFrame();
+    frame.add(new DataField("s8", DataField.S8, new byte[] { (byte)-5 }));
+    frame.add(new DataField("u8", DataField.U8, new byte[] { (byte)200 }));
+    frame.add("small", (short)-300);
+    frame.add("int", Integer.MIN_VALUE);
+    frame.add("long", Long.MAX_VALUE);
+    frame.add("json", 42L);
+    frame.add("negative", -1L);
+    frame.add(new DataField("u64", DataField.U64, new byte[] { -1, -1, -1, -1, -1, -1, -1, -1 }));
+    frame.add(new DataField("u32", DataField.U32, new byte[] { -1, -1, -1, -2 }));
+    frame.add("ratio", 1.5D);
+    frame.add("scale", 2.5F);
+    frame.add("flag", true);
+    frame.add("when", new Date(1234567890000L));
+    frame.add("name", "abc");
+    frame.add("empty", "");
+    frame.add("data", new byte[300]);
+    frame.add("nothing", null);
+    frame.add("list", new Object[] { "a", 1L, -2, new byte[200], new DataFrame().set("in", "array") });
+    frame.add("child", new DataFrame().set("x", 1L).set("y", new DataFrame().set("z", "deep")));
+    frame.add(new DataFrame().set("unnamed", 7));
+
+    byte[] standard = frame.getBytes();
+    byte[] compact = CompactFormat.encode(frame);
+    assertTrue(compact.length < standard.length);
+
+    // every field comes back with its original type and value
+    assertTrue(Arrays.equals(standard, CompactFormat.decode(compact).getBytes()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#encode(coyote.dataframe.DataFrame)}
+   * with an empty frame.
+   */
+  @Test
+  public void testEncodeEmpty() {
+    byte[] compact = CompactFormat.encode(new DataFrame());
+    assertEquals(3, compact.length);
+    assertEquals(0, CompactFormat.decode(compact).getFieldCount());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#encode(coyote.dataframe.DataFrame)}
+   * of the integers parsed from JSON, which are 32 or 64 bits wide.
+   */
+  @Test
+  public void testEncodeSize() {
+    DataFrame frame = new DataFrame().set("id", 7L).set("count", 100L).set("delta", -3L).set("name", "abc");
+    byte[] compact = CompactFormat.encode(frame);
+    // header, then name, type and one octet value or length per field
+    assertEquals(3 + (4 + 1) + (7 + 1) + (7 + 1) + (6 + 4), compact.length);
+    assertEquals(47, frame.getBytes().length);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#encode(byte[], int, int)}.
+   */
+  @Test
+  public void testEncodeArray() {
+    DataFrame frame = new DataFrame().set("name", "abc").set("count", -3L).set("list", new Object[] { "a", 1L });
+    byte[] standard = frame.getBytes();
+    assertTrue(Arrays.equals(CompactFormat.encode(frame), CompactFormat.encode(standard, 0, standard.length)));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#decode(byte[], int, int)}.
+   */
+  @Test
+  public void testDecode() {
+    DataFrame frame = new DataFrame().set("name", "abc").set("count", -3L).set("child", new DataFrame().set("x", 1L));
+    byte[] compact = CompactFormat.encode(frame);
+    byte[] padded = new byte[compact.length + 10];
+    System.arraycopy(compact, 0, padded, 5, compact.length);
+    assertTrue(Arrays.equals(frame.getBytes(), CompactFormat.decode(padded, 5, compact.length).getBytes()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#decode(byte[])}
+   * with data which is not compact, of an unknown version or truncated.
+   */
+  @Test
+  public void testDecodeRejected() {
+    DataFrame frame = new DataFrame().set("name", "abc").set("count", -3L);
+    byte[] compact = CompactFormat.encode(frame);
+
+    try {
+      CompactFormat.decode(frame.getBytes());
+      fail("Should not decode standard data as compact");
+    } catch (DecodeException e) {
+      // expected
+    }
+
+    byte[] future = compact.clone();
+    future[2] = 2;
+    try {
+      CompactFormat.decode(future);
+      fail("Should reject an unknown version");
+    } catch (DecodeException e) {
+      // expected
+    }
+
+    try {
+      CompactFormat.decode(compact, 0, compact.length - 1);
+      fail("Should reject truncated data");
+    } catch (DecodeException e) {
+      // expected
+    }
+
+    // decoders of the standard format reject compact data too
+    try {
+      new DataFrame(compact);
+      fail("Should not decode compact data as standard");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#decode(byte[])}
+   * with a value length beyond the end of the data.
+   */
+  @Test
+  public void testDecodeMalformedLength() {
+    byte[] compact = { 0, CompactFormat.MARKER, CompactFormat.VERSION, 1, 'n', (byte)DataField.STRING, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07, 'a' };
+    try {
+      CompactFormat.decode(compact);
+      fail("Should reject a length beyond the data");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#toStandard(byte[], int, int)}.
+   */
+  @Test
+  public void testToStandard() {
+    DataFrame frame = new DataFrame().set("name", "abc").set("count", -3L);
+    byte[] compact = CompactFormat.encode(frame);
+    assertTrue(Arrays.equals(frame.getBytes(), CompactFormat.toStandard(compact, 0, compact.length)));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompactFormat#isCompact(byte[], int, int)}.
+   */
+  @Test
+  public void testIsCompact() {
+    DataFrame frame = new DataFrame().set("name", "abc");
+    byte[] standard = frame.getBytes();
+    byte[] compact = CompactFormat.encode(frame);
+    assertTrue(CompactFormat.isCompact(compact, 0, compact.length));
+    assertFalse(CompactFormat.isCompact(standard, 0, standard.length));
+  }
+
+}
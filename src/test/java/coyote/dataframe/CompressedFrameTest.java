@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class CompressedFrameTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#CompressedFrame(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testCompressedFrame() throws DataFrameException {
+    DataFrame large = new DataFrame();
+    for (int x = 0; x < 100; x++) {
+      large.add("reading", "value that repeats " + (x % 4));
+    }
+    DataFrame parent = new DataFrame();
+    parent.put("id", 7);
+    parent.put("readings", new CompressedFrame(large));
+    DataField field = parent.getField("readings");
+    assertEquals(DataField.ZFRAME, field.getType());
+    assertEquals(CompressedFrameType.DEFLATED, field.getValue()[0]);
+    assertTrue(field.getValue().length < large.getEncodedSize() / 4);
+
+    // transparent decompression
+    assertTrue(Arrays.equals(large.getBytes(), parent.getAsFrame("readings").getBytes()));
+    assertTrue(Arrays.equals(large.getBytes(), ((DataFrame)field.getObjectValue()).getBytes()));
+
+    // the field stays compressed on the wire
+    DataFrame copy = new DataFrame(parent.getBytes());
+    assertEquals(DataField.ZFRAME, copy.getField("readings").getType());
+    assertEquals(100, copy.getAsFrame("readings").getFieldCount());
+    assertTrue(copy.toString().contains("\"readings\":{"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#CompressedFrame(coyote.dataframe.DataFrame, int, int)}
+   * with frames which are stored rather than compressed.
+   */
+  @Test
+  public void testCompressedFrameThreshold() throws DataFrameException {
+    DataFrame small = new DataFrame().set("a", 1);
+    DataFrame parent = new DataFrame().set("small", new CompressedFrame(small));
+    byte[] value = parent.getField("small").getValue();
+    assertEquals(CompressedFrameType.STORED, value[0]);
+    assertEquals(1 + small.getEncodedSize(), value.length);
+    assertEquals(1, parent.getAsFrame("small").getAsInt("a"));
+
+    // random data does not get smaller, so it is stored
+    byte[] noise = new byte[500];
+    new java.util.Random(1).nextBytes(noise);
+    DataFrame random = new DataFrame().set("noise", noise);
+    value = new DataFrame().set("z", new CompressedFrame(random, CompressedFrame.NO_DICTIONARY, 0)).getField("z").getValue();
+    assertEquals(CompressedFrameType.STORED, value[0]);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#CompressedFrame(coyote.dataframe.DataFrame, int)}.
+   */
+  @Test
+  public void testCompressedFrameDictionary() throws DataFrameException {
+    List<DataFrame> samples = new ArrayList<DataFrame>();
+    for (int x = 0; x < 50; x++) {
+      samples.add(new DataFrame().set("device", "sensor-" + (x % 5)).set("sequence", x).set("status", "nominal").set("location", new DataFrame().set("site", "north")));
+    }
+    int id = CompressedFrame.addDictionary(CompressedFrame.train(samples, 512));
+    try {
+      DataFrame frame = new DataFrame().set("device", "sensor-4").set("sequence", 1234).set("status", "nominal").set("location", new DataFrame().set("site", "north"));
+      int plain = new DataFrame().set("t", new CompressedFrame(frame, CompressedFrame.NO_DICTIONARY, 0)).getField("t").getValue().length;
+      CompressedFrame compressed = new CompressedFrame(frame, id, 0);
+      assertEquals(id, compressed.getDictionaryId());
+      DataField field = new DataFrame().set("t", compressed).getField("t");
+      int preset = field.getValue().length;
+      assertEquals(CompressedFrameType.DEFLATED, field.getValue()[0]);
+      assertTrue(preset < frame.getEncodedSize() / 2);
+      assertTrue(preset < plain);
+      assertTrue(Arrays.equals(frame.getBytes(), ((DataFrame)field.getObjectValue()).getBytes()));
+    } finally {
+      CompressedFrame.removeDictionary(id);
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#CompressedFrame(coyote.dataframe.DataFrame, int)}
+   * with a dictionary which is not registered.
+   */
+  @Test
+  public void testCompressedFrameUnknownDictionary() {
+    int id = CompressedFrame.addDictionary("device sensor status nominal".getBytes());
+    CompressedFrame.removeDictionary(id);
+    try {
+      new CompressedFrame(new DataFrame().set("device", "sensor-1"), id);
+      fail("Should not compress with an unknown dictionary");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#train(java.util.Collection, int)}.
+   */
+  @Test
+  public void testTrain() {
+    List<DataFrame> samples = new ArrayList<DataFrame>();
+    for (int x = 0; x < 50; x++) {
+      samples.add(new DataFrame().set("device", "sensor-" + (x % 5)).set("sequence", x).set("status", "nominal"));
+    }
+    byte[] dictionary = CompressedFrame.train(samples, 512);
+    assertTrue(dictionary.length > 0 && dictionary.length <= 512);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#removeDictionary(int)}.
+   */
+  @Test
+  public void testRemoveDictionary() throws DataFrameException {
+    byte[] dictionary = "device sensor status nominal location site north".getBytes();
+    int id = CompressedFrame.addDictionary(dictionary);
+    DataFrame frame = new DataFrame().set("device", "sensor-1").set("sequence", 1234).set("status", "nominal");
+    DataField field = new DataFrame().set("t", new CompressedFrame(frame, id, 0)).getField("t");
+
+    // the dictionary must be registered to decompress
+    CompressedFrame.removeDictionary(id);
+    try {
+      field.getObjectValue();
+      fail("Should not decompress without the dictionary");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertEquals(id, CompressedFrame.addDictionary(dictionary));
+    try {
+      assertEquals(1234, ((DataFrame)field.getObjectValue()).getAsInt("sequence"));
+    } finally {
+      CompressedFrame.removeDictionary(id);
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.CompressedFrame#setMaxSize(int)}.
+   */
+  @Test
+  public void testSetMaxSize() throws DataFrameException {
+    DataFrame large = new DataFrame().set("zeros", new byte[100000]);
+    DataField field = new DataFrame().set("z", new CompressedFrame(large)).getField("z");
+    assertTrue(field.getValue().length < 1000);
+
+    int max = CompressedFrame.getMaxSize();
+    try {
+      CompressedFrame.setMaxSize(large.getEncodedSize());
+      assertEquals(large.getEncodedSize(), ((DataFrame)field.getObjectValue()).getEncodedSize());
+      CompressedFrame.setMaxSize(large.getEncodedSize() - 1);
+      try {
+        field.getObjectValue();
+        fail("Should not decompress past the maximum size");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    } finally {
+      CompressedFrame.setMaxSize(max);
+    }
+    assertEquals(CompressedFrame.DEFAULT_MAX_SIZE, CompressedFrame.getMaxSize());
+  }
+
+}
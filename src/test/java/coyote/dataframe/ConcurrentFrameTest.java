@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class ConcurrentFrameTest {
+
+  @Test
+  public void values() throws DataFrameException {
+    ConcurrentFrame frame = new ConcurrentFrame();
+    frame.put("name", "status");
+    frame.put("count", 3);
+    frame.put("total", 1L << 40);
+    frame.put("ratio", 0.5D);
+    frame.put("up", true);
+    frame.put("seen", new Date(1000));
+    frame.put("child", new DataFrame().set("a", 1));
+    assertEquals(7, frame.getFieldCount());
+    assertEquals("status", frame.getAsString("name"));
+    assertEquals(3, frame.getAsInt("count"));
+    assertEquals(1L << 40, frame.getAsLong("total"));
+    assertEquals(0.5D, frame.getAsDouble("ratio"), 0);
+    assertTrue(frame.getAsBoolean("up"));
+    assertEquals(new Date(1000), frame.getAsDate("seen"));
+    assertEquals(1, frame.getAsFrame("child").getAsInt("a"));
+
+    // names keep their place when replaced
+    frame.put("count", "three");
+    assertEquals(Arrays.asList("name", "count", "total", "ratio", "up", "seen", "child"), frame.getNames());
+    DataFrame expected = new DataFrame().set("name", "status").set("count", "three").set("total", 1L << 40).set("ratio", 0.5D).set("up", true).set("seen", new Date(1000)).set("child", new DataFrame().set("a", 1));
+    assertTrue(Arrays.equals(expected.getBytes(), frame.getBytes()));
+    assertEquals(expected.toString(), frame.toString());
+    assertEquals(expected.freeze(), frame.freeze());
+
+    frame.put("count", null);
+    assertFalse(frame.contains("count"));
+    assertTrue(frame.remove("total"));
+    assertFalse(frame.remove("total"));
+    assertNull(frame.getObject("total"));
+    assertEquals(5, frame.getFieldCount());
+    frame.clear();
+    assertTrue(frame.isEmpty());
+
+    try {
+      frame.getAsInt("missing");
+      fail("Should report missing fields");
+    } catch (DataFrameException e) {
+      // expected
+    }
+    try {
+      frame.put(null, 1);
+      fail("Should require names");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+
+
+
+  @Test
+  public void floats() throws DataFrameException {
+    ConcurrentFrame frame = new ConcurrentFrame();
+    frame.put("scale", 0.25F);
+    frame.put("ratio", 0.25D);
+    assertEquals(0.25F, frame.getAsFloat("scale"), 0);
+    DataFrame expected = new DataFrame().set("scale", 0.25F).set("ratio", 0.25D);
+    assertTrue(Arrays.equals(expected.getBytes(), frame.getBytes()));
+  }
+
+
+
+
+  @Test
+  public void increments() throws Exception {
+    final ConcurrentFrame frame = new ConcurrentFrame(new DataFrame().set("base", 10).set(null, "dropped"));
+    assertEquals(1, frame.getFieldCount());
+    assertEquals(15, frame.increment("base", 5));
+
+    final int threads = 4;
+    final int count = 10000;
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    List<Thread> workers = new ArrayList<Thread>();
+    for (int x = 0; x < threads; x++) {
+      final String own = "worker" + x;
+      workers.add(new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < count; i++) {
+              frame.increment("shared", 1);
+              frame.put(own, i);
+              frame.put("last", own);
+            }
+          } catch (Throwable t) {
+            failure.set(t);
+          }
+        }
+      });
+    }
+    Thread monitor = new Thread() {
+      @Override
+      public void run() {
+        try {
+          long last = 0;
+          for (int i = 0; i < 200; i++) {
+            DataFrame snapshot = new DataFrame(frame.getBytes());
+            if (snapshot.contains("shared")) {
+              long shared = snapshot.getAsLong("shared");
+              assertTrue(shared >= last);
+              last = shared;
+            }
+          }
+        } catch (Throwable t) {
+          failure.set(t);
+        }
+      }
+    };
+    for (Thread worker : workers) {
+      worker.start();
+    }
+    monitor.start();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    monitor.join();
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertEquals(threads * count, frame.getAsLong("shared"));
+    for (int x = 0; x < threads; x++) {
+      assertEquals(count - 1, frame.getAsInt("worker" + x));
+    }
+
+    frame.put("text", "not a number");
+    try {
+      frame.increment("text", 1);
+      fail("Should only increment integers");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+}
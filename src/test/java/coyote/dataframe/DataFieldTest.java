@@ -3,13 +3,22 @@
  */
 package coyote.dataframe;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 import org.junit.Test;
@@ -204,4 +213,187 @@ public class DataFieldTest {
     assertTrue( text.length() < 170 );
   }
 
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataField#getObjectValue()} with 
+   * frame and array values.
+   */
+  @Test
+  public void testChildWriteThrough() throws DataFrameException {
+    DataFrame child = new DataFrame().set( "name", "child" );
+    DataFrame parent = new DataFrame().set( "child", child ).set( "list", new Object[] { 1, "two" } );
+    byte[] original = parent.getEncoding();
+
+    DataField field = parent.getField( "child" );
+    DataFrame decoded = (DataFrame)field.getObjectValue();
+    assertTrue( decoded == field.getObjectValue() );
+    assertTrue( original == parent.getEncoding() );
+
+    DataField copy = (DataField)field.clone();
+    decoded.add( "size", 3 );
+    DataFrame result = new DataFrame( parent.getBytes() );
+    assertEquals( 3, result.getAsFrame( "child" ).getAsInt( "size" ) );
+    assertEquals( 1, ( (DataFrame)copy.getObjectValue() ).getFieldCount() );
+
+    DataFrame list = (DataFrame)parent.getField( "list" ).getObjectValue();
+    assertEquals( 2, list.getFieldCount() );
+    list.add( 3.0D );
+    result = new DataFrame( parent.getBytes() );
+    DataFrame array = result.getAsFrame( "list" );
+    assertEquals( 3, array.getFieldCount() );
+    assertEquals( "two", array.getAsString( 1 ) );
+    assertEquals( 3.0D, array.getAsDouble( 2 ), 0 );
+
+    // empty children are null
+    list.clear();
+    assertTrue( parent.getField( "list" ).isNull() );
+    assertNull( parent.getField( "list" ).getObjectValue() );
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataField#getType(Object)}.
+   */
+  @Test
+  public void testGetType() throws URISyntaxException {
+    Object[] values = { null, "", new byte[0], new DataFrame(), (byte)-1, (byte)1, (short)-129, (short)-128, (short)127, (short)128, (short)255, (short)256, -1, 0, 65535, 65536, Integer.MIN_VALUE, -1L, 0L, 4294967295L, 4294967296L, Long.MAX_VALUE, BigInteger.ZERO, new BigInteger( "18446744073709551615" ), 1.0F, 1.0D, true, new Date(), new java.sql.Timestamp( 0 ), new URI( "urn:test" ), new Object[0], new String[0] };
+
+    // must select the same type as the first registered type to accept it
+    for ( int x = 0; x < 2; x++ ) {
+      for ( Object value : values ) {
+        short expected = -1;
+        for ( short type = 0; type < DataField.typeCount(); type++ ) {
+          if ( DataField.getDataType( type ).checkType( value ) ) {
+            expected = type;
+            break;
+          }
+        }
+        assertEquals( String.valueOf( value ), expected, DataField.getType( value ) );
+      }
+    }
+
+    try {
+      DataField.getType( BigInteger.ONE.negate() );
+      fail( "Should not support negative BigIntegers" );
+    } catch ( IllegalArgumentException e ) {
+      // expected
+    }
+    try {
+      DataField.getType( new StringBuilder() );
+      fail( "Should not support StringBuilders" );
+    } catch ( IllegalArgumentException e ) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for the primitive accessors like {@link coyote.dataframe.DataField#getLongValue()}.
+   */
+  @Test
+  public void testPrimitiveValues() throws DataFrameException {
+    assertEquals( -1L, new DataField( (short)-1 ).getLongValue() );
+    assertEquals( 255, new DataField( (short)255 ).getIntValue() );
+    assertEquals( 65535, new DataField( 65535 ).getIntValue() );
+    assertEquals( 4294967295L, new DataField( 4294967295L ).getLongValue() );
+    assertEquals( Long.MIN_VALUE, new DataField( Long.MIN_VALUE ).getLongValue() );
+    assertEquals( 123, new DataField( "123" ).getIntValue() );
+    assertEquals( 0.5D, new DataField( 0.5D ).getDoubleValue(), 0 );
+    assertEquals( 2.5F, new DataField( 2.5F ).getFloatValue(), 0 );
+    assertEquals( 7.0D, new DataField( 7 ).getDoubleValue(), 0 );
+    assertEquals( 1.8446744073709552E19D, new DataField( new BigInteger( "18446744073709551615" ) ).getDoubleValue(), 0 );
+    assertEquals( 0.0D, new DataField( "0.0" ).getDoubleValue(), 0 );
+
+    assertTrue( new DataField( true ).getBooleanValue() );
+    assertFalse( new DataField( false ).getBooleanValue() );
+    assertTrue( new DataField( 1 ).getBooleanValue() );
+    assertFalse( new DataField( -1 ).getBooleanValue() );
+    assertTrue( new DataField( "Yes" ).getBooleanValue() );
+    assertFalse( new DataField( "0" ).getBooleanValue() );
+
+    // large values do not fit in a float when truncated to a long first
+    assertEquals( 1.0E15F, new DataField( 1.0E15D ).getFloatValue(), 0 );
+
+    Object[][] bad = { { 4294967296L, "int" }, { new BigInteger( "18446744073709551615" ), "long" }, { 1.5D, "long" }, { "0.0", "int" }, { "abc", "double" }, { "abc", "boolean" }, { new Date(), "long" }, { null, "long" } };
+    for ( Object[] test : bad ) {
+      DataField field = new DataField( "test", test[0] );
+      try {
+        if ( "int".equals( test[1] ) ) {
+          field.getIntValue();
+        } else if ( "long".equals( test[1] ) ) {
+          field.getLongValue();
+        } else if ( "double".equals( test[1] ) ) {
+          field.getDoubleValue();
+        } else {
+          field.getBooleanValue();
+        }
+        fail( "Should not convert " + test[0] + " to " + test[1] );
+      } catch ( DataFrameException e ) {
+        // expected
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Decoded names are canonical instances.
+   */
+  @Test
+  public void testNameInterning() {
+    byte[] first = new DataFrame().set( "route", "a" ).set( "\u00fcber", 1 ).getBytes();
+    byte[] second = new DataFrame().set( "route", "b" ).set( "\u00fcber", 2 ).getBytes();
+
+    DataFrame one = new DataFrame( first );
+    DataFrame two = new DataFrame( second );
+    assertSame( one.getField( 0 ).getName(), two.getField( 0 ).getName() );
+    assertSame( one.getField( 1 ).getName(), two.getField( 1 ).getName() );
+    assertEquals( "\u00fcber", two.getField( 1 ).getName() );
+
+    ByteBuffer direct = ByteBuffer.allocateDirect( second.length );
+    direct.put( second ).flip();
+    assertSame( one.getField( 0 ).getName(), new DataFrameView( direct ).getName( 0 ) );
+    assertSame( one.getField( 1 ).getName(), new DataFrameView( first ).getName( 1 ) );
+  }
+
+
+
+
+  /**
+   * Names read from streams are canonical instances.
+   */
+  @Test
+  public void testStreamNameInterning() throws Exception {
+    DataField field = new DataField( new DataInputStream( new ByteArrayInputStream( new DataField( "route", 1 ).getBytes() ) ) );
+    assertSame( new DataFrame( new DataFrame().set( "route", 2 ).getBytes() ).getField( 0 ).getName(), field.getName() );
+  }
+
+
+
+  /**
+   * Declared lengths are not allocated before the data arrives.
+   */
+  @Test
+  public void testStreamHugeLength() throws Exception {
+    byte[] data = { 0, (byte)DataField.BYTEARRAY, 0x7F, (byte)0xFF, (byte)0xFF, 0, 1, 2, 3 };
+    try {
+      new DataField( new DataInputStream( new ByteArrayInputStream( data ) ) );
+      fail( "Should not read past the end of the stream" );
+    } catch ( EOFException e ) {
+      // expected
+    }
+
+    byte[] value = new byte[100000];
+    value[99999] = 7;
+    DataField field = new DataField( new DataInputStream( new ByteArrayInputStream( new DataField( "data", value ).getBytes() ) ) );
+    assertArrayEquals( value, field.getValue() );
+  }
+
 }
@@ -9,9 +9,13 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -34,7 +38,7 @@ public class DataFrameTest {
   public void testDataFrame() {
     DataFrame frame = new DataFrame();
     assertNotNull(frame);
-    assertTrue(frame.getTypeCount() == 18);
+    assertTrue(frame.getTypeCount() == 21);
     assertTrue(frame.getFieldCount() == 0);
   }
 
@@ -788,6 +792,210 @@ public class DataFrameTest {
 
 
 
+  @Test
+  public void writeEncoded() {
+    DataFrame child = new DataFrame().set("name", "child").set("values", new Object[]{1, "two", 3.0D});
+    DataFrame frame = new DataFrame().set("Test", 123L).set("child", child).set("bytes", new byte[300]).set("nil", null);
+    frame.add(new DataField(null, DataField.UDEF, null));
+    byte[] expected = frame.getBytesOrig();
+
+    assertEquals(expected.length, frame.getEncodedSize());
+    assertTrue(Arrays.equals(expected, frame.getBytes()));
+
+    byte[] array = new byte[expected.length + 4];
+    assertEquals(expected.length + 2, frame.write(array, 2));
+    assertTrue(Arrays.equals(expected, Arrays.copyOfRange(array, 2, expected.length + 2)));
+
+    // the byte order of the buffer must not matter
+    ByteBuffer heap = ByteBuffer.allocate(expected.length + 1).order(ByteOrder.LITTLE_ENDIAN);
+    heap.put((byte)0);
+    frame.write(heap);
+    assertFalse(heap.hasRemaining());
+    assertTrue(Arrays.equals(expected, Arrays.copyOfRange(heap.array(), 1, expected.length + 1)));
+    ByteBuffer direct = ByteBuffer.allocateDirect(expected.length).order(ByteOrder.LITTLE_ENDIAN);
+    frame.write(direct);
+    assertEquals(expected.length, direct.position());
+    byte[] data = new byte[expected.length];
+    direct.flip();
+    direct.get(data);
+    assertTrue(Arrays.equals(expected, data));
+
+    ByteBuffer small = ByteBuffer.allocateDirect(expected.length - 1);
+    try {
+      frame.write(small);
+      fail("Should generate a buffer overflow exception");
+    } catch (BufferOverflowException e) {
+      assertEquals(0, small.position());
+    }
+  }
+
+
+
+
+  @Test
+  public void cachedEncoding() {
+    DataFrame frame = new DataFrame().set("alpha", 1L).set("beta", "two");
+    byte[] bytes = frame.getEncoding();
+    String digest = frame.getDigestString();
+    assertTrue(bytes == frame.getEncoding());
+    assertEquals(digest, frame.getDigestString());
+
+    // callers get a copy they may change without affecting the frame
+    byte[] copy = frame.getBytes();
+    assertTrue(copy != bytes);
+    assertTrue(Arrays.equals(bytes, copy));
+    copy[copy.length - 1] = 'X';
+    assertEquals("two", new DataFrame(frame.getBytes()).getAsString("beta"));
+    assertEquals(digest, frame.getDigestString());
+
+    frame.add("gamma", 3.0D);
+    byte[] changed = frame.getEncoding();
+    assertTrue(bytes != changed);
+    assertTrue(Arrays.equals(frame.getBytesOrig(), changed));
+    assertNotEquals(digest, frame.getDigestString());
+
+    // renaming a field must also be noticed
+    frame.getField("beta").setName("delta");
+    assertTrue(Arrays.equals(frame.getBytesOrig(), frame.getBytes()));
+    assertTrue(frame.getEncoding() != changed);
+
+    // as must changes made through the field list
+    changed = frame.getEncoding();
+    frame.getFields().remove(0);
+    assertTrue(Arrays.equals(frame.getBytesOrig(), frame.getBytes()));
+    assertEquals(2, frame.getFieldCount());
+
+    frame.clear();
+    assertEquals(0, frame.getBytes().length);
+  }
+
+
+
+
+  @Test
+  public void liveChild() throws DataFrameException {
+    DataFrame child = new DataFrame().set("name", "child");
+    DataFrame frame = new DataFrame().set("child", child).set("copy", child.clone());
+    byte[] bytes = frame.getBytes();
+
+    child.add("size", 3);
+    assertTrue(frame.getAsFrame("child") == child);
+    assertTrue(bytes != frame.getBytes());
+    assertTrue(Arrays.equals(frame.getBytesOrig(), frame.getBytes()));
+    DataFrame result = new DataFrame(frame.getBytes());
+    assertEquals(3, result.getAsFrame("child").getAsInt("size"));
+    assertEquals(1, result.getAsFrame("copy").getFieldCount());
+
+    // a frame placed in itself is a copy
+    frame.put("self", frame);
+    assertEquals(3, frame.getFieldCount());
+    assertEquals(2, frame.getAsFrame("self").getFieldCount());
+
+    // build a deep tree from the bottom up
+    DataFrame node = new DataFrame().set("leaf", true);
+    for (int x = 0; x < 500; x++) {
+      node = new DataFrame().set("level", x).set("node", node);
+    }
+    result = new DataFrame(node.getBytes());
+    assertEquals(499, result.getAsInt("level"));
+    assertEquals(498, result.getAsFrame("node").getAsInt("level"));
+  }
+
+
+
+
+  @Test
+  public void wideFrameLookup() throws DataFrameException {
+    DataFrame frame = new DataFrame();
+    for (int x = 0; x < 100; x++) {
+      frame.add("field" + x, x);
+    }
+    frame.add("Field5", 500);
+    frame.add("field5", 505);
+    frame.add(null, "anonymous");
+
+    assertEquals(5, frame.indexOf("field5"));
+    assertEquals(99, frame.getAsInt("field99"));
+    assertEquals(5, frame.getFieldIgnoreCase("FIELD5").getObjectValue());
+    assertTrue(frame.containsIgnoreCase("fIeLd42"));
+    assertFalse(frame.contains("field100"));
+    assertEquals(-1, frame.indexOf(null));
+    assertEquals(102, frame.getNames().size()); // includes the null name
+
+    // removing the first occurrence exposes the next one
+    assertEquals(5, frame.remove("field5").getObjectValue());
+    assertEquals(100, frame.indexOf("field5"));
+    assertEquals(500, frame.getFieldIgnoreCase("FIELD5").getObjectValue());
+    assertEquals(5, frame.indexOf("field6"));
+
+    frame.put("field6", null);
+    assertEquals(5, frame.indexOf("field7"));
+    frame.put("field200", 200);
+    assertEquals(frame.getFieldCount() - 1, frame.indexOf("field200"));
+
+    frame.getField("field7").setName("seven");
+    assertEquals(-1, frame.indexOf("field7"));
+    assertEquals(5, frame.indexOf("seven"));
+
+    frame.getFields().remove(0);
+    assertEquals(4, frame.indexOf("seven"));
+    frame.getFields().add(0, new DataField("field0", 0));
+    assertEquals(0, frame.indexOf("field0"));
+    assertEquals(5, frame.indexOf("seven"));
+
+    frame.removeAll("field5");
+    assertFalse(frame.contains("field5"));
+    assertTrue(frame.containsIgnoreCase("field5"));
+
+    // the index always agrees with a search of the fields
+    for (int x = 0; x < frame.getFieldCount(); x++) {
+      String name = frame.getField(x).getName();
+      if (name != null) {
+        assertTrue(frame.indexOf(name) <= x);
+        assertEquals(name, frame.getField(frame.indexOf(name)).getName());
+      }
+    }
+  }
+
+
+
+
+  @Test
+  public void renameTracking() throws DataFrameException {
+    DataFrame one = new DataFrame();
+    DataFrame two = new DataFrame();
+    for (int x = 0; x < 20; x++) {
+      one.add("a" + x, x);
+      two.add("b" + x, x);
+    }
+    DataField shared = new DataField("shared", 1);
+    one.add(shared);
+    two.add(shared);
+    assertEquals(20, one.indexOf("shared"));
+    assertEquals(20, two.indexOf("shared"));
+
+    // a renamed field tells the frame which indexed it
+    assertSame(one, one.getField("a3").owner);
+    one.getField("a3").setName("three");
+    assertEquals(3, one.indexOf("three"));
+    assertEquals(-1, one.indexOf("a3"));
+
+    // the second frame to index a field checks for renames itself
+    assertSame(one, shared.owner);
+    shared.setName("common");
+    assertEquals(20, one.indexOf("common"));
+    assertEquals(20, two.indexOf("common"));
+    assertEquals(-1, two.indexOf("shared"));
+
+    // removed fields no longer report to the frame
+    DataField removed = one.getField("a4");
+    one.getFields().remove(4);
+    assertNull(removed.owner);
+  }
+
+
+
+
   @Test
   public void getBytesForField() {
     byte[] raw = {'1', '2', '3'};
@@ -911,6 +1119,41 @@ public class DataFrameTest {
 
 
 
+  @Test
+  public void cloneSharesValues() throws DataFrameException {
+    byte[] payload = new byte[50000];
+    DataFrame frame = new DataFrame().set("count", 1).set("payload", payload).set("child", new DataFrame().set("a", 1));
+    byte[] original = frame.getBytes();
+
+    DataFrame copy = (DataFrame)frame.clone();
+    assertTrue(frame.getField("payload").getValue() == copy.getField("payload").getValue());
+
+    // values changed in place are copied first, in either frame
+    copy.put("count", 2);
+    copy.add("route", "subscriber");
+    copy.getAsFrame("child").put("a", 2);
+    assertTrue(Arrays.equals(original, frame.getBytes()));
+    assertEquals(2, copy.getAsInt("count"));
+    assertEquals(2, copy.getAsFrame("child").getAsInt("a"));
+
+    frame.put("count", 3);
+    frame.getAsFrame("child").put("a", 3);
+    assertEquals(2, copy.getAsInt("count"));
+    assertEquals(2, new DataFrame(copy.getBytes()).getAsFrame("child").getAsInt("a"));
+    assertEquals(3, new DataFrame(frame.getBytes()).getAsFrame("child").getAsInt("a"));
+
+    // reusing a cloned frame for decoding leaves its clone alone
+    DataFrame reused = new DataFrame(new DataFrame().set("count", 4).getBytes());
+    DataFrame kept = (DataFrame)reused.clone();
+    byte[] data = new DataFrame().set("count", 5).getBytes();
+    reused.decodeFrom(data, 0, data.length);
+    assertEquals(5, reused.getAsInt("count"));
+    assertEquals(4, kept.getAsInt("count"));
+  }
+
+
+
+
   @Test
   public void clear() {
     DataFrame frame = new DataFrame();
@@ -922,6 +1165,166 @@ public class DataFrameTest {
     assertTrue(frame.getFieldCount() == 0);
     assertTrue(frame.isEmpty());
   }
-  
-  
+
+
+
+
+  @Test
+  public void primitivePut() throws DataFrameException {
+    DataFrame frame = new DataFrame();
+    frame.put("count", 5);
+    frame.put("total", 1L << 40);
+    frame.put("ratio", 0.5D);
+    frame.put("scale", 2.5F);
+    frame.put("small", (short)-3);
+    frame.put("active", true);
+    frame.add("extra", 7);
+
+    // same types and wire format as the boxed values
+    DataFrame boxed = new DataFrame();
+    boxed.put("count", (Object)5);
+    boxed.put("total", (Object)(1L << 40));
+    boxed.put("ratio", (Object)0.5D);
+    boxed.put("scale", (Object)2.5F);
+    boxed.put("small", (Object)(short)-3);
+    boxed.put("active", (Object)true);
+    boxed.add("extra", (Object)7);
+    assertTrue(Arrays.equals(boxed.getBytes(), frame.getBytes()));
+
+    // values of the same type are written in place
+    byte[] before = frame.getBytes();
+    byte[] value = frame.getField("count").getValue();
+    for (int x = 6; x < 100; x++) {
+      frame.put("count", x);
+    }
+    assertSame(value, frame.getField("count").getValue());
+    assertEquals(99, frame.getAsInt("count"));
+    assertFalse(Arrays.equals(before, frame.getBytes()));
+    assertEquals(7, frame.getFieldCount());
+
+    // values outside the range of the type change the type
+    frame.put("count", 70000);
+    assertEquals(DataField.S32, frame.getField("count").getType());
+    assertEquals(70000, frame.getAsInt("count"));
+    frame.put("ratio", false);
+    assertFalse(frame.getAsBoolean("ratio"));
+    frame.put("active", 1.25D);
+    assertEquals(1.25D, frame.getAsDouble("active"), 0);
+
+    frame.put(null, 3);
+    assertEquals(8, frame.getFieldCount());
+    assertNull(frame.getField(7).getName());
+  }
+
+
+
+
+  @Test
+  public void decodeFrom() throws DataFrameException {
+    DataFrame first = new DataFrame().set("id", 1).set("name", "alpha").set("child", new DataFrame().set("x", 1));
+    DataFrame second = new DataFrame().set("id", 2).set("name", "bravo").set("child", new DataFrame().set("x", 2));
+    byte[] data = second.getBytes();
+
+    DataFrame frame = new DataFrame().decodeFrom(first.getBytes(), 0, first.getBytes().length);
+    assertEquals(1, frame.getAsFrame("child").getAsInt("x"));
+    DataFrame parent = new DataFrame().set("frame", frame);
+    byte[] before = parent.getBytes();
+
+    DataField id = frame.getField(0);
+    String name = id.getName();
+    byte[] value = frame.getField(1).getValue();
+    frame.decodeFrom(data, 0, data.length);
+    assertFalse(frame.isModified());
+    assertSame(id, frame.getField(0));
+    assertSame(name, frame.getField(0).getName());
+    assertSame(value, frame.getField(1).getValue());
+    assertEquals(2, frame.getAsInt("id"));
+    assertEquals("bravo", frame.getAsString("name"));
+    assertEquals(2, frame.getAsFrame("child").getAsInt("x"));
+    assertTrue(Arrays.equals(data, frame.getBytes()));
+
+    // frames holding the reused frame see the change
+    assertFalse(Arrays.equals(before, parent.getBytes()));
+    assertTrue(Arrays.equals(data, parent.getAsFrame("frame").getBytes()));
+
+    // fewer and more fields
+    DataFrame small = new DataFrame().set("only", true);
+    frame.decodeFrom(small.getBytes(), 0, small.getBytes().length);
+    assertEquals(1, frame.getFieldCount());
+    assertNull(frame.getField("name"));
+    frame.decodeFrom(data, 0, data.length);
+    assertEquals(3, frame.getFieldCount());
+    assertTrue(Arrays.equals(data, frame.getBytes()));
+
+    // reset keeps the fields for reuse
+    DataField reused = frame.getField(0);
+    assertSame(frame, frame.reset());
+    assertTrue(frame.isEmpty());
+    assertFalse(frame.isModified());
+    frame.decodeFrom(data, 0, data.length);
+    assertSame(reused, frame.getField(0));
+    assertEquals("bravo", frame.getAsString("name"));
+
+    try {
+      frame.decodeFrom(data, 0, data.length - 2);
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  @Test
+  public void decodeFromLeavesChildren() throws DataFrameException {
+    DataFrame child = new DataFrame().set("v", 1111);
+    DataFrame parent = new DataFrame();
+    parent.put("c", child);
+    parent.getBytes();
+
+    byte[] data = new DataFrame().set("c", new DataFrame().set("v", 2222)).getBytes();
+    parent.decodeFrom(data, 0, data.length);
+    assertEquals(2222, parent.getAsFrame("c").getAsInt("v"));
+    assertEquals(1111, child.getAsInt("v"));
+    assertEquals(1111, new DataFrame(child.getBytes()).getAsInt("v"));
+
+    // byte arrays given as values are the caller's
+    byte[] payload = { 1, 2, 3 };
+    DataFrame frame = new DataFrame().set("b", payload);
+    data = new DataFrame().set("b", new byte[] { 7, 8, 9 }).getBytes();
+    frame.decodeFrom(data, 0, data.length);
+    assertEquals(1, payload[0]);
+  }
+
+
+
+
+  @Test
+  public void framePool() throws DataFrameException {
+    FramePool pool = new FramePool(2);
+    byte[] data = new DataFrame().set("id", 7).getBytes();
+    DataFrame frame = pool.decode(data, 0, data.length);
+    assertEquals(7, frame.getAsInt("id"));
+    assertEquals(0, pool.size());
+    pool.release(frame);
+    assertEquals(1, pool.size());
+    assertSame(frame, pool.acquire());
+    assertTrue(frame.isEmpty());
+
+    pool.release(frame);
+    pool.release(new DataFrame());
+    pool.release(new DataFrame());
+    pool.release(null);
+    assertEquals(2, pool.size());
+
+    try {
+      pool.decode(data, 0, 3);
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected
+    }
+    assertEquals(2, pool.size());
+  }
+
 }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class DataFrameViewTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#DataFrameView(java.nio.ByteBuffer)}.
+   */
+  @Test
+  public void testDataFrameViewBuffer() throws DataFrameException {
+    DataFrame header = new DataFrame().set("route", "orders.east").set("priority", 7);
+    byte[] data = new DataFrame().set("header", header).set("count", 123456789L).getBytes();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 10);
+    buffer.position(10);
+    buffer.put(data);
+    buffer.position(10);
+
+    DataFrameView view = new DataFrameView(buffer);
+    assertEquals(10, buffer.position());
+    assertEquals("orders.east", view.getAsView("header").getAsString("route"));
+    assertEquals(123456789L, view.getAsLong("count"));
+    assertTrue(Arrays.equals(data, view.getBytes()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getFieldCount()}.
+   */
+  @Test
+  public void testGetFieldCount() {
+    DataFrame frame = new DataFrame().set("count", 123456789L).set("ratio", 0.5D).set("name", "widget");
+    assertEquals(3, new DataFrameView(frame.getBytes()).getFieldCount());
+    assertEquals(0, new DataFrameView(new byte[0]).getFieldCount());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getFieldCount()}
+   * with a truncated frame.
+   */
+  @Test
+  public void testGetFieldCountTruncated() {
+    byte[] data = new DataFrame().set("route", "orders.east").set("count", 123456789L).getBytes();
+    DataFrameView view = new DataFrameView(Arrays.copyOf(data, data.length - 3));
+    assertEquals(0, view.indexOf("route")); // only scans what it needs
+    try {
+      view.getFieldCount();
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getFieldCount()}
+   * with a value length which overflows when added to its position.
+   */
+  @Test
+  public void testGetFieldCountMalformedLength() {
+    byte[] data = new byte[40];
+    data[0] = 30;
+    Arrays.fill(data, 1, 31, (byte)'n');
+    data[31] = (byte)DataField.STRING;
+    data[32] = 0x7F;
+    data[33] = (byte)0xFF;
+    data[34] = (byte)0xFF;
+    data[35] = (byte)0xF0;
+    DataFrameView view = new DataFrameView(data);
+    try {
+      view.getFieldCount();
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#DataFrameView(java.nio.ByteBuffer, int, int)}
+   * with a length beyond the end of the buffer.
+   */
+  @Test
+  public void testDataFrameViewMalformedLength() {
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    try {
+      new DataFrameView(buffer, 8, Integer.MAX_VALUE);
+      fail("Should reject a length beyond the buffer");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#indexOf(java.lang.String)}.
+   */
+  @Test
+  public void testIndexOf() {
+    DataFrameView view = new DataFrameView(new DataFrame().set("name", "widget").set("count", 1).getBytes());
+    assertEquals(1, view.indexOf("count"));
+    assertEquals(-1, view.indexOf("foo"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#contains(java.lang.String)}.
+   */
+  @Test
+  public void testContains() {
+    DataFrameView view = new DataFrameView(new DataFrame().set("name", "widget").getBytes());
+    assertTrue(view.contains("name"));
+    assertFalse(view.contains("Name"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsString(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsString() {
+    DataFrameView view = new DataFrameView(new DataFrame().set("name", "widget").getBytes());
+    assertEquals("widget", view.getAsString("name"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsLong(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsLong() throws DataFrameException {
+    DataFrameView view = new DataFrameView(new DataFrame().set("count", 123456789L).getBytes());
+    assertEquals(123456789L, view.getAsLong("count"));
+    try {
+      view.getAsLong("foo");
+      fail("Should generate a DataFrame exception");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsInt(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsInt() throws DataFrameException {
+    DataFrameView view = new DataFrameView(new DataFrame().set("count", 123456789L).set("name", "widget").getBytes());
+    assertEquals(123456789, view.getAsInt("count"));
+    try {
+      view.getAsInt("name");
+      fail("Should generate a DataFrame exception");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsDouble(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsDouble() throws DataFrameException {
+    DataFrameView view = new DataFrameView(new DataFrame().set("ratio", 0.5D).getBytes());
+    assertEquals(0.5D, view.getAsDouble("ratio"), 0);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsBoolean(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsBoolean() throws DataFrameException {
+    DataFrameView view = new DataFrameView(new DataFrame().set("active", true).getBytes());
+    assertTrue(view.getAsBoolean("active"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getObject(java.lang.String)}.
+   */
+  @Test
+  public void testGetObject() {
+    DataFrameView view = new DataFrameView(new DataFrame().set("name", "widget").getBytes());
+    assertEquals("widget", view.getObject("name"));
+    assertNull(view.getObject("foo"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getField(java.lang.String)}.
+   */
+  @Test
+  public void testGetField() {
+    DataFrameView view = new DataFrameView(new DataFrame().set("count", 1).set("name", "widget").getBytes());
+    DataField field = view.getField("name");
+    assertEquals("name", field.getName());
+    assertEquals("widget", field.getObjectValue());
+    assertNull(view.getField(2));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#getAsView(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsView() throws DataFrameException {
+    DataFrame header = new DataFrame().set("route", "orders.east").set("priority", 7);
+    DataFrameView view = new DataFrameView(new DataFrame().set("header", header).set("name", "widget").getBytes());
+    DataFrameView child = view.getAsView("header");
+    assertNotNull(child);
+    assertEquals("orders.east", child.getAsString("route"));
+    assertEquals(7, child.getAsInt("priority"));
+
+    try {
+      view.getAsView("name");
+      fail("Should generate a DataFrame exception");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DataFrameView#toFrame()}.
+   */
+  @Test
+  public void testToFrame() {
+    DataFrame header = new DataFrame().set("route", "orders.east").set("priority", 7);
+    DataFrame frame = new DataFrame().set("header", header).set("count", 123456789L).set("ratio", 0.5D).set("active", true).set("name", "widget");
+    DataFrameView view = new DataFrameView(frame.getBytes());
+    DataFrame copy = view.toFrame();
+    assertEquals(frame.toString(), copy.toString());
+    assertEquals(frame.getNames().size(), view.getNames().size());
+  }
+
+}
@@ -4,11 +4,15 @@
 package coyote.dataframe;
 
 //import static org.junit.Assert.*;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
@@ -147,4 +151,66 @@ public class DateTypeTest {
     assertTrue( datatype.getSize() == 8 );
   }
 
+
+
+
+  @Test
+  public void testParse()
+  {
+    ZoneId zone = ZoneId.systemDefault();
+    long local = LocalDateTime.of( 2020, 3, 4, 5, 6, 7, 890000000 ).atZone( zone ).toInstant().toEpochMilli();
+    assertEquals( local, ( (Date)datatype.parse( "2020-03-04T05:06:07.890" ) ).getTime() );
+    assertEquals( local, ( (Date)datatype.parse( "2020-03-04 05:06:07.89" ) ).getTime() );
+    assertEquals( local - 890, ( (Date)datatype.parse( "2020-03-04T05:06:07" ) ).getTime() );
+    assertEquals( 1583298367890L, ( (Date)datatype.parse( "2020-03-04T05:06:07.890Z" ) ).getTime() );
+    assertEquals( 1583298367890L, ( (Date)datatype.parse( "2020-03-04T00:06:07.890-05:00" ) ).getTime() );
+    assertEquals( 1583298367890L, ( (Date)datatype.parse( "2020-03-04T00:06:07.890-0500" ) ).getTime() );
+    assertEquals( 1583298367890L, ( (Date)datatype.parse( "2020-03-04T00:06:07.890-05" ) ).getTime() );
+
+    long day = LocalDate.of( 2020, 3, 4 ).atStartOfDay( zone ).toInstant().toEpochMilli();
+    assertEquals( day, ( (Date)datatype.parse( "2020-03-04" ) ).getTime() );
+    assertEquals( day, ( (Date)datatype.parse( "3/4/2020" ) ).getTime() );
+    assertEquals( day, ( (Date)datatype.parse( "3-4-2020" ) ).getTime() );
+    assertEquals( day, ( (Date)datatype.parse( "03/04/20" ) ).getTime() );
+    assertEquals( LocalDate.of( 2020, 3, 1 ).atStartOfDay( zone ).toInstant().toEpochMilli(), ( (Date)datatype.parse( "3/2020" ) ).getTime() );
+
+    assertNull( datatype.parse( "2020-02-30" ) );
+    assertNull( datatype.parse( "2020-03-04T05:06:07junk" ) );
+    assertNull( datatype.parse( "3-2020" ) );
+    assertNull( datatype.parse( "not a date" ) );
+    assertNull( datatype.parse( "" ) );
+  }
+
+
+
+
+  @Test
+  public void testStringValue() throws Exception
+  {
+    final byte[] data = datatype.encode( new Date( 1583298367890L ) );
+    final String expected = datatype.stringValue( data );
+    assertEquals( 1583298367890L, ( (Date)datatype.parse( expected ) ).getTime() );
+
+    // the formatter is shared by all threads
+    final Thread[] threads = new Thread[4];
+    final boolean[] failed = new boolean[1];
+    for ( int x = 0; x < threads.length; x++ ) {
+      threads[x] = new Thread() {
+        @Override
+        public void run() {
+          for ( int i = 0; i < 10000; i++ ) {
+            if ( !expected.equals( datatype.stringValue( data ) ) || ( (Date)datatype.parse( expected ) ).getTime() != 1583298367890L ) {
+              failed[0] = true;
+            }
+          }
+        }
+      };
+      threads[x].start();
+    }
+    for ( Thread thread : threads ) {
+      thread.join();
+    }
+    assertFalse( failed[0] );
+  }
+
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class DirectFramePoolTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFramePool#DirectFramePool(int)}.
+   */
+  @Test
+  public void testDirectFramePool() {
+    assertEquals(DirectFramePool.DEFAULT_SLAB_SIZE, new DirectFramePool().getSlabSize());
+    assertEquals(1024, new DirectFramePool(1000).getSlabSize());
+    assertEquals(1024, new DirectFramePool(1024).getSlabSize());
+    assertEquals(64, new DirectFramePool(1).getSlabSize());
+    assertEquals(0, new DirectFramePool(1024).getCapacity());
+    try {
+      new DirectFramePool(0);
+      fail("Should not create a pool without slabs");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFramePool#allocate(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testAllocateFrame() throws DataFrameException {
+    DirectFramePool pool = new DirectFramePool(4096);
+    DataFrame frame = new DataFrame().set("name", "tile").set("image", new byte[500]);
+    DirectFrame direct = pool.allocate(frame);
+    assertTrue(Arrays.equals(frame.getBytes(), direct.getBytes()));
+    assertEquals("tile", direct.getView().getAsString("name"));
+    assertEquals(500, direct.getValueBuffer("image").remaining());
+    assertEquals(4096, pool.getCapacity());
+    assertEquals(1024, pool.getUsed());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFramePool#allocate(java.nio.ByteBuffer)}.
+   */
+  @Test
+  public void testAllocateBuffer() {
+    DirectFramePool pool = new DirectFramePool(4096);
+    byte[] data = new DataFrame().set("a", 1).getBytes();
+    ByteBuffer buffer = ByteBuffer.allocate(data.length + 4);
+    buffer.position(2);
+    buffer.put(data);
+    buffer.position(2);
+    buffer.limit(2 + data.length);
+    DirectFrame direct = pool.allocate(buffer);
+    assertEquals(2, buffer.position());
+    assertTrue(Arrays.equals(data, direct.getBytes()));
+    assertTrue(Arrays.equals(data, pool.allocate(data, 0, data.length).getBytes()));
+    assertEquals(128, pool.getUsed());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#release()} of a frame
+   * in a pool.
+   */
+  @Test
+  public void testRelease() {
+    DirectFramePool pool = new DirectFramePool(4096);
+    DataFrame first = new DataFrame().set("seq", 1).set("data", new byte[1500]);
+    DataFrame second = new DataFrame().set("seq", 2).set("data", new byte[1500]);
+
+    // space is reused as soon as a frame is released
+    for (int x = 0; x < 100; x++) {
+      DirectFrame one = pool.allocate(first);
+      DirectFrame two = pool.allocate(second);
+      assertEquals(4096, pool.getUsed());
+      one.release();
+      two.close();
+      assertEquals(0, pool.getUsed());
+    }
+    assertEquals(4096, pool.getCapacity());
+
+    // the rest of a slab is kept for smaller frames
+    pool = new DirectFramePool(4096);
+    pool.allocate(first);
+    pool.allocate(new DataFrame().set("big", new byte[3000]));
+    assertEquals(8192, pool.getCapacity());
+    pool.allocate(second);
+    assertEquals(8192, pool.getCapacity());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#retain()} of a frame
+   * in a pool.
+   */
+  @Test
+  public void testRetain() throws DataFrameException {
+    DirectFramePool pool = new DirectFramePool(4096);
+    DirectFrame direct = pool.allocate(new DataFrame().set("seq", 1));
+    assertTrue(direct == direct.retain());
+    direct.release();
+    assertFalse(direct.isReleased());
+    assertEquals(1, direct.getView().getAsInt("seq"));
+    direct.release();
+    assertTrue(direct.isReleased());
+    assertEquals(0, pool.getUsed());
+
+    // releasing again does not return the space twice
+    direct.release();
+    assertEquals(0, pool.getUsed());
+    try {
+      direct.retain();
+      fail("Should not retain a released frame");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFramePool#allocate(coyote.dataframe.DataFrame)}
+   * with a frame larger than a slab.
+   */
+  @Test
+  public void testAllocateLarge() {
+    DirectFramePool pool = new DirectFramePool(1024);
+    DataFrame frame = new DataFrame().set("image", new byte[5000]);
+    DirectFrame direct = pool.allocate(frame);
+    assertTrue(Arrays.equals(frame.getBytes(), direct.getBytes()));
+    assertEquals(0, pool.getCapacity());
+    direct.release();
+    assertEquals(0, pool.getUsed());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#readDirect(DirectFramePool)}.
+   */
+  @Test
+  public void testReadDirect() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 10; x++) {
+      out.write(new DataField(new DataFrame().set("seq", x)).getBytes());
+    }
+    DirectFramePool pool = new DirectFramePool(4096);
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      for (int x = 0; x < 10; x++) {
+        try (DirectFrame direct = reader.readDirect(pool)) {
+          assertEquals(x, direct.getView().getAsInt("seq"));
+        }
+      }
+    }
+    assertEquals(0, pool.getUsed());
+    assertEquals(4096, pool.getCapacity());
+  }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class DirectFrameTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#DirectFrame(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testDirectFrame() {
+    DataFrame frame = new DataFrame().set("name", "tile").set("image", new byte[100000]);
+    try (DirectFrame direct = new DirectFrame(frame)) {
+      assertEquals(frame.getEncodedSize(), direct.getEncodedSize());
+      assertTrue(Arrays.equals(frame.getBytes(), direct.getBytes()));
+      assertFalse(direct.isReleased());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#DirectFrame(byte[], int, int)}.
+   */
+  @Test
+  public void testDirectFrameArray() {
+    byte[] data = new DataFrame().set("name", "tile").getBytes();
+    byte[] padded = new byte[data.length + 5];
+    System.arraycopy(data, 0, padded, 5, data.length);
+    DirectFrame direct = new DirectFrame(padded, 5, data.length);
+    assertTrue(Arrays.equals(data, direct.getBytes()));
+    direct.release();
+
+    try {
+      new DirectFrame(padded, 5, Integer.MAX_VALUE);
+      fail("Should reject a length beyond the array");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#toFrame()}.
+   */
+  @Test
+  public void testToFrame() {
+    DataFrame header = new DataFrame().set("route", "tiles.north").set("zoom", 12);
+    DataFrame frame = new DataFrame().set("header", header).set("image", new byte[100000]).set("name", "tile");
+    try (DirectFrame direct = new DirectFrame(frame)) {
+      assertTrue(Arrays.equals(frame.getBytes(), direct.toFrame().getBytes()));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#getObject(java.lang.String)}.
+   */
+  @Test
+  public void testGetObject() {
+    try (DirectFrame direct = new DirectFrame(new DataFrame().set("name", "tile"))) {
+      assertEquals("tile", direct.getObject("name"));
+      assertNull(direct.getObject("foo"));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#getView()}.
+   */
+  @Test
+  public void testGetView() throws DataFrameException {
+    DataFrame header = new DataFrame().set("route", "tiles.north").set("zoom", 12);
+    try (DirectFrame direct = new DirectFrame(new DataFrame().set("header", header))) {
+      assertEquals(12, direct.getView().getAsView("header").getAsInt("zoom"));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#getValueBuffer(java.lang.String)}.
+   */
+  @Test
+  public void testGetValueBuffer() throws IOException {
+    byte[] image = new byte[100000];
+    for (int x = 0; x < image.length; x++) {
+      image[x] = (byte)x;
+    }
+    try (DirectFrame direct = new DirectFrame(new DataFrame().set("name", "tile").set("image", image))) {
+      ByteBuffer value = direct.getValueBuffer("image");
+      assertTrue(value.isReadOnly());
+      assertTrue(value.isDirect());
+      assertEquals(image.length, value.remaining());
+      assertEquals((byte)12345, value.get(12345));
+      assertNull(direct.getValueBuffer("foo"));
+
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Channels.newChannel(out).write(value);
+      assertTrue(Arrays.equals(image, out.toByteArray()));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#write(java.nio.channels.WritableByteChannel)}.
+   */
+  @Test
+  public void testWriteChannel() throws IOException {
+    DataFrame frame = new DataFrame().set("name", "tile").set("image", new byte[100000]);
+    try (DirectFrame direct = new DirectFrame(frame)) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      direct.write(Channels.newChannel(out));
+      assertTrue(Arrays.equals(frame.getBytes(), out.toByteArray()));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#write(java.nio.ByteBuffer)}.
+   */
+  @Test
+  public void testWriteBuffer() {
+    DataFrame frame = new DataFrame().set("name", "tile").set("image", new byte[1000]);
+    try (DirectFrame direct = new DirectFrame(frame)) {
+      ByteBuffer target = ByteBuffer.allocate(direct.getEncodedSize() + 1);
+      target.put((byte)1);
+      direct.write(target);
+      assertFalse(target.hasRemaining());
+      assertTrue(Arrays.equals(frame.getBytes(), Arrays.copyOfRange(target.array(), 1, target.capacity())));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.DirectFrame#release()}.
+   */
+  @Test
+  public void testRelease() throws DataFrameException {
+    byte[] image = new byte[100000];
+    for (int x = 0; x < image.length; x++) {
+      image[x] = (byte)x;
+    }
+    DirectFrame direct = new DirectFrame(new DataFrame().set("name", "tile").set("image", image));
+    assertFalse(direct.isReleased());
+    DataFrameView view = direct.getView();
+    ByteBuffer value = direct.getValueBuffer("image");
+    direct.release();
+    // views and buffers keep the memory until they are collected
+    assertEquals("tile", view.getAsString("name"));
+    assertEquals((byte)12345, value.get(12345));
+    assertTrue(direct.isReleased());
+    direct.close();
+    assertEquals("DirectFrame[released]", direct.toString());
+    try {
+      direct.getView();
+      fail("Should not read a released frame");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      direct.getBytes();
+      fail("Should not read a released frame");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#readDirect()}.
+   */
+  @Test
+  public void testReadDirect() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 3; x++) {
+      out.write(new DataField(new DataFrame().set("image", new byte[10000]).set("seq", x)).getBytes());
+    }
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      for (int x = 0; x < 3; x++) {
+        try (DirectFrame direct = reader.readDirect()) {
+          assertEquals(x, direct.getObject("seq"));
+        }
+      }
+      assertNull(reader.readDirect());
+    }
+  }
+
+}
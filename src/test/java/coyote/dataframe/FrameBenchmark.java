@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+
+/**
+ * Simple timing of common frame operations.
+ *
+ * <p>This is not a unit test; run it from the command line to compare the
+ * performance of changes to the library:<pre>
+ * java -cp build/classes/java/main:build/classes/java/test coyote.dataframe.FrameBenchmark</pre>
+ */
+public class FrameBenchmark {
+
+  private static final int WARMUP = 5;
+  private static final int RUNS = 10;
+
+  private static final Object[] VALUES = {"text", 42, 70000, 7L, 1L << 40, (short)200, 3.5D, 2.5F, true, new Date(0), new byte[4]};
+
+  /** The date patterns which were tried in turn before the formats were sniffed */
+  private static final String[] DATE_PATTERNS = {"yyyy-MM-dd'T'HH:mm:ss.SSSX", "yyyy-MM-dd'T'HH:mm:ss.SSS", "yyyy-MM-dd'T'HH:mm:ss", "yyyy-MM-dd' 'HH:mm:ss.SSSX", "yyyy-MM-dd' 'HH:mm:ss.SSS", "yyyy-MM-dd' 'HH:mm:ss", "yyyy-MM-dd HH:mm:ss.SSSX", "yyyy-MM-dd HH:mm:ss.SSS", "yyyy-MM-dd HH:mm:ss", "yyyy-MM-dd", "M/y", "M/d/y", "M-d-y"};
+
+  private static final String[] DATES = {"2020-03-04T05:06:07.890Z", "2020-03-04 05:06:07", "3/4/2020"};
+
+  private static volatile long sink;
+
+
+
+
+  /** A unit of work to be timed. */
+  private interface Task {
+    void run(int iterations);
+  }
+
+
+
+
+  /**
+   * Run the task a number of times and report the average time per
+   * iteration.
+   */
+  private static void time(final String name, final int iterations, final Task task) {
+    for (int x = 0; x < WARMUP; x++) {
+      task.run(iterations);
+    }
+    long best = Long.MAX_VALUE;
+    for (int x = 0; x < RUNS; x++) {
+      final long start = System.nanoTime();
+      task.run(iterations);
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.println(String.format("%-40s %10.1f ns/op", name, (double)best / iterations));
+  }
+
+
+
+
+  /**
+   * Resolve the type of an object the way it was done before the type table,
+   * by asking each registered type in turn.
+   */
+  private static short scanType(final Object obj) {
+    for (short x = 0; x < DataField.typeCount(); x++) {
+      if (DataField.getDataType(x).checkType(obj)) {
+        return x;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported Object Type");
+  }
+
+
+
+
+  /**
+   * Write the record used by the export benchmarks.
+   */
+  private static void record(final FrameWriter writer, final int i) throws IOException {
+    writer.beginFrame();
+    writer.writeInt("id", i);
+    writer.writeString("name", "record");
+    writer.writeDouble("amount", i * 0.25D);
+    writer.beginFrame("header").writeString("source", "export").writeLong("seq", i).endFrame();
+    writer.endFrame();
+  }
+
+
+
+
+  /**
+   * Report the average number of octets each export record occupies on a
+   * stream.
+   */
+  private static void size(final String name, final boolean dictionary) throws IOException {
+    final int count = 1000;
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final FrameWriter writer = new FrameWriter(out);
+    if (dictionary) {
+      writer.useDictionary();
+    }
+    for (int i = 0; i < count; i++) {
+      record(writer, i);
+    }
+    writer.close();
+    System.out.println(String.format("%-40s %10.1f bytes/op", name, (double)out.size() / count));
+  }
+
+
+
+
+  /**
+   * Report the average number of octets of heap each of many small frames
+   * holds while they are all retained.
+   */
+  private static void memory(final String name, final boolean packed) {
+    final int count = 200000;
+    final Object[] retained = new Object[count];
+    final long before = used();
+    for (int i = 0; i < count; i++) {
+      final DataFrame frame = new DataFrame().set("id", i).set("name", "record").set("amount", i * 0.25D).set("active", true).set("code", (short)7);
+      retained[i] = packed ? new PackedFrame(frame.getBytes()) : new DataFrame(frame.getBytes());
+    }
+    final long after = used();
+    sink = retained.length;
+    System.out.println(String.format("%-40s %10.1f bytes/op", name, (double)(after - before) / count));
+  }
+
+
+
+
+  private static long used() {
+    final Runtime runtime = Runtime.getRuntime();
+    for (int x = 0; x < 3; x++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+
+
+
+  /**
+   * Report the average time per update when several threads update their
+   * own fields of one shared status frame.
+   */
+  private static void contended(final String name, final int threads, final int iterations, final Task task) {
+    for (int run = 0; run <= WARMUP; run++) {
+      final Thread[] workers = new Thread[threads];
+      for (int x = 0; x < threads; x++) {
+        workers[x] = new Thread() {
+          @Override
+          public void run() {
+            task.run(iterations);
+          }
+        };
+      }
+      final long start = System.nanoTime();
+      for (final Thread worker : workers) {
+        worker.start();
+      }
+      try {
+        for (final Thread worker : workers) {
+          worker.join();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (run == WARMUP) {
+        System.out.println(String.format("%-40s %10.1f ns/op", name, (double)(System.nanoTime() - start) / ((long)threads * iterations)));
+      }
+    }
+  }
+
+
+
+
+  public static void main(final String[] args) throws IOException {
+    time("type resolution (scan)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += scanType(VALUES[i % VALUES.length]);
+        }
+        sink = total;
+      }
+    });
+
+    time("type resolution (getType)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += DataField.getType(VALUES[i % VALUES.length]);
+        }
+        sink = total;
+      }
+    });
+
+    final DataFrame numbers = new DataFrame().set("count", 42).set("total", 1L << 40).set("ratio", 0.5D);
+    time("getAsInt/getAsLong/getAsDouble", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        try {
+          for (int i = 0; i < iterations; i++) {
+            total += numbers.getAsInt(0) + numbers.getAsLong(1) + (long)numbers.getAsDouble(2);
+          }
+        } catch (final DataFrameException e) {
+          throw new IllegalStateException(e);
+        }
+        sink = total;
+      }
+    });
+
+    final DataFrame status = new DataFrame().set("requests", 0L).set("load", 0D);
+    time("put(String,Object) counter update", 1000000, new Task() {
+      public void run(final int iterations) {
+        for (int i = 0; i < iterations; i++) {
+          status.put("requests", (Object)(long)i);
+          status.put("load", (Object)(i * 0.5D));
+        }
+        sink = status.getFieldCount();
+      }
+    });
+
+    time("put(String,long) counter update", 1000000, new Task() {
+      public void run(final int iterations) {
+        for (int i = 0; i < iterations; i++) {
+          status.put("requests", (long)i);
+          status.put("load", i * 0.5D);
+        }
+        sink = status.getFieldCount();
+      }
+    });
+
+    time("export record (DataFrame.getBytes)", 200000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          final DataFrame frame = new DataFrame();
+          frame.put("id", i);
+          frame.put("name", "record");
+          frame.put("amount", i * 0.25D);
+          frame.put("header", new DataFrame().set("source", "export").set("seq", (long)i));
+          total += frame.getBytes().length;
+        }
+        sink = total;
+      }
+    });
+
+    final FrameWriter writer = new FrameWriter(new OutputStream() {
+      public void write(final int b) {}
+
+
+
+
+      public void write(final byte[] b, final int off, final int len) {}
+    });
+    time("export record (FrameWriter)", 200000, new Task() {
+      public void run(final int iterations) {
+        try {
+          for (int i = 0; i < iterations; i++) {
+            record(writer, i);
+          }
+        } catch (final IOException e) {
+          throw new IllegalStateException(e);
+        }
+        sink = writer.getOffset();
+      }
+    });
+
+    final FrameWriter dictionaryWriter = new FrameWriter(new OutputStream() {
+      public void write(final int b) {}
+
+
+
+
+      public void write(final byte[] b, final int off, final int len) {}
+    }).useDictionary();
+    time("export record (FrameWriter, dictionary)", 200000, new Task() {
+      public void run(final int iterations) {
+        try {
+          for (int i = 0; i < iterations; i++) {
+            record(dictionaryWriter, i);
+          }
+        } catch (final IOException e) {
+          throw new IllegalStateException(e);
+        }
+        sink = dictionaryWriter.getOffset();
+      }
+    });
+    size("export record size", false);
+    size("export record size (dictionary)", true);
+
+    final byte[] message = new DataFrame().set("id", 42).set("name", "record").set("amount", 0.25D).set("payload", new byte[64]).getBytes();
+    time("decode message (new DataFrame)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += new DataFrame(message).getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    final DataFrame json = new DataFrame().set("id", 42L).set("name", "record").set("delta", -3L).set("tags", new Object[] { "a", "b" }).set("owner", new DataFrame().set("id", 7L).set("name", "x"));
+    final byte[] jsonMessage = json.getBytes();
+    final byte[] compactMessage = CompactFormat.encode(json);
+    System.out.println(String.format("%-40s %10d bytes", "json message size", jsonMessage.length));
+    System.out.println(String.format("%-40s %10d bytes", "json message size (compact)", compactMessage.length));
+
+    time("encode json message (getBytes)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += json.getBytes().length;
+        }
+        sink = total;
+      }
+    });
+
+    time("encode json message (compact)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += CompactFormat.encode(json).length;
+        }
+        sink = total;
+      }
+    });
+
+    time("decode json message (new DataFrame)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += new DataFrame(jsonMessage).getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    time("decode json message (compact)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += CompactFormat.decode(compactMessage).getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    final List<DataFrame> samples = new ArrayList<DataFrame>();
+    for (int i = 0; i < 50; i++) {
+      samples.add(new DataFrame().set("device", "sensor-" + (i % 5)).set("sequence", i).set("temperature", 20.0D + i % 10).set("status", "nominal"));
+    }
+    final int dictionary = CompressedFrame.addDictionary(CompressedFrame.train(samples, 512));
+    final DataFrame telemetry = new DataFrame().set("device", "sensor-3").set("sequence", 1234).set("temperature", 21.5D).set("status", "nominal");
+    System.out.println(String.format("%-40s %10d bytes", "telemetry size", telemetry.getEncodedSize()));
+    System.out.println(String.format("%-40s %10d bytes", "telemetry size (deflate)", DataField.encode(new CompressedFrame(telemetry, CompressedFrame.NO_DICTIONARY, 0)).length));
+    System.out.println(String.format("%-40s %10d bytes", "telemetry size (deflate, dictionary)", DataField.encode(new CompressedFrame(telemetry, dictionary, 0)).length));
+
+    time("compress telemetry (dictionary)", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += DataField.encode(new CompressedFrame(telemetry, dictionary, 0)).length;
+        }
+        sink = total;
+      }
+    });
+
+    final DataField compressed = new DataField("t", new CompressedFrame(telemetry, dictionary, 0));
+    time("decompress telemetry (dictionary)", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += ((DataFrame)compressed.getObjectValue()).getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    final byte[] routed = new DataFrame().set("header", new DataFrame().set("route", "orders").set("priority", 3)).set("payload", new byte[40 * 1024]).getBytes();
+    time("route 40 KB message (new DataFrame)", 20000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        try {
+          for (int i = 0; i < iterations; i++) {
+            final DataFrame header = new DataFrame(routed).getAsFrame("header");
+            total += header.getAsString("route").length() + header.getAsInt("priority");
+          }
+        } catch (final DataFrameException e) {
+          throw new IllegalStateException(e);
+        }
+        sink = total;
+      }
+    });
+
+    final FrameProjection routing = new FrameProjection("header.route", "header.priority");
+    time("route 40 KB message (FrameProjection)", 20000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          final Object[] values = routing.extract(routed);
+          total += ((String)values[0]).length() + ((Number)values[1]).intValue();
+        }
+        sink = total;
+      }
+    });
+
+    final DataFrame large = new DataFrame().set("id", 1).set("payload", new byte[50 * 1024]).set("header", new DataFrame().set("source", "feed"));
+    time("clone 50 KB frame and add a field", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          final DataFrame copy = (DataFrame)large.clone();
+          copy.put("route", "subscriber");
+          total += copy.getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    final String[] counters = {"received", "sent", "failed", "retried"};
+    final DataFrame locked = new DataFrame();
+    contended("update status (locked DataFrame)", counters.length, 500000, new Task() {
+      public void run(final int iterations) {
+        final String counter = counters[(int)(Thread.currentThread().getId() % counters.length)];
+        for (int i = 0; i < iterations; i++) {
+          synchronized (locked) {
+            locked.put(counter, i);
+            locked.put("lastSeen", i);
+          }
+        }
+      }
+    });
+
+    final ConcurrentFrame shared = new ConcurrentFrame();
+    contended("update status (ConcurrentFrame)", counters.length, 500000, new Task() {
+      public void run(final int iterations) {
+        final String counter = counters[(int)(Thread.currentThread().getId() % counters.length)];
+        for (int i = 0; i < iterations; i++) {
+          shared.put(counter, i);
+          shared.put("lastSeen", i);
+        }
+      }
+    });
+
+    time("parse date (SimpleDateFormat patterns)", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          for (final String pattern : DATE_PATTERNS) {
+            try {
+              total += new SimpleDateFormat(pattern).parse(DATES[i % DATES.length]).getTime();
+              break;
+            } catch (final ParseException e) {
+              // try the next
+            }
+          }
+        }
+        sink = total;
+      }
+    });
+
+    final FieldType dates = DataField.getDataType(DataField.DATE);
+    time("parse date (DateType)", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += ((Date)dates.parse(DATES[i % DATES.length])).getTime();
+        }
+        sink = total;
+      }
+    });
+
+    final byte[] date = dates.encode(new Date(0));
+    time("format date (DateType)", 100000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += dates.stringValue(date).length();
+        }
+        sink = total;
+      }
+    });
+
+    memory("hold small frames (DataFrame)", false);
+    memory("hold small frames (PackedFrame)", true);
+
+    final DataFrame reused = new DataFrame();
+    time("decode message (decodeFrom)", 1000000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          total += reused.decodeFrom(message, 0, message.length).getFieldCount();
+        }
+        sink = total;
+      }
+    });
+
+    time("add 50 fields", 20000, new Task() {
+      public void run(final int iterations) {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+          final DataFrame frame = new DataFrame();
+          for (int x = 0; x < 50; x++) {
+            frame.add("field", VALUES[x % VALUES.length]);
+          }
+          total += frame.getFieldCount();
+        }
+        sink = total;
+      }
+    });
+  }
+
+}
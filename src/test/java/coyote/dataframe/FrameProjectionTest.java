@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class FrameProjectionTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#FrameProjection(java.lang.String[])}.
+   */
+  @Test
+  public void testFrameProjection() {
+    for (String path : new String[] { "", "a..b", ".a", "a." }) {
+      try {
+        new FrameProjection(path);
+        fail("Should reject '" + path + "'");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+    assertTrue(new FrameProjection("a", "b").getPaths().length == 2);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#extract(byte[])}.
+   */
+  @Test
+  public void testExtract() throws DataFrameException {
+    DataFrame items = new DataFrame();
+    items.add(new DataFrame().set("id", 10).set("qty", 1));
+    items.add(new DataFrame().set("id", 11).set("qty", 2));
+    DataFrame frame = new DataFrame();
+    frame.add("header", new DataFrame().set("route", "orders").set("priority", 3).set("route", "ignored"));
+    frame.add("body", new DataFrame().set("items", items).set("tags", new Object[] { "red", 5, new DataFrame().set("x", "y") }));
+    frame.add("payload", new byte[40000]);
+    frame.add("trailer", "end");
+    byte[] data = frame.getBytes();
+
+    FrameProjection projection = new FrameProjection("header.route", "body.items.1.id", "body.tags.0", "body.tags.2.x", "trailer", "missing", "header.missing.deeper", "header.route");
+    Object[] values = projection.extract(data);
+    assertEquals(8, values.length);
+    assertEquals("orders", values[0]);
+    assertEquals(11, ((Number)values[1]).intValue());
+    assertEquals("red", values[2]);
+    assertEquals("y", values[3]);
+    assertEquals("end", values[4]);
+    assertNull(values[5]);
+    assertNull(values[6]);
+    assertEquals("orders", values[7]);
+
+    // whole frames
+    DataFrame header = (DataFrame)new FrameProjection("header").extract(data)[0];
+    assertEquals(3, header.getAsInt("priority"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#extract(byte[])}
+   * with a field which is not valid after the ones wanted.
+   */
+  @Test
+  public void testExtractSkipsUnwanted() {
+    // a header in front of a body which is not a valid frame is still found
+    DataFrame frame = new DataFrame().set("header", new DataFrame().set("route", "a"));
+    byte[] good = frame.getBytes();
+    byte[] data = new byte[good.length + 3];
+    System.arraycopy(good, 0, data, 0, good.length);
+    data[good.length] = 1;
+    data[good.length + 1] = 'b';
+    data[good.length + 2] = 99; // not a type
+    assertEquals("a", new FrameProjection("header.route").extract(data)[0]);
+
+    try {
+      new FrameProjection("header.route", "other").extract(data);
+      fail("Should report the bad field when it must be read");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#extract(byte[])}
+   * with a value length beyond the end of the data.
+   */
+  @Test
+  public void testExtractMalformedLength() {
+    byte[] data = new byte[40];
+    data[0] = 1;
+    data[1] = 'n';
+    data[2] = (byte)DataField.STRING;
+    data[3] = 0x7F;
+    data[4] = (byte)0xFF;
+    data[5] = (byte)0xFF;
+    data[6] = (byte)0xF0;
+    try {
+      new FrameProjection("other").extract(data);
+      fail("Should reject a length beyond the data");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#extract(java.nio.ByteBuffer, int, int)}.
+   */
+  @Test
+  public void testExtractBuffer() {
+    DataFrame frame = new DataFrame().set("header", new DataFrame().set("route", "orders")).set("payload", new byte[4000]).set("trailer", "end");
+    byte[] data = frame.getBytes();
+    FrameProjection projection = new FrameProjection("header.route", "trailer", "missing");
+    Object[] values = projection.extract(data);
+    assertTrue(Arrays.equals(new Object[] { "orders", "end", null }, values));
+
+    // within a larger buffer of any byte order
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length + 10).order(ByteOrder.LITTLE_ENDIAN);
+    buffer.position(10);
+    buffer.put(data);
+    assertArrayEquals(values, projection.extract(buffer, 10, data.length));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameProjection#project(byte[])}.
+   */
+  @Test
+  public void testProject() throws DataFrameException {
+    DataFrame items = new DataFrame();
+    items.add(new DataFrame().set("id", 10).set("qty", 1));
+    DataFrame frame = new DataFrame().set("header", new DataFrame().set("priority", 3)).set("body", new DataFrame().set("items", items));
+
+    DataFrame result = new FrameProjection("header.priority", "missing", "body.items.0.qty", "header.priority").project(frame.getBytes());
+    assertEquals(2, result.getFieldCount());
+    assertEquals("header.priority", result.getField(0).getName());
+    assertEquals(3, result.getAsInt("header.priority"));
+    assertEquals(1, result.getAsInt("body.items.0.qty"));
+  }
+
+}
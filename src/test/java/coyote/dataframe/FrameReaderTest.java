@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class FrameReaderTest {
+
+  /** Returns a single octet on each read, like a slow socket */
+  private static class TrickleStream extends ByteArrayInputStream {
+    TrickleStream(byte[] data) {
+      super(data);
+    }
+
+
+
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      return super.read(b, off, Math.min(len, 1));
+    }
+
+
+
+
+    @Override
+    public synchronized int available() {
+      return 0;
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#FrameReader(java.io.InputStream, int)}
+   * with a buffer smaller than the frames.
+   */
+  @Test
+  public void testFrameReaderStream() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("seq", x).set("payload", new byte[x * 10])).getBytes());
+    }
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()), 16)) {
+      for (int x = 0; x < 50; x++) {
+        DataFrame frame = reader.read();
+        assertNotNull(frame);
+        assertTrue(Arrays.equals(new DataFrame().set("seq", x).set("payload", new byte[x * 10]).getBytes(), frame.getBytes()));
+      }
+      assertNull(reader.read());
+      assertNull(reader.read());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#getOffset()} reading
+   * a stream which returns a single octet on each read.
+   */
+  @Test
+  public void testGetOffset() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("seq", x).set("name", "frame" + x)).getBytes());
+    }
+    byte[] data = out.toByteArray();
+    FrameReader reader = new FrameReader(new TrickleStream(data));
+    for (int x = 0; x < 50; x++) {
+      assertEquals(x, reader.read().getAsInt("seq"));
+    }
+    assertNull(reader.read());
+    assertEquals(data.length, reader.getOffset());
+    reader.close();
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#FrameReader(java.nio.channels.ReadableByteChannel)}.
+   */
+  @Test
+  public void testFrameReaderChannel() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("header", new DataFrame().set("seq", x)).set("payload", new byte[x * 10])).getBytes());
+    }
+    InputStream in = new TrickleStream(out.toByteArray());
+    try (FrameReader reader = new FrameReader(Channels.newChannel(in))) {
+      for (int x = 0; x < 50; x++) {
+        DataFrame frame = reader.read();
+        assertTrue(Arrays.equals(new DataFrame().set("header", new DataFrame().set("seq", x)).set("payload", new byte[x * 10]).getBytes(), frame.getBytes()));
+      }
+      assertNull(reader.read());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#readView()}.
+   */
+  @Test
+  public void testReadView() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("header", new DataFrame().set("seq", x)).set("name", "frame" + x)).getBytes());
+    }
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      for (int x = 0; x < 50; x++) {
+        DataFrameView view = reader.readView();
+        assertEquals("frame" + x, view.getAsString("name"));
+        assertEquals(x, view.getAsView("header").getAsInt("seq"));
+      }
+      assertNull(reader.readView());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#read(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testReadReuse() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("header", new DataFrame().set("seq", x)).set("payload", new byte[x * 10])).getBytes());
+    }
+    DataFrame frame = new DataFrame();
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      for (int x = 0; x < 50; x++) {
+        assertSame(frame, reader.read(frame));
+        assertTrue(Arrays.equals(new DataFrame().set("header", new DataFrame().set("seq", x)).set("payload", new byte[x * 10]).getBytes(), frame.getBytes()));
+        assertEquals(x, frame.getAsFrame("header").getAsInt("seq"));
+      }
+      assertNull(reader.read(frame));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#readField()}.
+   */
+  @Test
+  public void testReadField() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(new DataField("one", 1).getBytes());
+    out.write(new DataField("two", "2").getBytes());
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      DataField field = reader.readField();
+      assertEquals("one", field.getName());
+      assertEquals(1, field.getObjectValue());
+
+      // non-frame fields are wrapped in a frame of their own
+      DataFrame frame = reader.read();
+      assertEquals(1, frame.getFieldCount());
+      assertEquals("2", frame.getAsString("two"));
+      assertNull(reader.readField());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#read()} with a
+   * stream which ends part way through a frame.
+   */
+  @Test
+  public void testReadTruncated() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (int x = 0; x < 50; x++) {
+      out.write(new DataField(new DataFrame().set("seq", x).set("name", "frame" + x)).getBytes());
+    }
+    byte[] data = out.toByteArray();
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(Arrays.copyOf(data, data.length - 5)))) {
+      for (int x = 0; x < 49; x++) {
+        assertNotNull(reader.read());
+      }
+      reader.read();
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameReader#read()} with a frame
+   * claiming to be nearly 2 GB followed by only a few octets.
+   */
+  @Test
+  public void testReadMalformedLength() throws IOException {
+    byte[] data = { 0, (byte)DataField.FRAMETYPE, 0x7F, (byte)0xFF, (byte)0xFF, 0, 1, 2, 3 };
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(data))) {
+      reader.read();
+      fail("Should generate a decode exception");
+    } catch (DecodeException e) {
+      // expected, without allocating the declared length
+    }
+  }
+
+}
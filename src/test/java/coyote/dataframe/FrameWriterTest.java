@@ -0,0 +1,479 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class FrameWriterTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#FrameWriter(java.io.OutputStream)}.
+   */
+  @Test
+  public void testFrameWriterStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      for (int x = 0; x < 500; x++) {
+        writer.beginFrame().writeInt("seq", x).writeString("name", "frame" + x).endFrame();
+      }
+      assertTrue(writer.getOffset() > 0);
+    }
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    for (int x = 0; x < 500; x++) {
+      expected.write(new DataField(new DataFrame().set("seq", x).set("name", "frame" + x)).getBytes());
+    }
+    assertTrue(Arrays.equals(expected.toByteArray(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#FrameWriter(java.nio.channels.WritableByteChannel)}.
+   */
+  @Test
+  public void testFrameWriterChannel() throws IOException, DataFrameException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FrameWriter writer = new FrameWriter(Channels.newChannel(out));
+    for (int x = 0; x < 500; x++) {
+      writer.beginFrame();
+      writer.writeInt("seq", x);
+      writer.beginFrame("address").writeString("city", "Springfield").writeInt("zip", 12345 + x).endFrame();
+      writer.endFrame();
+    }
+    writer.close();
+    assertEquals(out.size(), writer.getOffset());
+
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      for (int x = 0; x < 500; x++) {
+        DataFrame frame = reader.read();
+        assertEquals(x, frame.getAsInt("seq"));
+        assertEquals(12345 + x, frame.getAsFrame("address").getAsInt("zip"));
+      }
+      assertNull(reader.read());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#FrameWriter(java.nio.ByteBuffer)}.
+   */
+  @Test
+  public void testFrameWriterBuffer() throws IOException {
+    byte[] expected = new DataField(new DataFrame().set("seq", 1).set("name", "frame1")).getBytes();
+    ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+    FrameWriter writer = new FrameWriter(buffer);
+    writer.beginFrame().writeInt("seq", 1).writeString("name", "frame1").endFrame();
+    writer.flush();
+    assertEquals(expected.length, buffer.position());
+    assertTrue(Arrays.equals(expected, buffer.array()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeInt(java.lang.String, int)}.
+   */
+  @Test
+  public void testWriteInt() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeInt("seq", 7).writeInt("neg", -7).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("seq", 7).set("neg", -7)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeLong(java.lang.String, long)}.
+   */
+  @Test
+  public void testWriteLong() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeLong("big", 700000L).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("big", 700000L)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeShort(java.lang.String, short)}.
+   */
+  @Test
+  public void testWriteShort() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeShort("small", (short)7).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("small", (short)7)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeDouble(java.lang.String, double)}.
+   */
+  @Test
+  public void testWriteDouble() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeDouble("ratio", 7 / 3.0D).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("ratio", 7 / 3.0D)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeFloat(java.lang.String, float)}.
+   */
+  @Test
+  public void testWriteFloat() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeFloat("scale", 7 / 3.0F).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("scale", 7 / 3.0F)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeBoolean(java.lang.String, boolean)}.
+   */
+  @Test
+  public void testWriteBoolean() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeBoolean("even", true).writeBoolean("odd", false).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("even", true).set("odd", false)).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeDate(java.lang.String, java.util.Date)}.
+   */
+  @Test
+  public void testWriteDate() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeDate("when", new Date(1234567890000L)).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("when", new Date(1234567890000L))).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeString(java.lang.String, java.lang.String)}.
+   */
+  @Test
+  public void testWriteString() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeString("name", "frame7").writeString("nothing", null).endFrame();
+    }
+    DataFrame expected = new DataFrame();
+    expected.add("name", "frame7");
+    expected.add("nothing", null);
+    assertTrue(Arrays.equals(new DataField(expected).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeBytes(java.lang.String, byte[])}.
+   */
+  @Test
+  public void testWriteBytes() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeBytes("data", new byte[] { 1, 2, 3 }).writeBytes("part", new byte[] { 1, 2, 3 }, 1, 2).endFrame();
+    }
+    DataFrame expected = new DataFrame().set("data", new byte[] { 1, 2, 3 }).set("part", new byte[] { 2, 3 });
+    assertTrue(Arrays.equals(new DataField(expected).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeFrame(java.lang.String, coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testWriteFrame() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeFrame("copy", new DataFrame().set("x", 1)).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("copy", new DataFrame().set("x", 1))).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeObject(java.lang.String, java.lang.Object)}.
+   */
+  @Test
+  public void testWriteObject() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().writeObject("list", new Object[] { "a", 7 }).endFrame();
+    }
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("list", new Object[] { "a", 7 })).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#writeField(coyote.dataframe.DataField)}.
+   */
+  @Test
+  public void testWriteField() throws IOException {
+    DataFrame frame = new DataFrame().set("seq", 7).set("address", new DataFrame().set("city", "Springfield"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.writeField(new DataField(frame));
+    }
+    assertTrue(Arrays.equals(new DataField(frame).getBytes(), out.toByteArray()));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#beginFrame(java.lang.String)}.
+   */
+  @Test
+  public void testBeginFrame() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.beginFrame().beginFrame("inner");
+      for (int x = 0; x < 2000; x++) {
+        writer.writeInt("value", x);
+      }
+      assertEquals(2, writer.getDepth());
+      writer.endFrame().endFrame();
+      assertEquals(0, writer.getDepth());
+    }
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      DataFrame inner = (DataFrame)reader.read().getObject("inner");
+      assertEquals(2000, inner.getFieldCount());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#endFrame()} without
+   * a frame begun.
+   */
+  @Test
+  public void testEndFrame() throws IOException {
+    FrameWriter writer = new FrameWriter(new ByteArrayOutputStream());
+    try {
+      writer.endFrame();
+      fail("Should not end a frame which was not begun");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#flush()} with a
+   * frame still open.
+   */
+  @Test
+  public void testFlush() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FrameWriter writer = new FrameWriter(out);
+    writer.beginFrame().writeInt("seq", 1).endFrame();
+    writer.beginFrame().writeInt("seq", 2);
+
+    // only the completed frame is passed on
+    writer.flush();
+    assertTrue(Arrays.equals(new DataField(new DataFrame().set("seq", 1)).getBytes(), out.toByteArray()));
+
+    writer.endFrame();
+    writer.flush();
+    assertEquals(2 * new DataField(new DataFrame().set("seq", 1)).getBytes().length, out.size());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#close()} with a
+   * frame still open.
+   */
+  @Test
+  public void testClose() throws IOException {
+    FrameWriter writer = new FrameWriter(new ByteArrayOutputStream());
+    writer.beginFrame();
+    try {
+      writer.close();
+      fail("Should report the unfinished frame");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#useDictionary()}.
+   */
+  @Test
+  public void testUseDictionary() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream standard = new ByteArrayOutputStream();
+    long size;
+    try (FrameWriter writer = new FrameWriter(out)) {
+      assertFalse(writer.isDictionaryEncoded());
+      writer.useDictionary();
+      assertTrue(writer.isDictionaryEncoded());
+      for (int x = 0; x < 500; x++) {
+        DataFrame frame = new DataFrame().set("sequence", x).set("timestamp", x * 100000L).set("small", (short)x).set("ratio", x / 3.0D).set("scale", x / 3.0F).set("even", x % 2 == 0).set("description", "frame" + x);
+        frame.add("nothing", null);
+        frame.add("when", new Date(1234567890000L));
+        frame.add("data", new byte[x % 7]);
+        frame.add("address", new DataFrame().set("city", "Springfield"));
+        frame.add("list", new Object[] { "a", x });
+        standard.write(new DataField(frame).getBytes());
+        if (x % 2 == 0) {
+          writer.beginFrame().writeInt("sequence", x).writeLong("timestamp", x * 100000L).writeShort("small", (short)x);
+          writer.writeDouble("ratio", x / 3.0D).writeFloat("scale", x / 3.0F).writeBoolean("even", x % 2 == 0);
+          writer.writeString("description", "frame" + x).writeString("nothing", null).writeDate("when", new Date(1234567890000L));
+          writer.writeBytes("data", new byte[x % 7]);
+          writer.beginFrame("address").writeString("city", "Springfield").endFrame();
+          writer.writeObject("list", new Object[] { "a", x });
+          writer.endFrame();
+        } else {
+          writer.writeField(new DataField(frame));
+        }
+      }
+      writer.flush();
+      size = writer.getOffset();
+      // a fresh dictionary part way through the stream
+      writer.useDictionary();
+      writer.beginFrame().writeInt("sequence", 7).endFrame();
+    }
+    byte[] data = out.toByteArray();
+    assertTrue(size < standard.size() * 3 / 4);
+
+    // readers of the standard format reject it
+    try {
+      new DataFrame(data);
+      fail("Should not decode a dictionary encoded stream");
+    } catch (DecodeException e) {
+      // expected
+    }
+
+    byte[] expected = standard.toByteArray();
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(data), 16)) {
+      DataFrame reused = new DataFrame();
+      int position = 0;
+      for (int x = 0; x < 500; x++) {
+        byte[] field;
+        switch (x % 3) {
+          case 0:
+            field = reader.readField().getBytes();
+            break;
+          case 1:
+            field = new DataField(reader.read(reused)).getBytes();
+            break;
+          default:
+            field = new DataField(reader.readView().toFrame()).getBytes();
+        }
+        assertTrue(Arrays.equals(Arrays.copyOfRange(expected, position, position + field.length), field));
+        position += field.length;
+      }
+      assertTrue(reader.isDictionaryEncoded());
+      assertTrue(Arrays.equals(new DataField(new DataFrame().set("sequence", 7)).getBytes(), reader.readField().getBytes()));
+      assertNull(reader.read());
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.FrameWriter#useDictionary()}
+   * with more names than fit in a single octet.
+   */
+  @Test
+  public void testUseDictionaryWide() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (FrameWriter writer = new FrameWriter(out)) {
+      writer.useDictionary();
+      writer.beginFrame();
+      for (int x = 0; x < 600; x++) {
+        writer.writeInt("field" + x, x);
+      }
+      writer.endFrame();
+      writer.beginFrame();
+      for (int x = 599; x >= 0; x--) {
+        writer.writeInt("field" + x, x);
+      }
+      writer.endFrame();
+    }
+    try (FrameReader reader = new FrameReader(new ByteArrayInputStream(out.toByteArray()))) {
+      DataFrame wide = reader.read();
+      DataFrame reversed = reader.read();
+      assertEquals(600, wide.getFieldCount());
+      assertEquals(600, reversed.getFieldCount());
+      for (int x = 0; x < 600; x++) {
+        assertEquals("field" + x, wide.getField(x).getName());
+        assertEquals("field" + x, reversed.getField(599 - x).getName());
+      }
+      assertNull(reader.read());
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class FrozenFrameTest {
+
+  @Test
+  public void freeze() throws DataFrameException {
+    DataFrame frame = new DataFrame();
+    frame.add("name", "widget");
+    frame.add("count", 3);
+    frame.add("ratio", 0.5D);
+    frame.add("flag", true);
+    frame.add("when", new Date(1000));
+    frame.add("data", new byte[] { 1, 2 });
+    frame.add("child", new DataFrame().set("a", 1));
+    frame.add("list", new Object[] { 1, "two" });
+    frame.add(null, "unnamed");
+
+    FrozenFrame frozen = frame.freeze();
+    assertTrue(Arrays.equals(frame.getBytes(), frozen.getBytes()));
+    assertEquals(frame.getEncodedSize(), frozen.getEncodedSize());
+    assertTrue(frozen.toString().startsWith("{\"name\":\"widget\",\"count\":3,"));
+    assertEquals("widget", frozen.getAsString("name"));
+    assertEquals(3, frozen.getAsInt("count"));
+    assertEquals(3L, frozen.getAsLong("count"));
+    assertEquals(0.5D, frozen.getAsDouble("ratio"), 0);
+    assertTrue(frozen.getAsBoolean("flag"));
+    assertEquals(new Date(1000), frozen.getAsDate("when"));
+    assertEquals(1, frozen.getAsFrame("child").getAsInt("a"));
+    assertEquals("two", frozen.getAsFrame("list").getObject(1));
+    assertNull(frozen.getName(8));
+    assertEquals(9, frozen.getNames().size());
+
+    // changes to the source, its children and returned values are not seen
+    frame.put("count", 4);
+    frame.getAsFrame("child").put("a", 2);
+    ((byte[])frozen.getObject("data"))[0] = 9;
+    frozen.getField("data").getValue()[0] = 9;
+    assertEquals(3, frozen.getAsInt("count"));
+    assertEquals(1, frozen.getAsFrame("child").getAsInt("a"));
+    assertEquals(1, ((byte[])frozen.getObject("data"))[0]);
+
+    try {
+      frozen.getAsInt("missing");
+      fail("Should report missing fields");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+
+
+
+  @Test
+  public void with() throws DataFrameException {
+    FrozenFrame child = FrozenFrame.EMPTY.with("a", 1);
+    FrozenFrame base = FrozenFrame.EMPTY.with("id", 7).with("payload", new byte[10000]).with("child", child);
+    assertEquals(3, base.getFieldCount());
+    assertSame(child, base.getAsFrame("child"));
+
+    FrozenFrame routed = base.with("route", "orders");
+    assertEquals(3, base.getFieldCount());
+    assertEquals(4, routed.getFieldCount());
+    assertEquals("orders", routed.getAsString("route"));
+    assertSame(child, routed.getAsFrame("child"));
+
+    FrozenFrame replaced = routed.with("id", 8);
+    assertEquals(8, replaced.getAsInt("id"));
+    assertEquals(7, routed.getAsInt("id"));
+    assertEquals(1, replaced.indexOf("payload"));
+
+    FrozenFrame removed = replaced.without("payload");
+    assertFalse(removed.contains("payload"));
+    assertEquals(3, removed.getFieldCount());
+    assertEquals(removed, replaced.with("payload", null));
+    assertSame(removed, removed.without("missing"));
+
+    // frames added as values are frozen
+    DataFrame mutable = new DataFrame().set("b", 2);
+    FrozenFrame parent = FrozenFrame.EMPTY.with("child", mutable);
+    mutable.put("b", 3);
+    assertEquals(2, parent.getAsFrame("child").getAsInt("b"));
+    assertEquals(2, parent.toFrame().getAsFrame("child").getAsInt("b"));
+  }
+
+
+
+
+  @Test
+  public void keys() {
+    FrozenFrame one = new DataFrame().set("a", 1).set("b", new DataFrame().set("c", "d")).freeze();
+    FrozenFrame two = FrozenFrame.EMPTY.with("a", 1).with("b", FrozenFrame.EMPTY.with("c", "d"));
+    assertEquals(one, two);
+    assertEquals(one.hashCode(), two.hashCode());
+    assertNotEquals(one, two.with("a", 2));
+    assertNotEquals(one, FrozenFrame.EMPTY.with("b", two.getObject("b")).with("a", 1));
+
+    Map<FrozenFrame, String> cache = new HashMap<FrozenFrame, String>();
+    cache.put(one, "cached");
+    assertEquals("cached", cache.get(two));
+  }
+
+}
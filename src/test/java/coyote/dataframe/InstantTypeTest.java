@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class InstantTypeTest {
+
+  /** The data type under test. */
+  private static InstantType datatype = new InstantType();
+
+
+
+
+  @Test
+  public void testCheckType() {
+    assertTrue(datatype.checkType(Instant.now()));
+    assertFalse(datatype.checkType(new Date()));
+  }
+
+
+
+
+  @Test
+  public void testRoundTrip() {
+    Instant[] values = {Instant.EPOCH, Instant.ofEpochSecond(1583298367L, 123456789), Instant.ofEpochSecond(-1L, 1), Instant.MIN, Instant.MAX};
+    for (Instant value : values) {
+      byte[] data = datatype.encode(value);
+      assertEquals(12, data.length);
+      assertEquals(value, datatype.decode(data));
+    }
+  }
+
+
+
+
+  @Test
+  public void testText() {
+    byte[] data = datatype.encode(Instant.ofEpochSecond(1583298367L, 123456789));
+    assertEquals("2020-03-04T05:06:07.123456789Z", datatype.stringValue(data));
+    assertEquals(Instant.ofEpochSecond(1583298367L, 123456789), datatype.parse("2020-03-04T05:06:07.123456789Z"));
+    assertEquals(Instant.ofEpochSecond(1583298367L), datatype.parse("2020-03-04T00:06:07-05:00"));
+    assertNull(datatype.parse("nonsense"));
+  }
+
+
+
+
+  @Test
+  public void testField() throws DataFrameException {
+    Instant now = Instant.ofEpochSecond(1583298367L, 123456789);
+    DataFrame frame = new DataFrame().set("when", now);
+    assertEquals(DataField.INSTANT, frame.getField("when").getType());
+    DataFrame copy = new DataFrame(frame.getBytes());
+    assertEquals(now, copy.getObject("when"));
+    assertEquals(new Date(1583298367123L), copy.getAsDate("when"));
+    assertTrue(copy.toString().contains("2020-03-04T05:06:07.123456789Z"));
+  }
+
+
+
+
+  @Test
+  public void testGetTypeName() {
+    assertEquals("INS", datatype.getTypeName());
+  }
+
+
+
+
+  @Test
+  public void testIsNumeric() {
+    assertFalse(datatype.isNumeric());
+  }
+
+
+
+
+  @Test
+  public void testGetSize() {
+    assertEquals(12, datatype.getSize());
+  }
+
+}
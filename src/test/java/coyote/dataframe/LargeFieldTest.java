@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ *
+ */
+public class LargeFieldTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+
+
+
+  private static byte[] data(int size) {
+    byte[] retval = new byte[size];
+    for (int x = 0; x < size; x++) {
+      retval[x] = (byte)(x * 31);
+    }
+    return retval;
+  }
+
+
+
+
+  /** Produces a run of zeros without holding them in memory */
+  private static class ZeroStream extends InputStream {
+    long remaining;
+
+
+
+
+    ZeroStream(long length) {
+      remaining = length;
+    }
+
+
+
+
+    @Override
+    public int read() {
+      if (remaining <= 0) {
+        return -1;
+      }
+      remaining--;
+      return 0;
+    }
+
+
+
+
+    @Override
+    public long skip(long n) {
+      long retval = Math.min(n, remaining);
+      remaining -= retval;
+      return retval;
+    }
+  }
+
+
+
+
+  @Test
+  public void stream() throws IOException {
+    byte[] value = data(100000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = LargeField.write(out, "blob", DataField.BYTEARRAY, new ByteArrayInputStream(value), value.length);
+    out.write(new DataField("next", "after").getBytes());
+    LargeField.write(out, null, DataField.STRING, new ByteArrayInputStream("text".getBytes()), 4);
+
+    // same wire format as any other field
+    byte[] expected = new DataField("blob", value).getBytes();
+    assertEquals(expected.length, written);
+    assertTrue(Arrays.equals(expected, Arrays.copyOf(out.toByteArray(), expected.length)));
+
+    InputStream in = new ByteArrayInputStream(out.toByteArray());
+    try (LargeField field = LargeField.read(in)) {
+      assertEquals("blob", field.getName());
+      assertEquals(DataField.BYTEARRAY, field.getType());
+      assertEquals(value.length, field.getLength());
+      assertEquals(-1, field.getValueOffset());
+      byte[] start = new byte[10];
+      new DataInputStream(field.getInputStream()).readFully(start);
+      assertTrue(Arrays.equals(Arrays.copyOf(value, 10), start));
+    }
+
+    // fixed length fields can be read as well
+    LargeField field = LargeField.read(in);
+    assertEquals("after", field.toField().getObjectValue());
+    field = LargeField.read(in);
+    assertNull(field.getName());
+    ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    assertEquals(4, field.transferTo(Channels.newChannel(copy)));
+    assertEquals("text", new String(copy.toByteArray()));
+    assertNull(LargeField.read(in));
+  }
+
+
+
+
+  @Test
+  public void file() throws IOException {
+    byte[] value = data(200000);
+    File source = folder.newFile("source.bin");
+    try (FileOutputStream out = new FileOutputStream(source)) {
+      out.write(value);
+    }
+    File target = folder.newFile("fields.dat");
+    try (FileChannel in = new FileInputStream(source).getChannel(); FileOutputStream out = new FileOutputStream(target)) {
+      out.write(new DataField("first", 1).getBytes());
+      LargeField.write(out.getChannel(), "blob", DataField.BYTEARRAY, in, 100, value.length - 100);
+    }
+
+    try (FileChannel in = new FileInputStream(target).getChannel()) {
+      LargeField first = LargeField.read(in, 0);
+      assertEquals("first", first.getName());
+      long offset = first.getValueOffset() + first.getLength();
+      LargeField field = LargeField.read(in, offset);
+      assertEquals("blob", field.getName());
+      assertEquals(value.length - 100, field.getLength());
+      assertEquals(offset + 10, field.getValueOffset());
+
+      ByteArrayOutputStream copy = new ByteArrayOutputStream();
+      field.transferTo(Channels.newChannel(copy));
+      assertTrue(Arrays.equals(Arrays.copyOfRange(value, 100, value.length), copy.toByteArray()));
+
+      ReadableByteChannel channel = field.getChannel();
+      ByteBuffer buffer = ByteBuffer.allocate(value.length);
+      while (channel.read(buffer) >= 0) {
+      }
+      assertEquals(value.length - 100, buffer.position());
+      assertEquals(value[100], buffer.get(0));
+      assertTrue(Arrays.equals(copy.toByteArray(), (byte[])field.toField().getObjectValue()));
+      assertNull(LargeField.read(in, in.size()));
+    }
+
+    // entries can be read from a mapped file without mapping them
+    try (MappedFrameFile frames = new MappedFrameFile(target, false)) {
+      assertEquals(2, frames.size());
+      assertEquals(value.length - 100, frames.getField(1).getLength());
+    }
+  }
+
+
+
+
+  @Test
+  public void unsignedLength() throws IOException {
+    long length = 0x90000000L; // beyond the range of an int
+    byte[] header = { 4, 'b', 'l', 'o', 'b', (byte)DataField.BYTEARRAY, (byte)0x90, 0, 0, 0 };
+
+    InputStream in = new SequenceInputStream(new ByteArrayInputStream(header), new ZeroStream(length));
+    LargeField field = LargeField.read(in);
+    assertEquals(length, field.getLength());
+    try {
+      field.toField();
+      fail("Should not hold the value in memory");
+    } catch (DecodeException e) {
+      // expected
+    }
+    field.close();
+    assertEquals(-1, in.read());
+
+    in = new SequenceInputStream(new ByteArrayInputStream(header), new ZeroStream(length));
+    try {
+      new DataField(new DataInputStream(in));
+      fail("Should not hold the value in memory");
+    } catch (DecodeException e) {
+      assertTrue(e.getMessage().contains(Long.toString(length)));
+    }
+  }
+
+
+
+
+  @Test
+  public void shortValue() throws IOException {
+    try {
+      LargeField.write(new ByteArrayOutputStream(), "blob", DataField.BYTEARRAY, new ByteArrayInputStream(new byte[5]), 10);
+      fail("Should detect the short value stream");
+    } catch (EOFException e) {
+      // expected
+    }
+    try {
+      LargeField.write(new ByteArrayOutputStream(), "count", DataField.S32, new ByteArrayInputStream(new byte[4]), 4);
+      fail("Should only write variable length types");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    byte[] data = new DataField("blob", data(100)).getBytes();
+    try (LargeField field = LargeField.read(new ByteArrayInputStream(data, 0, 50))) {
+      field.getInputStream().read(new byte[100]);
+      field.getInputStream().read(new byte[100]);
+      fail("Should detect the truncated value");
+    } catch (EOFException e) {
+      // expected
+    }
+  }
+
+}
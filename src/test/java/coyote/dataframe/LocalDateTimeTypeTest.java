@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class LocalDateTimeTypeTest {
+
+  /** The data type under test. */
+  private static LocalDateTimeType datatype = new LocalDateTimeType();
+
+
+
+
+  @Test
+  public void testCheckType() {
+    assertTrue(datatype.checkType(LocalDateTime.now()));
+    assertFalse(datatype.checkType(new Date()));
+  }
+
+
+
+
+  @Test
+  public void testRoundTrip() {
+    LocalDateTime[] values = {LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(2020, 3, 4, 5, 6, 7, 123456789), LocalDateTime.of(1900, 12, 31, 23, 59, 59, 1), LocalDateTime.MIN, LocalDateTime.MAX};
+    for (LocalDateTime value : values) {
+      byte[] data = datatype.encode(value);
+      assertEquals(12, data.length);
+      assertEquals(value, datatype.decode(data));
+    }
+  }
+
+
+
+
+  @Test
+  public void testText() {
+    LocalDateTime value = LocalDateTime.of(2020, 3, 4, 5, 6, 7, 123456789);
+    assertEquals("2020-03-04T05:06:07.123456789", datatype.stringValue(datatype.encode(value)));
+    assertEquals(value, datatype.parse("2020-03-04 05:06:07.123456789"));
+    assertEquals(value.withNano(0), datatype.parse("2020-03-04T05:06:07+01:00"));
+    assertEquals(LocalDateTime.of(2020, 3, 4, 0, 0), datatype.parse("3/4/2020"));
+    assertNull(datatype.parse("nonsense"));
+  }
+
+
+
+
+  @Test
+  public void testField() throws DataFrameException {
+    LocalDateTime value = LocalDateTime.of(2020, 3, 4, 5, 6, 7, 123456789);
+    DataFrame frame = new DataFrame(new DataFrame().set("when", value).getBytes());
+    assertEquals(DataField.LOCALDATETIME, frame.getField("when").getType());
+    assertEquals(value, frame.getObject("when"));
+    assertEquals(Date.from(value.atZone(ZoneId.systemDefault()).toInstant()), frame.getAsDate("when"));
+  }
+
+
+
+
+  @Test
+  public void testGetTypeName() {
+    assertEquals("LDT", datatype.getTypeName());
+  }
+
+
+
+
+  @Test
+  public void testIsNumeric() {
+    assertFalse(datatype.isNumeric());
+  }
+
+
+
+
+  @Test
+  public void testGetSize() {
+    assertEquals(12, datatype.getSize());
+  }
+
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ *
+ */
+public class MappedFrameFileTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#MappedFrameFile(java.io.File)}.
+   */
+  @Test
+  public void testMappedFrameFile() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      for (int x = 0; x < 50; x++) {
+        out.write(new DataField(new DataFrame().set("seq", x).set("payload", new byte[x * 10])).getBytes());
+      }
+    }
+
+    try (MappedFrameFile frames = new MappedFrameFile(file)) {
+      assertEquals(50, frames.size());
+      assertEquals(file.length(), frames.getLength());
+    }
+    assertTrue(MappedFrameFile.getIndexFile(file).isFile());
+
+    // loaded from the index file
+    try (MappedFrameFile frames = new MappedFrameFile(file)) {
+      assertEquals(50, frames.size());
+      for (int x = 49; x >= 0; x--) {
+        assertEquals(x, frames.get(x).getAsInt("seq"));
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#MappedFrameFile(java.io.File, boolean)}
+   * with many small regions and frames larger than a region.
+   */
+  @Test
+  public void testMappedFrameFileRegions() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      for (int x = 0; x < 50; x++) {
+        out.write(new DataField(new DataFrame().set("seq", x).set("payload", new byte[x * 10])).getBytes());
+      }
+    }
+
+    try (MappedFrameFile frames = new MappedFrameFile(file, false, 100)) {
+      assertEquals(50, frames.size());
+      for (int x = 49; x >= 0; x--) {
+        assertTrue(Arrays.equals(new DataFrame().set("seq", x).set("payload", new byte[x * 10]).getBytes(), frames.get(x).getBytes()));
+        assertEquals(x, frames.getView(x).getAsInt("seq"));
+      }
+    }
+    assertFalse(MappedFrameFile.getIndexFile(file).exists());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#MappedFrameFile(java.io.File)}
+   * with an index file older than the data file.
+   */
+  @Test
+  public void testMappedFrameFileStaleIndex() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      for (int x = 0; x < 50; x++) {
+        out.write(new DataField(new DataFrame().set("seq", x)).getBytes());
+      }
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file)) {
+      assertEquals(50, frames.size());
+    }
+
+    // appending makes the index stale and a partial frame is not indexed
+    long appended = file.length();
+    try (FileOutputStream out = new FileOutputStream(file, true)) {
+      for (int x = 0; x < 50; x++) {
+        out.write(new DataField(new DataFrame().set("seq", x)).getBytes());
+      }
+      out.write(new DataField(new DataFrame().set("seq", 1).set("payload", new byte[100])).getBytes(), 0, 20);
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file)) {
+      assertEquals(100, frames.size());
+      assertEquals(file.length() - 20, frames.getLength());
+      assertEquals(49, frames.get(99).getAsInt("seq"));
+      assertEquals(appended, frames.getOffset(50));
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#MappedFrameFile(java.io.File)}
+   * with an index file whose count or offsets do not describe the data file.
+   */
+  @Test
+  public void testMappedFrameFileCorruptIndex() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    long[] offsets = new long[50];
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      for (int x = 0; x < 50; x++) {
+        offsets[x] = file.length();
+        out.write(new DataField(new DataFrame().set("seq", x).set("payload", new byte[x * 10])).getBytes());
+      }
+    }
+    File index = MappedFrameFile.getIndexFile(file);
+
+    // the count follows a 24 octet header and the offsets follow the count
+    long[][] corruptions = { { 24, -1 }, { 24, 0 }, { 24, Integer.MAX_VALUE }, { 28 + 8 * 2, offsets[1] }, { 28 + 8 * 50, file.length() + 1 }, { 28, 5 } };
+    for (long[] corruption : corruptions) {
+      try (MappedFrameFile frames = new MappedFrameFile(file)) {
+        assertEquals(50, frames.size());
+      }
+      try (RandomAccessFile raf = new RandomAccessFile(index, "rw")) {
+        raf.seek(corruption[0]);
+        if (corruption[0] == 24) {
+          raf.writeInt((int)corruption[1]);
+        } else {
+          raf.writeLong(corruption[1]);
+        }
+      }
+      try (MappedFrameFile frames = new MappedFrameFile(file)) {
+        assertEquals(50, frames.size());
+        for (int x = 0; x < 50; x++) {
+          assertEquals(offsets[x], frames.getOffset(x));
+          assertEquals(x, frames.get(x).getAsInt("seq"));
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#get(int)}.
+   */
+  @Test
+  public void testGet() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(new DataField(new DataFrame().set("seq", 0).set("name", "frame0")).getBytes());
+      out.write(new DataField(new DataFrame().set("seq", 1).set("name", "frame1")).getBytes());
+      out.write(new DataField("one", 1).getBytes());
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file, false)) {
+      assertTrue(Arrays.equals(new DataFrame().set("seq", 1).set("name", "frame1").getBytes(), frames.get(1).getBytes()));
+      assertEquals(0, frames.get(0).getAsInt("seq"));
+      // fields which are not frames are wrapped in one
+      assertEquals(1, frames.get(2).getAsInt("one"));
+      try {
+        frames.get(3);
+        fail("Should not read past the last frame");
+      } catch (IndexOutOfBoundsException e) {
+        // expected
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#getView(int)}.
+   */
+  @Test
+  public void testGetView() throws IOException, DataFrameException {
+    File file = folder.newFile("fields.dat");
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(new DataField("one", 1).getBytes());
+      out.write(new DataField(new DataFrame().set("seq", 2)).getBytes());
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file, false)) {
+      assertEquals(2, frames.getView(1).getAsInt("seq"));
+      try {
+        frames.getView(0);
+        fail("Should not view a field which is not a frame");
+      } catch (DecodeException e) {
+        // expected
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#getAt(long)}.
+   */
+  @Test
+  public void testGetAt() throws IOException, DataFrameException {
+    File file = folder.newFile("frames.dat");
+    byte[] first = new DataField(new DataFrame().set("seq", 0)).getBytes();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(first);
+      out.write(new DataField(new DataFrame().set("seq", 1).set("name", "frame1")).getBytes());
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file, false)) {
+      assertEquals(1, frames.getAt(first.length).getAsInt("seq"));
+      assertEquals("frame1", frames.getViewAt(first.length).getAsString("name"));
+      try {
+        frames.getAt(first.length + 1);
+        fail("Should not read from the middle of a frame");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.MappedFrameFile#ordinalOf(long)}.
+   */
+  @Test
+  public void testOrdinalOf() throws IOException {
+    File file = folder.newFile("frames.dat");
+    byte[] first = new DataField(new DataFrame().set("seq", 0)).getBytes();
+    try (FileOutputStream out = new FileOutputStream(file)) {
+      out.write(first);
+      out.write(new DataField(new DataFrame().set("seq", 1)).getBytes());
+    }
+    try (MappedFrameFile frames = new MappedFrameFile(file, false)) {
+      assertEquals(0, frames.ordinalOf(0));
+      assertEquals(1, frames.ordinalOf(first.length));
+      assertEquals(-1, frames.ordinalOf(first.length + 1));
+      assertEquals(first.length, frames.getOffset(1));
+    }
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class NameCacheTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.NameCache#get(byte[], int, int)}
+   * with names which hash to the same set.
+   */
+  @Test
+  public void testGetColliding() {
+    // find names which share a set with the first
+    final List<byte[]> names = new ArrayList<byte[]>();
+    names.add("name0".getBytes(StandardCharsets.UTF_8));
+    final int set = NameCache.set(NameCache.hash(names.get(0), 0, names.get(0).length));
+    for (int x = 1; names.size() < 6; x++) {
+      final byte[] data = ("name" + x).getBytes(StandardCharsets.UTF_8);
+      if (NameCache.set(NameCache.hash(data, 0, data.length)) == set) {
+        names.add(data);
+      }
+    }
+
+    // two colliding names alternating keep their instances
+    final byte[] first = names.get(0);
+    final byte[] second = names.get(1);
+    final String one = NameCache.get(first, 0, first.length);
+    final String two = NameCache.get(second, 0, second.length);
+    for (int x = 0; x < 10; x++) {
+      assertSame(one, NameCache.get(first, 0, first.length));
+      assertSame(two, NameCache.get(second, 0, second.length));
+      assertSame(one, NameCache.get(ByteBuffer.wrap(first).asReadOnlyBuffer(), 0, first.length));
+    }
+
+    // more colliding names than the set holds still decode correctly
+    for (int x = 0; x < 3; x++) {
+      for (final byte[] data : names) {
+        assertEquals(new String(data, StandardCharsets.UTF_8), NameCache.get(data, 0, data.length));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.dataframe;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+
+/**
+ *
+ */
+public class PackedFrameTest {
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#PackedFrame(coyote.dataframe.DataFrame)}.
+   */
+  @Test
+  public void testPackedFrame() {
+    DataFrame frame = new DataFrame();
+    frame.add("name", "widget");
+    frame.add("count", 70000);
+    frame.add("when", new Date(1000));
+    frame.add("child", new DataFrame().set("a", 1));
+    frame.add(null, "unnamed");
+    frame.add("none", null);
+    PackedFrame packed = new PackedFrame(frame);
+    assertEquals(frame.getFieldCount(), packed.getFieldCount());
+    assertArrayEquals(frame.getBytes(), packed.getBytes());
+    assertEquals(frame.getEncodedSize(), packed.getEncodedSize());
+    assertEquals(frame.toString(), packed.toString());
+    assertEquals(6, packed.getNames().size());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#PackedFrame(byte[], int, int)}
+   * with truncated data.
+   */
+  @Test
+  public void testPackedFrameTruncated() {
+    byte[] data = new DataFrame().set("value", "text").getBytes();
+    try {
+      new PackedFrame(data, 0, data.length - 1);
+      fail("Should reject truncated data");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#PackedFrame(byte[])}
+   * with a value length which overflows when added to its position.
+   */
+  @Test
+  public void testPackedFrameMalformedLength() {
+    byte[] data = new byte[40];
+    data[0] = 1;
+    data[1] = 'n';
+    data[2] = (byte)DataField.STRING;
+    data[3] = 0x7F;
+    data[4] = (byte)0xFF;
+    data[5] = (byte)0xFF;
+    data[6] = (byte)0xF0;
+    try {
+      new PackedFrame(data);
+      fail("Should reject a length beyond the data");
+    } catch (DecodeException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getName(int)}.
+   */
+  @Test
+  public void testGetName() {
+    DataFrame frame = new DataFrame().set("name", "widget");
+    frame.add(null, "unnamed");
+    PackedFrame packed = new PackedFrame(frame);
+    assertEquals("name", packed.getName(0));
+    assertNull(packed.getName(1));
+
+    // names are shared between frames decoded from the same data
+    PackedFrame other = new PackedFrame(frame.getBytes());
+    assertSame(packed.getName(0), other.getName(0));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getType(int)}.
+   */
+  @Test
+  public void testGetType() {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("name", "widget").set("none", null));
+    assertEquals(DataField.STRING, packed.getType(0));
+    assertEquals(DataField.UDEF, packed.getType(1));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getObject(java.lang.String)}.
+   */
+  @Test
+  public void testGetObject() {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("name", "widget").set("none", null));
+    assertEquals("widget", packed.getObject("name"));
+    assertNull(packed.getObject("none"));
+    assertNull(packed.getObject("missing"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsString(int)}.
+   */
+  @Test
+  public void testGetAsString() {
+    DataFrame frame = new DataFrame().set("name", "widget");
+    frame.add(null, "unnamed");
+    PackedFrame packed = new PackedFrame(frame);
+    assertEquals("widget", packed.getAsString("name"));
+    assertEquals("unnamed", packed.getAsString(1));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsInt(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsInt() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("count", 70000).set("small", (short)-3).set("big", Long.MAX_VALUE));
+    assertEquals(70000, packed.getAsInt("count"));
+    assertEquals(-3, packed.getAsInt("small"));
+    try {
+      packed.getAsInt("big");
+      fail("Should not narrow a long which does not fit");
+    } catch (DataFrameException e) {
+      // expected
+    }
+    try {
+      packed.getAsInt("missing");
+      fail("Should report missing fields");
+    } catch (DataFrameException e) {
+      // expected
+    }
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsLong(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsLong() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("count", 70000).set("big", Long.MAX_VALUE));
+    assertEquals(Long.MAX_VALUE, packed.getAsLong("big"));
+    assertEquals(70000L, packed.getAsLong("count"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsDouble(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsDouble() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("count", 70000).set("ratio", 0.5D).set("scale", 1.5F));
+    assertEquals(0.5D, packed.getAsDouble("ratio"), 0);
+    assertEquals(1.5D, packed.getAsDouble("scale"), 0);
+    assertEquals(70000D, packed.getAsDouble("count"), 0);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsFloat(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsFloat() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("scale", 1.5F));
+    assertEquals(1.5F, packed.getAsFloat("scale"), 0);
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsBoolean(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsBoolean() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("flag", true));
+    assertTrue(packed.getAsBoolean("flag"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsDate(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsDate() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("when", new Date(1000)));
+    assertEquals(new Date(1000), packed.getAsDate("when"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#getAsFrame(java.lang.String)}.
+   */
+  @Test
+  public void testGetAsFrame() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("child", new DataFrame().set("a", 1)));
+    assertEquals(1, packed.getAsFrame("child").getAsInt("a"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#add(java.lang.String, java.lang.Object)}.
+   */
+  @Test
+  public void testAdd() {
+    PackedFrame packed = new PackedFrame();
+    assertTrue(packed.isEmpty());
+    packed.add("a", 1);
+    packed.add("b", "two");
+    packed.add("c", 3L);
+    packed.add("d", 4.0D);
+    packed.add("e", false);
+    packed.add(new DataField("f", new byte[] { 1, 2 }));
+
+    DataFrame frame = new DataFrame().set("a", 1).set("b", "two").set("c", 3L).set("d", 4.0D).set("e", false).set("f", new byte[] { 1, 2 });
+    assertArrayEquals(frame.getBytes(), packed.getBytes());
+    assertArrayEquals(frame.getBytes(), packed.toFrame().getBytes());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#write(byte[], int)}.
+   */
+  @Test
+  public void testWrite() {
+    DataFrame frame = new DataFrame().set("a", 1).set("b", "two");
+    PackedFrame packed = new PackedFrame(frame);
+    byte[] buffer = new byte[packed.getEncodedSize() + 2];
+    assertEquals(buffer.length, packed.write(buffer, 2));
+    assertArrayEquals(frame.getBytes(), new DataFrame(buffer, 2, buffer.length - 2).getBytes());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#put(java.lang.String, java.lang.Object)}.
+   */
+  @Test
+  public void testPut() throws DataFrameException {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("a", 1).set("b", "short").set("c", 3));
+
+    // same size, written in place
+    assertEquals(0, packed.put("a", 2));
+    assertEquals(2, packed.getAsInt("a"));
+
+    // larger and smaller values move the fields after them
+    packed.put("b", "a much longer value");
+    assertEquals("a much longer value", packed.getAsString("b"));
+    assertEquals(3, packed.getAsInt("c"));
+    packed.put("a", 1L << 40);
+    assertEquals(1L << 40, packed.getAsLong("a"));
+    packed.put("a", 5);
+    packed.put("b", "x");
+    assertEquals(5, packed.getAsInt("a"));
+    assertEquals("x", packed.getAsString("b"));
+    assertEquals(3, packed.getAsInt("c"));
+
+    // new names are added
+    assertEquals(3, packed.put("d", 2.5D));
+    assertEquals(2.5D, packed.getAsDouble("d"), 0);
+
+    // null removes
+    packed.put("b", null);
+    assertFalse(packed.contains("b"));
+    assertEquals(3, packed.getAsInt("c"));
+    assertEquals(3, packed.size());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#remove(java.lang.String)}.
+   */
+  @Test
+  public void testRemove() {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("a", 5).set("c", 3));
+    DataField removed = packed.remove("a");
+    assertEquals(5, ((Number)removed.getObjectValue()).intValue());
+    assertNull(packed.remove("a"));
+    assertEquals(0, packed.indexOf("c"));
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#trimToSize()}.
+   */
+  @Test
+  public void testTrimToSize() {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("b", "a much longer value").set("c", 3));
+    packed.put("b", null);
+    packed.put("d", 2.5D);
+    packed.trimToSize();
+    assertArrayEquals(new DataFrame().set("c", 3).set("d", 2.5D).getBytes(), packed.getBytes());
+  }
+
+
+
+
+  /**
+   * Test method for {@link coyote.dataframe.PackedFrame#clear()}.
+   */
+  @Test
+  public void testClear() {
+    PackedFrame packed = new PackedFrame(new DataFrame().set("c", 3));
+    packed.clear();
+    assertTrue(packed.isEmpty());
+    assertEquals(0, packed.getBytes().length);
+  }
+
+}
@@ -10,6 +10,7 @@ package coyote.dataframe.marshal;
 //import static org.junit.Assert.*;
 
 import coyote.commons.ByteUtil;
+import coyote.dataframe.CompressedFrame;
 import coyote.dataframe.DataField;
 import coyote.dataframe.DataFrame;
 import coyote.dataframe.DataFrameException;
@@ -357,4 +358,12 @@ public class JSONMarshalTest {
     assertNotNull(field);
   }
 
+
+  @Test
+  public void marshalCompressedFrame() {
+    DataFrame child = new DataFrame().set("a", 1).set("b", "two");
+    DataFrame frame = new DataFrame().set("plain", child).set("zipped", new CompressedFrame(child));
+    assertEquals("{\"plain\":{\"a\":1,\"b\":\"two\"},\"zipped\":{\"a\":1,\"b\":\"two\"}}", JSONMarshaler.marshal(frame));
+  }
+
 }
@@ -17,6 +17,7 @@ import java.util.List;
 
 import org.junit.Test;
 
+import coyote.dataframe.CompressedFrame;
 import coyote.dataframe.DataField;
 import coyote.dataframe.DataFrame;
 
@@ -168,4 +169,15 @@ public class XMLMarshalerTest {
     fail("Not yet implemented");
   }
 
+
+
+
+  @Test
+  public void marshalCompressedFrame() {
+    DataFrame child = new DataFrame().set("a", 1).set("b", "two");
+    DataFrame frame = new DataFrame().set("plain", child).set("zipped", new CompressedFrame(child));
+    String xml = XMLMarshaler.marshal(frame);
+    assertEquals("<frame><plain><frame><frame><a>1</a><b>two</b></frame></frame></plain><zipped><frame><frame><a>1</a><b>two</b></frame></frame></zipped></frame>", xml);
+  }
+
 }